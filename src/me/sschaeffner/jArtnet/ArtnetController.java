@@ -17,16 +17,21 @@
  */
 package me.sschaeffner.jArtnet;
 
-import me.sschaeffner.jArtnet.packets.ArtPollPacket;
-import me.sschaeffner.jArtnet.packets.ArtPollReplyPacket;
-import me.sschaeffner.jArtnet.packets.ArtnetPacket;
+import me.sschaeffner.jArtnet.packets.*;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.*;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * An Art-Net Controller.
@@ -38,79 +43,195 @@ import java.util.Set;
  */
 public class ArtnetController {
 
-    //controller style code
-    private static final int STYLE_CODE = ArtnetStyleCodes.ST_CONTROLLER;
+    //port type of advertised ports: Art-Net protocol, input and output bits are added per port
+    private static final int PORT_TYPE_ARTNET = 0b00000101;
 
-    //list of all connected nodes
-    private final ArrayList<ArtnetNode> nodes;
+    //maximum number of ArtPollReply packets (bind indexes 1 to 255)
+    private static final int MAX_POLL_REPLY_PAGES = 255;
 
-    //server socket to send and receive Art-Net packets with
-    private final DatagramSocket socket;
+    //size of send and receive buffers (the largest packet, ArtDmx, is 530 bytes)
+    private static final int MAX_PACKET_LENGTH = 600;
 
-    //host address
-    private NetworkAddress host;
+    //number of pollers whose last ArtPollReply is remembered for rate limiting
+    private static final int MAX_POLLERS = 1024;
 
-    //listening port
-    private int port;
+    //registry of all connected nodes
+    private final ArtnetNodeRegistry nodes;
+
+    //transport to send and receive Art-Net packets with
+    private final ArtnetTransport transport;
+
+    //all network addresses served by the transport
+    private final ArtnetInterface[] interfaces;
+
+    //addresses packets of this controller are received from: the interface addresses and the local host's address
+    private final InetAddress[] ownAddresses;
+
+    //port of other Art-Net devices (sent to and accepted from)
+    private volatile int remotePort;
 
     //receiver thread listening for Art-Net packets
     private final Thread receiverThread;
 
-    //set of packetListeners for received Art-Net packets
-    private final Set<ArtnetPacketListener> packetListeners;
+    //packetListeners for received Art-Net packets mapped to their dispatchers (holding the subscribed opcodes)
+    private final Map<ArtnetPacketListener, ArtnetListenerDispatcher> packetListeners;
+
+    //all opcodes any packetListener is subscribed to
+    private volatile BitSet subscribedOpCodes = new BitSet();
+
+    //set of listeners for received packets that are not decoded
+    private final Set<ArtnetPacketViewListener> packetViewListeners;
+
+    //reusable views handed to packetViewListeners
+    private final ReceivedDmxPacketView dmxPacketView = new ReceivedDmxPacketView();
+    private final ReceivedNzsPacketView nzsPacketView = new ReceivedNzsPacketView();
+    private final ReceivedPollReplyPacketView pollReplyPacketView = new ReceivedPollReplyPacketView();
 
     //set of packetListeners for newly discovered Art-Net nodes
     private final Set<ArtnetNodeListener> nodeListeners;
 
+    //reusable result for decoding received packets on the receiver thread
+    private final ArtnetDecodeResult decodeResult = new ArtnetDecodeResult();
+
+    //merged frame of the last received ArtDmx packet (only used on the receiver thread)
+    private final byte[] mergeBuffer = new byte[ArtnetUniverseStore.FRAME_SIZE];
+
+    //number of rejected packets per ArtnetDecodeStatus
+    private final AtomicLongArray rejectedPackets = new AtomicLongArray(ArtnetDecodeStatus.values().length);
+
+    //built-in metrics (registered as JMX MBean)
+    private final ArtnetControllerMetrics controllerMetrics;
+    private ObjectName mBeanName;
+
+    //metrics that receive events
+    private volatile ArtnetMetrics metrics;
+
+    //sequence number of the last sent DMX512 frame per Port-Address (0 if none was sent)
+    private final AtomicIntegerArray sendSequences = new AtomicIntegerArray(0x8000);
+
+    //whether ArtDmx and ArtNzs packets with sequence number 0 are numbered when sent
+    private volatile boolean sequenceNumbering = true;
+
+    //sequence numbers of received DMX512 frames per sender and Port-Address
+    private final ArtnetSequenceTracker sequenceTracker = new ArtnetSequenceTracker();
+
+    //text trace of received and sent packets (off by default)
+    private final ArtnetTrace trace = new ArtnetTrace();
+
+    //current frame of every Port-Address, null until enabled
+    private volatile ArtnetUniverseStore universeStore;
+
+    //merges ArtDmx frames of several sources per Port-Address, null until enabled
+    private volatile ArtnetMerger merger;
+
+    //per-thread buffers for encoding outgoing packets
+    private final ThreadLocal<SendBuffer> sendBuffers = ThreadLocal.withInitial(SendBuffer::new);
+
+    //fixed-rate DMX output (created on demand)
+    private ArtnetFrameScheduler frameScheduler;
+
+    //periodic polling and node expiry (created on demand)
+    private volatile ArtnetNodeMonitor nodeMonitor;
+
+    //identity reported in ArtPollReply packets
+    private volatile String shortName = "jArtnet";
+    private volatile String longName = "jArtnet - An Art-Net library for Java by Simon Schaeffner";
+    private volatile int oem = 0xFFFF;
+    private volatile int estaManufacturer = 0;
+    private volatile byte styleCode = ArtnetStyleCodes.ST_CONTROLLER;
+
+    //advertised ports and the same ports grouped into one ArtPollReply per group
+    private volatile List<ArtnetPort> ports = Collections.singletonList(ArtnetPort.input(0));
+    private volatile ArtnetPort[][] portPages = toPortPages(ports);
+
+    //encoded ArtPollReply packets of every interface (same index), null until needed or after the replies changed
+    private final AtomicReferenceArray<byte[][]> pollReplies;
+    private final AtomicInteger pollReplyVersion = new AtomicInteger();
+
+    //maximum random delay of ArtPollReply packets and minimum interval between replies to the same poller
+    private volatile int pollReplyDelay = 1000;
+    private volatile int pollReplyInterval = 1000;
+
+    //time of the last reply to every poller per interface (same index), only used by the receiver thread
+    private final HashMap<InetAddress, long[]> lastPollReplies = new HashMap<>();
+
+    //sends delayed ArtPollReply packets (created on demand)
+    private ScheduledExecutorService pollReplyScheduler;
+
+    //number of subscribed ip addresses of a Port-Address above which packets are broadcast instead of unicast
+    private volatile int broadcastThreshold = 40;
+
     //whether to ignore packets sent from this controller
     private boolean ignoreOwnPackets = true;
 
-    //whether the controller is currently running
-    private boolean running = true;
-
     /**
      * Constructs a new instance of this class.
      */
     protected ArtnetController(NetworkAddress host, int port) throws IOException {
-        this.host = host;
-        this.port = port;
-        this.nodes = new ArrayList<>();
-        this.packetListeners = new HashSet<>();
-        this.nodeListeners = new HashSet<>();
+        this(host, port, false);
+    }
 
-        //open udp socket
-        try {
-            socket = new DatagramSocket(this.port);
-        } catch (SocketException e) {
-            e.printStackTrace();
-            throw new IOException("cannot start ArtnetController: cannot open socket");
-        }
+    /**
+     * Constructs a new instance of this class.
+     *
+     * @param host          host address of the controller
+     * @param port          port to listen on
+     * @param useChannel    whether to receive with a DatagramChannel into a reusable direct buffer instead of a
+     *                      blocking DatagramSocket
+     */
+    protected ArtnetController(NetworkAddress host, int port, boolean useChannel) throws IOException {
+        this(new NetworkAddress[]{host}, port, useChannel);
+    }
+
+    /**
+     * Constructs a new instance of this class serving several network addresses.
+     *
+     * With a single address the controller listens on the wildcard address like before. With several addresses
+     * every address gets its own channel (see {@link ArtnetNioTransport}); nio is always used then. All interfaces
+     * share the node registry and listeners.
+     *
+     * @param hosts         host addresses of the controller
+     * @param port          port to listen on (0 for an ephemeral port shared by all addresses)
+     * @param useChannel    whether to receive with a DatagramChannel into a reusable direct buffer instead of a
+     *                      blocking DatagramSocket (single address only)
+     */
+    protected ArtnetController(NetworkAddress[] hosts, int port, boolean useChannel) throws IOException {
+        this(openTransport(hosts, port, useChannel));
+    }
+
+    /**
+     * Constructs a new instance of this class sending and receiving with a given transport.
+     *
+     * The controller closes the transport when it is closed. Other Art-Net devices are expected on the transport's
+     * local port until {@link #setRemotePort(int)} is called.
+     *
+     * @param transport an open transport
+     */
+    protected ArtnetController(ArtnetTransport transport) {
+        if (transport.getInterfaces().isEmpty()) throw new IllegalArgumentException("cannot start ArtnetController: no host address");
+        this.transport = transport;
+        this.interfaces = transport.getInterfaces().toArray(new ArtnetInterface[0]);
+        this.ownAddresses = resolveOwnAddresses(interfaces);
+        this.pollReplies = new AtomicReferenceArray<>(interfaces.length);
+        this.remotePort = transport.getLocalPort();
+        this.nodes = new ArtnetNodeRegistry();
+        this.controllerMetrics = new ArtnetControllerMetrics(nodes);
+        this.metrics = controllerMetrics;
+        this.packetListeners = new ConcurrentHashMap<>();
+        this.packetViewListeners = new CopyOnWriteArraySet<>();
+        this.nodeListeners = new CopyOnWriteArraySet<>();
+
+        registerMBean();
 
         //start receiver thread
         this.receiverThread = new Thread(() -> {
             try {
-                System.out.println("Listening on " + host.getInterfaceAddress().getAddress() + ":" + this.port);
-
-                byte[] receiveData = new byte[600];
-                DatagramPacket receivePacket = new DatagramPacket(receiveData, 0, receiveData.length);
-
-                while (running) {
-                    if (!socket.isClosed()) {
-                        try {
-                            socket.receive(receivePacket);
-                            byte[] data = receivePacket.getData();
-                            InetAddress packetSender = receivePacket.getAddress();
-                            int packetPort = receivePacket.getPort();
-                            onPacketReceive(data, packetSender, packetPort);
-                        } catch (SocketException e) {
-                            //do nothing as the socket is just closed
-                        } catch (MalformedArtnetPacketException e) {
-                            System.err.println("received malformed packet (" + e.getMessage() + ")");
-                            //TODO print stacktrace to separate log
-                        }
-                    }
+                for (ArtnetInterface artnetInterface : interfaces) {
+                    System.out.println("Listening on " + artnetInterface.getAddress() + ":" + getLocalPort());
                 }
 
+                transport.receive(this::onDatagram);
+
             } catch (java.io.IOException e) {
                 e.printStackTrace();
             }
@@ -118,6 +239,39 @@ public class ArtnetController {
         this.receiverThread.start();
     }
 
+    /**
+     * Opens the transport matching the socket constructors.
+     */
+    private static ArtnetTransport openTransport(NetworkAddress[] hosts, int port, boolean useChannel) throws IOException {
+        if (hosts.length == 0) throw new IllegalArgumentException("cannot start ArtnetController: no host address");
+        if (hosts.length > 1 || useChannel) return new ArtnetNioTransport(hosts, port);
+        return new ArtnetUdpTransport(hosts[0], port);
+    }
+
+    /**
+     * Handles a datagram received by the transport.
+     */
+    private void onDatagram(ByteBuffer data, InetAddress sender, int port, ArtnetInterface receivedOn) {
+        try {
+            onPacketReceive(data, sender, port, receivedOn);
+        } catch (MalformedArtnetPacketException e) {
+            System.err.println("cannot handle received packet (" + e.getMessage() + ")");
+            //TODO print stacktrace to separate log
+        }
+    }
+
+    /**
+     * Returns the interface to send to an address with.
+     *
+     * @param address   an ip address
+     * @return          the interface whose subnet contains the address, the first interface otherwise
+     */
+    private ArtnetInterface getSendInterface(InetAddress address) {
+        if (interfaces.length == 1) return interfaces[0];
+        ArtnetInterface artnetInterface = ArtnetInterface.findSubnetInterface(interfaces, address);
+        return artnetInterface != null ? artnetInterface : interfaces[0];
+    }
+
     /**
      * Tries to discover nodes by sending an ArtPoll packet.
      */
@@ -127,83 +281,200 @@ public class ArtnetController {
     }
 
     /**
-     * Constructs an ArtPollReply packet matching this controller.
+     * Constructs the ArtPollReply packets matching this controller, one per group of up to 4 ports.
      *
-     * @return an ArtPollReplyPacket matching this controller
+     * @param artnetInterface   interface to report the address of
+     * @return ArtPollReplyPackets matching this controller, with the bind indexes 1 to n
      */
-    private ArtPollReplyPacket constructArtPollReplyPacket() throws MalformedArtnetPacketException {
-        InetAddress address = this.host.getInterfaceAddress().getAddress();
-        byte versInfoH = (byte) 0;
-        byte versInfoL = (byte) 1;
-        byte netSwitch = 0, subSwitch = 0;
-        byte oemHi = (byte)0xff, oem = (byte)0xFF;
+    private ArtPollReplyPacket[] constructArtPollReplyPackets(ArtnetInterface artnetInterface) throws MalformedArtnetPacketException {
+        InetAddress address = artnetInterface.getAddress();
+        int versInfo = 1;
         byte ubeaVersion = 0;
         byte status1 = (byte) 0b00110000;
-        byte estaManLo = 0, estaManHi = 0;
-        byte[] shortName = new byte[]{'j', 'A', 'r', 't', 'n', 'e', 't', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', 0};
-        byte[] longName = new byte[]{'j', 'A', 'r', 't', 'n', 'e', 't', ' ', '-', ' ', 'A', 'n', ' ', 'A', 'r', 't', '-',
-                                     'N', 'e', 't', ' ', 'l', 'i', 'b', 'r', 'a', 'r', 'y', ' ', 'f', 'o', 'r', ' ', 'J',
-                                     'a', 'v', 'a', ' ', 'b', 'y', ' ', 'S', 'i', 'm', 'o', 'n', ' ', 'S', 'c', 'h', 'a',
-                                     'e', 'f', 'f', 'n', 'e', 'r', ' ', ' ', ' ', ' ', ' ', ' ', 0};
-        byte[] nodeReport = new byte[]{'r', 'e', 'a', 'd', 'y', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ',
-                                       ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ',
-                                       ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ',
-                                       ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', ' ', 0};
-        byte numPortsHi = 0, numPortsLo = 1;
-        byte[] portTypes = new byte[]{0b001000101, 0b001000101, 0b001000101, 0b001000101};
-        byte[] goodInput = new byte[]{0b0000, 0b0000, 0b0000, 0b0000}, goodOutput = new byte[]{(byte)0b10000000, (byte)0b10000000, (byte)0b10000000, (byte)0b10000000};
-        byte[] swIn = new byte[]{0, 0, 0, 0}, swOut = new byte[]{0, 0, 0, 0};
+        String nodeReport = "ready";
         byte swVideo = 0;
         byte swMacro = 0;
         byte swRemote = 0;
-        byte style = STYLE_CODE;
-        byte[] mac = new byte[6];
-        try {
-            mac = this.host.getNetworkInterface().getHardwareAddress();
-        } catch (SocketException e) {
-            e.printStackTrace();
-        }
-        if (mac == null) mac = new byte[6];
-        byte[] bindIp = new byte[]{0, 0, 0, 0};
-        byte bindIndex = 0;
+        byte[] mac = artnetInterface.getHardwareAddress();
+        byte[] bindIp = address instanceof Inet4Address ? address.getAddress() : new byte[]{0, 0, 0, 0};
         byte status2 = 0b00001110;
 
-        return new ArtPollReplyPacket(address, versInfoH, versInfoL, netSwitch, subSwitch, oemHi, oem, ubeaVersion,
-                status1, estaManLo, estaManHi, shortName, longName, nodeReport, numPortsHi, numPortsLo, portTypes,
-                goodInput, goodOutput, swIn, swOut, swVideo, swMacro, swRemote, style, mac, bindIp, bindIndex, status2);
+        ArtnetPort[][] pages = portPages;
+        ArtPollReplyPacket[] packets = new ArtPollReplyPacket[pages.length];
+        for (int page = 0; page < pages.length; page++) {
+            ArtnetPort[] pagePorts = pages[page];
+            int netSubNet = pagePorts.length > 0 ? pagePorts[0].getNetSubNet() : 0;
+            byte[] portTypes = new byte[4], goodInput = new byte[4], goodOutput = new byte[4];
+            byte[] swIn = new byte[4], swOut = new byte[4];
+            for (int i = 0; i < pagePorts.length; i++) {
+                ArtnetPort port = pagePorts[i];
+                portTypes[i] = (byte) (PORT_TYPE_ARTNET | (port.isOutput() ? 0x80 : 0) | (port.isInput() ? 0x40 : 0));
+                //data is being transmitted
+                if (port.isOutput()) goodOutput[i] = (byte) 0x80;
+                if (port.isInput()) swIn[i] = (byte) (port.getPortAddress() & 0x0F);
+                if (port.isOutput()) swOut[i] = (byte) (port.getPortAddress() & 0x0F);
+            }
+
+            packets[page] = new ArtPollReplyPacket(address, versInfo, (byte) (netSubNet >> 4), (byte) (netSubNet & 0x0F),
+                    oem, ubeaVersion, status1, estaManufacturer, shortName, longName, nodeReport, pagePorts.length,
+                    portTypes, goodInput, goodOutput, swIn, swOut, swVideo, swMacro, swRemote, styleCode, mac, bindIp,
+                    (byte) (page + 1), status2);
+        }
+        return packets;
+    }
+
+    /**
+     * Groups ports into the ports of ArtPollReply packets.
+     *
+     * A group has up to 4 consecutive ports with the same Net and Sub-Net. Without ports, there is one empty group.
+     *
+     * @param ports advertised ports
+     * @return      the groups in the order of the ports
+     */
+    private static ArtnetPort[][] toPortPages(List<ArtnetPort> ports) {
+        List<ArtnetPort[]> pages = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= ports.size(); i++) {
+            if (i == ports.size() || i - start == 4 || ports.get(i).getNetSubNet() != ports.get(start).getNetSubNet()) {
+                pages.add(ports.subList(start, i).toArray(new ArtnetPort[0]));
+                start = i;
+            }
+        }
+        if (pages.isEmpty()) pages.add(new ArtnetPort[0]);
+        return pages.toArray(new ArtnetPort[0][]);
+    }
+
+    /**
+     * Returns the encoded ArtPollReply packets of an interface.
+     *
+     * The replies are encoded on first use and cached until {@link #invalidatePollReplies()} is called.
+     *
+     * @param artnetInterface   one of the controller's interfaces
+     * @return                  the encoded packets
+     */
+    private byte[][] getPollReplies(ArtnetInterface artnetInterface) throws MalformedArtnetPacketException {
+        int index = indexOf(artnetInterface);
+        byte[][] replies = pollReplies.get(index);
+        if (replies == null) {
+            int version = pollReplyVersion.get();
+            ArtPollReplyPacket[] packets = constructArtPollReplyPackets(artnetInterface);
+            ByteBuffer buffer = ByteBuffer.allocate(MAX_PACKET_LENGTH);
+            replies = new byte[packets.length][];
+            for (int i = 0; i < packets.length; i++) {
+                buffer.clear();
+                replies[i] = Arrays.copyOf(buffer.array(), packets[i].encode(buffer, 0));
+            }
+            pollReplies.set(index, replies);
+            //do not keep replies the configuration changed during encoding
+            if (pollReplyVersion.get() != version) pollReplies.compareAndSet(index, replies, null);
+        }
+        return replies;
+    }
+
+    /**
+     * Discards the cached ArtPollReply packets, e.g. after the reported identity or ports changed.
+     */
+    private void invalidatePollReplies() {
+        pollReplyVersion.incrementAndGet();
+        for (int i = 0; i < interfaces.length; i++) pollReplies.set(i, null);
+    }
+
+    private int indexOf(ArtnetInterface artnetInterface) {
+        for (int i = 0; i < interfaces.length; i++) {
+            if (interfaces[i] == artnetInterface) return i;
+        }
+        throw new IllegalArgumentException("not an interface of this controller: " + artnetInterface);
+    }
+
+    /**
+     * Returns whether to answer an ArtPoll, i.e. whether the poller was not answered on the interface within the
+     * last {@link #setPollReplyInterval(int) pollReplyInterval}.
+     *
+     * Called on the receiver thread only.
+     *
+     * @param poller            the ArtPoll's sender
+     * @param artnetInterface   interface the ArtPoll was received on
+     * @return                  whether to reply
+     */
+    private boolean acceptPoll(InetAddress poller, ArtnetInterface artnetInterface) {
+        long interval = TimeUnit.MILLISECONDS.toNanos(pollReplyInterval);
+        if (interval == 0) return true;
+        long now = System.nanoTime();
+
+        long[] lastReplies = lastPollReplies.get(poller);
+        if (lastReplies == null) {
+            //forget pollers that were answered long enough ago, reject new ones if there are still too many
+            if (lastPollReplies.size() >= MAX_POLLERS) {
+                lastPollReplies.values().removeIf(times -> {
+                    for (long time : times) if (time != 0 && now - time < interval) return false;
+                    return true;
+                });
+                if (lastPollReplies.size() >= MAX_POLLERS) return false;
+            }
+            lastReplies = new long[interfaces.length];
+            lastPollReplies.put(poller, lastReplies);
+        }
+
+        int index = indexOf(artnetInterface);
+        if (lastReplies[index] != 0 && now - lastReplies[index] < interval) return false;
+        //0 marks pollers that were never answered
+        lastReplies[index] = now == 0 ? 1 : now;
+        return true;
     }
 
     /**
-     * Returns an ArtPollReplyPacket to a given sender.
+     * Returns the ArtPollReplyPackets to a given sender.
      *
-     * Called upon receiving an ArtPollPacket.
+     * Called upon receiving an ArtPollPacket. The replies are sent back to back after a random delay of up to
+     * {@link #setPollReplyDelay(int) pollReplyDelay}, so replies of many nodes do not arrive at once.
      *
-     * @param sender InetAddress to send the packet to
+     * @param sender              InetAddress to send the packet to
+     * @param artnetInterface     interface the ArtPollPacket was received on
      */
-    private void returnArtPollReplyPacket(InetAddress sender) throws MalformedArtnetPacketException {
-        byte[] data = constructArtPollReplyPacket().getPacketBytes();
-        DatagramPacket packet = new DatagramPacket(data, data.length, sender, this.port);
+    private void returnArtPollReplyPacket(InetAddress sender, ArtnetInterface artnetInterface) throws MalformedArtnetPacketException {
+        if (!transport.isOpen()) return;
+        byte[][] replies = getPollReplies(artnetInterface);
+        InetSocketAddress address = new InetSocketAddress(sender, this.remotePort);
+
+        int maxDelay = pollReplyDelay;
+        long delay = maxDelay > 0 ? ThreadLocalRandom.current().nextLong(maxDelay + 1) : 0;
+        if (delay == 0) {
+            sendPollReplies(replies, address, artnetInterface);
+        } else {
+            getPollReplyScheduler().schedule(() -> sendPollReplies(replies, address, artnetInterface), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void sendPollReplies(byte[][] replies, InetSocketAddress address, ArtnetInterface artnetInterface) {
+        if (!transport.isOpen()) return;
         try {
-            if (!socket.isClosed()) socket.send(packet);
+            for (byte[] reply : replies) send(ByteBuffer.wrap(reply), address, artnetInterface);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    private synchronized ScheduledExecutorService getPollReplyScheduler() {
+        if (pollReplyScheduler == null) {
+            pollReplyScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "jArtnet poll replies");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return pollReplyScheduler;
+    }
+
     /**
      * Sends an Art-Net packet to a single node.
      *
      * @param artnetPacket packet to send
      */
     public void unicastPacket(ArtnetPacket artnetPacket, ArtnetNode node) throws MalformedArtnetPacketException {
-        if (socket != null && !socket.isClosed()) {
-            InetAddress nodeAddress = node.getInetAddress();
-            if (nodeAddress != null) {
-
-                byte[] data = artnetPacket.getPacketBytes();
-                DatagramPacket packet = new DatagramPacket(data, data.length, nodeAddress, this.port);
+        if (transport.isOpen()) {
+            if (node.getInetAddress() != null) {
                 try {
-                    socket.send(packet);
+                    send(encode(artnetPacket), node.getSocketAddress(this.remotePort), getSendInterface(node.getInetAddress()));
                 } catch (IOException e) {
                     e.printStackTrace();
                 }
@@ -214,222 +485,1183 @@ public class ArtnetController {
     /**
      * Sends an Art-Net packet to all nodes.
      *
+     * With several interfaces, the packet is broadcast on each of them.
+     *
      * @param artnetPacket packet to send
      */
     public void broadcastPacket(ArtnetPacket artnetPacket) throws MalformedArtnetPacketException {
-        if (socket != null && !socket.isClosed()) {
-            if (host != null) {
-                byte[] data = artnetPacket.getPacketBytes();
-                DatagramPacket packet = new DatagramPacket(data, data.length, this.host.getBroadcastAddress(), this.port);
-                try {
-                    socket.send(packet);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            } else {
-                System.err.println("no broadcast address available");
-            }
+        if (transport.isOpen()) {
+            broadcast(encode(artnetPacket));
         } else {
-            System.err.println("no socket available to broadcast");
+            System.err.println("no transport available to broadcast");
         }
     }
 
     /**
-     * Manages what to do when a packet is received.
+     * Broadcasts an encoded packet on every interface.
      *
-     * @param bytes     received data
-     * @param sender    InetAddress of the packet's sender
-     * @param port      packet sender's port
+     * @param sendBuffer    send buffer holding an encoded packet
+     * @return              number of datagrams sent
      */
-    private void onPacketReceive(byte[] bytes, InetAddress sender, int port) throws MalformedArtnetPacketException {
-
-        InetAddress localhost = null;
-        try {
-            localhost = InetAddress.getLocalHost();
-        } catch (UnknownHostException e) {
-            e.printStackTrace();
-        }
-
-        //ignore packets sent from this controller
-        if (!(ignoreOwnPackets && (this.host.getInterfaceAddress().getAddress().equals(sender) || (localhost != null && localhost.equals(sender))))) {
-
-            //ignore packets from wrong subnet or wrong port
-            if (ipIsInHostSubnet(sender) && port == this.port) {
-
-                ArtnetPacket artnetPacket = ArtnetOpCodes.fromBytes(bytes);
-                if (artnetPacket != null) {
-                    if (artnetPacket instanceof ArtPollReplyPacket) {
-                        //if ArtPollReply is sent, add all new nodes to list
-                        handleArtPollReplyPackets((ArtPollReplyPacket) artnetPacket, sender);
-                    } else if (artnetPacket instanceof ArtPollPacket) {
-                        //if ArtPoll is sent, reply with ArtPollReply
-                        returnArtPollReplyPacket(sender);
-                    } else {
-                        //set sender node for other packets
-                        ArtnetNode senderNode = getNodeFromInetAddress(sender);
-                        if (senderNode != null) artnetPacket.setSender(senderNode);
-
-                        System.out.println("RX: " + artnetPacket);
-
-                        //inform packetListeners
-                        packetListeners.forEach(listener -> listener.onArtnetPacketReceive(new ArtnetPacketReceiveEvent(artnetPacket)));
-                    }
-                }
+    private int broadcast(SendBuffer sendBuffer) {
+        int addresses = 0;
+        int sent = 0;
+        for (ArtnetInterface artnetInterface : interfaces) {
+            InetSocketAddress broadcastAddress = artnetInterface.getBroadcastSocketAddress(this.remotePort);
+            if (broadcastAddress == null) continue;
+            addresses++;
+            try {
+                send(sendBuffer, broadcastAddress, artnetInterface);
+                sent++;
+            } catch (IOException e) {
+                e.printStackTrace();
             }
         }
+        if (addresses == 0) System.err.println("no broadcast address available");
+        return sent;
     }
 
     /**
-     * Returns whether a given InetAddress is in the host's subnet.
+     * Encodes a packet into the calling thread's send buffer.
      *
-     * @param address   InetAddress to check
-     * @return          whether a given InetAddress is in the host's subnet.
+     * @param artnetPacket  packet to encode
+     * @return              the send buffer holding the packet
      */
-    private boolean ipIsInHostSubnet(InetAddress address) {
-
-        //null when in test mode listening on the loopback interface
-        InetAddress bcAddress = host.getBroadcastAddress();
-
-        if (bcAddress != null) {
-            byte[] hostAddr = bcAddress.getAddress();
-            byte[] cmpAddr = address.getAddress();
+    private SendBuffer encode(ArtnetPacket artnetPacket) throws MalformedArtnetPacketException {
+        SendBuffer sendBuffer = sendBuffers.get();
+        //sending limits the buffer to the previous packet
+        sendBuffer.buffer.clear();
+        sendBuffer.length = artnetPacket.encode(sendBuffer.buffer, 0);
+        if (sequenceNumbering) stampSequence(sendBuffer);
+        return sendBuffer;
+    }
 
-            for (int i = 0; i < 4; i++) {
-                if (hostAddr[i] != (byte)255) {
-                    if (hostAddr[i] != cmpAddr[i]) return false;
-                }
-            }
+    /**
+     * Sets the next sequence number of the packet's Port-Address if the buffer holds an ArtDmx or ArtNzs packet
+     * without a sequence number.
+     *
+     * @param sendBuffer    send buffer holding an encoded packet
+     */
+    private void stampSequence(SendBuffer sendBuffer) {
+        byte[] bytes = sendBuffer.bytes;
+        int opCode = Byte.toUnsignedInt(bytes[8]) | (Byte.toUnsignedInt(bytes[9]) << 8);
+        if ((opCode == ArtnetOpCodes.OP_OUTPUT || opCode == ArtnetOpCodes.OP_NZS) && bytes[12] == 0) {
+            int portAddress = ((bytes[15] & 0x7F) << 8) + Byte.toUnsignedInt(bytes[14]);
+            bytes[12] = (byte) nextSequence(portAddress);
         }
-
-        return true;
     }
 
     /**
-     * Handles received ArtPollReply packets.
+     * Advances the sequence number of a Port-Address.
      *
-     * Either adds a new node or updates the node's information.
+     * Sequence numbers go from 0x01 through 0xFF and wrap around to 0x01, as 0 disables sequencing.
      *
-     * @param packet    ArtPollReply packet
-     * @param sender    the sender's InetAddress
+     * @param portAddress   a Port-Address
+     * @return              the next sequence number
      */
-    private void handleArtPollReplyPackets(ArtPollReplyPacket packet, InetAddress sender) {
-        ArtnetNode senderNode = isNodeRegistered(sender);
+    int nextSequence(int portAddress) {
+        return sendSequences.updateAndGet(portAddress, sequence -> sequence % 255 + 1);
+    }
 
-        if (senderNode == null) {
-            //create new node and add it to the list
-            ArtnetNode node = new ArtnetNode(sender, packet);
-            nodes.add(node);
+    /**
+     * Sends the packet in a send buffer.
+     *
+     * @param sendBuffer      send buffer holding an encoded packet
+     * @param address         address to send to
+     * @param artnetInterface interface to send with
+     */
+    private void send(SendBuffer sendBuffer, InetSocketAddress address, ArtnetInterface artnetInterface) throws IOException {
+        ByteBuffer buffer = sendBuffer.buffer;
+        buffer.clear();
+        buffer.limit(sendBuffer.length);
+        send(buffer, address, artnetInterface);
+    }
 
-            //inform nodeListeners
-            nodeListeners.forEach(listener -> listener.onArtnetNodeDiscovery(new ArtnetNodeDiscoveryEvent(node)));
-        } else {
-            //update ArtnetNode information
-            senderNode.setArtPollReplyPacket(packet);
+    /**
+     * Sends an encoded packet.
+     *
+     * @param data            heap buffer holding the packet between its position and limit
+     * @param address         address to send to
+     * @param artnetInterface interface to send with
+     */
+    private void send(ByteBuffer data, InetSocketAddress address, ArtnetInterface artnetInterface) throws IOException {
+        //the transport may consume the buffer
+        int offset = data.arrayOffset() + data.position();
+        int length = data.remaining();
+        byte[] bytes = data.array();
+        int opCode = Byte.toUnsignedInt(bytes[offset + 8]) | (Byte.toUnsignedInt(bytes[offset + 9]) << 8);
+        try {
+            transport.send(data, address, artnetInterface);
+        } catch (IOException e) {
+            metrics.packetSendFailed(opCode);
+            throw e;
+        }
+
+        metrics.packetSent(opCode, length);
+        if (trace.isEnabled(opCode)) {
+            trace.trace("TX", opCode, ByteBuffer.wrap(bytes, offset, length), address.getAddress());
         }
     }
 
     /**
-     * Checks whether a node with a given InetAddress is already registered.
-     *
-     * @param sender    InetAddress to check
-     * @return          whether a node is already registered
+     * Registers the built-in metrics with the platform MBean server.
      */
-    private ArtnetNode isNodeRegistered(InetAddress sender) {
-        for (ArtnetNode node : nodes) {
-            if (node.getInetAddress().equals(sender)) {
-                return node;
+    private void registerMBean() {
+        try {
+            ObjectName name = new ObjectName("me.sschaeffner.jArtnet:type=ArtnetController,port=" + getLocalPort());
+            //controllers of an in-memory network share their port
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                name = new ObjectName(name + ",address=" + ObjectName.quote(interfaces[0].getAddress().getHostAddress()));
             }
+            ManagementFactory.getPlatformMBeanServer().registerMBean(controllerMetrics, name);
+            mBeanName = name;
+        } catch (JMException e) {
+            System.err.println("cannot register ArtnetController MBean: " + e.getMessage());
         }
-        return null;
     }
 
     /**
-     * Returns the node with a specific InetAddress.
+     * Sends an ArtDmx packet to all nodes that output its Port-Address.
+     *
+     * @param dmxPacket packet to send
+     * @return          number of datagrams sent
+     * @see #sendToPortAddress(ArtnetPacket, int)
+     */
+    public int sendDmxPacket(ArtDmxPacket dmxPacket) throws MalformedArtnetPacketException {
+        return sendToPortAddress(dmxPacket, dmxPacket.getPortAddress());
+    }
+
+    /**
+     * Sends an Art-Net packet to all nodes that output a given Port-Address.
      *
-     * If no node is registered, null is returned.
+     * The subscribed nodes are taken from the ArtPollReply packets of all discovered nodes. The packet is unicast once
+     * to every ip address of a subscribed node unless there are more than
+     * {@link #setBroadcastThreshold(int) broadcastThreshold} of them, in which case it is broadcast once. If no node
+     * outputs the Port-Address, nothing is sent.
      *
-     * @param nodeAddress   the node's address
-     * @return              node with matching InetAddress
+     * @param artnetPacket  packet to send
+     * @param portAddress   15 bit Port-Address the packet is destined to
+     * @return              number of datagrams sent
      */
-    private ArtnetNode getNodeFromInetAddress(InetAddress nodeAddress) {
-        for (ArtnetNode node : nodes) if (node.getInetAddress().equals(nodeAddress)) return node;
-        return null;
+    public int sendToPortAddress(ArtnetPacket artnetPacket, int portAddress) throws MalformedArtnetPacketException {
+        ArtnetNode[] subscribers = nodes.getByPortAddress(portAddress);
+        if (subscribers.length == 0) return 0;
+
+        int broadcastThreshold = this.broadcastThreshold;
+        if (subscribers.length > broadcastThreshold && countIpAddresses(subscribers, broadcastThreshold) > broadcastThreshold) {
+            broadcastPacket(artnetPacket);
+            return 1;
+        }
+
+        if (!transport.isOpen()) return 0;
+        return sendToSubscribers(encode(artnetPacket), subscribers);
     }
 
     /**
-     * Closes the server socket.
+     * Sends DMX512 data as an ArtDmx packet to all nodes that output its Port-Address.
      *
-     * Blocking until the receiver thread is dead.
+     * Routes like {@link #sendToPortAddress(ArtnetPacket, int)}, but encodes straight from the data array into the
+     * calling thread's send buffer, so no ArtDmxPacket is allocated. Used by the frame scheduler.
+     *
+     * The sequence number is taken right before sending and only if a node outputs the Port-Address, so numbers
+     * follow the order packets go out on the wire.
+     *
+     * @param portAddress   15 bit Port-Address
+     * @param data          array holding the channels
+     * @param length        number of channels
+     * @return              number of datagrams sent
      */
-    public void closeSocket() {
-        running = false;
-        if (socket != null && !socket.isClosed()) {
-            if (socket.isConnected()) socket.disconnect();
-            socket.close();
+    int sendDmx(int portAddress, byte[] data, int length) throws MalformedArtnetPacketException {
+        ArtnetNode[] subscribers = nodes.getByPortAddress(portAddress);
+        if (subscribers.length == 0 || !transport.isOpen()) return 0;
+
+        int sequence = sequenceNumbering ? nextSequence(portAddress) : 0;
+        SendBuffer sendBuffer = sendBuffers.get();
+        sendBuffer.buffer.clear();
+        sendBuffer.length = ArtDmxPacket.encode(sendBuffer.buffer, 0, (byte) sequence, (byte) 0, (byte) portAddress,
+                (byte) (portAddress >> 8), data, length);
+
+        int broadcastThreshold = this.broadcastThreshold;
+        if (subscribers.length > broadcastThreshold && countIpAddresses(subscribers, broadcastThreshold) > broadcastThreshold) {
+            return broadcast(sendBuffer);
         }
-        if (receiverThread != null) {
+        return sendToSubscribers(sendBuffer, subscribers);
+    }
+
+    /**
+     * Sends an encoded packet once to every ip address of a set of nodes.
+     *
+     * @param sendBuffer    send buffer holding an encoded packet
+     * @param subscribers   nodes to send to
+     * @return              number of datagrams sent
+     */
+    private int sendToSubscribers(SendBuffer sendBuffer, ArtnetNode[] subscribers) {
+        int sent = 0;
+        for (int i = 0; i < subscribers.length; i++) {
+            //nodes bound to the same root device share an ip address
+            if (sharesIpWithPreviousNode(subscribers, i)) continue;
+
             try {
-                receiverThread.join();
-            } catch (InterruptedException e) {
+                send(sendBuffer, subscribers[i].getSocketAddress(this.remotePort), getSendInterface(subscribers[i].getInetAddress()));
+                sent++;
+            } catch (IOException e) {
                 e.printStackTrace();
             }
         }
+        return sent;
     }
 
     /**
-     * Adds an ArtnetPacketListener.
-     *
-     * @param listener ArtnetPacketListener instance
+     * Counts the distinct ip addresses of nodes, stopping once the count exceeds a limit.
      */
-    public void addArtnetPacketListener(ArtnetPacketListener listener) {
-        packetListeners.add(listener);
+    private static int countIpAddresses(ArtnetNode[] nodes, int limit) {
+        int count = 0;
+        for (int i = 0; i < nodes.length && count <= limit; i++) {
+            if (!sharesIpWithPreviousNode(nodes, i)) count++;
+        }
+        return count;
     }
 
     /**
-     * Removes an ArtnetPacketListener.
-     *
-     * @param listener  ArtnetPacketListener instance
-     * @return <tt>true</tt> if the listener was registered and successfully removed
+     * Returns whether a node has the same ip address as one of the nodes before it.
      */
-    public boolean removeArtnetPacketListener(ArtnetPacketListener listener) {
-        return packetListeners.remove(listener);
+    private static boolean sharesIpWithPreviousNode(ArtnetNode[] nodes, int index) {
+        for (int i = 0; i < index; i++) {
+            if (nodes[i].getIpAddressInt() == nodes[index].getIpAddressInt()) return true;
+        }
+        return false;
     }
 
     /**
-     * Adds an ArtnetNodeListener.
+     * Manages what to do when a packet is received.
      *
-     * @param listener ArtnetNodeListener instance
+     * @param data      received data between the buffer's position and limit
+     * @param sender    InetAddress of the packet's sender
+     * @param port      packet sender's port
+     * @param receivedOn interface whose network the packet was received from or null if the sender is in none
      */
-    public void addArtnetNodeDiscoveryListener(ArtnetNodeListener listener) {
-        nodeListeners.add(listener);
+    private void onPacketReceive(ByteBuffer data, InetAddress sender, int port, ArtnetInterface receivedOn) throws MalformedArtnetPacketException {
+        ArtnetMetrics metrics = this.metrics;
+
+        //ignore packets sent from this controller
+        if (ignoreOwnPackets && isOwnAddress(sender)) {
+            metrics.packetDropped(ArtnetDropReason.OWN_PACKET);
+            return;
+        }
+
+        //ignore packets from wrong subnet or wrong port
+        if (receivedOn == null || !receivedOn.isInSubnet(sender)) {
+            metrics.packetDropped(ArtnetDropReason.FOREIGN_SUBNET);
+            return;
+        }
+        if (port != this.remotePort) {
+            metrics.packetDropped(ArtnetDropReason.FOREIGN_PORT);
+            return;
+        }
+
+        //reject unsupported and malformed packets without decoding them
+        ArtnetDecodeStatus status = ArtnetOpCodes.check(data);
+        if (status != ArtnetDecodeStatus.OK) {
+            rejectPacket(status);
+            return;
+        }
+        int opCode = ArtnetOpCodes.getOpCode(data);
+
+        //drop DMX512 frames that arrived after a newer frame of the same sender and universe
+        if (opCode == ArtnetOpCodes.OP_OUTPUT || opCode == ArtnetOpCodes.OP_NZS) {
+            ArtnetDropReason reason = trackSequence(data, opCode, sender);
+            if (reason != null) {
+                metrics.packetDropped(reason);
+                return;
+            }
+        }
+
+        //answer every poller at most once per interval, so a poll storm cannot keep the receiver thread busy
+        if (opCode == ArtnetOpCodes.OP_POLL && !acceptPoll(sender, receivedOn)) {
+            metrics.packetDropped(ArtnetDropReason.POLL_RATE_LIMIT);
+            return;
+        }
+
+        //merge ArtDmx frames of all sources of a universe
+        ArtnetMerger merger = this.merger;
+        byte[] merged = null;
+        int mergedLength = 0;
+        if (merger != null && opCode == ArtnetOpCodes.OP_OUTPUT) {
+            merged = mergeBuffer;
+            mergedLength = mergeFrame(merger, data, sender, merged);
+            if (mergedLength == ArtnetMerger.IGNORED) {
+                metrics.packetDropped(ArtnetDropReason.MERGE_SOURCE_LIMIT);
+                return;
+            }
+        }
+
+        metrics.packetReceived(opCode, data.remaining());
+        if (trace.isEnabled(opCode)) trace.trace("RX", opCode, data, sender);
+
+        ArtnetNode senderNode = nodes.get(sender);
+        if (senderNode != null) senderNode.setLastSeen(System.currentTimeMillis());
+
+        //store received DMX512 data without decoding the packet
+        ArtnetUniverseStore store = universeStore;
+        if (store != null && merged != null) {
+            store.write(getPortAddress(data), (byte) 0, merged, 0, mergedLength);
+        } else if (store != null && (opCode == ArtnetOpCodes.OP_OUTPUT || opCode == ArtnetOpCodes.OP_NZS)) {
+            storeUniverse(store, data, opCode);
+        }
+
+        //inform packetViewListeners without decoding the packet
+        if (!packetViewListeners.isEmpty()) dispatchPacketView(data, opCode, senderNode);
+
+        //inform packetListeners about the merged frame instead of the source's packet
+        if (merged != null) {
+            if (subscribedOpCodes.get(opCode)) {
+                //listeners may keep the packet, so it gets its own copy of the reused buffer
+                int portAddress = getPortAddress(data);
+                ArtDmxPacket mergedPacket = new ArtDmxPacket((byte) 0, (byte) 0, (byte) portAddress,
+                        (byte) (portAddress >> 8), (byte) (mergedLength >> 8), (byte) mergedLength,
+                        Arrays.copyOf(merged, mergedLength));
+                if (senderNode != null) mergedPacket.setSender(senderNode);
+                dispatchPacket(mergedPacket, opCode);
+            }
+            return;
+        }
+
+        //only decode packets someone is subscribed to
+        if (opCode != ArtnetOpCodes.OP_POLL && opCode != ArtnetOpCodes.OP_POLL_REPLY && !subscribedOpCodes.get(opCode)) return;
+
+        if (ArtnetOpCodes.decode(data, decodeResult) != ArtnetDecodeStatus.OK) {
+            rejectPacket(decodeResult.getStatus());
+            return;
+        }
+
+        ArtnetPacket artnetPacket = decodeResult.getPacket();
+        if (artnetPacket != null) {
+            if (artnetPacket instanceof ArtPollReplyPacket) {
+                //if ArtPollReply is sent, add all new nodes to list
+                handleArtPollReplyPackets((ArtPollReplyPacket) artnetPacket, sender);
+            } else if (artnetPacket instanceof ArtPollPacket) {
+                //if ArtPoll is sent, reply with ArtPollReply
+                returnArtPollReplyPacket(sender, receivedOn);
+            } else {
+                //set sender node for other packets
+                if (senderNode != null) artnetPacket.setSender(senderNode);
+
+                dispatchPacket(artnetPacket, opCode);
+            }
+        }
     }
 
     /**
-     * Removes an ArtnetNodeListener.
+     * Informs all packetListeners subscribed to an opcode about a packet.
      *
-     * @param listener ArtnetNodeListener instance
-     * @return <tt>true</tt> if the listener was registered and successfully removed
+     * @param artnetPacket  the received packet
+     * @param opCode        the packet's opcode
      */
-    public boolean removeArtnetNodeDiscoveryListener(ArtnetNodeListener listener) {
-        return nodeListeners.remove(listener);
+    private void dispatchPacket(ArtnetPacket artnetPacket, int opCode) {
+        ArtnetPacketReceiveEvent event = new ArtnetPacketReceiveEvent(artnetPacket);
+        for (ArtnetListenerDispatcher dispatcher : packetListeners.values()) {
+            if (dispatcher.isSubscribed(opCode)) dispatcher.dispatch(event, opCode);
+        }
     }
 
     /**
-     * Returns all registered nodes.
+     * Merges the frame of a received ArtDmx packet.
      *
-     * @return all registered nodes
+     * @param merger    the merger
+     * @param data      received packet between the buffer's position and limit
+     * @param sender    the packet's sender
+     * @param dst       array of 512 bytes to copy the merged frame into
+     * @return          number of channels of the merged frame or ArtnetMerger.IGNORED
      */
-    public ArtnetNode[] getNodes() {
-        return nodes.toArray(new ArtnetNode[nodes.size()]);
+    private static int mergeFrame(ArtnetMerger merger, ByteBuffer data, InetAddress sender, byte[] dst) {
+        int offset = data.position();
+        int physical = Byte.toUnsignedInt(data.get(offset + 13));
+        int length = (Byte.toUnsignedInt(data.get(offset + 16)) << 8) + Byte.toUnsignedInt(data.get(offset + 17));
+        return merger.merge(sender, physical, getPortAddress(data), data, offset + 18, length, dst);
     }
 
-
     /**
-     * Whether or not to ignore own packets.
+     * Returns the Port-Address of a received ArtDmx or ArtNzs packet.
      *
-     * @param ignoreOwnPackets whether or not to ignore own packets
+     * @param data  received packet between the buffer's position and limit
+     * @return      the packet's 15 bit Port-Address
      */
-    public void setIgnoreOwnPackets(boolean ignoreOwnPackets) {
+    private static int getPortAddress(ByteBuffer data) {
+        int offset = data.position();
+        return ((data.get(offset + 15) & 0x7F) << 8) + Byte.toUnsignedInt(data.get(offset + 14));
+    }
+
+    /**
+     * Counts a packet that was rejected as unsupported or malformed.
+     *
+     * @param status    why the packet was rejected
+     */
+    private void rejectPacket(ArtnetDecodeStatus status) {
+        rejectedPackets.incrementAndGet(status.ordinal());
+        metrics.packetRejected(status);
+    }
+
+    /**
+     * Copies the data of a received ArtDmx or ArtNzs packet into the universe store.
+     *
+     * Only frames with the null start code carry dimmer levels, so ArtNzs packets with any other start code (RDM,
+     * text, ...) are not stored and leave the current frame untouched.
+     *
+     * @param store     the universe store
+     * @param data      received packet between the buffer's position and limit
+     * @param opCode    the packet's OpCode
+     */
+    private static void storeUniverse(ArtnetUniverseStore store, ByteBuffer data, int opCode) {
+        int offset = data.position();
+        byte startCode = opCode == ArtnetOpCodes.OP_NZS ? data.get(offset + 13) : 0;
+        if (startCode != 0) return;
+        int portAddress = getPortAddress(data);
+        int length = (Byte.toUnsignedInt(data.get(offset + 16)) << 8) + Byte.toUnsignedInt(data.get(offset + 17));
+        store.write(portAddress, startCode, data, offset + 18, length);
+    }
+
+    /**
+     * Tracks the sequence number of a received ArtDmx or ArtNzs packet.
+     *
+     * @param data      received packet between the buffer's position and limit
+     * @param opCode    the packet's OpCode
+     * @param sender    the packet's sender
+     * @return          the reason to drop the packet or null if it is accepted
+     */
+    private ArtnetDropReason trackSequence(ByteBuffer data, int opCode, InetAddress sender) {
+        int offset = data.position();
+        int sequence = Byte.toUnsignedInt(data.get(offset + 12));
+        if (sequence == 0) return null;
+
+        int portAddress = getPortAddress(data);
+        int lost = sequenceTracker.track(sender, portAddress, sequence);
+
+        //duplicates are neither late nor lost, the tracker counts them
+        if (lost == ArtnetSequenceTracker.DUPLICATE) {
+            return sequenceTracker.isDropDuplicates() ? ArtnetDropReason.DUPLICATE_SEQUENCE : null;
+        }
+
+        boolean late = lost == ArtnetSequenceTracker.LATE;
+        metrics.sequenceTracked(opCode, late ? 0 : lost, late);
+        return late && sequenceTracker.isDropLate() ? ArtnetDropReason.LATE_SEQUENCE : null;
+    }
+
+    /**
+     * Hands a received packet to all packetViewListeners if a view exists for its type.
+     *
+     * @param data      received data between the buffer's position and limit
+     * @param opCode    the packet's OpCode
+     * @param sender    the packet's sender or null if it is unknown
+     */
+    private void dispatchPacketView(ByteBuffer data, int opCode, ArtnetNode sender) {
+        ReceivedPacketView view;
+        switch (opCode) {
+            case ArtnetOpCodes.OP_OUTPUT:
+                view = dmxPacketView;
+                break;
+            case ArtnetOpCodes.OP_NZS:
+                view = nzsPacketView;
+                break;
+            case ArtnetOpCodes.OP_POLL_REPLY:
+                view = pollReplyPacketView;
+                break;
+            default:
+                return;
+        }
+
+        if (view.wrapReceived(data, data.position(), data.remaining(), sender)) {
+            ArtnetMetrics metrics = this.metrics;
+            for (ArtnetPacketViewListener listener : packetViewListeners) {
+                long start = System.nanoTime();
+                listener.onArtnetPacketView((ArtnetPacketView) view);
+                metrics.listenerDispatched(opCode, System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Returns whether an address is one of the controller's interface addresses or the local host's address.
+     *
+     * @param address   InetAddress to check
+     * @return          whether the address belongs to this controller
+     */
+    private boolean isOwnAddress(InetAddress address) {
+        for (InetAddress ownAddress : ownAddresses) {
+            if (ownAddress.equals(address)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Collects the addresses of the controller's interfaces and the local host's address.
+     *
+     * Resolved once when the controller is constructed, as resolving the local host is a name lookup.
+     *
+     * @param interfaces    the controller's interfaces
+     * @return              addresses packets of this controller are received from
+     */
+    private static InetAddress[] resolveOwnAddresses(ArtnetInterface[] interfaces) {
+        List<InetAddress> addresses = new ArrayList<>();
+        for (ArtnetInterface artnetInterface : interfaces) addresses.add(artnetInterface.getAddress());
+        try {
+            InetAddress localhost = InetAddress.getLocalHost();
+            if (!addresses.contains(localhost)) addresses.add(localhost);
+        } catch (UnknownHostException e) {
+            System.err.println("cannot resolve local host, only interface addresses are recognized as own: " + e.getMessage());
+        }
+        return addresses.toArray(new InetAddress[0]);
+    }
+
+    /**
+     * Handles received ArtPollReply packets.
+     *
+     * Either adds a new node or updates the node's information.
+     *
+     * @param packet    ArtPollReply packet
+     * @param sender    the sender's InetAddress
+     */
+    private void handleArtPollReplyPackets(ArtPollReplyPacket packet, InetAddress sender) {
+        ArtnetNode senderNode = nodes.get(sender, packet);
+
+        if (senderNode == null) {
+            //create new node and add it to the registry
+            ArtnetNode node = new ArtnetNode(sender, packet);
+            nodes.add(node);
+
+            ArtnetNodeMonitor monitor = nodeMonitor;
+            if (monitor != null) monitor.nodeDiscovered(node);
+
+            //inform nodeListeners
+            nodeListeners.forEach(listener -> listener.onArtnetNodeDiscovery(new ArtnetNodeDiscoveryEvent(node)));
+        } else {
+            //update ArtnetNode information
+            ArtPollReplyPacket previous = senderNode.getArtPollReplyPacket();
+            nodes.update(senderNode, packet);
+            senderNode.setLastSeen(System.currentTimeMillis());
+
+            if (previous != null && isConfigurationChanged(previous, packet)) {
+                ArtnetNodeMonitor monitor = nodeMonitor;
+                if (monitor != null) monitor.nodeChanged();
+
+                //inform nodeListeners
+                nodeListeners.forEach(listener -> listener.onNodeChanged(new ArtnetNodeChangedEvent(senderNode, previous)));
+            }
+        }
+    }
+
+    /**
+     * Returns whether two ArtPollReply packets of a node report a different configuration.
+     *
+     * Status fields and the node report change during normal operation and are ignored.
+     *
+     * @param previous  the node's previous packet
+     * @param packet    the node's new packet
+     * @return          whether name, ports, style or identity differ
+     */
+    private static boolean isConfigurationChanged(ArtPollReplyPacket previous, ArtPollReplyPacket packet) {
+        return previous.getNetSwitch() != packet.getNetSwitch()
+                || previous.getSubSwitch() != packet.getSubSwitch()
+                || previous.getStyle() != packet.getStyle()
+                || previous.getOemInt() != packet.getOemInt()
+                || previous.getEstaMan() != packet.getEstaMan()
+                || previous.getNumPorts() != packet.getNumPorts()
+                || !Arrays.equals(previous.getShortName(), packet.getShortName())
+                || !Arrays.equals(previous.getLongName(), packet.getLongName())
+                || !Arrays.equals(previous.getPortTypes(), packet.getPortTypes())
+                || !Arrays.equals(previous.getSwIn(), packet.getSwIn())
+                || !Arrays.equals(previous.getSwOut(), packet.getSwOut())
+                || !Arrays.equals(previous.getMac(), packet.getMac());
+    }
+
+    /**
+     * Removes a node that stopped answering and informs nodeListeners.
+     *
+     * @param node  the node
+     * @return      whether the node was registered
+     */
+    boolean removeNode(ArtnetNode node) {
+        if (!nodes.remove(node)) return false;
+        if (nodes.get(node.getInetAddress()) == null) sequenceTracker.forget(node.getInetAddress());
+
+        //inform nodeListeners
+        nodeListeners.forEach(listener -> listener.onNodeLost(new ArtnetNodeLostEvent(node)));
+        return true;
+    }
+
+    /**
+     * Closes the transport.
+     *
+     * Blocking until the receiver thread is dead.
+     */
+    public void closeSocket() {
+        if (mBeanName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(mBeanName);
+            } catch (JMException e) {
+                e.printStackTrace();
+            }
+            mBeanName = null;
+        }
+        synchronized (this) {
+            if (frameScheduler != null) frameScheduler.stop();
+            if (nodeMonitor != null) nodeMonitor.stop();
+            if (pollReplyScheduler != null) pollReplyScheduler.shutdownNow();
+            packetListeners.values().forEach(ArtnetListenerDispatcher::close);
+        }
+        transport.close();
+        if (receiverThread != null) {
+            try {
+                receiverThread.join();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Adds an ArtnetPacketListener that is informed about all received packets.
+     *
+     * @param listener ArtnetPacketListener instance
+     */
+    public void addArtnetPacketListener(ArtnetPacketListener listener) {
+        BitSet opCodes = new BitSet();
+        opCodes.set(0, 0x10000);
+        addArtnetPacketListener(listener, opCodes);
+    }
+
+    /**
+     * Adds an ArtnetPacketListener that is only informed about packets with the given opcodes.
+     *
+     * Packets no listener is subscribed to are dropped before they are decoded. Adding an already registered
+     * listener replaces its subscription.
+     *
+     * @param listener  ArtnetPacketListener instance
+     * @param opCodes   opcodes to subscribe to (see ArtnetOpCodes)
+     */
+    public void addArtnetPacketListener(ArtnetPacketListener listener, int... opCodes) {
+        addArtnetPacketListener(listener, toOpCodeSet(opCodes));
+    }
+
+    private void addArtnetPacketListener(ArtnetPacketListener listener, BitSet opCodes) {
+        addArtnetPacketListener(new ArtnetListenerDispatcher(this, listener, opCodes, ArtnetDispatchMode.INLINE, 0,
+                ArtnetQueuePolicy.DROP_NEWEST));
+    }
+
+    /**
+     * Adds an ArtnetPacketListener that is called outside of the receiver thread.
+     *
+     * Received packets are queued for the listener, so a slow listener does not delay receiving. The returned
+     * dispatcher reports the queue depth and the number of dropped packets. Adding an already registered listener
+     * replaces its subscription and discards its queued packets.
+     *
+     * @param listener      ArtnetPacketListener instance
+     * @param mode          where the listener is called
+     * @param queueCapacity maximum number of queued packets (ignored for INLINE)
+     * @param policy        what happens when the queue is full (ignored for INLINE)
+     * @param opCodes       opcodes to subscribe to (see ArtnetOpCodes), all if none are given
+     * @return              the listener's dispatcher
+     */
+    public ArtnetListenerDispatcher addArtnetPacketListener(ArtnetPacketListener listener, ArtnetDispatchMode mode,
+                                                            int queueCapacity, ArtnetQueuePolicy policy,
+                                                            int... opCodes) {
+        BitSet opCodeSet;
+        if (opCodes.length == 0) {
+            opCodeSet = new BitSet();
+            opCodeSet.set(0, 0x10000);
+        } else {
+            opCodeSet = toOpCodeSet(opCodes);
+        }
+        ArtnetListenerDispatcher dispatcher = new ArtnetListenerDispatcher(this, listener, opCodeSet, mode,
+                queueCapacity, policy);
+        addArtnetPacketListener(dispatcher);
+        return dispatcher;
+    }
+
+    private synchronized void addArtnetPacketListener(ArtnetListenerDispatcher dispatcher) {
+        ArtnetListenerDispatcher previous = packetListeners.put(dispatcher.getListener(), dispatcher);
+        if (previous != null) previous.close();
+        updateSubscribedOpCodes();
+    }
+
+    private static BitSet toOpCodeSet(int... opCodes) {
+        BitSet opCodeSet = new BitSet();
+        for (int opCode : opCodes) {
+            if (opCode < 0 || opCode > 0xFFFF) throw new IllegalArgumentException("cannot add ArtnetPacketListener: invalid opcode " + opCode);
+            opCodeSet.set(opCode);
+        }
+        return opCodeSet;
+    }
+
+    /**
+     * Returns the dispatcher of a registered ArtnetPacketListener.
+     *
+     * @param listener  ArtnetPacketListener instance
+     * @return          the listener's dispatcher or null if the listener is not registered
+     */
+    public ArtnetListenerDispatcher getArtnetPacketListenerDispatcher(ArtnetPacketListener listener) {
+        return packetListeners.get(listener);
+    }
+
+    /**
+     * Removes an ArtnetPacketListener.
+     *
+     * @param listener  ArtnetPacketListener instance
+     * @return <tt>true</tt> if the listener was registered and successfully removed
+     */
+    public synchronized boolean removeArtnetPacketListener(ArtnetPacketListener listener) {
+        ArtnetListenerDispatcher dispatcher = packetListeners.remove(listener);
+        if (dispatcher != null) dispatcher.close();
+        updateSubscribedOpCodes();
+        return dispatcher != null;
+    }
+
+    /**
+     * Recalculates the union of all opcodes the packetListeners are subscribed to.
+     */
+    private void updateSubscribedOpCodes() {
+        BitSet opCodes = new BitSet();
+        packetListeners.values().forEach(dispatcher -> opCodes.or(dispatcher.getOpCodes()));
+        subscribedOpCodes = opCodes;
+    }
+
+    /**
+     * Adds an ArtnetPacketViewListener.
+     *
+     * @param listener ArtnetPacketViewListener instance
+     */
+    public void addArtnetPacketViewListener(ArtnetPacketViewListener listener) {
+        packetViewListeners.add(listener);
+    }
+
+    /**
+     * Removes an ArtnetPacketViewListener.
+     *
+     * @param listener  ArtnetPacketViewListener instance
+     * @return <tt>true</tt> if the listener was registered and successfully removed
+     */
+    public boolean removeArtnetPacketViewListener(ArtnetPacketViewListener listener) {
+        return packetViewListeners.remove(listener);
+    }
+
+    /**
+     * Adds an ArtnetNodeListener.
+     *
+     * @param listener ArtnetNodeListener instance
+     */
+    public void addArtnetNodeDiscoveryListener(ArtnetNodeListener listener) {
+        nodeListeners.add(listener);
+    }
+
+    /**
+     * Removes an ArtnetNodeListener.
+     *
+     * @param listener ArtnetNodeListener instance
+     * @return <tt>true</tt> if the listener was registered and successfully removed
+     */
+    public boolean removeArtnetNodeDiscoveryListener(ArtnetNodeListener listener) {
+        return nodeListeners.remove(listener);
+    }
+
+    /**
+     * Returns all registered nodes.
+     *
+     * @return all registered nodes
+     */
+    public ArtnetNode[] getNodes() {
+        return nodes.getNodes();
+    }
+
+    /**
+     * Returns the registry of all nodes for indexed lookups.
+     *
+     * @return the node registry
+     */
+    public ArtnetNodeRegistry getNodeRegistry() {
+        return nodes;
+    }
+
+
+    /**
+     * Returns the number of received packets that were rejected for a given reason.
+     *
+     * @param reason    reason for rejecting packets
+     * @return          number of rejected packets
+     */
+    public long getRejectedPacketCount(ArtnetDecodeStatus reason) {
+        return rejectedPackets.get(reason.ordinal());
+    }
+
+    /**
+     * Enables storing the data of all received ArtDmx packets and of ArtNzs packets with the null start code.
+     *
+     * The store takes 16 MiB of off-heap memory, so it is only allocated on the first call.
+     *
+     * @return the universe store holding the latest frame of every Port-Address
+     */
+    public synchronized ArtnetUniverseStore enableUniverseStore() {
+        if (universeStore == null) universeStore = new ArtnetUniverseStore();
+        return universeStore;
+    }
+
+    /**
+     * Enables merging the ArtDmx frames of several sources sending to the same Port-Address.
+     *
+     * Once enabled, packetListeners and the universe store receive the merged frame of a Port-Address for every
+     * received ArtDmx packet instead of the packet itself; packetViewListeners still see the received packets. The
+     * merged packet's sender is the node whose packet produced it, its sequence and physical port are 0.
+     *
+     * @return the merger (HTP by default)
+     */
+    public synchronized ArtnetMerger enableMerging() {
+        if (merger == null) merger = new ArtnetMerger();
+        return merger;
+    }
+
+    /**
+     * Returns the scheduler transmitting output universes at a fixed rate.
+     *
+     * The scheduler is created on the first call and has to be started explicitly.
+     *
+     * @return the frame scheduler
+     */
+    public synchronized ArtnetFrameScheduler getFrameScheduler() {
+        if (frameScheduler == null) frameScheduler = new ArtnetFrameScheduler(this);
+        return frameScheduler;
+    }
+
+    /**
+     * Returns the monitor polling for nodes and removing nodes that stopped answering.
+     *
+     * The monitor is created on the first call and has to be started explicitly.
+     *
+     * @return the node monitor
+     */
+    public synchronized ArtnetNodeMonitor getNodeMonitor() {
+        if (nodeMonitor == null) nodeMonitor = new ArtnetNodeMonitor(this);
+        return nodeMonitor;
+    }
+
+    /**
+     * Returns the controller's built-in metrics.
+     *
+     * They are also registered as JMX MBean named "me.sschaeffner.jArtnet:type=ArtnetController,port=&lt;port&gt;".
+     *
+     * @return the built-in metrics
+     */
+    public ArtnetControllerMetrics getControllerMetrics() {
+        return controllerMetrics;
+    }
+
+    /**
+     * Sets whether ArtDmx and ArtNzs packets with sequence number 0 are numbered when they are sent.
+     *
+     * Numbering is enabled by default. The controller keeps one counter per Port-Address, so several threads can
+     * send to the same universe without managing sequence numbers themselves. Packets with a sequence number other
+     * than 0 are sent unchanged.
+     *
+     * @param sequenceNumbering whether to number sent packets
+     */
+    public void setSequenceNumbering(boolean sequenceNumbering) {
+        this.sequenceNumbering = sequenceNumbering;
+    }
+
+    public boolean isSequenceNumbering() {
+        return sequenceNumbering;
+    }
+
+    /**
+     * Returns the tracker of the sequence numbers of received ArtDmx and ArtNzs packets.
+     *
+     * Late frames are dropped unless disabled with {@link ArtnetSequenceTracker#setDropLate(boolean)}.
+     *
+     * @return the sequence tracker
+     */
+    public ArtnetSequenceTracker getSequenceTracker() {
+        return sequenceTracker;
+    }
+
+    /**
+     * Returns the controller's packet trace.
+     *
+     * It is off by default; set a level to print received and sent packets.
+     *
+     * @return the packet trace
+     */
+    public ArtnetTrace getTrace() {
+        return trace;
+    }
+
+    /**
+     * Sets the metrics that receive the controller's runtime events.
+     *
+     * Replaces the built-in metrics, which stop counting until they are set again.
+     *
+     * @param metrics   metrics to use ({@link ArtnetMetrics#NONE} to disable metrics)
+     */
+    public void setMetrics(ArtnetMetrics metrics) {
+        if (metrics == null) throw new IllegalArgumentException("metrics must not be null");
+        this.metrics = metrics;
+    }
+
+    public ArtnetMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the network addresses the controller serves.
+     *
+     * @return the controller's interfaces
+     */
+    public List<ArtnetInterface> getInterfaces() {
+        return Collections.unmodifiableList(Arrays.asList(interfaces));
+    }
+
+    /**
+     * Returns the local port the controller is bound to.
+     *
+     * Useful when the controller was opened on port 0 (an ephemeral port).
+     *
+     * @return the local port
+     */
+    public int getLocalPort() {
+        return transport.getLocalPort();
+    }
+
+    /**
+     * Sets the port other Art-Net devices use.
+     *
+     * Packets are sent to this port and only packets from this port are accepted. Defaults to the listening port.
+     *
+     * @param remotePort    UDP port of other Art-Net devices
+     */
+    public void setRemotePort(int remotePort) {
+        if (remotePort <= 0 || remotePort > 0xFFFF) throw new IllegalArgumentException("invalid port " + remotePort);
+        this.remotePort = remotePort;
+    }
+
+    public int getRemotePort() {
+        return remotePort;
+    }
+
+    /**
+     * Sets the number of subscribers of a Port-Address above which packets sent with
+     * {@link #sendToPortAddress(ArtnetPacket, int)} are broadcast instead of unicast.
+     *
+     * Subscribers are counted by ip address, as nodes bound to the same root device receive one datagram together.
+     * The Art-Net specification allows broadcasting above 40 subscribers, which is the default.
+     *
+     * @param broadcastThreshold maximum number of unicast datagrams per packet
+     */
+    public void setBroadcastThreshold(int broadcastThreshold) {
+        if (broadcastThreshold < 0) throw new IllegalArgumentException("broadcastThreshold has to be at least 0");
+        this.broadcastThreshold = broadcastThreshold;
+    }
+
+    public int getBroadcastThreshold() {
+        return broadcastThreshold;
+    }
+
+    /**
+     * Sets the short name reported in ArtPollReply packets.
+     *
+     * @param shortName ASCII name of up to 17 characters
+     */
+    public void setShortName(String shortName) {
+        this.shortName = checkName(shortName, 17);
+        invalidatePollReplies();
+    }
+
+    public String getShortName() {
+        return shortName;
+    }
+
+    /**
+     * Sets the long name reported in ArtPollReply packets.
+     *
+     * @param longName  ASCII name of up to 63 characters
+     */
+    public void setLongName(String longName) {
+        this.longName = checkName(longName, 63);
+        invalidatePollReplies();
+    }
+
+    public String getLongName() {
+        return longName;
+    }
+
+    private static String checkName(String name, int maxLength) {
+        if (name == null || name.length() > maxLength || !StandardCharsets.US_ASCII.newEncoder().canEncode(name)) {
+            throw new IllegalArgumentException("name has to be ASCII of up to " + maxLength + " characters: " + name);
+        }
+        return name;
+    }
+
+    /**
+     * Sets the OEM code reported in ArtPollReply packets.
+     *
+     * @param oem   16 bit OEM code, 0xFFFF if there is none (default)
+     */
+    public void setOem(int oem) {
+        if (oem < 0 || oem > 0xFFFF) throw new IllegalArgumentException("invalid oem code " + oem);
+        this.oem = oem;
+        invalidatePollReplies();
+    }
+
+    public int getOem() {
+        return oem;
+    }
+
+    /**
+     * Sets the ESTA manufacturer code reported in ArtPollReply packets.
+     *
+     * @param estaManufacturer  16 bit ESTA manufacturer code, 0 if there is none (default)
+     */
+    public void setEstaManufacturer(int estaManufacturer) {
+        if (estaManufacturer < 0 || estaManufacturer > 0xFFFF) throw new IllegalArgumentException("invalid ESTA code " + estaManufacturer);
+        this.estaManufacturer = estaManufacturer;
+        invalidatePollReplies();
+    }
+
+    public int getEstaManufacturer() {
+        return estaManufacturer;
+    }
+
+    /**
+     * Sets the style code reported in ArtPollReply packets.
+     *
+     * @param styleCode one of ArtnetStyleCodes, ST_CONTROLLER by default
+     */
+    public void setStyleCode(byte styleCode) {
+        this.styleCode = styleCode;
+        invalidatePollReplies();
+    }
+
+    public byte getStyleCode() {
+        return styleCode;
+    }
+
+    /**
+     * Sets the DMX512 ports the controller advertises.
+     *
+     * An ArtPollReply has up to 4 ports sharing Net and Sub-Net, so consecutive ports are grouped into as many
+     * ArtPollReply packets as needed, which are sent back to back with the bind indexes 1, 2, 3 and so on. Consoles
+     * unicast the universes of output ports to the controller. By default, there is one input port on
+     * Port-Address 0.
+     *
+     * @param ports ports in the order they are reported in
+     */
+    public void setPorts(List<ArtnetPort> ports) {
+        List<ArtnetPort> copy = Collections.unmodifiableList(new ArrayList<>(ports));
+        ArtnetPort[][] pages = toPortPages(copy);
+        if (pages.length > MAX_POLL_REPLY_PAGES) {
+            throw new IllegalArgumentException("ports need " + pages.length + " ArtPollReply packets, at most " + MAX_POLL_REPLY_PAGES + " are possible");
+        }
+        this.ports = copy;
+        this.portPages = pages;
+        invalidatePollReplies();
+    }
+
+    public List<ArtnetPort> getPorts() {
+        return ports;
+    }
+
+    /**
+     * Sets the maximum random delay of ArtPollReply packets.
+     *
+     * Every reply is delayed by a random time between 0 and this delay, as the Art-Net specification asks of nodes
+     * that are polled together. Defaults to 1000 ms.
+     *
+     * @param pollReplyDelay    maximum delay in milliseconds, 0 to reply immediately
+     */
+    public void setPollReplyDelay(int pollReplyDelay) {
+        if (pollReplyDelay < 0) throw new IllegalArgumentException("pollReplyDelay has to be at least 0");
+        this.pollReplyDelay = pollReplyDelay;
+    }
+
+    public int getPollReplyDelay() {
+        return pollReplyDelay;
+    }
+
+    /**
+     * Sets the minimum interval between ArtPollReply packets to the same poller on the same interface.
+     *
+     * Further ArtPoll packets of the poller within the interval are dropped
+     * ({@link ArtnetDropReason#POLL_RATE_LIMIT}). Defaults to 1000 ms, controllers poll every 2.5 to 3 seconds.
+     *
+     * @param pollReplyInterval minimum interval in milliseconds, 0 to answer every ArtPoll
+     */
+    public void setPollReplyInterval(int pollReplyInterval) {
+        if (pollReplyInterval < 0) throw new IllegalArgumentException("pollReplyInterval has to be at least 0");
+        this.pollReplyInterval = pollReplyInterval;
+    }
+
+    public int getPollReplyInterval() {
+        return pollReplyInterval;
+    }
+
+    /**
+     * Whether or not to ignore own packets.
+     *
+     * @param ignoreOwnPackets whether or not to ignore own packets
+     */
+    public void setIgnoreOwnPackets(boolean ignoreOwnPackets) {
         this.ignoreOwnPackets = ignoreOwnPackets;
     }
+
+    /**
+     * A view handed to packetViewListeners.
+     *
+     * Only the controller can wrap received packets into it; listeners calling the public wrap method get an
+     * UnsupportedOperationException, so they cannot re-point the view other listeners see.
+     */
+    private interface ReceivedPacketView {
+        boolean wrapReceived(ByteBuffer buffer, int offset, int length, ArtnetNode sender);
+    }
+
+    private static final class ReceivedDmxPacketView extends ArtDmxPacketView implements ReceivedPacketView {
+        @Override
+        public boolean wrapReceived(ByteBuffer buffer, int offset, int length, ArtnetNode sender) {
+            return super.wrap(buffer, offset, length, sender);
+        }
+
+        @Override
+        public boolean wrap(ByteBuffer buffer, int offset, int length) {
+            throw new UnsupportedOperationException("view is owned by the ArtnetController");
+        }
+    }
+
+    private static final class ReceivedNzsPacketView extends ArtNzsPacketView implements ReceivedPacketView {
+        @Override
+        public boolean wrapReceived(ByteBuffer buffer, int offset, int length, ArtnetNode sender) {
+            return super.wrap(buffer, offset, length, sender);
+        }
+
+        @Override
+        public boolean wrap(ByteBuffer buffer, int offset, int length) {
+            throw new UnsupportedOperationException("view is owned by the ArtnetController");
+        }
+    }
+
+    private static final class ReceivedPollReplyPacketView extends ArtPollReplyPacketView implements ReceivedPacketView {
+        @Override
+        public boolean wrapReceived(ByteBuffer buffer, int offset, int length, ArtnetNode sender) {
+            return super.wrap(buffer, offset, length, sender);
+        }
+
+        @Override
+        public boolean wrap(ByteBuffer buffer, int offset, int length) {
+            throw new UnsupportedOperationException("view is owned by the ArtnetController");
+        }
+    }
+
+    /**
+     * Buffer an outgoing packet is encoded into before it is sent.
+     */
+    private static final class SendBuffer {
+        private final byte[] bytes = new byte[MAX_PACKET_LENGTH];
+        private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        //length of the encoded packet
+        private int length;
+    }
 }
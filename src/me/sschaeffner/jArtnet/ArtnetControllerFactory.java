@@ -43,6 +43,21 @@ public class ArtnetControllerFactory {
      * @throws IOException when the port cannot be opened
      */
     public static ArtnetController getInstance(NetworkAddress host, int port) throws IOException {
+        return getInstance(host, port, false);
+    }
+
+    /**
+     * Returns an instance of ArtnetController for the given host address and port.
+     *
+     * If an instance for the host address and port already exists, it is returned regardless of its receive engine.
+     *
+     * @param host          host IP for the ArtnetController
+     * @param port          port for the ArtnetController
+     * @param useChannel    whether a new instance receives with a DatagramChannel (nio) instead of a DatagramSocket
+     * @return              an instance of ArtnetController
+     * @throws IOException when the port cannot be opened
+     */
+    public static ArtnetController getInstance(NetworkAddress host, int port, boolean useChannel) throws IOException {
         if (host == null) {
             throw new IllegalArgumentException("cannot getInstance of ArtnetController: host is null");
         }
@@ -55,12 +70,90 @@ public class ArtnetControllerFactory {
         if (instances.containsKey(identifier)) {
             return instances.get(identifier);
         } else {
-            ArtnetController artnetController = new ArtnetController(host, port);
+            ArtnetController artnetController = new ArtnetController(host, port, useChannel);
             instances.put(identifier, artnetController);
             return artnetController;
         }
     }
 
+    /**
+     * Returns an instance of ArtnetController serving several host addresses on one port.
+     *
+     * The controller has one channel per host address and shares its nodes and listeners between them, e.g. for
+     * redundant networks.
+     *
+     * @param hosts host IPs for the ArtnetController
+     * @param port  port for the ArtnetController
+     * @return      an instance of ArtnetController
+     * @throws IOException when the port cannot be opened on one of the addresses
+     */
+    public static ArtnetController getInstance(NetworkAddress[] hosts, int port) throws IOException {
+        if (hosts == null || hosts.length == 0) {
+            throw new IllegalArgumentException("cannot getInstance of ArtnetController: no hosts");
+        }
+        if (port <= 0) {
+            throw new IllegalArgumentException("cannot getInstance of ArtnetController: port has to be greater than 0");
+        }
+
+        StringBuilder identifier = new StringBuilder();
+        for (NetworkAddress host : hosts) identifier.append(host.getInterfaceAddress().getAddress()).append(',');
+        identifier.append(':').append(port);
+
+        ArtnetController artnetController = instances.get(identifier.toString());
+        if (artnetController == null) {
+            artnetController = new ArtnetController(hosts, port, true);
+            instances.put(identifier.toString(), artnetController);
+        }
+        return artnetController;
+    }
+
+    /**
+     * Returns a new ArtnetController bound to an ephemeral port.
+     *
+     * The instance is not shared. Use {@link ArtnetController#getLocalPort()} and
+     * {@link ArtnetController#setRemotePort(int)} to connect two such controllers, e.g. on loopback.
+     *
+     * @param host          host IP for the ArtnetController
+     * @param useChannel    whether the instance receives with a DatagramChannel (nio) instead of a DatagramSocket
+     * @return              a new instance of ArtnetController
+     * @throws IOException when no port can be opened
+     */
+    public static ArtnetController getEphemeralInstance(NetworkAddress host, boolean useChannel) throws IOException {
+        if (host == null) {
+            throw new IllegalArgumentException("cannot getEphemeralInstance of ArtnetController: host is null");
+        }
+        return new ArtnetController(host, 0, useChannel);
+    }
+
+    /**
+     * Returns a new ArtnetController serving several host addresses on one ephemeral port.
+     *
+     * @param hosts host IPs for the ArtnetController
+     * @return      a new instance of ArtnetController
+     * @throws IOException when no port can be opened
+     */
+    public static ArtnetController getEphemeralInstance(NetworkAddress[] hosts) throws IOException {
+        if (hosts == null || hosts.length == 0) {
+            throw new IllegalArgumentException("cannot getEphemeralInstance of ArtnetController: no hosts");
+        }
+        return new ArtnetController(hosts, 0, true);
+    }
+
+    /**
+     * Returns a new ArtnetController sending and receiving with a given transport.
+     *
+     * The instance is not shared, e.g. for controllers on an {@link ArtnetMemoryNetwork}.
+     *
+     * @param transport an open transport
+     * @return          a new instance of ArtnetController
+     */
+    public static ArtnetController getInstance(ArtnetTransport transport) {
+        if (transport == null) {
+            throw new IllegalArgumentException("cannot getInstance of ArtnetController: transport is null");
+        }
+        return new ArtnetController(transport);
+    }
+
     public static ArtnetController getTestingInstance() throws IOException {
         if (testingInstance == null) testingInstance = new ArtnetController(NetworkAddress.getLoopbackAddress(), 6454);
         return testingInstance;
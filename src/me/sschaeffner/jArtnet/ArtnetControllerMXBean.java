@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import java.util.Map;
+
+/**
+ * JMX view of an ArtnetController's metrics.
+ *
+ * @author sschaeffner
+ */
+public interface ArtnetControllerMXBean {
+
+    long getPacketsReceived();
+
+    long getBytesReceived();
+
+    long getPacketsSent();
+
+    long getBytesSent();
+
+    /**
+     * @return datagrams the transport failed to send, e.g. because the socket's send buffer stayed full
+     */
+    long getPacketsSendFailed();
+
+    /**
+     * @return received packets by opcode (hex formatted)
+     */
+    Map<String, Long> getPacketsReceivedByOpCode();
+
+    /**
+     * @return sent datagrams by opcode (hex formatted)
+     */
+    Map<String, Long> getPacketsSentByOpCode();
+
+    /**
+     * @return rejected packets by {@link ArtnetDecodeStatus}
+     */
+    Map<String, Long> getRejectedPackets();
+
+    /**
+     * @return dropped datagrams by {@link ArtnetDropReason}
+     */
+    Map<String, Long> getDroppedPackets();
+
+    long getListenerDispatchCount();
+
+    double getListenerDispatchMeanMicros();
+
+    /**
+     * @return upper bound of the 99th percentile of listener dispatch times
+     */
+    double getListenerDispatchP99Micros();
+
+    double getListenerDispatchMaxMicros();
+
+    /**
+     * @return packets dropped because the queue of an asynchronous listener was full
+     */
+    long getListenerEventsDropped();
+
+    /**
+     * @return queued packets replaced by a newer packet of the same Port-Address
+     */
+    long getListenerEventsConflated();
+
+    /**
+     * @return ArtDmx and ArtNzs frames missing in the sequence of their sender and Port-Address
+     */
+    long getSequenceFramesLost();
+
+    /**
+     * @return ArtDmx and ArtNzs frames that arrived after a newer frame of their sender and Port-Address
+     */
+    long getSequenceFramesLate();
+
+    /**
+     * @return share of ArtDmx and ArtNzs frames that were lost
+     */
+    double getSequenceLossRate();
+
+    /**
+     * @return share of ArtDmx and ArtNzs frames that arrived late
+     */
+    double getSequenceReorderRate();
+
+    /**
+     * @return milliseconds since a packet was last received from each known node (by ip address)
+     */
+    Map<String, Long> getNodeLastSeenMillis();
+
+    /**
+     * Resets all counters and histograms.
+     */
+    void reset();
+}
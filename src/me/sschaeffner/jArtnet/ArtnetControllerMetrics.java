@@ -0,0 +1,324 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import me.sschaeffner.jArtnet.packets.ArtnetPacket;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Built-in metrics of an ArtnetController.
+ *
+ * Counts packets and bytes per opcode, rejected and dropped packets by reason and records listener dispatch times
+ * in a histogram with power of two buckets. Every controller registers its instance as a JMX MBean.
+ *
+ * @author sschaeffner
+ */
+public class ArtnetControllerMetrics implements ArtnetMetrics, ArtnetControllerMXBean {
+
+    //Art-Net opcodes are multiples of 0x100
+    private static final int OPCODE_SLOTS = 0x100;
+
+    //one bucket per power of two nanoseconds
+    private static final int HISTOGRAM_BUCKETS = 64;
+
+    private final ArtnetNodeRegistry nodes;
+
+    private final AtomicLongArray packetsReceived = new AtomicLongArray(OPCODE_SLOTS);
+    private final AtomicLongArray bytesReceived = new AtomicLongArray(OPCODE_SLOTS);
+    private final AtomicLongArray packetsSent = new AtomicLongArray(OPCODE_SLOTS);
+    private final AtomicLongArray bytesSent = new AtomicLongArray(OPCODE_SLOTS);
+    private final AtomicLongArray sendFailed = new AtomicLongArray(OPCODE_SLOTS);
+    private final AtomicLongArray rejected = new AtomicLongArray(ArtnetDecodeStatus.values().length);
+    private final AtomicLongArray dropped = new AtomicLongArray(ArtnetDropReason.values().length);
+
+    private final AtomicLongArray dispatchHistogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+    private final AtomicLong dispatchNanos = new AtomicLong();
+    private final AtomicLong dispatchMaxNanos = new AtomicLong();
+    private final AtomicLong listenerEventsDropped = new AtomicLong();
+    private final AtomicLong listenerEventsConflated = new AtomicLong();
+    private final AtomicLong sequenceTracked = new AtomicLong();
+    private final AtomicLong sequenceLost = new AtomicLong();
+    private final AtomicLong sequenceLate = new AtomicLong();
+
+    /**
+     * Constructs a new instance of this class.
+     *
+     * @param nodes registry of the nodes whose last-seen time is reported
+     */
+    public ArtnetControllerMetrics(ArtnetNodeRegistry nodes) {
+        this.nodes = nodes;
+    }
+
+    @Override
+    public void packetReceived(int opCode, int length) {
+        int slot = slot(opCode);
+        packetsReceived.incrementAndGet(slot);
+        bytesReceived.addAndGet(slot, length);
+    }
+
+    @Override
+    public void packetSent(int opCode, int length) {
+        int slot = slot(opCode);
+        packetsSent.incrementAndGet(slot);
+        bytesSent.addAndGet(slot, length);
+    }
+
+    @Override
+    public void packetSendFailed(int opCode) {
+        sendFailed.incrementAndGet(slot(opCode));
+    }
+
+    @Override
+    public void packetRejected(ArtnetDecodeStatus reason) {
+        rejected.incrementAndGet(reason.ordinal());
+    }
+
+    @Override
+    public void packetDropped(ArtnetDropReason reason) {
+        dropped.incrementAndGet(reason.ordinal());
+    }
+
+    @Override
+    public void listenerDispatched(int opCode, long nanos) {
+        if (nanos < 0) nanos = 0;
+        dispatchHistogram.incrementAndGet(bucket(nanos));
+        dispatchNanos.addAndGet(nanos);
+
+        long max = dispatchMaxNanos.get();
+        while (nanos > max && !dispatchMaxNanos.compareAndSet(max, nanos)) max = dispatchMaxNanos.get();
+    }
+
+    @Override
+    public void listenerEventDropped(int opCode) {
+        listenerEventsDropped.incrementAndGet();
+    }
+
+    @Override
+    public void listenerEventConflated(int opCode) {
+        listenerEventsConflated.incrementAndGet();
+    }
+
+    @Override
+    public void sequenceTracked(int opCode, int lost, boolean late) {
+        sequenceTracked.incrementAndGet();
+        if (lost > 0) sequenceLost.addAndGet(lost);
+        if (late) sequenceLate.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of received packets of an opcode.
+     *
+     * @param opCode    an opcode
+     * @return          number of received packets
+     */
+    public long getPacketsReceived(int opCode) {
+        return packetsReceived.get(slot(opCode));
+    }
+
+    /**
+     * Returns the number of sent datagrams of an opcode.
+     *
+     * @param opCode    an opcode
+     * @return          number of sent datagrams
+     */
+    public long getPacketsSent(int opCode) {
+        return packetsSent.get(slot(opCode));
+    }
+
+    /**
+     * Returns the number of datagrams of an opcode the transport failed to send.
+     *
+     * @param opCode    an opcode
+     * @return          number of datagrams not sent
+     */
+    public long getPacketsSendFailed(int opCode) {
+        return sendFailed.get(slot(opCode));
+    }
+
+    public long getRejectedPackets(ArtnetDecodeStatus reason) {
+        return rejected.get(reason.ordinal());
+    }
+
+    public long getDroppedPackets(ArtnetDropReason reason) {
+        return dropped.get(reason.ordinal());
+    }
+
+    @Override
+    public long getPacketsReceived() {
+        return sum(packetsReceived);
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return sum(bytesReceived);
+    }
+
+    @Override
+    public long getPacketsSent() {
+        return sum(packetsSent);
+    }
+
+    @Override
+    public long getBytesSent() {
+        return sum(bytesSent);
+    }
+
+    @Override
+    public long getPacketsSendFailed() {
+        return sum(sendFailed);
+    }
+
+    @Override
+    public Map<String, Long> getPacketsReceivedByOpCode() {
+        return byOpCode(packetsReceived);
+    }
+
+    @Override
+    public Map<String, Long> getPacketsSentByOpCode() {
+        return byOpCode(packetsSent);
+    }
+
+    @Override
+    public Map<String, Long> getRejectedPackets() {
+        Map<String, Long> map = new TreeMap<>();
+        for (ArtnetDecodeStatus reason : ArtnetDecodeStatus.values()) {
+            if (reason != ArtnetDecodeStatus.OK) map.put(reason.name(), rejected.get(reason.ordinal()));
+        }
+        return map;
+    }
+
+    @Override
+    public Map<String, Long> getDroppedPackets() {
+        Map<String, Long> map = new TreeMap<>();
+        for (ArtnetDropReason reason : ArtnetDropReason.values()) map.put(reason.name(), dropped.get(reason.ordinal()));
+        return map;
+    }
+
+    @Override
+    public long getListenerDispatchCount() {
+        return sum(dispatchHistogram);
+    }
+
+    @Override
+    public double getListenerDispatchMeanMicros() {
+        long count = getListenerDispatchCount();
+        return count == 0 ? 0 : dispatchNanos.get() / 1000.0 / count;
+    }
+
+    @Override
+    public double getListenerDispatchP99Micros() {
+        long count = getListenerDispatchCount();
+        long rank = (long) Math.ceil(count * 0.99);
+        long seen = 0;
+        for (int i = 0; i < HISTOGRAM_BUCKETS && count > 0; i++) {
+            seen += dispatchHistogram.get(i);
+            if (seen >= rank) return Math.pow(2, i + 1) / 1000.0;
+        }
+        return 0;
+    }
+
+    @Override
+    public double getListenerDispatchMaxMicros() {
+        return dispatchMaxNanos.get() / 1000.0;
+    }
+
+    @Override
+    public long getListenerEventsDropped() {
+        return listenerEventsDropped.get();
+    }
+
+    @Override
+    public long getListenerEventsConflated() {
+        return listenerEventsConflated.get();
+    }
+
+    @Override
+    public long getSequenceFramesLost() {
+        return sequenceLost.get();
+    }
+
+    @Override
+    public long getSequenceFramesLate() {
+        return sequenceLate.get();
+    }
+
+    @Override
+    public double getSequenceLossRate() {
+        long lost = sequenceLost.get();
+        long expected = sequenceTracked.get() - sequenceLate.get() + lost;
+        return expected == 0 ? 0 : (double) lost / expected;
+    }
+
+    @Override
+    public double getSequenceReorderRate() {
+        long tracked = sequenceTracked.get();
+        return tracked == 0 ? 0 : (double) sequenceLate.get() / tracked;
+    }
+
+    @Override
+    public Map<String, Long> getNodeLastSeenMillis() {
+        long now = System.currentTimeMillis();
+        Map<String, Long> map = new TreeMap<>();
+        for (ArtnetNode node : nodes.getNodes()) {
+            map.merge(node.getInetAddress().getHostAddress(), now - node.getLastSeen(), Math::min);
+        }
+        return map;
+    }
+
+    @Override
+    public void reset() {
+        for (AtomicLongArray array : new AtomicLongArray[]{packetsReceived, bytesReceived, packetsSent, bytesSent,
+                sendFailed, rejected, dropped, dispatchHistogram}) {
+            for (int i = 0; i < array.length(); i++) array.set(i, 0);
+        }
+        dispatchNanos.set(0);
+        dispatchMaxNanos.set(0);
+        listenerEventsDropped.set(0);
+        listenerEventsConflated.set(0);
+        sequenceTracked.set(0);
+        sequenceLost.set(0);
+        sequenceLate.set(0);
+    }
+
+    private static int slot(int opCode) {
+        return (opCode >>> 8) & (OPCODE_SLOTS - 1);
+    }
+
+    private static int bucket(long nanos) {
+        return nanos == 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    private static long sum(AtomicLongArray array) {
+        long sum = 0;
+        for (int i = 0; i < array.length(); i++) sum += array.get(i);
+        return sum;
+    }
+
+    private static Map<String, Long> byOpCode(AtomicLongArray array) {
+        Map<String, Long> map = new TreeMap<>();
+        for (int i = 0; i < array.length(); i++) {
+            long value = array.get(i);
+            if (value != 0) map.put(ArtnetPacket.asHex(i << 8, 4), value);
+        }
+        return map;
+    }
+}
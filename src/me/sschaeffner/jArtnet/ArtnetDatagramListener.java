@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * Listener for datagrams received by an ArtnetTransport.
+ *
+ * @author sschaeffner
+ */
+@FunctionalInterface
+public interface ArtnetDatagramListener {
+
+    /**
+     * Called for every received datagram.
+     *
+     * The buffer is reused for the next datagram, so its bytes must not be kept after returning.
+     *
+     * @param data          received bytes between the buffer's position and limit
+     * @param sender        the sender's ip address
+     * @param port          the sender's port
+     * @param receivedOn    interface whose network the datagram was received from or null if the sender is in none
+     */
+    void onDatagram(ByteBuffer data, InetAddress sender, int port, ArtnetInterface receivedOn);
+}
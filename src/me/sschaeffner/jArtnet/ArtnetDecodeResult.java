@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import me.sschaeffner.jArtnet.packets.ArtnetPacket;
+
+/**
+ * The result of decoding received data with {@link ArtnetOpCodes#decode}.
+ *
+ * An instance can be reused for decoding many packets.
+ *
+ * @author sschaeffner
+ */
+public class ArtnetDecodeResult {
+    private ArtnetDecodeStatus status = ArtnetDecodeStatus.OK;
+    private ArtnetPacket packet;
+
+    void set(ArtnetDecodeStatus status, ArtnetPacket packet) {
+        this.status = status;
+        this.packet = packet;
+    }
+
+    public ArtnetDecodeStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the decoded packet.
+     *
+     * @return the decoded packet or null if the data was rejected
+     */
+    public ArtnetPacket getPacket() {
+        return packet;
+    }
+
+    public boolean isOk() {
+        return status == ArtnetDecodeStatus.OK;
+    }
+}
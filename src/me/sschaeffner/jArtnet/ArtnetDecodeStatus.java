@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+/**
+ * The outcome of checking or decoding received data.
+ *
+ * Every value but OK is a reason for rejecting the data.
+ *
+ * @author sschaeffner
+ */
+public enum ArtnetDecodeStatus {
+    /** the data contains a supported Art-Net packet */
+    OK,
+    /** the data is shorter than the packet type requires */
+    TOO_SHORT,
+    /** the data does not start with the Art-Net packet ID */
+    NOT_ARTNET,
+    /** the packet's opcode is not implemented by jArtnet */
+    UNSUPPORTED_OPCODE,
+    /** the packet's protocol version is not compatible */
+    PROTOCOL_VERSION,
+    /** the packet's content is inconsistent (e.g. announced data length is not available) */
+    MALFORMED
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+/**
+ * Reasons why a received datagram is dropped by an ArtnetController's filters.
+ *
+ * @author sschaeffner
+ */
+public enum ArtnetDropReason {
+
+    //sent by this controller
+    OWN_PACKET,
+
+    //sender is not in the host's subnet
+    FOREIGN_SUBNET,
+
+    //sent from a different port than the Art-Net port
+    FOREIGN_PORT,
+
+    //ArtDmx or ArtNzs frame that arrived after a newer frame of the same sender and Port-Address
+    LATE_SEQUENCE,
+
+    //ArtDmx frame of a further source of a Port-Address that already has the maximum number of merged sources
+    MERGE_SOURCE_LIMIT,
+
+    //ArtPoll of a poller that was answered within the poll reply interval
+    POLL_RATE_LIMIT,
+
+    //ArtDmx or ArtNzs frame repeating the last sequence number of its sender and Port-Address
+    DUPLICATE_SEQUENCE
+}
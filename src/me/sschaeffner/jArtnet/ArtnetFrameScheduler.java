@@ -0,0 +1,485 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import me.sschaeffner.jArtnet.packets.ArtDmxPacket;
+import me.sschaeffner.jArtnet.packets.ArtSyncPacket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transmits a set of output universes as frames.
+ *
+ * On every tick only universes that changed since they were last transmitted are sent. Unchanged universes are
+ * re-sent after the keep-alive interval so nodes do not time out. Universes are sent to the nodes outputting their
+ * Port-Address (see {@link ArtnetController#sendDmxPacket(ArtDmxPacket)}), so nothing is sent for a universe until a
+ * node outputting its Port-Address has been discovered.
+ *
+ * Frames can also be committed explicitly with {@link #commitFrame()}. All universes of a frame are sent back to
+ * back, followed by an ArtSync packet depending on the {@link ArtnetSyncMode}.
+ *
+ * @author sschaeffner
+ */
+public class ArtnetFrameScheduler {
+
+    //number of committed frames that can be in flight
+    private static final int PIPELINE_DEPTH = 2;
+
+    //controller to send with
+    private final ArtnetController controller;
+
+    //output universes by Port-Address
+    private final Map<Integer, UniverseState> universes;
+
+    //transmissions per second
+    private volatile double rate = 44;
+
+    //interval after which unchanged universes are re-sent
+    private volatile long keepAliveNanos = TimeUnit.MILLISECONDS.toNanos(1000);
+
+    //when to send ArtSync
+    private volatile ArtnetSyncMode syncMode = ArtnetSyncMode.NONE;
+
+    //guards collecting universes into frames
+    private final Object collectLock = new Object();
+
+    //frame used by ticks (only used on the sender thread)
+    private final Frame tickFrame = new Frame();
+
+    //frames available for commits
+    private final BlockingQueue<Frame> framePool;
+
+    //only used on the sender thread
+    private final ArtSyncPacket syncPacket = new ArtSyncPacket();
+
+    //incremented whenever a universe is added or removed
+    private final AtomicInteger universesVersion = new AtomicInteger();
+
+    //universe and registry versions the sync targets were derived from (only used on the sender thread)
+    private int syncUniversesVersion = -1;
+    private int syncRegistryVersion = -1;
+
+    //nodes subscribed to more than one universe, one per ip address (only used on the sender thread)
+    private ArtnetNode[] syncTargets = new ArtnetNode[0];
+
+    //sorted Port-Addresses with sync targets and the indexes of their targets (only used on the sender thread)
+    private int[] syncPortAddresses = new int[0];
+    private int[][] syncTargetIndexes = new int[0][];
+
+    //whether a sync target received data in the current frame (only used on the sender thread)
+    private boolean[] syncReceived = new boolean[0];
+
+    //thread sending the frames
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> tickFuture;
+
+    //whether stop() has been called since the last start()
+    private boolean stopped;
+
+    /**
+     * Constructs a new instance of this class.
+     *
+     * @param controller    controller to send with
+     */
+    ArtnetFrameScheduler(ArtnetController controller) {
+        this.controller = controller;
+        this.universes = new ConcurrentHashMap<>();
+        this.framePool = new ArrayBlockingQueue<>(PIPELINE_DEPTH);
+        for (int i = 0; i < PIPELINE_DEPTH; i++) framePool.add(new Frame());
+    }
+    /**
+     * Returns the output universe for a Port-Address, creating it if necessary.
+     *
+     * @param portAddress   15 bit Port-Address
+     * @return              the output universe
+     */
+    public ArtnetOutputUniverse addUniverse(int portAddress) {
+        return universes.computeIfAbsent(portAddress, p -> {
+            universesVersion.incrementAndGet();
+            return new UniverseState(new ArtnetOutputUniverse(p));
+        }).universe;
+    }
+
+    /**
+     * Removes the output universe of a Port-Address.
+     *
+     * @param portAddress   15 bit Port-Address
+     * @return              <tt>true</tt> if the universe existed
+     */
+    public boolean removeUniverse(int portAddress) {
+        if (universes.remove(portAddress) == null) return false;
+        universesVersion.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Returns the output universe for a Port-Address.
+     *
+     * @param portAddress   15 bit Port-Address
+     * @return              the output universe or null if it does not exist
+     */
+    public ArtnetOutputUniverse getUniverse(int portAddress) {
+        UniverseState state = universes.get(portAddress);
+        return state != null ? state.universe : null;
+    }
+
+    /**
+     * Sets the number of ticks per second.
+     *
+     * Takes effect on the next start.
+     *
+     * @param rate  ticks per second (e.g. 44 for full DMX512 refresh rate)
+     */
+    public void setRate(double rate) {
+        if (rate <= 0) throw new IllegalArgumentException("rate has to be greater than 0");
+        this.rate = rate;
+    }
+
+    /**
+     * Sets the interval after which unchanged universes are re-sent.
+     *
+     * @param keepAliveMillis   keep-alive interval in milliseconds
+     */
+    public void setKeepAliveInterval(long keepAliveMillis) {
+        if (keepAliveMillis <= 0) throw new IllegalArgumentException("keep-alive interval has to be greater than 0");
+        this.keepAliveNanos = TimeUnit.MILLISECONDS.toNanos(keepAliveMillis);
+    }
+
+    /**
+     * Sets when frames are followed by an ArtSync packet.
+     *
+     * Defaults to {@link ArtnetSyncMode#NONE}, because nodes that received an ArtSync hold their output until the next
+     * one.
+     *
+     * @param syncMode  the sync mode
+     */
+    public void setSyncMode(ArtnetSyncMode syncMode) {
+        if (syncMode == null) throw new IllegalArgumentException("sync mode must not be null");
+        this.syncMode = syncMode;
+    }
+
+    public ArtnetSyncMode getSyncMode() {
+        return syncMode;
+    }
+
+    /**
+     * Starts transmitting.
+     *
+     * Ticks are scheduled at a fixed rate, so late ticks do not make the output drift.
+     */
+    public synchronized void start() {
+        stopped = false;
+        if (tickFuture != null) return;
+        long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        tickFuture = getExecutor().scheduleAtFixedRate(this::tick, 0, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the sender thread's executor, creating it if necessary.
+     */
+    private synchronized ScheduledExecutorService getExecutor() {
+        if (stopped) throw new RejectedExecutionException("scheduler has been stopped");
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "jArtnet frame scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Stops transmitting.
+     *
+     * Blocking until a running tick is finished.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+        }
+        tickFuture = null;
+    }
+
+    /**
+     * Commits a frame made of all universes that changed or have to be kept alive.
+     *
+     * The universes are copied on the calling thread and sent on the scheduler's sender thread, so the caller can
+     * continue with the next frame right away. Only blocks if the sender thread falls behind by more than one frame.
+     * Sequence numbers are assigned when the universes are sent, so committed frames and ticks are numbered in the
+     * order they go out.
+     *
+     * @return  future of the number of universes in the frame
+     * @throws InterruptedException when interrupted while waiting for the sender thread
+     * @throws RejectedExecutionException when the scheduler has been stopped
+     */
+    public Future<Integer> commitFrame() throws InterruptedException {
+        synchronized (this) {
+            if (stopped) throw new RejectedExecutionException("scheduler has been stopped");
+        }
+        Frame frame = framePool.take();
+        collect(frame, System.nanoTime());
+        try {
+            return getExecutor().submit(() -> {
+                try {
+                    return send(frame);
+                } finally {
+                    framePool.add(frame);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //scheduler has been stopped concurrently
+            framePool.add(frame);
+            throw e;
+        }
+    }
+
+    /**
+     * Transmits all universes that changed or have to be kept alive.
+     *
+     * Runs on the sender thread.
+     */
+    void tick() {
+        try {
+            collect(tickFrame, System.nanoTime());
+            send(tickFrame);
+        } catch (RuntimeException e) {
+            //an exception would cancel all further ticks, later ticks may succeed
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Copies all universes that changed or have to be kept alive into a frame.
+     *
+     * Universes no discovered node outputs are skipped without being marked as collected, so they are sent as soon as
+     * a subscriber is discovered instead of after the next change or keep-alive.
+     *
+     * @param frame the frame to fill
+     * @param now   current time in nanoseconds
+     */
+    private void collect(Frame frame, long now) {
+        frame.clear();
+        ArtnetNodeRegistry registry = controller.getNodeRegistry();
+        synchronized (collectLock) {
+            for (UniverseState state : universes.values()) {
+                ArtnetOutputUniverse universe = state.universe;
+                if (universe.getVersion() == state.collectedVersion && now - state.collectedNanos < keepAliveNanos) continue;
+                if (registry.getByPortAddress(universe.getPortAddress()).length == 0) continue;
+
+                byte[] data = frame.next();
+                long version;
+                int length;
+                synchronized (universe) {
+                    version = universe.snapshot(data);
+                    length = universe.getLength();
+                }
+                frame.commit(universe.getPortAddress(), length);
+
+                state.collectedVersion = version;
+                state.collectedNanos = now;
+            }
+        }
+    }
+
+    /**
+     * Sends all universes of a frame followed by an ArtSync packet if required.
+     *
+     * ArtSync is only sent if at least one ArtDmx datagram went out.
+     *
+     * @param frame the frame to send
+     * @return      number of universes sent
+     */
+    private int send(Frame frame) {
+        ArtnetSyncMode syncMode = this.syncMode;
+        boolean multiUniverse = syncMode == ArtnetSyncMode.MULTI_UNIVERSE;
+        if (multiUniverse) {
+            updateSyncTargets();
+            Arrays.fill(syncReceived, false);
+        }
+
+        int datagrams = 0;
+        for (int i = 0; i < frame.size; i++) {
+            int portAddress = frame.portAddresses[i];
+            int sent = 0;
+            try {
+                sent = controller.sendDmx(portAddress, frame.data[i], frame.lengths[i]);
+            } catch (MalformedArtnetPacketException e) {
+                e.printStackTrace();
+            }
+            datagrams += sent;
+            if (multiUniverse && sent > 0) markSyncTargets(portAddress);
+        }
+
+        try {
+            if (syncMode == ArtnetSyncMode.ALWAYS && datagrams > 0) {
+                controller.broadcastPacket(syncPacket);
+            } else if (multiUniverse) {
+                for (int i = 0; i < syncTargets.length; i++) {
+                    if (syncReceived[i]) controller.unicastPacket(syncPacket, syncTargets[i]);
+                }
+            }
+        } catch (MalformedArtnetPacketException e) {
+            e.printStackTrace();
+        }
+        return frame.size;
+    }
+
+    /**
+     * Marks the sync targets subscribed to a Port-Address that has just been sent.
+     *
+     * @param portAddress   Port-Address that has just been sent
+     */
+    private void markSyncTargets(int portAddress) {
+        int i = Arrays.binarySearch(syncPortAddresses, portAddress);
+        if (i < 0) return;
+        for (int target : syncTargetIndexes[i]) syncReceived[target] = true;
+    }
+
+    /**
+     * Derives the nodes subscribed to more than one of the scheduler's universes from the node registry.
+     *
+     * Only recomputed after universes were added or removed or the registry changed.
+     */
+    private void updateSyncTargets() {
+        ArtnetNodeRegistry registry = controller.getNodeRegistry();
+        //read the versions first, so concurrent changes trigger another update
+        int universesVersion = this.universesVersion.get();
+        int registryVersion = registry.getVersion();
+        if (universesVersion == syncUniversesVersion && registryVersion == syncRegistryVersion) return;
+
+        int[] portAddresses = universes.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+
+        //number of universes and a node per ip address (nodes bound to the same root device share an ip address)
+        Map<Integer, Integer> universeCounts = new HashMap<>();
+        Map<Integer, ArtnetNode> ipNodes = new HashMap<>();
+        for (int portAddress : portAddresses) {
+            Set<Integer> ips = new HashSet<>();
+            for (ArtnetNode node : registry.getByPortAddress(portAddress)) {
+                int ip = node.getIpAddressInt();
+                if (!ips.add(ip)) continue;
+                universeCounts.merge(ip, 1, Integer::sum);
+                ipNodes.putIfAbsent(ip, node);
+            }
+        }
+
+        Map<Integer, Integer> targetIndexes = new HashMap<>();
+        List<ArtnetNode> targets = new ArrayList<>();
+        universeCounts.forEach((ip, count) -> {
+            if (count > 1) {
+                targetIndexes.put(ip, targets.size());
+                targets.add(ipNodes.get(ip));
+            }
+        });
+
+        int[] targetPortAddresses = new int[portAddresses.length];
+        int[][] indexes = new int[portAddresses.length][];
+        int size = 0;
+        for (int portAddress : portAddresses) {
+            int[] universeTargets = Arrays.stream(registry.getByPortAddress(portAddress))
+                    .map(node -> targetIndexes.get(node.getIpAddressInt()))
+                    .filter(Objects::nonNull).distinct().mapToInt(Integer::intValue).toArray();
+            if (universeTargets.length == 0) continue;
+            targetPortAddresses[size] = portAddress;
+            indexes[size++] = universeTargets;
+        }
+
+        syncTargets = targets.toArray(new ArtnetNode[0]);
+        syncReceived = new boolean[syncTargets.length];
+        syncPortAddresses = Arrays.copyOf(targetPortAddresses, size);
+        syncTargetIndexes = Arrays.copyOf(indexes, size);
+        syncUniversesVersion = universesVersion;
+        syncRegistryVersion = registryVersion;
+    }
+
+    /**
+     * Universes collected for transmission.
+     */
+    private static final class Frame {
+        private int size;
+        private int[] portAddresses = new int[16];
+        private int[] lengths = new int[16];
+        private byte[][] data = new byte[16][];
+
+        void clear() {
+            size = 0;
+        }
+
+        /**
+         * Returns the data array of the next universe.
+         */
+        byte[] next() {
+            if (size == data.length) {
+                int capacity = size * 2;
+                portAddresses = Arrays.copyOf(portAddresses, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                data = Arrays.copyOf(data, capacity);
+            }
+            if (data[size] == null) data[size] = new byte[512];
+            return data[size];
+        }
+
+        /**
+         * Adds the universe whose data has been written to the array returned by {@link #next()}.
+         */
+        void commit(int portAddress, int length) {
+            portAddresses[size] = portAddress;
+            lengths[size] = length;
+            size++;
+        }
+    }
+
+    /**
+     * An output universe and its transmission state.
+     */
+    private static final class UniverseState {
+        private final ArtnetOutputUniverse universe;
+
+        //version and time of the last collection
+        private long collectedVersion = -1;
+        private long collectedNanos;
+
+        UniverseState(ArtnetOutputUniverse universe) {
+            this.universe = universe;
+        }
+    }
+}
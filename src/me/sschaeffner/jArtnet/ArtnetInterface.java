@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+
+/**
+ * One of the network addresses an ArtnetController serves through its ArtnetTransport.
+ *
+ * @author sschaeffner
+ */
+public final class ArtnetInterface {
+
+    //served network address (null for interfaces of an in-memory transport)
+    private final NetworkAddress networkAddress;
+
+    //own address, prefix length and broadcast address (null if there is none)
+    private final InetAddress address;
+    private final int prefixLength;
+    private final InetAddress broadcastAddress;
+
+    //whether senders from any subnet are accepted, otherwise the subnet as int mask and prefix
+    private final boolean anySubnet;
+    private final int subnetMask;
+    private final int subnet;
+
+    //broadcast address and Art-Net port (created on demand)
+    private InetSocketAddress broadcastSocketAddress;
+
+    /**
+     * Constructs a new instance of this class for a network address of this machine.
+     *
+     * @param networkAddress    the served network address
+     */
+    public ArtnetInterface(NetworkAddress networkAddress) {
+        this(networkAddress, networkAddress.getInterfaceAddress().getAddress(),
+                networkAddress.getInterfaceAddress().getNetworkPrefixLength(), networkAddress.getBroadcastAddress());
+    }
+
+    /**
+     * Constructs a new instance of this class for an address that does not belong to a network interface, e.g. of
+     * an in-memory transport.
+     *
+     * @param address           own ip address
+     * @param prefixLength      network prefix length
+     * @param broadcastAddress  broadcast address or null if there is none
+     */
+    public ArtnetInterface(InetAddress address, int prefixLength, InetAddress broadcastAddress) {
+        this(null, address, prefixLength, broadcastAddress);
+    }
+
+    private ArtnetInterface(NetworkAddress networkAddress, InetAddress address, int prefixLength, InetAddress broadcastAddress) {
+        if (prefixLength < 0 || prefixLength > address.getAddress().length * 8) throw new IllegalArgumentException("invalid prefix length " + prefixLength);
+        this.networkAddress = networkAddress;
+        this.address = address;
+        this.prefixLength = prefixLength;
+        this.broadcastAddress = broadcastAddress;
+
+        //no broadcast address when listening on the loopback interface (test mode), accept all senders then
+        if (broadcastAddress != null && address instanceof Inet4Address) {
+            this.anySubnet = false;
+            this.subnetMask = prefixLength == 0 ? 0 : -1 << (32 - prefixLength);
+            this.subnet = toInt(address) & subnetMask;
+        } else {
+            this.anySubnet = true;
+            this.subnetMask = 0;
+            this.subnet = 0;
+        }
+    }
+
+    /**
+     * Returns the served network address.
+     *
+     * @return the network address or null if the interface does not belong to a network interface of this machine
+     */
+    public NetworkAddress getNetworkAddress() {
+        return networkAddress;
+    }
+
+    /**
+     * Returns the interface's own ip address.
+     *
+     * @return the ip address
+     */
+    public InetAddress getAddress() {
+        return address;
+    }
+
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    public InetAddress getBroadcastAddress() {
+        return broadcastAddress;
+    }
+
+    /**
+     * Returns the MAC address of the network interface.
+     *
+     * @return the MAC address or 6 zero bytes if it is unknown
+     */
+    byte[] getHardwareAddress() {
+        byte[] mac = null;
+        if (networkAddress != null) {
+            try {
+                mac = networkAddress.getNetworkInterface().getHardwareAddress();
+            } catch (SocketException e) {
+                e.printStackTrace();
+            }
+        }
+        return mac != null ? mac : new byte[6];
+    }
+
+    /**
+     * Returns whether an address is in the interface's subnet.
+     *
+     * Always true for interfaces without a broadcast address (e.g. loopback).
+     *
+     * @param address   InetAddress to check
+     * @return          whether the address is in the subnet
+     */
+    public boolean isInSubnet(InetAddress address) {
+        if (anySubnet) return true;
+        return address instanceof Inet4Address && (toInt(address) & subnetMask) == subnet;
+    }
+
+    /**
+     * Returns the broadcast address together with a port.
+     *
+     * @param port  the Art-Net port
+     * @return      the broadcast socket address or null if there is no broadcast address
+     */
+    synchronized InetSocketAddress getBroadcastSocketAddress(int port) {
+        InetSocketAddress socketAddress = broadcastSocketAddress;
+        if (socketAddress == null || socketAddress.getPort() != port) {
+            if (broadcastAddress == null) return null;
+            socketAddress = new InetSocketAddress(broadcastAddress, port);
+            broadcastSocketAddress = socketAddress;
+        }
+        return socketAddress;
+    }
+
+    /**
+     * Returns the first interface whose subnet contains an address.
+     *
+     * @param interfaces    interfaces to search
+     * @param address       an ip address
+     * @return              the first interface with the address in its subnet or null if there is none
+     */
+    static ArtnetInterface findSubnetInterface(ArtnetInterface[] interfaces, InetAddress address) {
+        for (ArtnetInterface artnetInterface : interfaces) {
+            if (artnetInterface.isInSubnet(address)) return artnetInterface;
+        }
+        return null;
+    }
+
+    private static int toInt(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        return (bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8 | (bytes[3] & 0xFF);
+    }
+
+    @Override
+    public String toString() {
+        return "ArtnetInterface{" + address.getHostAddress() + "/" + prefixLength + "}";
+    }
+}
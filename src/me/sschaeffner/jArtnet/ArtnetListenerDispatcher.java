@@ -0,0 +1,349 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import me.sschaeffner.jArtnet.packets.ArtDmxPacket;
+import me.sschaeffner.jArtnet.packets.ArtNzsPacket;
+import me.sschaeffner.jArtnet.packets.ArtnetPacket;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Delivers received packets to one ArtnetPacketListener.
+ *
+ * Inline dispatchers call the listener on the receiver thread. Asynchronous dispatchers put packets into a bounded
+ * queue that is drained by a single consumer at a time, so the listener still sees packets in the order they were
+ * received and is never called concurrently. When the queue is full, the dispatcher's ArtnetQueuePolicy decides
+ * which packet is lost.
+ *
+ * @author sschaeffner
+ */
+public final class ArtnetListenerDispatcher {
+
+    private final ArtnetController controller;
+    private final ArtnetPacketListener listener;
+    private final BitSet opCodes;
+    private final ArtnetDispatchMode mode;
+    private final ArtnetQueuePolicy policy;
+    private final int queueCapacity;
+
+    //runs drain(), null for inline dispatchers
+    private final ExecutorService executor;
+
+    //guarded by this
+    private final ArrayDeque<Entry> queue;
+    private final Map<Integer, Entry> conflatable;
+    private boolean draining;
+    private boolean closed;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong conflated = new AtomicLong();
+
+    //conflated packets per Port-Address, null unless the policy is CONFLATE
+    private final AtomicLongArray conflatedByUniverse;
+
+    /**
+     * Constructs a new instance of this class.
+     *
+     * @param controller    controller whose metrics are informed
+     * @param listener      the listener
+     * @param opCodes       opcodes the listener is subscribed to
+     * @param mode          where the listener is called
+     * @param queueCapacity maximum number of queued packets (ignored for inline dispatchers)
+     * @param policy        what happens when the queue is full (ignored for inline dispatchers)
+     */
+    ArtnetListenerDispatcher(ArtnetController controller, ArtnetPacketListener listener, BitSet opCodes,
+                             ArtnetDispatchMode mode, int queueCapacity, ArtnetQueuePolicy policy) {
+        if (listener == null) throw new IllegalArgumentException("listener must not be null");
+        if (mode == null || policy == null) throw new IllegalArgumentException("mode and policy must not be null");
+        if (mode != ArtnetDispatchMode.INLINE && queueCapacity < 1) {
+            throw new IllegalArgumentException("queue capacity has to be at least 1");
+        }
+        this.controller = controller;
+        this.listener = listener;
+        this.opCodes = opCodes;
+        this.mode = mode;
+        this.policy = policy;
+        this.queueCapacity = queueCapacity;
+
+        if (mode == ArtnetDispatchMode.INLINE) {
+            this.executor = null;
+            this.queue = null;
+            this.conflatable = null;
+            this.conflatedByUniverse = null;
+        } else {
+            this.executor = mode == ArtnetDispatchMode.VIRTUAL_THREAD ? newVirtualThreadExecutor() : newThreadExecutor();
+            this.queue = new ArrayDeque<>(Math.min(queueCapacity, 1024));
+            this.conflatable = policy == ArtnetQueuePolicy.CONFLATE ? new HashMap<>() : null;
+            this.conflatedByUniverse = policy == ArtnetQueuePolicy.CONFLATE ? new AtomicLongArray(0x8000) : null;
+        }
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task.
+     *
+     * Looked up reflectively, so this library still runs on Java 8. Falls back to a dedicated platform thread.
+     */
+    private ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return newThreadExecutor();
+        }
+    }
+
+    private ExecutorService newThreadExecutor() {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "jArtnet listener " + listener.getClass().getSimpleName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns whether the listener is subscribed to an opcode.
+     *
+     * @param opCode    an opcode
+     * @return          whether packets with the opcode are dispatched
+     */
+    boolean isSubscribed(int opCode) {
+        return opCodes.get(opCode);
+    }
+
+    BitSet getOpCodes() {
+        return opCodes;
+    }
+
+    /**
+     * Hands a received packet to the listener.
+     *
+     * @param event     event for the received packet
+     * @param opCode    the packet's opcode
+     */
+    void dispatch(ArtnetPacketReceiveEvent event, int opCode) {
+        if (executor == null) {
+            deliver(event, opCode);
+            return;
+        }
+
+        synchronized (this) {
+            if (closed) return;
+
+            //replace a queued frame of the same universe
+            int key = conflatable != null ? conflationKey(event.getReceivedPacket()) : -1;
+            if (key >= 0) {
+                Entry entry = conflatable.get(key);
+                if (entry != null) {
+                    entry.event = event;
+                    conflated.incrementAndGet();
+                    conflatedByUniverse.incrementAndGet(key & 0x7FFF);
+                    controller.getMetrics().listenerEventConflated(opCode);
+                    return;
+                }
+            }
+
+            while (queue.size() >= queueCapacity) {
+                if (policy == ArtnetQueuePolicy.DROP_NEWEST) {
+                    drop(opCode);
+                    return;
+                } else if (policy == ArtnetQueuePolicy.BLOCK) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        drop(opCode);
+                        return;
+                    }
+                    if (closed) return;
+                } else {
+                    Entry oldest = queue.poll();
+                    if (oldest.key >= 0) conflatable.remove(oldest.key);
+                    drop(oldest.opCode);
+                }
+            }
+
+            Entry entry = new Entry(event, opCode, key);
+            queue.add(entry);
+            if (key >= 0) conflatable.put(key, entry);
+
+            if (draining) return;
+            draining = true;
+        }
+
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            //closed concurrently
+            synchronized (this) {
+                draining = false;
+            }
+        }
+    }
+
+    /**
+     * Delivers queued packets until the queue is empty.
+     */
+    private void drain() {
+        while (true) {
+            Entry entry;
+            synchronized (this) {
+                entry = queue.poll();
+                if (entry == null) {
+                    draining = false;
+                    return;
+                }
+                if (entry.key >= 0) conflatable.remove(entry.key);
+                if (policy == ArtnetQueuePolicy.BLOCK) notifyAll();
+            }
+
+            try {
+                deliver(entry.event, entry.opCode);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void deliver(ArtnetPacketReceiveEvent event, int opCode) {
+        long start = System.nanoTime();
+        listener.onArtnetPacketReceive(event);
+        controller.getMetrics().listenerDispatched(opCode, System.nanoTime() - start);
+        delivered.incrementAndGet();
+    }
+
+    private void drop(int opCode) {
+        dropped.incrementAndGet();
+        controller.getMetrics().listenerEventDropped(opCode);
+    }
+
+    /**
+     * Returns the key under which a packet replaces older packets, or -1 if it is not replaced.
+     */
+    private static int conflationKey(ArtnetPacket packet) {
+        if (packet instanceof ArtDmxPacket) return ((ArtDmxPacket) packet).getPortAddress();
+        if (packet instanceof ArtNzsPacket) return 0x8000 | ((ArtNzsPacket) packet).getPortAddress();
+        return -1;
+    }
+
+    /**
+     * Stops dispatching and discards all queued packets.
+     */
+    void close() {
+        synchronized (this) {
+            closed = true;
+            if (queue != null) queue.clear();
+            if (conflatable != null) conflatable.clear();
+            notifyAll();
+        }
+        if (executor != null) executor.shutdown();
+    }
+
+    public ArtnetPacketListener getListener() {
+        return listener;
+    }
+
+    public ArtnetDispatchMode getMode() {
+        return mode;
+    }
+
+    public ArtnetQueuePolicy getPolicy() {
+        return policy;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Returns the number of packets waiting for the listener.
+     *
+     * @return number of queued packets (always 0 for inline dispatchers)
+     */
+    public synchronized int getQueueDepth() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    /**
+     * Returns the number of packets the listener has handled.
+     *
+     * @return number of delivered packets
+     */
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    /**
+     * Returns the number of packets that were dropped because the queue was full.
+     *
+     * @return number of dropped packets
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of queued ArtDmx and ArtNzs packets that were replaced by a newer packet.
+     *
+     * @return number of conflated packets
+     */
+    public long getConflated() {
+        return conflated.get();
+    }
+
+    /**
+     * Returns the number of queued ArtDmx and ArtNzs packets of a Port-Address that were replaced by a newer packet.
+     *
+     * @param portAddress   a Port-Address
+     * @return              number of conflated packets (always 0 unless the policy is CONFLATE)
+     */
+    public long getConflated(int portAddress) {
+        if (portAddress < 0 || portAddress > 0x7FFF) throw new IllegalArgumentException("invalid Port-Address " + portAddress);
+        return conflatedByUniverse != null ? conflatedByUniverse.get(portAddress) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ArtnetListenerDispatcher{listener=" + listener + ", mode=" + mode + ", policy=" + policy +
+                ", queueDepth=" + getQueueDepth() + ", delivered=" + getDelivered() + ", dropped=" + getDropped() +
+                ", conflated=" + getConflated() + "}";
+    }
+
+    /**
+     * A queued packet.
+     */
+    private static final class Entry {
+        private ArtnetPacketReceiveEvent event;
+        private final int opCode;
+        private final int key;
+
+        private Entry(ArtnetPacketReceiveEvent event, int opCode, int key) {
+            this.event = event;
+            this.opCode = opCode;
+            this.key = key;
+        }
+    }
+}
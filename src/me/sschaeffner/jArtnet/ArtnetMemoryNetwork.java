@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A network inside the JVM that links ArtnetMemoryTransports, e.g. for tests and simulations without sockets.
+ *
+ * Transports get addresses in 10.0.0.0/8 and listen on port 6454 unless opened otherwise, so controllers on the
+ * same network reach each other without port configuration. Datagrams to 10.255.255.255 are broadcast to all
+ * transports on the destination port.
+ *
+ * Every transport queues received datagrams until its controller handles them. Sending to a full queue waits for
+ * space, so no datagram is lost however fast it is sent; only datagrams sent from a receiver thread (e.g. an
+ * ArtPollReply) are dropped when the queue is full, so two controllers never wait for each other.
+ *
+ * @author sschaeffner
+ */
+public final class ArtnetMemoryNetwork {
+
+    //default number of datagrams a transport queues
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    //Art-Net port
+    public static final int DEFAULT_PORT = 6454;
+
+    //network 10.0.0.0/8
+    private static final int PREFIX_LENGTH = 8;
+    private static final InetAddress BROADCAST_ADDRESS = toAddress(0x0AFFFFFF);
+
+    //transports by address and port
+    private final ConcurrentHashMap<InetSocketAddress, ArtnetMemoryTransport> transports = new ConcurrentHashMap<>();
+
+    //host part of the next address handed out
+    private final AtomicInteger nextHost = new AtomicInteger(1);
+
+    //number of datagrams each transport queues
+    private final int queueCapacity;
+
+    //set on the receiver threads of this network's transports
+    private final ThreadLocal<Boolean> receiving = new ThreadLocal<>();
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Constructs a new instance of this class.
+     */
+    public ArtnetMemoryNetwork() {
+        this(DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructs a new instance of this class.
+     *
+     * @param queueCapacity number of datagrams each transport queues
+     */
+    public ArtnetMemoryNetwork(int queueCapacity) {
+        if (queueCapacity <= 0) throw new IllegalArgumentException("queueCapacity has to be greater than 0");
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Opens a transport with the next free address on the Art-Net port.
+     *
+     * @return a new transport
+     * @throws IOException when all addresses are taken
+     */
+    public ArtnetMemoryTransport open() throws IOException {
+        while (true) {
+            int host = nextHost.getAndIncrement();
+            if (host >= 0xFFFFFF) throw new IOException("cannot open ArtnetMemoryTransport: no address left");
+            InetSocketAddress address = new InetSocketAddress(toAddress(0x0A000000 | host), DEFAULT_PORT);
+            if (!transports.containsKey(address)) return open(address);
+        }
+    }
+
+    /**
+     * Opens a transport with a given address.
+     *
+     * @param address   address in 10.0.0.0/8
+     * @param port      port to listen on
+     * @return          a new transport
+     * @throws IOException when the address and port are already taken
+     */
+    public ArtnetMemoryTransport open(InetAddress address, int port) throws IOException {
+        if (!(address instanceof Inet4Address) || address.getAddress()[0] != 10 || address.equals(BROADCAST_ADDRESS)) {
+            throw new IllegalArgumentException("cannot open ArtnetMemoryTransport: " + address + " is not a host in 10.0.0.0/8");
+        }
+        if (port <= 0 || port > 0xFFFF) throw new IllegalArgumentException("invalid port " + port);
+        return open(new InetSocketAddress(address, port));
+    }
+
+    private ArtnetMemoryTransport open(InetSocketAddress address) throws IOException {
+        ArtnetMemoryTransport transport = new ArtnetMemoryTransport(this, address,
+                new ArtnetInterface(address.getAddress(), PREFIX_LENGTH, BROADCAST_ADDRESS), queueCapacity);
+        if (transports.putIfAbsent(address, transport) != null) {
+            throw new IOException("cannot open ArtnetMemoryTransport: " + address + " is already in use");
+        }
+        return transport;
+    }
+
+    /**
+     * Hands a datagram to the transport listening on an address, or to all transports on its port if it is the
+     * broadcast address.
+     *
+     * @param data      bytes between the buffer's position and limit
+     * @param from      sending transport's address
+     * @param to        address to send to
+     */
+    void deliver(ByteBuffer data, InetSocketAddress from, InetSocketAddress to) {
+        boolean block = receiving.get() == null;
+        if (BROADCAST_ADDRESS.equals(to.getAddress())) {
+            for (ArtnetMemoryTransport transport : transports.values()) {
+                if (transport.getLocalPort() == to.getPort()) deliver(transport, data, from, block);
+            }
+        } else {
+            ArtnetMemoryTransport transport = transports.get(to);
+            //like udp, datagrams to addresses nobody listens on are lost silently
+            if (transport != null) deliver(transport, data, from, block);
+        }
+    }
+
+    private void deliver(ArtnetMemoryTransport transport, ByteBuffer data, InetSocketAddress from, boolean block) {
+        if (transport.offer(data, from, block)) {
+            delivered.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Marks the calling thread as a receiver thread.
+     */
+    void setReceiving() {
+        receiving.set(Boolean.TRUE);
+    }
+
+    void remove(ArtnetMemoryTransport transport) {
+        transports.remove(transport.getLocalSocketAddress(), transport);
+    }
+
+    /**
+     * Returns the number of datagrams handed to a transport.
+     *
+     * @return number of delivered datagrams
+     */
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    /**
+     * Returns the number of datagrams lost because a transport's queue was full or it was closed.
+     *
+     * @return number of dropped datagrams
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public InetAddress getBroadcastAddress() {
+        return BROADCAST_ADDRESS;
+    }
+
+    private static InetAddress toAddress(int address) {
+        try {
+            return InetAddress.getByAddress(new byte[]{(byte) (address >> 24), (byte) (address >> 16), (byte) (address >> 8), (byte) address});
+        } catch (UnknownHostException e) {
+            //only thrown for addresses of illegal length
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Transport of an ArtnetMemoryNetwork.
+ *
+ * Opened with {@link ArtnetMemoryNetwork#open()}.
+ *
+ * @author sschaeffner
+ */
+public final class ArtnetMemoryTransport implements ArtnetTransport {
+
+    //size of a queued datagram, longer ones are truncated like by a DatagramSocket
+    private static final int MAX_PACKET_LENGTH = 600;
+
+    private final ArtnetMemoryNetwork network;
+    private final InetSocketAddress localAddress;
+    private final ArtnetInterface artnetInterface;
+
+    //received datagrams not yet handed to the listener (ring buffer guarded by this)
+    private final ByteBuffer[] slots;
+    private final InetSocketAddress[] senders;
+    private int head;
+    private int size;
+
+    private volatile boolean open = true;
+
+    ArtnetMemoryTransport(ArtnetMemoryNetwork network, InetSocketAddress localAddress, ArtnetInterface artnetInterface, int queueCapacity) {
+        this.network = network;
+        this.localAddress = localAddress;
+        this.artnetInterface = artnetInterface;
+        this.slots = new ByteBuffer[queueCapacity];
+        this.senders = new InetSocketAddress[queueCapacity];
+        for (int i = 0; i < queueCapacity; i++) slots[i] = ByteBuffer.allocate(MAX_PACKET_LENGTH);
+    }
+
+    /**
+     * Returns the transport's address on its network.
+     *
+     * @return the ip address
+     */
+    public InetAddress getAddress() {
+        return localAddress.getAddress();
+    }
+
+    InetSocketAddress getLocalSocketAddress() {
+        return localAddress;
+    }
+
+    @Override
+    public List<ArtnetInterface> getInterfaces() {
+        return Collections.singletonList(artnetInterface);
+    }
+
+    @Override
+    public int getLocalPort() {
+        return localAddress.getPort();
+    }
+
+    /**
+     * Returns the number of queued datagrams.
+     *
+     * @return the queue size
+     */
+    public synchronized int getQueueSize() {
+        return size;
+    }
+
+    @Override
+    public void receive(ArtnetDatagramListener listener) throws IOException {
+        network.setReceiving();
+
+        //the slot handed to the listener is swapped with a spare one, so neither copies nor allocates
+        ByteBuffer received = ByteBuffer.allocate(MAX_PACKET_LENGTH);
+        while (true) {
+            InetSocketAddress sender;
+            synchronized (this) {
+                while (size == 0 && open) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (!open) return;
+
+                ByteBuffer slot = slots[head];
+                slots[head] = received;
+                received = slot;
+                sender = senders[head];
+                senders[head] = null;
+                head = (head + 1) % slots.length;
+                size--;
+                notifyAll();
+            }
+            listener.onDatagram(received, sender.getAddress(), sender.getPort(), artnetInterface);
+        }
+    }
+
+    /**
+     * Queues a received datagram.
+     *
+     * @param data      bytes between the buffer's position and limit (left unchanged)
+     * @param from      the sender's address
+     * @param block     whether to wait while the queue is full
+     * @return          whether the datagram was queued
+     */
+    synchronized boolean offer(ByteBuffer data, InetSocketAddress from, boolean block) {
+        while (block && open && size == slots.length) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        if (!open || size == slots.length) return false;
+
+        int tail = (head + size) % slots.length;
+        ByteBuffer slot = slots[tail];
+        int length = Math.min(data.remaining(), slot.capacity());
+        if (data.hasArray()) {
+            System.arraycopy(data.array(), data.arrayOffset() + data.position(), slot.array(), 0, length);
+        } else {
+            for (int i = 0; i < length; i++) slot.array()[i] = data.get(data.position() + i);
+        }
+        slot.clear();
+        slot.limit(length);
+        senders[tail] = from;
+        size++;
+        notifyAll();
+        return true;
+    }
+
+    @Override
+    public void send(ByteBuffer data, InetSocketAddress address, ArtnetInterface artnetInterface) throws IOException {
+        if (!open) throw new IOException("cannot send: ArtnetMemoryTransport is closed");
+        network.deliver(data, localAddress, address);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        network.remove(this);
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ArtnetMemoryTransport{" + localAddress.getAddress().getHostAddress() + ":" + localAddress.getPort() + "}";
+    }
+}
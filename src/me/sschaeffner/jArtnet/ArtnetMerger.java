@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Merges the DMX512 frames of several sources sending to the same Port-Address.
+ *
+ * A source is identified by its ip address and the physical port in its ArtDmx packets. Every source's last frame is
+ * kept, and the merged frame is updated incrementally: only channels that changed in the source's new frame are
+ * merged again. As in the Art-Net specification, at most two sources are merged per Port-Address, frames of
+ * further sources are ignored, and a source that has not sent for ten seconds is removed.
+ *
+ * @author sschaeffner
+ */
+public class ArtnetMerger {
+
+    //number of 15 bit Port-Addresses
+    private static final int PORT_ADDRESSES = 0x8000;
+
+    //maximum number of channels per frame
+    private static final int FRAME_SIZE = 512;
+
+    //maximum number of merged sources per Port-Address
+    public static final int MAX_SOURCES = 2;
+
+    //returned by merge() for frames of a source that is not merged
+    public static final int IGNORED = -1;
+
+    //merge state per Port-Address, created on the first frame
+    private final AtomicReferenceArray<MergeUniverse> universes = new AtomicReferenceArray<>(PORT_ADDRESSES);
+
+    private volatile ArtnetMergeMode defaultMode = ArtnetMergeMode.HTP;
+    private volatile long sourceTimeoutNanos = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * Sets the merge mode of all Port-Addresses that have no mode of their own (HTP by default).
+     *
+     * Takes effect with the next merged frame of each Port-Address.
+     *
+     * @param mode  the merge mode
+     */
+    public void setMergeMode(ArtnetMergeMode mode) {
+        if (mode == null) throw new IllegalArgumentException("mode must not be null");
+        this.defaultMode = mode;
+    }
+
+    /**
+     * Sets the merge mode of a Port-Address.
+     *
+     * @param portAddress   15 bit Port-Address
+     * @param mode          the merge mode
+     */
+    public void setMergeMode(int portAddress, ArtnetMergeMode mode) {
+        if (mode == null) throw new IllegalArgumentException("mode must not be null");
+        MergeUniverse universe = getUniverse(portAddress);
+        synchronized (universe) {
+            universe.mode = mode;
+            universe.mergeAll(mode);
+        }
+    }
+
+    public ArtnetMergeMode getMergeMode(int portAddress) {
+        MergeUniverse universe = getUniverse(portAddress);
+        synchronized (universe) {
+            return universe.mode != null ? universe.mode : defaultMode;
+        }
+    }
+
+    /**
+     * Sets after how long without a frame a source is no longer merged (10 seconds by default).
+     *
+     * @param timeoutMillis source timeout in milliseconds
+     */
+    public void setSourceTimeout(long timeoutMillis) {
+        if (timeoutMillis <= 0) throw new IllegalArgumentException("source timeout has to be positive");
+        this.sourceTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * Merges a source's frame and copies the merged frame.
+     *
+     * @param sender        the source's ip address
+     * @param physical      the source's physical port
+     * @param portAddress   15 bit Port-Address of the frame
+     * @param src           buffer containing the frame's channels
+     * @param srcOffset     absolute index of the first channel in the buffer
+     * @param length        number of channels
+     * @param dst           array of at least 512 bytes to copy the merged frame into
+     * @return              number of channels of the merged frame or IGNORED if the source is not merged
+     */
+    public int merge(InetAddress sender, int physical, int portAddress, ByteBuffer src, int srcOffset, int length, byte[] dst) {
+        if (length < 0 || length > FRAME_SIZE) throw new IllegalArgumentException("invalid frame length " + length);
+
+        MergeUniverse universe = getUniverse(portAddress);
+        synchronized (universe) {
+            long now = System.nanoTime();
+            ArtnetMergeMode mode = universe.mode != null ? universe.mode : defaultMode;
+            universe.expire(now, sourceTimeoutNanos, mode);
+
+            Source source = universe.getSource(sender, physical);
+            if (source == null) return IGNORED;
+            source.lastFrameNanos = now;
+
+            byte[] data = source.data;
+            int end = Math.max(length, source.length);
+            for (int i = 0; i < end; i++) {
+                byte value = i < length ? src.get(srcOffset + i) : 0;
+                byte old = data[i];
+                if (value == old) continue;
+                data[i] = value;
+
+                int merged = Byte.toUnsignedInt(universe.merged[i]);
+                if (mode == ArtnetMergeMode.LTP || Byte.toUnsignedInt(value) >= merged) {
+                    universe.merged[i] = value;
+                } else if (Byte.toUnsignedInt(old) == merged) {
+                    //this source may have been the highest
+                    universe.merged[i] = universe.highest(i);
+                }
+            }
+            source.length = length;
+            universe.updateLength();
+
+            System.arraycopy(universe.merged, 0, dst, 0, universe.length);
+            return universe.length;
+        }
+    }
+
+    /**
+     * Copies the merged frame of a Port-Address.
+     *
+     * @param portAddress   15 bit Port-Address
+     * @param dst           array of at least 512 bytes to copy the merged frame into
+     * @return              number of channels of the merged frame, 0 if no frame was merged yet
+     */
+    public int read(int portAddress, byte[] dst) {
+        MergeUniverse universe = getUniverse(portAddress);
+        synchronized (universe) {
+            System.arraycopy(universe.merged, 0, dst, 0, universe.length);
+            return universe.length;
+        }
+    }
+
+    /**
+     * Returns the number of sources that are currently merged for a Port-Address.
+     *
+     * @param portAddress   15 bit Port-Address
+     * @return              number of sources that have not timed out
+     */
+    public int getSourceCount(int portAddress) {
+        MergeUniverse universe = getUniverse(portAddress);
+        synchronized (universe) {
+            universe.expire(System.nanoTime(), sourceTimeoutNanos, universe.mode != null ? universe.mode : defaultMode);
+            return universe.sources.size();
+        }
+    }
+
+    /**
+     * Returns the merge state of a Port-Address, creating it without locking the merger if necessary.
+     */
+    private MergeUniverse getUniverse(int portAddress) {
+        if (portAddress < 0 || portAddress >= PORT_ADDRESSES) throw new IllegalArgumentException("invalid Port-Address " + portAddress);
+        MergeUniverse universe = universes.get(portAddress);
+        if (universe != null) return universe;
+
+        //another thread may have created it in the meantime
+        universes.compareAndSet(portAddress, null, new MergeUniverse());
+        return universes.get(portAddress);
+    }
+
+    /**
+     * Sources and merged frame of one Port-Address.
+     */
+    private static final class MergeUniverse {
+        private final List<Source> sources = new ArrayList<>(MAX_SOURCES);
+        private final byte[] merged = new byte[FRAME_SIZE];
+        private int length;
+
+        //null for the merger's default mode
+        private ArtnetMergeMode mode;
+
+        /**
+         * Returns a source, adding it if there is room.
+         */
+        private Source getSource(InetAddress address, int physical) {
+            for (int i = 0; i < sources.size(); i++) {
+                Source source = sources.get(i);
+                if (source.physical == physical && source.address.equals(address)) return source;
+            }
+            if (sources.size() >= MAX_SOURCES) return null;
+            Source source = new Source(address, physical);
+            sources.add(source);
+            return source;
+        }
+
+        /**
+         * Removes sources that timed out and merges the remaining sources again.
+         */
+        private void expire(long now, long timeoutNanos, ArtnetMergeMode mode) {
+            boolean removed = false;
+            for (int i = sources.size() - 1; i >= 0; i--) {
+                if (now - sources.get(i).lastFrameNanos > timeoutNanos) {
+                    sources.remove(i);
+                    removed = true;
+                }
+            }
+            if (removed) {
+                mergeAll(mode);
+                updateLength();
+            }
+        }
+
+        /**
+         * Merges all channels of all sources again if the mode is HTP (LTP channels keep their latest value).
+         */
+        private void mergeAll(ArtnetMergeMode mode) {
+            if (mode == ArtnetMergeMode.LTP) return;
+            for (int i = 0; i < FRAME_SIZE; i++) merged[i] = highest(i);
+        }
+
+        private byte highest(int channel) {
+            int highest = 0;
+            for (int i = 0; i < sources.size(); i++) {
+                highest = Math.max(highest, Byte.toUnsignedInt(sources.get(i).data[channel]));
+            }
+            return (byte) highest;
+        }
+
+        private void updateLength() {
+            int length = 0;
+            for (int i = 0; i < sources.size(); i++) length = Math.max(length, sources.get(i).length);
+            this.length = length;
+        }
+    }
+
+    /**
+     * The last frame of one source.
+     */
+    private static final class Source {
+        private final InetAddress address;
+        private final int physical;
+        private final byte[] data = new byte[FRAME_SIZE];
+        private int length;
+        private long lastFrameNanos;
+
+        private Source(InetAddress address, int physical) {
+            this.address = address;
+            this.physical = physical;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+/**
+ * Receives runtime events of an ArtnetController for monitoring.
+ *
+ * All methods may be called from the receive loop and from sending threads, so implementations have to be
+ * thread-safe and fast. Methods do nothing by default.
+ *
+ * @author sschaeffner
+ * @see ArtnetControllerMetrics
+ */
+public interface ArtnetMetrics {
+
+    //metrics that ignore all events
+    ArtnetMetrics NONE = new ArtnetMetrics() {};
+
+    /**
+     * Called for every received packet that passed the filters and checks.
+     *
+     * @param opCode    the packet's opcode
+     * @param length    the packet's length in bytes
+     */
+    default void packetReceived(int opCode, int length) {}
+
+    /**
+     * Called for every sent datagram.
+     *
+     * @param opCode    the packet's opcode
+     * @param length    the packet's length in bytes
+     */
+    default void packetSent(int opCode, int length) {}
+
+    /**
+     * Called for every datagram the transport failed to send, e.g. because the socket's send buffer stayed full.
+     *
+     * @param opCode    the packet's opcode
+     */
+    default void packetSendFailed(int opCode) {}
+
+    /**
+     * Called for every received packet that was rejected as unsupported or malformed.
+     *
+     * @param reason    why the packet was rejected
+     */
+    default void packetRejected(ArtnetDecodeStatus reason) {}
+
+    /**
+     * Called for every received datagram that was dropped by the controller's filters.
+     *
+     * @param reason    why the datagram was dropped
+     */
+    default void packetDropped(ArtnetDropReason reason) {}
+
+    /**
+     * Called after a listener has handled a received packet.
+     *
+     * @param opCode    the packet's opcode
+     * @param nanos     time the listener took in nanoseconds
+     */
+    default void listenerDispatched(int opCode, long nanos) {}
+
+    /**
+     * Called when the queue of an asynchronous listener was full and a packet was dropped.
+     *
+     * @param opCode    the dropped packet's opcode
+     */
+    default void listenerEventDropped(int opCode) {}
+
+    /**
+     * Called when a queued ArtDmx or ArtNzs packet was replaced by a newer packet of the same Port-Address.
+     *
+     * @param opCode    the replaced packet's opcode
+     */
+    default void listenerEventConflated(int opCode) {}
+
+    /**
+     * Called for every received ArtDmx or ArtNzs packet with a sequence number other than 0.
+     *
+     * @param opCode    the packet's opcode
+     * @param lost      number of frames missing in the sequence before this packet
+     * @param late      whether the packet arrived after a newer packet
+     */
+    default void sequenceTracked(int opCode, int lost, boolean late) {}
+}
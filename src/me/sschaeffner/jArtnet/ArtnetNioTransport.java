@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import java.io.IOException;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transport with DatagramChannels receiving into a reusable direct buffer.
+ *
+ * With a single address the channel is bound to the wildcard address. With several addresses every address gets
+ * its own channel bound to it, which packets to and from that network are sent with, and one more channel on the
+ * wildcard address receives broadcasts; a selector reads all of them.
+ *
+ * @author sschaeffner
+ */
+public final class ArtnetNioTransport implements ArtnetTransport {
+
+    //size of the receive buffer (the largest packet, ArtDmx, is 530 bytes)
+    private static final int MAX_PACKET_LENGTH = 600;
+
+    //how long a send waits for a full socket send buffer to drain before the datagram is given up
+    private static final long SEND_TIMEOUT_MILLIS = 100;
+
+    //served network addresses and the channels they send with (same index)
+    private final ArtnetInterface[] interfaces;
+    private final DatagramChannel[] channels;
+
+    //with several interfaces: channel bound to the wildcard address receiving broadcasts and selector over all channels
+    private final DatagramChannel broadcastChannel;
+    private final Selector selector;
+
+    //with several interfaces: per channel a selector waiting for it to become writable (guarded by itself)
+    private final Selector[] writeSelectors;
+
+    /**
+     * Constructs a new instance of this class.
+     *
+     * @param hosts host addresses
+     * @param port  port to listen on (0 for an ephemeral port shared by all addresses)
+     * @throws IOException when the port cannot be opened on one of the addresses
+     */
+    public ArtnetNioTransport(NetworkAddress[] hosts, int port) throws IOException {
+        if (hosts.length == 0) throw new IllegalArgumentException("cannot start ArtnetController: no host address");
+        this.interfaces = new ArtnetInterface[hosts.length];
+        this.channels = new DatagramChannel[hosts.length];
+        this.writeSelectors = new Selector[hosts.length];
+        for (int i = 0; i < hosts.length; i++) interfaces[i] = new ArtnetInterface(hosts[i]);
+
+        DatagramChannel broadcastChannel = null;
+        Selector selector = null;
+        try {
+            if (hosts.length > 1) {
+                int boundPort = port;
+                for (int i = 0; i < hosts.length; i++) {
+                    channels[i] = openChannel(new InetSocketAddress(interfaces[i].getAddress(), boundPort));
+                    boundPort = channels[i].socket().getLocalPort();
+                }
+                broadcastChannel = openChannel(new InetSocketAddress(boundPort));
+
+                selector = Selector.open();
+                for (int i = 0; i < hosts.length; i++) {
+                    channels[i].configureBlocking(false);
+                    channels[i].register(selector, SelectionKey.OP_READ, interfaces[i]);
+                }
+                broadcastChannel.configureBlocking(false);
+                broadcastChannel.register(selector, SelectionKey.OP_READ);
+
+                for (int i = 0; i < hosts.length; i++) {
+                    writeSelectors[i] = Selector.open();
+                    channels[i].register(writeSelectors[i], SelectionKey.OP_WRITE);
+                }
+            } else {
+                channels[0] = DatagramChannel.open();
+                channels[0].setOption(StandardSocketOptions.SO_BROADCAST, true);
+                channels[0].bind(new InetSocketAddress(port));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            this.broadcastChannel = broadcastChannel;
+            this.selector = selector;
+            close();
+            throw new IOException("cannot start ArtnetController: cannot open socket");
+        }
+        this.broadcastChannel = broadcastChannel;
+        this.selector = selector;
+    }
+
+    /**
+     * Opens a channel that shares its address with the transport's other channels.
+     *
+     * @param address   address to bind to
+     * @return          the bound channel
+     */
+    private static DatagramChannel openChannel(InetSocketAddress address) throws IOException {
+        DatagramChannel channel = DatagramChannel.open(StandardProtocolFamily.INET);
+        channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        channel.setOption(StandardSocketOptions.SO_BROADCAST, true);
+        channel.bind(address);
+        return channel;
+    }
+
+    @Override
+    public List<ArtnetInterface> getInterfaces() {
+        return Collections.unmodifiableList(Arrays.asList(interfaces));
+    }
+
+    @Override
+    public int getLocalPort() {
+        return channels[0].socket().getLocalPort();
+    }
+
+    @Override
+    public void receive(ArtnetDatagramListener listener) throws IOException {
+        if (selector != null) {
+            receiveFromSelector(listener);
+        } else {
+            receiveFromChannel(listener);
+        }
+    }
+
+    /**
+     * Receives packets with the single channel until the transport is closed.
+     *
+     * All datagrams are read into the same direct buffer, so receiving itself does not allocate per packet.
+     */
+    private void receiveFromChannel(ArtnetDatagramListener listener) throws IOException {
+        ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(MAX_PACKET_LENGTH);
+        DatagramChannel channel = channels[0];
+
+        while (channel.isOpen()) {
+            try {
+                receiveBuffer.clear();
+                SocketAddress from = channel.receive(receiveBuffer);
+                receiveBuffer.flip();
+
+                if (from instanceof InetSocketAddress) {
+                    InetSocketAddress packetSender = (InetSocketAddress) from;
+                    listener.onDatagram(receiveBuffer, packetSender.getAddress(), packetSender.getPort(), interfaces[0]);
+                }
+            } catch (ClosedChannelException e) {
+                //do nothing as the channel is just closed
+            }
+        }
+    }
+
+    /**
+     * Receives packets from the channels of all interfaces until the transport is closed.
+     *
+     * Packets received on an interface's channel belong to that interface, broadcasts received on the wildcard
+     * channel belong to the interface whose subnet the sender is in.
+     */
+    private void receiveFromSelector(ArtnetDatagramListener listener) throws IOException {
+        ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(MAX_PACKET_LENGTH);
+
+        while (selector.isOpen()) {
+            try {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    DatagramChannel from = (DatagramChannel) key.channel();
+                    ArtnetInterface artnetInterface = (ArtnetInterface) key.attachment();
+
+                    //read all pending datagrams of the channel
+                    while (true) {
+                        receiveBuffer.clear();
+                        SocketAddress sender = from.receive(receiveBuffer);
+                        if (!(sender instanceof InetSocketAddress)) break;
+                        receiveBuffer.flip();
+
+                        InetSocketAddress packetSender = (InetSocketAddress) sender;
+                        ArtnetInterface receivedOn = artnetInterface != null ? artnetInterface
+                                : ArtnetInterface.findSubnetInterface(interfaces, packetSender.getAddress());
+                        listener.onDatagram(receiveBuffer, packetSender.getAddress(), packetSender.getPort(), receivedOn);
+                    }
+                }
+            } catch (ClosedChannelException | ClosedSelectorException | CancelledKeyException e) {
+                //do nothing as the transport is just closed
+            }
+        }
+    }
+
+    /**
+     * Sends a datagram with the channel of an interface.
+     *
+     * With several interfaces the channels are non-blocking and send nothing while the socket's send buffer is full.
+     * The datagram is then sent as soon as the channel becomes writable again, waiting up to
+     * {@link #SEND_TIMEOUT_MILLIS}.
+     *
+     * @throws IOException when the datagram could not be sent, also if the send buffer stayed full
+     */
+    @Override
+    public void send(ByteBuffer data, InetSocketAddress address, ArtnetInterface artnetInterface) throws IOException {
+        int index = 0;
+        for (int i = 1; i < interfaces.length; i++) {
+            if (interfaces[i] == artnetInterface) index = i;
+        }
+        DatagramChannel channel = channels[index];
+        if (channel.send(data, address) == 0 && data.hasRemaining() && writeSelectors[index] != null) {
+            sendWhenWritable(channel, writeSelectors[index], data, address);
+        }
+    }
+
+    /**
+     * Waits until a non-blocking channel is writable and sends a datagram it did not accept before.
+     *
+     * @param channel           the channel
+     * @param writeSelector     selector the channel is registered with for writing
+     * @param data              the datagram
+     * @param address           address to send to
+     */
+    private static void sendWhenWritable(DatagramChannel channel, Selector writeSelector, ByteBuffer data, InetSocketAddress address) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SEND_TIMEOUT_MILLIS);
+        synchronized (writeSelector) {
+            long remainingMillis = SEND_TIMEOUT_MILLIS;
+            while (remainingMillis > 0) {
+                writeSelector.select(remainingMillis);
+                writeSelector.selectedKeys().clear();
+                if (channel.send(data, address) > 0) return;
+                remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            }
+        }
+        throw new IOException("datagram to " + address + " dropped: send buffer stayed full for " + SEND_TIMEOUT_MILLIS + " ms");
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channels[0] != null && channels[0].isOpen();
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (selector != null) selector.close();
+            for (Selector writeSelector : writeSelectors) {
+                if (writeSelector != null) writeSelector.close();
+            }
+            if (broadcastChannel != null) broadcastChannel.close();
+            for (DatagramChannel channel : channels) {
+                if (channel != null) channel.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -19,7 +19,10 @@ package me.sschaeffner.jArtnet;
 
 import me.sschaeffner.jArtnet.packets.ArtPollReplyPacket;
 
+import java.net.Inet4Address;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
 
 /**
  * Representation of an Art-Net node.
@@ -30,14 +33,23 @@ public class ArtnetNode {
     //ip address
     private final InetAddress inetAddress;
 
+    //ip address as int
+    private final int ipAddress;
+
+    //ip address and Art-Net port to send to (created on demand)
+    private InetSocketAddress socketAddress;
+
     //type
     private final byte styleCode;
 
     //ArtPollReply packet
-    private ArtPollReplyPacket artPollReplyPacket;
+    private volatile ArtPollReplyPacket artPollReplyPacket;
+
+    //time a packet was last received from the node (milliseconds since epoch)
+    private volatile long lastSeen = System.currentTimeMillis();
 
     //name
-    private String shortName, longName;
+    private volatile String shortName, longName;
 
     /**
      * Constructs a new instance of this class.
@@ -49,6 +61,7 @@ public class ArtnetNode {
      */
     public ArtnetNode(InetAddress inetAddress, byte styleCode, String shortName, String longName) {
         this.inetAddress = inetAddress;
+        this.ipAddress = toInt(inetAddress);
         this.styleCode = styleCode;
     }
 
@@ -59,6 +72,7 @@ public class ArtnetNode {
      */
     public ArtnetNode(InetAddress inetAddress, ArtPollReplyPacket artPollReplyPacket) {
         this.inetAddress = inetAddress;
+        this.ipAddress = toInt(inetAddress);
         this.artPollReplyPacket = artPollReplyPacket;
         this.styleCode = artPollReplyPacket.getStyle();
         this.shortName = new String(artPollReplyPacket.getShortName()).trim();
@@ -74,10 +88,115 @@ public class ArtnetNode {
         }
     }
 
+    /**
+     * Returns an InetAddress as an int (first octet in the highest byte).
+     *
+     * IPv6 addresses are represented by their last four bytes.
+     *
+     * @param address   an InetAddress
+     * @return          the address as an int
+     */
+    public static int toInt(InetAddress address) {
+        //the hash code of an Inet4Address is its address, so no array has to be copied
+        if (address instanceof Inet4Address) return address.hashCode();
+
+        byte[] bytes = address.getAddress();
+        int value = 0;
+        for (int i = bytes.length - 4; i < bytes.length; i++) value = (value << 8) + Byte.toUnsignedInt(bytes[i]);
+        return value;
+    }
+
     public InetAddress getInetAddress() {
         return inetAddress;
     }
 
+    /**
+     * Returns the node's address together with a port.
+     *
+     * The address is cached, so sending to a node does not allocate.
+     *
+     * @param port  UDP port
+     * @return      the node's socket address
+     */
+    InetSocketAddress getSocketAddress(int port) {
+        InetSocketAddress address = socketAddress;
+        if (address == null || address.getPort() != port) {
+            address = new InetSocketAddress(inetAddress, port);
+            socketAddress = address;
+        }
+        return address;
+    }
+
+    /**
+     * Returns the node's ip address as an int (first octet in the highest byte).
+     *
+     * @return the node's ip address
+     */
+    public int getIpAddressInt() {
+        return ipAddress;
+    }
+
+    /**
+     * Returns the node's mac address as a long (first byte in the highest used byte).
+     *
+     * @return the node's mac address or 0 if it is unknown
+     */
+    public long getMacLong() {
+        ArtPollReplyPacket packet = artPollReplyPacket;
+        if (packet == null) return 0;
+
+        long mac = 0;
+        for (byte b : packet.getMac()) mac = (mac << 8) + Byte.toUnsignedInt(b);
+        return mac;
+    }
+
+    /**
+     * Returns the ip address of the node's root device as an int.
+     *
+     * Equal to the node's own ip address if the node did not report a root device.
+     *
+     * @return the root device's ip address
+     */
+    public int getBindIpInt() {
+        ArtPollReplyPacket packet = artPollReplyPacket;
+        if (packet == null) return ipAddress;
+
+        int bindIp = 0;
+        for (byte b : packet.getBindIp()) bindIp = (bindIp << 8) + Byte.toUnsignedInt(b);
+        return bindIp != 0 ? bindIp : ipAddress;
+    }
+
+    /**
+     * Returns the order of the node within its root device.
+     *
+     * @return the node's bind index
+     */
+    public int getBindIndex() {
+        ArtPollReplyPacket packet = artPollReplyPacket;
+        return packet != null ? Byte.toUnsignedInt(packet.getBindIndex()) : 0;
+    }
+
+    /**
+     * Returns the 15 bit Port-Addresses of the node's output ports.
+     *
+     * @return the Port-Addresses the node outputs
+     */
+    public int[] getOutputPortAddresses() {
+        ArtPollReplyPacket packet = artPollReplyPacket;
+        if (packet == null) return new int[0];
+
+        int numPorts = Math.min(packet.getNumPorts(), 4);
+        int[] portAddresses = new int[numPorts];
+        int count = 0;
+        for (int i = 0; i < numPorts; i++) {
+            //bit 7 of the port type: port can output data from the Art-Net network
+            if ((packet.getPortTypes()[i] & 0x80) != 0) {
+                portAddresses[count++] = ((packet.getNetSwitch() & 0x7F) << 8) + ((packet.getSubSwitch() & 0x0F) << 4) + (packet.getSwOut()[i] & 0x0F);
+            }
+        }
+        return count == numPorts ? portAddresses : Arrays.copyOf(portAddresses, count);
+    }
+
     public String getShortName() {
         return shortName;
     }
@@ -112,6 +231,21 @@ public class ArtnetNode {
 
     public void setArtPollReplyPacket(ArtPollReplyPacket artPollReplyPacket) {
         this.artPollReplyPacket = artPollReplyPacket;
+        this.shortName = new String(artPollReplyPacket.getShortName()).trim();
+        this.longName = new String(artPollReplyPacket.getLongName()).trim();
+    }
+
+    /**
+     * Returns when a packet was last received from the node.
+     *
+     * @return time in milliseconds since epoch
+     */
+    public long getLastSeen() {
+        return lastSeen;
+    }
+
+    void setLastSeen(long lastSeen) {
+        this.lastSeen = lastSeen;
     }
 
     public ArtPollReplyPacket getArtPollReplyPacket() {
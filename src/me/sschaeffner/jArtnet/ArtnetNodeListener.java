@@ -18,7 +18,9 @@
 package me.sschaeffner.jArtnet;
 
 /**
- * A listener for ArtnetNodeDiscoveryEvents.
+ * A listener for ArtnetNodeDiscoveryEvents, ArtnetNodeChangedEvents and ArtnetNodeLostEvents.
+ *
+ * Lost nodes are only reported while the controller's {@link ArtnetNodeMonitor} is running.
  *
  * @author sschaeffner
  */
@@ -29,4 +31,20 @@ public interface ArtnetNodeListener {
      * @param event event for the newly discovered ArtnetNode
      */
     void onArtnetNodeDiscovery(ArtnetNodeDiscoveryEvent event);
+
+    /**
+     * Called when a known ArtnetNode reported a changed configuration.
+     *
+     * @param event event for the changed ArtnetNode
+     */
+    default void onNodeChanged(ArtnetNodeChangedEvent event) {
+    }
+
+    /**
+     * Called when an ArtnetNode missed too many polls and was removed.
+     *
+     * @param event event for the removed ArtnetNode
+     */
+    default void onNodeLost(ArtnetNodeLostEvent event) {
+    }
 }
@@ -0,0 +1,280 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls for nodes periodically and removes nodes that stopped answering.
+ *
+ * ArtPoll packets are broadcast at an adaptive interval: right after the node set changed the minimum interval is
+ * used, then the interval doubles with every poll up to the maximum interval. A node is lost once nothing was
+ * received from it for the given number of polls at the maximum interval (plus the time a node may take to answer a
+ * poll), so shortening the interval never expires nodes that answered the slower polls before. Lost nodes are
+ * removed from the registry and reported to the controller's ArtnetNodeListeners.
+ *
+ * Timeouts are kept in a hashed timer wheel. Receiving a packet only updates the node's last-seen timestamp; the
+ * timeout is checked and rescheduled when it fires, so the receiver thread never touches the wheel.
+ *
+ * @author sschaeffner
+ */
+public class ArtnetNodeMonitor {
+
+    //length of a timer wheel tick in milliseconds
+    private static final long TICK_MILLIS = 100;
+
+    //number of timer wheel buckets (one rotation covers 51.2 seconds)
+    private static final int TICKS_PER_WHEEL = 512;
+
+    //time a node may take to answer a poll
+    private static final long REPLY_DELAY_MILLIS = 1000;
+
+    //controller to poll and remove nodes with
+    private final ArtnetController controller;
+
+    //node timeouts
+    private final ArtnetTimerWheel<ArtnetNode> timeouts;
+
+    //nodes with a scheduled timeout, so every node is scheduled once
+    private final Set<ArtnetNode> tracked = ConcurrentHashMap.newKeySet();
+
+    //bounds of the poll interval
+    private volatile long minPollInterval = 2500;
+    private volatile long maxPollInterval = 10000;
+
+    //current poll interval
+    private volatile long pollInterval = minPollInterval;
+
+    //number of polls a node may miss before it is lost
+    private volatile int missedPolls = 3;
+
+    //whether the node set changed since the last poll
+    private volatile boolean changed;
+
+    //time of the next poll (only used on the monitor thread)
+    private long nextPoll;
+
+    //number of lost nodes
+    private final AtomicLong lostNodes = new AtomicLong();
+
+    //monitor thread (null while stopped)
+    private volatile ScheduledExecutorService executor;
+
+    /**
+     * Constructs a new instance of this class.
+     *
+     * @param controller    controller to poll and remove nodes with
+     */
+    ArtnetNodeMonitor(ArtnetController controller) {
+        this.controller = controller;
+        this.timeouts = new ArtnetTimerWheel<>(TICKS_PER_WHEEL, TICK_MILLIS, System.currentTimeMillis());
+    }
+
+    /**
+     * Sets the bounds of the adaptive poll interval.
+     *
+     * @param minMillis interval after the node set changed in milliseconds
+     * @param maxMillis interval while the node set is stable in milliseconds
+     */
+    public void setPollInterval(long minMillis, long maxMillis) {
+        if (minMillis < TICK_MILLIS) throw new IllegalArgumentException("poll interval has to be at least " + TICK_MILLIS + " ms");
+        if (maxMillis < minMillis) throw new IllegalArgumentException("maximum poll interval is smaller than minimum poll interval");
+        this.minPollInterval = minMillis;
+        this.maxPollInterval = maxMillis;
+        this.pollInterval = minMillis;
+    }
+
+    /**
+     * Returns the current poll interval.
+     *
+     * @return current poll interval in milliseconds
+     */
+    public long getPollInterval() {
+        return pollInterval;
+    }
+
+    /**
+     * Sets the number of polls a node may miss before it is lost.
+     *
+     * @param missedPolls   number of missed polls
+     */
+    public void setMissedPolls(int missedPolls) {
+        if (missedPolls < 1) throw new IllegalArgumentException("missed polls has to be at least 1");
+        this.missedPolls = missedPolls;
+    }
+
+    public int getMissedPolls() {
+        return missedPolls;
+    }
+
+    /**
+     * Returns the time after which a silent node is lost.
+     *
+     * @return node timeout in milliseconds
+     */
+    public long getNodeTimeout() {
+        return missedPolls * maxPollInterval + REPLY_DELAY_MILLIS;
+    }
+
+    /**
+     * Returns the number of nodes whose timeout is tracked.
+     *
+     * @return number of tracked nodes
+     */
+    public int getTrackedNodes() {
+        return tracked.size();
+    }
+
+    /**
+     * Returns the number of nodes that were lost since the monitor was created.
+     *
+     * @return number of lost nodes
+     */
+    public long getLostNodes() {
+        return lostNodes.get();
+    }
+
+    /**
+     * Starts polling and tracking all registered nodes.
+     */
+    public synchronized void start() {
+        if (executor != null) return;
+        pollInterval = minPollInterval;
+        changed = false;
+        nextPoll = 0;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "jArtnet node monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (ArtnetNode node : controller.getNodes()) track(node);
+        executor.scheduleAtFixedRate(this::tick, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling and tracking nodes.
+     *
+     * Blocking until a running tick is finished. Registered nodes are kept.
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+        }
+        timeouts.clear();
+        tracked.clear();
+    }
+
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    /**
+     * Starts tracking a newly discovered node.
+     *
+     * @param node  the node
+     */
+    void nodeDiscovered(ArtnetNode node) {
+        changed = true;
+        if (executor != null) track(node);
+    }
+
+    /**
+     * Notes that the configuration of a node changed, so the next polls are sent at the minimum interval.
+     */
+    void nodeChanged() {
+        changed = true;
+    }
+
+    /**
+     * Schedules the timeout of a node unless it is tracked already.
+     *
+     * Nodes discovered while the monitor starts are reported by both start() and nodeDiscovered().
+     */
+    private void track(ArtnetNode node) {
+        if (tracked.add(node)) timeouts.schedule(node, node.getLastSeen() + getNodeTimeout());
+    }
+
+    /**
+     * Expires timed out nodes and polls if the poll interval passed.
+     *
+     * Runs on the monitor thread.
+     */
+    private void tick() {
+        long now = System.currentTimeMillis();
+        try {
+            timeouts.advance(now, node -> check(node, now));
+
+            if (now >= nextPoll) {
+                if (changed) {
+                    changed = false;
+                    pollInterval = minPollInterval;
+                } else if (nextPoll != 0) {
+                    pollInterval = Math.min(pollInterval * 2, maxPollInterval);
+                }
+                nextPoll = now + pollInterval;
+                controller.discoverNodes();
+            }
+        } catch (MalformedArtnetPacketException | RuntimeException e) {
+            //keep the monitor running, later ticks may succeed
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Checks a node whose timeout fired.
+     *
+     * The node is rescheduled if a packet was received from it in the meantime and lost otherwise.
+     *
+     * @param node  the node
+     * @param now   current time in milliseconds
+     */
+    private void check(ArtnetNode node, long now) {
+        ArtnetNodeRegistry nodes = controller.getNodeRegistry();
+        if (nodes.getByBind(node.getBindIpInt(), node.getBindIndex()) != node) {
+            tracked.remove(node);
+            return;
+        }
+
+        //packets other than ArtPollReply only refresh the node with the lowest bind index of an ip address
+        long lastSeen = node.getLastSeen();
+        ArtnetNode sameIp = nodes.get(node.getIpAddressInt());
+        if (sameIp != null) lastSeen = Math.max(lastSeen, sameIp.getLastSeen());
+
+        long deadline = lastSeen + getNodeTimeout();
+        if (deadline > now) {
+            timeouts.schedule(node, deadline);
+        } else {
+            tracked.remove(node);
+            if (controller.removeNode(node)) {
+                lostNodes.incrementAndGet();
+                changed = true;
+            }
+        }
+    }
+}
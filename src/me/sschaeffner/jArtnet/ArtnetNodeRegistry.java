@@ -0,0 +1,468 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import me.sschaeffner.jArtnet.packets.ArtPollReplyPacket;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A thread-safe table of all known Art-Net nodes.
+ *
+ * Nodes are identified by their root device's ip address and their bind index. They can be looked up by their
+ * ip address, mac address, bind ip/bind index and by the Port-Addresses they output. All lookups are lock-free and
+ * do not allocate; changes are serialized.
+ *
+ * @author sschaeffner
+ */
+public final class ArtnetNodeRegistry {
+
+    //number of 15 bit Port-Addresses
+    private static final int PORT_ADDRESSES = 0x8000;
+
+    private static final ArtnetNode[] NO_NODES = new ArtnetNode[0];
+
+    //nodes by ip address (the node with the lowest bind index of an ip address)
+    private final LongNodeTable byIp = new LongNodeTable();
+
+    //nodes by (bind ip << 8) + bind index
+    private final LongNodeTable byBind = new LongNodeTable();
+
+    //nodes by mac address (the node with the lowest bind index of a root device)
+    private final LongNodeTable byMac = new LongNodeTable();
+
+    //nodes by the Port-Addresses they output
+    private final AtomicReferenceArray<ArtnetNode[]> byPortAddress = new AtomicReferenceArray<>(PORT_ADDRESSES);
+
+    //Port-Addresses each node was indexed with
+    private final ConcurrentHashMap<ArtnetNode, int[]> indexedPortAddresses = new ConcurrentHashMap<>();
+
+    //incremented whenever the Port-Address index changes
+    private volatile int version;
+
+    /**
+     * Returns the node with a given ip address.
+     *
+     * If several nodes share the ip address, the one with the lowest bind index is returned.
+     *
+     * @param ipAddress the node's ip address as int (see {@link ArtnetNode#toInt(InetAddress)})
+     * @return          the node or null if no node is registered for the address
+     */
+    public ArtnetNode get(int ipAddress) {
+        return byIp.get(ipAddress);
+    }
+
+    /**
+     * Returns the node with a given ip address.
+     *
+     * @param address   the node's ip address
+     * @return          the node or null if no node is registered for the address
+     */
+    public ArtnetNode get(InetAddress address) {
+        return byIp.get(ArtnetNode.toInt(address));
+    }
+
+    /**
+     * Returns the node with a given mac address.
+     *
+     * Bound nodes of one root device share its mac address; the one with the lowest bind index is returned.
+     *
+     * @param mac   the node's mac address (see {@link ArtnetNode#getMacLong()})
+     * @return      the node or null if no node is registered for the mac address
+     */
+    public ArtnetNode getByMac(long mac) {
+        return byMac.get(mac);
+    }
+
+    /**
+     * Returns the node with a given root device ip address and bind index.
+     *
+     * @param bindIp    ip address of the root device as int
+     * @param bindIndex the node's bind index
+     * @return          the node or null if no such node is registered
+     */
+    public ArtnetNode getByBind(int bindIp, int bindIndex) {
+        return byBind.get(bindKey(bindIp, bindIndex));
+    }
+
+    /**
+     * Returns all nodes that output a given Port-Address.
+     *
+     * The returned array is shared and must not be modified.
+     *
+     * @param portAddress   15 bit Port-Address
+     * @return              nodes outputting the Port-Address
+     */
+    public ArtnetNode[] getByPortAddress(int portAddress) {
+        ArtnetNode[] nodes = byPortAddress.get(portAddress & 0x7FFF);
+        return nodes != null ? nodes : NO_NODES;
+    }
+
+    /**
+     * Returns all registered nodes.
+     *
+     * @return all registered nodes
+     */
+    public ArtnetNode[] getNodes() {
+        return byBind.values();
+    }
+
+    /**
+     * Returns the number of registered nodes.
+     *
+     * @return number of registered nodes
+     */
+    public int size() {
+        return byBind.size();
+    }
+
+    /**
+     * Returns a counter that changes whenever nodes are added, removed or output other Port-Addresses.
+     *
+     * Allows callers to cache what they derived from {@link #getByPortAddress(int)}.
+     *
+     * @return the registry's version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the registered node an ArtPollReply packet belongs to.
+     *
+     * @param sender    ip address the packet was received from
+     * @param packet    the ArtPollReply packet
+     * @return          the node or null if it is not registered yet
+     */
+    public ArtnetNode get(InetAddress sender, ArtPollReplyPacket packet) {
+        int bindIp = ArtnetNode.toInt(sender);
+        int packetBindIp = 0;
+        for (byte b : packet.getBindIp()) packetBindIp = (packetBindIp << 8) + Byte.toUnsignedInt(b);
+        if (packetBindIp != 0) bindIp = packetBindIp;
+        return getByBind(bindIp, Byte.toUnsignedInt(packet.getBindIndex()));
+    }
+
+    /**
+     * Registers a new node.
+     *
+     * @param node  the node
+     */
+    public synchronized void add(ArtnetNode node) {
+        byBind.put(bindKey(node.getBindIpInt(), node.getBindIndex()), node);
+
+        ArtnetNode sameIp = byIp.get(node.getIpAddressInt());
+        if (sameIp == null || sameIp.getBindIndex() > node.getBindIndex()) byIp.put(node.getIpAddressInt(), node);
+
+        index(node);
+        version++;
+    }
+
+    /**
+     * Updates a registered node with a new ArtPollReply packet.
+     *
+     * @param node      the registered node
+     * @param packet    the node's new ArtPollReply packet
+     */
+    public synchronized void update(ArtnetNode node, ArtPollReplyPacket packet) {
+        long oldMac = node.getMacLong();
+        node.setArtPollReplyPacket(packet);
+
+        long mac = node.getMacLong();
+        if (mac != oldMac) {
+            unindexMac(node, oldMac);
+            indexMac(node, mac);
+        }
+
+        int[] oldPortAddresses = indexedPortAddresses.get(node);
+        int[] portAddresses = sortedPortAddresses(node);
+        if (oldPortAddresses == null || Arrays.equals(oldPortAddresses, portAddresses)) return;
+
+        //only publish the Port-Addresses that changed, lookups of the others never miss the node
+        for (int portAddress : oldPortAddresses) {
+            if (Arrays.binarySearch(portAddresses, portAddress) < 0) removeFromPortAddress(portAddress, node);
+        }
+        for (int portAddress : portAddresses) {
+            if (Arrays.binarySearch(oldPortAddresses, portAddress) < 0) addToPortAddress(portAddress, node);
+        }
+        indexedPortAddresses.put(node, portAddresses);
+        version++;
+    }
+
+    /**
+     * Removes a registered node.
+     *
+     * @param node  the node
+     * @return      whether the node was registered
+     */
+    public synchronized boolean remove(ArtnetNode node) {
+        if (!byBind.remove(bindKey(node.getBindIpInt(), node.getBindIndex()), node)) return false;
+
+        if (byIp.get(node.getIpAddressInt()) == node) {
+            //replace the node by another one with the same ip address if there is one
+            ArtnetNode replacement = findLowestBindIndex(node.getIpAddressInt(), node.getBindIpInt());
+            if (replacement == null && node.getBindIpInt() != node.getIpAddressInt()) {
+                replacement = findLowestBindIndex(node.getIpAddressInt(), node.getIpAddressInt());
+            }
+            if (replacement != null) {
+                byIp.put(node.getIpAddressInt(), replacement);
+            } else {
+                byIp.remove(node.getIpAddressInt(), node);
+            }
+        }
+
+        unindex(node);
+        version++;
+        return true;
+    }
+
+    /**
+     * Adds a node to the mac address and Port-Address indexes.
+     */
+    private void index(ArtnetNode node) {
+        indexMac(node, node.getMacLong());
+
+        int[] portAddresses = sortedPortAddresses(node);
+        for (int portAddress : portAddresses) addToPortAddress(portAddress, node);
+        indexedPortAddresses.put(node, portAddresses);
+    }
+
+    /**
+     * Removes a node from the mac address and Port-Address indexes.
+     */
+    private void unindex(ArtnetNode node) {
+        unindexMac(node, node.getMacLong());
+
+        int[] portAddresses = indexedPortAddresses.remove(node);
+        if (portAddresses == null) return;
+
+        for (int portAddress : portAddresses) removeFromPortAddress(portAddress, node);
+    }
+
+    private void indexMac(ArtnetNode node, long mac) {
+        if (mac == 0) return;
+        ArtnetNode sameMac = byMac.get(mac);
+        if (sameMac == null || sameMac.getBindIndex() > node.getBindIndex()) byMac.put(mac, node);
+    }
+
+    private void unindexMac(ArtnetNode node, long mac) {
+        if (mac == 0 || byMac.get(mac) != node) return;
+
+        //replace the node by another one of the same root device if there is one
+        ArtnetNode replacement = findLowestBindIndexByMac(mac, node.getBindIpInt());
+        if (replacement != null) {
+            byMac.put(mac, replacement);
+        } else {
+            byMac.remove(mac, node);
+        }
+    }
+
+    private static int[] sortedPortAddresses(ArtnetNode node) {
+        int[] portAddresses = node.getOutputPortAddresses();
+        Arrays.sort(portAddresses);
+        return portAddresses;
+    }
+
+    private void addToPortAddress(int portAddress, ArtnetNode node) {
+        ArtnetNode[] nodes = getByPortAddress(portAddress);
+        if (!contains(nodes, node)) {
+            ArtnetNode[] newNodes = Arrays.copyOf(nodes, nodes.length + 1);
+            newNodes[nodes.length] = node;
+            byPortAddress.set(portAddress, newNodes);
+        }
+    }
+
+    private void removeFromPortAddress(int portAddress, ArtnetNode node) {
+        ArtnetNode[] nodes = getByPortAddress(portAddress);
+        if (contains(nodes, node)) {
+            ArtnetNode[] newNodes = new ArtnetNode[nodes.length - 1];
+            int i = 0;
+            for (ArtnetNode other : nodes) if (other != node) newNodes[i++] = other;
+            byPortAddress.set(portAddress, newNodes.length > 0 ? newNodes : null);
+        }
+    }
+
+    private static boolean contains(ArtnetNode[] nodes, ArtnetNode node) {
+        for (ArtnetNode other : nodes) if (other == node) return true;
+        return false;
+    }
+
+    /**
+     * Returns the node with the lowest bind index among the nodes of an ip address bound to a root device.
+     *
+     * Looks up every bind index instead of scanning all nodes, so removing nodes stays cheap in large registries.
+     *
+     * @param ipAddress the nodes' ip address
+     * @param bindIp    the root device's ip address
+     * @return          the node or null if there is none
+     */
+    private ArtnetNode findLowestBindIndex(int ipAddress, int bindIp) {
+        for (int bindIndex = 0; bindIndex < 256; bindIndex++) {
+            ArtnetNode other = byBind.get(bindKey(bindIp, bindIndex));
+            if (other != null && other.getIpAddressInt() == ipAddress) return other;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the node with the lowest bind index among the nodes of a mac address bound to a root device.
+     *
+     * @param mac       the nodes' mac address
+     * @param bindIp    the root device's ip address
+     * @return          the node or null if there is none
+     */
+    private ArtnetNode findLowestBindIndexByMac(long mac, int bindIp) {
+        for (int bindIndex = 0; bindIndex < 256; bindIndex++) {
+            ArtnetNode other = byBind.get(bindKey(bindIp, bindIndex));
+            if (other != null && other.getMacLong() == mac) return other;
+        }
+        return null;
+    }
+
+    private static long bindKey(int bindIp, int bindIndex) {
+        return (Integer.toUnsignedLong(bindIp) << 8) + (bindIndex & 0xFF);
+    }
+
+    /**
+     * An open addressing hash table from long keys to nodes.
+     *
+     * Reads are lock-free and do not allocate: each slot holds an immutable entry, a tombstone or null. Writes have
+     * to be serialized by the caller. The table is replaced by a larger copy when it gets too full.
+     */
+    private static final class LongNodeTable {
+        private static final Entry TOMBSTONE = new Entry(0, null);
+
+        private volatile AtomicReferenceArray<Entry> slots = new AtomicReferenceArray<>(64);
+
+        //number of entries and tombstones
+        private int used;
+
+        //number of entries
+        private volatile int size;
+
+        ArtnetNode get(long key) {
+            AtomicReferenceArray<Entry> slots = this.slots;
+            int mask = slots.length() - 1;
+            for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+                Entry slot = slots.get(i);
+                if (slot == null) return null;
+                if (slot != TOMBSTONE && slot.key == key) return slot.node;
+            }
+        }
+
+        void put(long key, ArtnetNode node) {
+            AtomicReferenceArray<Entry> slots = this.slots;
+            int mask = slots.length() - 1;
+            int free = -1;
+            for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+                Entry slot = slots.get(i);
+                if (slot == null) {
+                    if (free < 0) {
+                        free = i;
+                        used++;
+                    }
+                    break;
+                }
+                if (slot == TOMBSTONE) {
+                    if (free < 0) free = i;
+                } else if (slot.key == key) {
+                    slots.set(i, new Entry(key, node));
+                    return;
+                }
+            }
+            slots.set(free, new Entry(key, node));
+            size++;
+
+            if (used * 2 > slots.length()) resize(slots);
+        }
+
+        /**
+         * Removes a key if it maps to a given node.
+         */
+        boolean remove(long key, ArtnetNode node) {
+            AtomicReferenceArray<Entry> slots = this.slots;
+            int mask = slots.length() - 1;
+            for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+                Entry slot = slots.get(i);
+                if (slot == null) return false;
+                if (slot != TOMBSTONE && slot.key == key) {
+                    if (slot.node != node) return false;
+                    slots.set(i, TOMBSTONE);
+                    size--;
+                    return true;
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        ArtnetNode[] values() {
+            AtomicReferenceArray<Entry> slots = this.slots;
+            ArtnetNode[] nodes = new ArtnetNode[size];
+            int count = 0;
+            for (int i = 0; i < slots.length(); i++) {
+                Entry slot = slots.get(i);
+                if (slot == null || slot == TOMBSTONE) continue;
+                if (count == nodes.length) nodes = Arrays.copyOf(nodes, count * 2 + 1);
+                nodes[count++] = slot.node;
+            }
+            return count == nodes.length ? nodes : Arrays.copyOf(nodes, count);
+        }
+
+        /**
+         * Copies all entries into a new table without tombstones.
+         */
+        private void resize(AtomicReferenceArray<Entry> oldSlots) {
+            int capacity = 64;
+            while (capacity < size * 4) capacity <<= 1;
+
+            AtomicReferenceArray<Entry> newSlots = new AtomicReferenceArray<>(capacity);
+            int mask = capacity - 1;
+            for (int i = 0; i < oldSlots.length(); i++) {
+                Entry slot = oldSlots.get(i);
+                if (slot != null && slot != TOMBSTONE) {
+                    int j = hash(slot.key) & mask;
+                    while (newSlots.get(j) != null) j = (j + 1) & mask;
+                    newSlots.set(j, slot);
+                }
+            }
+
+            used = size;
+            slots = newSlots;
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    private static final class Entry {
+        private final long key;
+        private final ArtnetNode node;
+
+        private Entry(long key, ArtnetNode node) {
+            this.key = key;
+            this.node = node;
+        }
+    }
+}
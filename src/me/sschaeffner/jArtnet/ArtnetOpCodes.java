@@ -19,6 +19,7 @@ package me.sschaeffner.jArtnet;
 
 import me.sschaeffner.jArtnet.packets.*;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -80,6 +81,18 @@ public final class ArtnetOpCodes {
         return new byte[]{lowByte, highByte};
     }
 
+    /**
+     * Writes an opcode into a buffer at an absolute index (low byte first).
+     *
+     * @param buffer    buffer to write into
+     * @param index     index of the opcode's low byte
+     * @param opCode    the opcode
+     */
+    public static void putOpCode(ByteBuffer buffer, int index, int opCode) {
+        buffer.put(index, (byte) (opCode & 0xFF));
+        buffer.put(index + 1, (byte) ((opCode >>> 8) & 0xFF));
+    }
+
     /**
      * Converts the data of an Art-Net packet in an ArtnetPacket.
      *
@@ -105,55 +118,228 @@ public final class ArtnetOpCodes {
 
                 int opCode = (opCodeHi << 8) + opCodeLo;
 
-                switch (opCode) {
-                    case ArtnetOpCodes.OP_OUTPUT:
-                        return ArtDmxPacket.fromBytes(bytes);
+                return decode(opCode, bytes);
+            } else {
+                System.out.println("not artnet packet: wrong packet ID");
+            }
+        } else {//else cannot be Art-Net packet
+            System.out.println("not artnet packet: too short");
+        }
+        return null;
+    }
 
-                    case ArtnetOpCodes.OP_POLL:
-                        return ArtPollPacket.fromBytes(bytes);
+    /**
+     * Converts the data of an Art-Net packet in an ArtnetPacket.
+     *
+     * Only the bytes between the buffer's position and its limit are regarded as packet data, so a receive buffer
+     * that is reused for many datagrams can be passed in directly. The buffer's position is not modified.
+     *
+     * @param buffer    buffer containing the data of an Art-Net packet
+     * @return          instance of ArtnetPacket or null if the data does not belong to an Art-Net packet
+     */
+    public static ArtnetPacket fromBytes(ByteBuffer buffer) throws MalformedArtnetPacketException {
+        int offset = buffer.position();
+        int length = buffer.remaining();
 
-                    case ArtnetOpCodes.OP_POLL_REPLY:
-                        return ArtPollReplyPacket.fromBytes(bytes);
+        //minimum data length (see above)
+        if (length > 10) {
 
-                    case ArtnetOpCodes.OP_DIAG_DATA:
-                        return ArtDiagDataPacket.fromBytes(bytes);
+            //check packet id
+            for (int i = 0; i < ArtnetPacket.ID.length; i++) {
+                if (buffer.get(offset + i) != ArtnetPacket.ID[i]) return null;
+            }
 
-                    case ArtnetOpCodes.OP_IP_PROG:
-                        return ArtIpProgPacket.fromBytes(bytes);
+            //check opcode
+            int opCode = getOpCode(buffer);
 
-                    case ArtnetOpCodes.OP_IP_PROG_REPLY:
-                        return ArtIpProgReplyPacket.fromBytes(bytes);
+            //copy exactly the received packet
+            byte[] bytes = new byte[length];
+            if (buffer.hasArray()) {
+                System.arraycopy(buffer.array(), buffer.arrayOffset() + offset, bytes, 0, length);
+            } else {
+                for (int i = 0; i < length; i++) bytes[i] = buffer.get(offset + i);
+            }
 
-                    case ArtnetOpCodes.OP_SYNC:
-                        return ArtSyncPacket.fromBytes(bytes);
+            return decode(opCode, bytes);
+        }
+        return null;
+    }
 
-                    case ArtnetOpCodes.OP_TIME_CODE:
-                        return ArtTimeCodePacket.fromBytes(bytes);
+    /**
+     * Decodes the data of an Art-Net packet without throwing for unsupported or malformed data.
+     *
+     * The data is checked with {@link #check(ByteBuffer)} first, so rejected data does not cause any allocation.
+     * The buffer's position is not modified.
+     *
+     * @param buffer    buffer containing the data of an Art-Net packet
+     * @param result    result to store the status and the decoded packet in
+     * @return          the decode status
+     */
+    public static ArtnetDecodeStatus decode(ByteBuffer buffer, ArtnetDecodeResult result) {
+        ArtnetDecodeStatus status = check(buffer);
+        if (status != ArtnetDecodeStatus.OK) {
+            result.set(status, null);
+            return status;
+        }
 
-                    case ArtnetOpCodes.OP_COMMAND:
-                        return ArtCommandPacket.fromBytes(bytes);
+        try {
+            result.set(ArtnetDecodeStatus.OK, fromBytes(buffer));
+        } catch (MalformedArtnetPacketException e) {
+            result.set(ArtnetDecodeStatus.MALFORMED, null);
+        }
+        return result.getStatus();
+    }
 
-                    case ArtnetOpCodes.OP_TRIGGER:
-                        return ArtTriggerPacket.fromBytes(bytes);
+    /**
+     * Checks whether the data of an Art-Net packet can be decoded.
+     *
+     * Validates the packet ID, the opcode, the protocol version and the length of the packet without allocating.
+     * The buffer's position is not modified.
+     *
+     * @param buffer    buffer containing the data of an Art-Net packet
+     * @return          OK or the reason why the data cannot be decoded
+     */
+    public static ArtnetDecodeStatus check(ByteBuffer buffer) {
+        int offset = buffer.position();
+        int length = buffer.remaining();
 
-                    case ArtnetOpCodes.OP_NZS:
-                        return ArtNzsPacket.fromBytes(bytes);
+        //packet id + opcode
+        if (length < 10) return ArtnetDecodeStatus.TOO_SHORT;
 
-                    case ArtnetOpCodes.OP_INPUT:
-                        return ArtInputPacket.fromBytes(bytes);
+        //check packet id
+        for (int i = 0; i < ArtnetPacket.ID.length; i++) {
+            if (buffer.get(offset + i) != ArtnetPacket.ID[i]) return ArtnetDecodeStatus.NOT_ARTNET;
+        }
 
-                    case ArtnetOpCodes.OP_ADDRESS:
-                        return ArtAddressPacket.fromBytes(bytes);
+        //check opcode
+        int opCode = getOpCode(buffer);
+        int minimumLength = getMinimumLength(opCode);
+        if (minimumLength < 0) return ArtnetDecodeStatus.UNSUPPORTED_OPCODE;
+        if (length < minimumLength) return ArtnetDecodeStatus.TOO_SHORT;
 
-                    default:
-                        throw new MalformedArtnetPacketException("unimplemented artnet packet (opcode " + opCode + ")");
-                }
-            } else {
-                System.out.println("not artnet packet: wrong packet ID");
-            }
-        } else {//else cannot be Art-Net packet
-            System.out.println("not artnet packet: too short");
+        //check protocol version (ArtPollReply does not contain one)
+        if (opCode != OP_POLL_REPLY) {
+            int version = (Byte.toUnsignedInt(buffer.get(offset + 10)) << 8) + Byte.toUnsignedInt(buffer.get(offset + 11));
+            if (version < 14) return ArtnetDecodeStatus.PROTOCOL_VERSION;
+        }
+
+        //check announced data length
+        int dataOffset;
+        switch (opCode) {
+            case OP_OUTPUT:
+            case OP_NZS:
+            case OP_DIAG_DATA:
+                dataOffset = 18;
+                break;
+            case OP_COMMAND:
+                dataOffset = 16;
+                break;
+            default:
+                return ArtnetDecodeStatus.OK;
+        }
+        int dataLength = (Byte.toUnsignedInt(buffer.get(offset + dataOffset - 2)) << 8) + Byte.toUnsignedInt(buffer.get(offset + dataOffset - 1));
+        if (dataLength > 512 || length < dataOffset + dataLength) return ArtnetDecodeStatus.MALFORMED;
+
+        return ArtnetDecodeStatus.OK;
+    }
+
+    /**
+     * Returns the minimum length of an implemented packet type.
+     *
+     * @param opCode    the packet type's OpCode
+     * @return          the packet type's minimum length or -1 if the packet type is not implemented
+     */
+    private static int getMinimumLength(int opCode) {
+        switch (opCode) {
+            case OP_POLL:
+            case OP_SYNC:
+                return 14;
+            case OP_POLL_REPLY:
+                return 239;
+            case OP_COMMAND:
+                return 16;
+            case OP_NZS:
+                return 18;
+            case OP_OUTPUT:
+            case OP_DIAG_DATA:
+            case OP_TIME_CODE:
+                return 19;
+            case OP_INPUT:
+                return 20;
+            case OP_IP_PROG:
+            case OP_IP_PROG_REPLY:
+                return 34;
+            case OP_ADDRESS:
+                return 107;
+            case OP_TRIGGER:
+                return 528;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Returns the OpCode of the Art-Net packet starting at the buffer's position.
+     *
+     * @param buffer    buffer containing the data of an Art-Net packet
+     * @return          the packet's OpCode
+     */
+    public static int getOpCode(ByteBuffer buffer) {
+        int opCodeLo = Byte.toUnsignedInt(buffer.get(buffer.position() + 8));
+        int opCodeHi = Byte.toUnsignedInt(buffer.get(buffer.position() + 9));
+        return (opCodeHi << 8) + opCodeLo;
+    }
+
+    /**
+     * Converts the data of an Art-Net packet with a known OpCode in an ArtnetPacket.
+     *
+     * @param opCode    the packet's OpCode
+     * @param bytes     data of an Art-Net packet
+     * @return          instance of ArtnetPacket
+     */
+    private static ArtnetPacket decode(int opCode, byte[] bytes) throws MalformedArtnetPacketException {
+        switch (opCode) {
+            case ArtnetOpCodes.OP_OUTPUT:
+                return ArtDmxPacket.fromBytes(bytes);
+
+            case ArtnetOpCodes.OP_POLL:
+                return ArtPollPacket.fromBytes(bytes);
+
+            case ArtnetOpCodes.OP_POLL_REPLY:
+                return ArtPollReplyPacket.fromBytes(bytes);
+
+            case ArtnetOpCodes.OP_DIAG_DATA:
+                return ArtDiagDataPacket.fromBytes(bytes);
+
+            case ArtnetOpCodes.OP_IP_PROG:
+                return ArtIpProgPacket.fromBytes(bytes);
+
+            case ArtnetOpCodes.OP_IP_PROG_REPLY:
+                return ArtIpProgReplyPacket.fromBytes(bytes);
+
+            case ArtnetOpCodes.OP_SYNC:
+                return ArtSyncPacket.fromBytes(bytes);
+
+            case ArtnetOpCodes.OP_TIME_CODE:
+                return ArtTimeCodePacket.fromBytes(bytes);
+
+            case ArtnetOpCodes.OP_COMMAND:
+                return ArtCommandPacket.fromBytes(bytes);
+
+            case ArtnetOpCodes.OP_TRIGGER:
+                return ArtTriggerPacket.fromBytes(bytes);
+
+            case ArtnetOpCodes.OP_NZS:
+                return ArtNzsPacket.fromBytes(bytes);
+
+            case ArtnetOpCodes.OP_INPUT:
+                return ArtInputPacket.fromBytes(bytes);
+
+            case ArtnetOpCodes.OP_ADDRESS:
+                return ArtAddressPacket.fromBytes(bytes);
+
+            default:
+                throw new MalformedArtnetPacketException("unimplemented artnet packet (opcode " + opCode + ")");
         }
-        return null;
     }
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+/**
+ * A DMX512 universe that is transmitted by an ArtnetFrameScheduler.
+ *
+ * Channels can be changed from any thread. Every change increases the universe's version, which the scheduler
+ * uses to decide whether the universe has to be transmitted.
+ *
+ * @author sschaeffner
+ */
+public class ArtnetOutputUniverse {
+
+    //15 bit Port-Address
+    private final int portAddress;
+
+    //channel values
+    private final byte[] data;
+
+    //number of channels to transmit
+    private int length;
+
+    //number of changes
+    private long version;
+
+    /**
+     * Constructs a new instance of this class.
+     *
+     * @param portAddress   15 bit Port-Address of the universe
+     */
+    ArtnetOutputUniverse(int portAddress) {
+        if (portAddress < 0 || portAddress > 0x7FFF) throw new IllegalArgumentException("invalid Port-Address " + portAddress);
+        this.portAddress = portAddress;
+        this.data = new byte[512];
+        this.length = 512;
+    }
+
+    public int getPortAddress() {
+        return portAddress;
+    }
+
+    /**
+     * Sets a single channel.
+     *
+     * @param channel   channel index (starting at 0)
+     * @param value     the channel's value
+     */
+    public synchronized void setChannel(int channel, byte value) {
+        if (channel < 0 || channel >= data.length) throw new IndexOutOfBoundsException("channel " + channel);
+        if (data[channel] != value) {
+            data[channel] = value;
+            version++;
+        }
+    }
+
+    /**
+     * Returns a single channel.
+     *
+     * @param channel   channel index (starting at 0)
+     * @return          the channel's value
+     */
+    public synchronized byte getChannel(int channel) {
+        if (channel < 0 || channel >= data.length) throw new IndexOutOfBoundsException("channel " + channel);
+        return data[channel];
+    }
+
+    /**
+     * Sets consecutive channels starting at channel 0.
+     *
+     * @param values    channel values (at most 512)
+     */
+    public synchronized void setData(byte[] values) {
+        if (values.length > data.length) throw new IllegalArgumentException("cannot set data: more than 512 channels");
+        for (int i = 0; i < values.length; i++) {
+            if (data[i] != values[i]) {
+                System.arraycopy(values, i, data, i, values.length - i);
+                version++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sets the number of channels to transmit.
+     *
+     * DMX512 over Art-Net requires an even number of channels between 2 and 512.
+     *
+     * @param length    number of channels
+     */
+    public synchronized void setLength(int length) {
+        if (length < 2 || length > 512 || length % 2 != 0) throw new IllegalArgumentException("invalid universe length " + length);
+        if (this.length != length) {
+            this.length = length;
+            version++;
+        }
+    }
+
+    public synchronized int getLength() {
+        return length;
+    }
+
+    /**
+     * Copies the channels to transmit.
+     *
+     * @param dst   array of at least 512 bytes
+     * @return      version of the copied channels
+     */
+    synchronized long snapshot(byte[] dst) {
+        System.arraycopy(data, 0, dst, 0, length);
+        return version;
+    }
+
+    synchronized long getVersion() {
+        return version;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ArtnetOutputUniverse{portAddress=" + portAddress + ", length=" + length + ", version=" + version + "}";
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import me.sschaeffner.jArtnet.packets.ArtnetPacketView;
+
+/**
+ * A listener for received Art-Net packets that are not decoded into ArtnetPackets.
+ *
+ * The passed view is reused for the next packet as soon as the listener returns. Call
+ * {@link ArtnetPacketView#copy()} to keep the packet.
+ *
+ * @author sschaeffner
+ */
+public interface ArtnetPacketViewListener {
+
+    /**
+     * Called upon receiving an ArtDmx, ArtNzs or ArtPollReply packet.
+     *
+     * @param view view of the received packet, only valid during this call
+     */
+    void onArtnetPacketView(ArtnetPacketView view);
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+/**
+ * A DMX512 port an ArtnetController advertises in its ArtPollReply packets.
+ *
+ * An input port sends the universe onto the Art-Net network, an output port receives it from the network, so
+ * consoles send the universe to controllers advertising an output port for it.
+ *
+ * @author sschaeffner
+ */
+public final class ArtnetPort {
+
+    private final int portAddress;
+    private final boolean input;
+    private final boolean output;
+
+    /**
+     * Constructs a new instance of this class.
+     *
+     * @param portAddress   15 bit Port-Address of the port
+     * @param input         whether the port inputs data onto the Art-Net network
+     * @param output        whether the port outputs data from the Art-Net network
+     */
+    public ArtnetPort(int portAddress, boolean input, boolean output) {
+        if (portAddress < 0 || portAddress > 0x7FFF) throw new IllegalArgumentException("invalid Port-Address " + portAddress);
+        if (!input && !output) throw new IllegalArgumentException("port has to be an input or an output port");
+        this.portAddress = portAddress;
+        this.input = input;
+        this.output = output;
+    }
+
+    public static ArtnetPort input(int portAddress) {
+        return new ArtnetPort(portAddress, true, false);
+    }
+
+    public static ArtnetPort output(int portAddress) {
+        return new ArtnetPort(portAddress, false, true);
+    }
+
+    public int getPortAddress() {
+        return portAddress;
+    }
+
+    public boolean isInput() {
+        return input;
+    }
+
+    public boolean isOutput() {
+        return output;
+    }
+
+    /**
+     * Returns the upper 11 bits of the Port-Address (Net and Sub-Net), which all ports of an ArtPollReply share.
+     *
+     * @return Net and Sub-Net of the Port-Address
+     */
+    int getNetSubNet() {
+        return portAddress >> 4;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ArtnetPort)) return false;
+        ArtnetPort port = (ArtnetPort) o;
+        return portAddress == port.portAddress && input == port.input && output == port.output;
+    }
+
+    @Override
+    public int hashCode() {
+        return (portAddress << 2) | (input ? 2 : 0) | (output ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return "ArtnetPort{" + portAddress + (input ? " in" : "") + (output ? " out" : "") + "}";
+    }
+}
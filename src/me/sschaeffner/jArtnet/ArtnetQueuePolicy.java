@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+/**
+ * What happens to a packet when the queue of an asynchronous ArtnetPacketListener is full.
+ *
+ * @author sschaeffner
+ */
+public enum ArtnetQueuePolicy {
+
+    //drop the oldest queued packet to make room
+    DROP_OLDEST,
+
+    //drop the received packet
+    DROP_NEWEST,
+
+    //block the receiver thread until the listener has caught up
+    BLOCK,
+
+    //replace a queued packet of the same type (ArtDmx or ArtNzs) and Port-Address, otherwise like DROP_OLDEST
+    CONFLATE
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the sequence numbers of received ArtDmx and ArtNzs packets per sender and Port-Address.
+ *
+ * Senders number their frames 0x01 through 0xFF and wrap around to 0x01; a sequence number of 0 disables tracking.
+ * A frame that is up to half the sequence range behind the last accepted frame arrived late and should be dropped,
+ * a frame further ahead than the next one means the frames in between were lost. After
+ * {@value #RESYNC_LATE_FRAMES} late frames in a row the tracker assumes the sender restarted and accepts its numbering.
+ * A frame repeating the last sequence number is a duplicate; duplicates are counted separately and only dropped if
+ * {@link #setDropDuplicates(boolean)} is enabled, since some senders keep a constant sequence number.
+ *
+ * Senders that sent no tracked frame for the source timeout are forgotten.
+ *
+ * @author sschaeffner
+ */
+public class ArtnetSequenceTracker {
+
+    //number of Port-Addresses per chunk of universe states (one Art-Net net)
+    private static final int CHUNK_SIZE = 0x100;
+
+    //consecutive late frames after which the sender's numbering is accepted again
+    static final int RESYNC_LATE_FRAMES = 16;
+
+    //returned by track() for a late frame
+    public static final int LATE = -1;
+
+    //returned by track() for a frame repeating the last sequence number
+    public static final int DUPLICATE = -2;
+
+    private final Map<InetAddress, Source> sources = new ConcurrentHashMap<>();
+
+    private final AtomicLong tracked = new AtomicLong();
+    private final AtomicLong lost = new AtomicLong();
+    private final AtomicLong late = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+
+    private volatile boolean dropLate = true;
+    private volatile boolean dropDuplicates = false;
+
+    //time after which idle senders are forgotten
+    private volatile long sourceTimeoutNanos = TimeUnit.SECONDS.toNanos(60);
+
+    //time of the last search for idle senders
+    private final AtomicLong lastPruneNanos = new AtomicLong(System.nanoTime());
+
+    /**
+     * Tracks a received frame.
+     *
+     * @param sender        the frame's sender
+     * @param portAddress   the frame's Port-Address
+     * @param sequence      the frame's sequence number (0 - 255)
+     * @return              number of frames lost since the last accepted frame, LATE if the frame arrived late or
+     *                      DUPLICATE if it repeats the last sequence number
+     */
+    public int track(InetAddress sender, int portAddress, int sequence) {
+        if (portAddress < 0 || portAddress > 0x7FFF) throw new IllegalArgumentException("invalid Port-Address " + portAddress);
+        if (sequence < 0 || sequence > 0xFF) throw new IllegalArgumentException("invalid sequence number " + sequence);
+
+        long now = System.nanoTime();
+        pruneIdleSources(now);
+
+        Source source = sources.computeIfAbsent(sender, s -> new Source());
+        synchronized (source) {
+            source.lastSeenNanos = now;
+            UniverseState state = source.get(portAddress, sequence != 0);
+
+            //sequence 0 disables tracking
+            if (sequence == 0) {
+                if (state != null) state.last = 0;
+                return 0;
+            }
+
+            tracked.incrementAndGet();
+
+            int previous = state.last;
+            state.last = sequence;
+            if (previous == 0) {
+                state.lateInRow = 0;
+                return 0;
+            }
+
+            //distance in the 255 numbers that are used, so wrapping from 0xFF to 0x01 is a step of 1
+            int distance = (sequence - previous + 255) % 255;
+            if (distance == 0) {
+                state.duplicates++;
+                duplicates.incrementAndGet();
+                return DUPLICATE;
+            }
+            if (distance >= 128 && ++state.lateInRow < RESYNC_LATE_FRAMES) {
+                state.last = previous;
+                state.late++;
+                late.incrementAndGet();
+                return LATE;
+            }
+
+            state.lateInRow = 0;
+            int gap = distance >= 128 ? 0 : distance - 1;
+            if (gap > 0) {
+                state.lost += gap;
+                lost.addAndGet(gap);
+            }
+            return gap;
+        }
+    }
+
+    /**
+     * Sets whether late frames are dropped (the default) or only counted.
+     *
+     * @param dropLate  whether to drop late frames
+     */
+    public void setDropLate(boolean dropLate) {
+        this.dropLate = dropLate;
+    }
+
+    public boolean isDropLate() {
+        return dropLate;
+    }
+
+    /**
+     * Sets whether frames repeating the last sequence number are dropped or only counted (the default).
+     *
+     * @param dropDuplicates    whether to drop duplicate frames
+     */
+    public void setDropDuplicates(boolean dropDuplicates) {
+        this.dropDuplicates = dropDuplicates;
+    }
+
+    public boolean isDropDuplicates() {
+        return dropDuplicates;
+    }
+
+    /**
+     * Sets the time after which senders that sent no tracked frame are forgotten.
+     *
+     * @param timeoutMillis source timeout in milliseconds (60 seconds by default)
+     */
+    public void setSourceTimeout(long timeoutMillis) {
+        if (timeoutMillis <= 0) throw new IllegalArgumentException("source timeout has to be greater than 0");
+        this.sourceTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * Returns the number of senders whose sequence numbers are tracked.
+     *
+     * @return number of tracked senders
+     */
+    public int getSources() {
+        return sources.size();
+    }
+
+    /**
+     * Returns the number of tracked frames (with a sequence number other than 0).
+     *
+     * @return number of tracked frames
+     */
+    public long getTracked() {
+        return tracked.get();
+    }
+
+    /**
+     * Returns the number of frames that were missing in the sequence.
+     *
+     * @return number of lost frames
+     */
+    public long getLost() {
+        return lost.get();
+    }
+
+    /**
+     * Returns the number of frames that arrived late.
+     *
+     * @return number of late frames
+     */
+    public long getLate() {
+        return late.get();
+    }
+
+    /**
+     * Returns the number of frames that repeated the last sequence number.
+     *
+     * @return number of duplicate frames
+     */
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+
+    /**
+     * Returns the estimated share of frames that were lost.
+     *
+     * @return lost frames divided by tracked and lost frames
+     */
+    public double getLossRate() {
+        long lost = getLost();
+        long expected = getTracked() - getLate() - getDuplicates() + lost;
+        return expected == 0 ? 0 : (double) lost / expected;
+    }
+
+    /**
+     * Returns the share of tracked frames that arrived late.
+     *
+     * @return late frames divided by tracked frames
+     */
+    public double getReorderRate() {
+        long tracked = getTracked();
+        return tracked == 0 ? 0 : (double) getLate() / tracked;
+    }
+
+    /**
+     * Returns the number of frames of a sender and Port-Address that were missing in the sequence.
+     *
+     * @param sender        a sender
+     * @param portAddress   a Port-Address
+     * @return              number of lost frames
+     */
+    public long getLost(InetAddress sender, int portAddress) {
+        UniverseState state = getState(sender, portAddress);
+        return state != null ? state.lost : 0;
+    }
+
+    /**
+     * Returns the number of frames of a sender and Port-Address that arrived late.
+     *
+     * @param sender        a sender
+     * @param portAddress   a Port-Address
+     * @return              number of late frames
+     */
+    public long getLate(InetAddress sender, int portAddress) {
+        UniverseState state = getState(sender, portAddress);
+        return state != null ? state.late : 0;
+    }
+
+    /**
+     * Returns the number of frames of a sender and Port-Address that repeated the last sequence number.
+     *
+     * @param sender        a sender
+     * @param portAddress   a Port-Address
+     * @return              number of duplicate frames
+     */
+    public long getDuplicates(InetAddress sender, int portAddress) {
+        UniverseState state = getState(sender, portAddress);
+        return state != null ? state.duplicates : 0;
+    }
+
+    private UniverseState getState(InetAddress sender, int portAddress) {
+        Source source = sources.get(sender);
+        if (source == null) return null;
+        synchronized (source) {
+            return source.get(portAddress & 0x7FFF, false);
+        }
+    }
+
+    /**
+     * Forgets senders that sent no tracked frame for the source timeout.
+     *
+     * Runs at most twice per timeout, on the thread that tracks a frame first.
+     *
+     * @param now   current time in nanoseconds
+     */
+    private void pruneIdleSources(long now) {
+        long timeout = sourceTimeoutNanos;
+        long lastPrune = lastPruneNanos.get();
+        if (now - lastPrune < timeout / 2 || !lastPruneNanos.compareAndSet(lastPrune, now)) return;
+
+        sources.entrySet().removeIf(entry -> now - entry.getValue().lastSeenNanos >= timeout);
+    }
+
+    /**
+     * Forgets the sequence numbers and counters of a sender.
+     *
+     * @param sender    a sender
+     */
+    public void forget(InetAddress sender) {
+        sources.remove(sender);
+    }
+
+    /**
+     * Forgets all sequence numbers and resets all counters.
+     */
+    public void reset() {
+        sources.clear();
+        tracked.set(0);
+        lost.set(0);
+        late.set(0);
+        duplicates.set(0);
+    }
+
+    /**
+     * Universe states of one sender, allocated per net when first used.
+     */
+    private static final class Source {
+        private final UniverseState[][] chunks = new UniverseState[0x8000 / CHUNK_SIZE][];
+
+        //time a tracked frame was last received from the sender
+        private volatile long lastSeenNanos;
+
+        private UniverseState get(int portAddress, boolean create) {
+            UniverseState[] chunk = chunks[portAddress / CHUNK_SIZE];
+            if (chunk == null) {
+                if (!create) return null;
+                chunk = chunks[portAddress / CHUNK_SIZE] = new UniverseState[CHUNK_SIZE];
+            }
+            UniverseState state = chunk[portAddress % CHUNK_SIZE];
+            if (state == null && create) state = chunk[portAddress % CHUNK_SIZE] = new UniverseState();
+            return state;
+        }
+    }
+
+    /**
+     * Sequence state of one sender and Port-Address.
+     */
+    private static final class UniverseState {
+        //last accepted sequence number, 0 if there is none
+        private int last;
+        private int lateInRow;
+        private long lost, late, duplicates;
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+/**
+ * Decides when an ArtnetFrameScheduler follows a frame with an ArtSync packet.
+ *
+ * @author sschaeffner
+ */
+public enum ArtnetSyncMode {
+
+    //never send ArtSync
+    NONE,
+
+    //broadcast ArtSync after every frame that sent ArtDmx data
+    ALWAYS,
+
+    //unicast ArtSync to nodes subscribed to more than one universe that received data in a frame
+    MULTI_UNIVERSE
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A hashed timer wheel.
+ *
+ * Timeouts are hashed into a fixed number of buckets by their deadline tick. Scheduling is O(1) and every tick only
+ * looks at one bucket, so the cost does not depend on the total number of timeouts. Timeouts fire with a precision
+ * of one tick. Timeouts further away than one rotation stay in their bucket until their tick is reached.
+ *
+ * @param <T> type of the scheduled items
+ * @author sschaeffner
+ */
+final class ArtnetTimerWheel<T> {
+
+    //buckets of timeouts by deadline tick
+    private final List<List<Timeout<T>>> buckets;
+
+    //buckets.size() - 1 (the number of buckets is a power of two)
+    private final int mask;
+
+    //length of a tick in milliseconds
+    private final long tickMillis;
+
+    //time of tick 0
+    private final long startMillis;
+
+    //last processed tick
+    private long tick;
+
+    //number of scheduled timeouts
+    private int size;
+
+    /**
+     * Constructs a new instance of this class.
+     *
+     * @param ticksPerWheel number of buckets (rounded up to a power of two)
+     * @param tickMillis    length of a tick in milliseconds
+     * @param startMillis   current time in milliseconds
+     */
+    ArtnetTimerWheel(int ticksPerWheel, long tickMillis, long startMillis) {
+        if (ticksPerWheel < 1 || ticksPerWheel > 1 << 20) throw new IllegalArgumentException("ticks per wheel out of range");
+        if (tickMillis <= 0) throw new IllegalArgumentException("tick has to be greater than 0");
+        int length = 1;
+        while (length < ticksPerWheel) length <<= 1;
+        this.buckets = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) buckets.add(new ArrayList<>());
+        this.mask = length - 1;
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+    }
+
+    /**
+     * Schedules an item.
+     *
+     * Deadlines in the past fire on the next tick.
+     *
+     * @param item              the item
+     * @param deadlineMillis    time to fire at in milliseconds
+     */
+    synchronized void schedule(T item, long deadlineMillis) {
+        //round up so items never fire early
+        long deadlineTick = Math.max(tick + 1, (deadlineMillis - startMillis + tickMillis - 1) / tickMillis);
+        buckets.get((int) (deadlineTick & mask)).add(new Timeout<>(item, deadlineTick));
+        size++;
+    }
+
+    /**
+     * Processes all ticks up to a point in time.
+     *
+     * The consumer is called outside of the wheel's lock, so it may schedule items again.
+     *
+     * @param nowMillis current time in milliseconds
+     * @param expired   consumer of the items whose deadline has been reached
+     */
+    void advance(long nowMillis, Consumer<T> expired) {
+        List<T> fired = new ArrayList<>();
+        synchronized (this) {
+            long target = (nowMillis - startMillis) / tickMillis;
+            if (target <= tick) return;
+
+            //after a long pause every bucket only has to be looked at once
+            long steps = Math.min(target - tick, buckets.size());
+            for (long i = 1; i <= steps; i++) {
+                List<Timeout<T>> bucket = buckets.get((int) ((tick + i) & mask));
+                for (int j = bucket.size() - 1; j >= 0; j--) {
+                    Timeout<T> timeout = bucket.get(j);
+                    if (timeout.deadlineTick <= target) {
+                        //swap with the last timeout to remove in O(1)
+                        bucket.set(j, bucket.get(bucket.size() - 1));
+                        bucket.remove(bucket.size() - 1);
+                        fired.add(timeout.item);
+                    }
+                }
+            }
+            tick = target;
+            size -= fired.size();
+        }
+        fired.forEach(expired);
+    }
+
+    /**
+     * Returns the number of scheduled items.
+     *
+     * @return number of scheduled items
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Removes all scheduled items.
+     */
+    synchronized void clear() {
+        for (List<Timeout<T>> bucket : buckets) bucket.clear();
+        size = 0;
+    }
+
+    private static final class Timeout<T> {
+        private final T item;
+        private final long deadlineTick;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
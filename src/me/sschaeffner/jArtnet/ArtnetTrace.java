@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import me.sschaeffner.jArtnet.packets.ArtnetPacket;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Writes received and sent packets of an ArtnetController as text.
+ *
+ * Tracing is off by default. Callers check {@link #isEnabled(int)} before handing a packet over, so a disabled trace
+ * costs a single volatile read per packet and no formatting. Enabled traces can be restricted to some opcodes,
+ * sampled (every n-th packet) and rate limited (at most n packets per second). Text is rendered into a reused
+ * StringBuilder and written to the output in one call.
+ *
+ * @author sschaeffner
+ */
+public final class ArtnetTrace {
+
+    //Art-Net opcodes are multiples of 0x100
+    private static final int OPCODE_SLOTS = 0x100;
+
+    private volatile ArtnetTraceLevel level = ArtnetTraceLevel.OFF;
+
+    //enabled opcodes as bit set over (opCode >> 8)
+    private final AtomicLongArray enabledOpCodes = new AtomicLongArray(OPCODE_SLOTS / 64);
+
+    //trace every n-th packet
+    private volatile int sampleInterval = 1;
+    private final AtomicLong sampleCounter = new AtomicLong();
+
+    //at most this many packets per second (0 = unlimited)
+    private volatile int maxPerSecond;
+    private long windowStart;
+    private int windowCount;
+
+    //packets skipped by sampling or rate limiting
+    private final AtomicLong suppressed = new AtomicLong();
+
+    //guarded by this
+    private Appendable output = System.out;
+    private final StringBuilder sb = new StringBuilder(4096);
+
+    /**
+     * Constructs a new instance of this class with all opcodes enabled.
+     */
+    public ArtnetTrace() {
+        enableAllOpCodes();
+    }
+
+    public void setLevel(ArtnetTraceLevel level) {
+        if (level == null) throw new IllegalArgumentException("level must not be null");
+        this.level = level;
+    }
+
+    public ArtnetTraceLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Sets where the trace is written to (System.out by default).
+     *
+     * @param output    the trace's output
+     */
+    public synchronized void setOutput(Appendable output) {
+        if (output == null) throw new IllegalArgumentException("output must not be null");
+        this.output = output;
+    }
+
+    public void enableAllOpCodes() {
+        for (int i = 0; i < enabledOpCodes.length(); i++) enabledOpCodes.set(i, -1L);
+    }
+
+    public void disableAllOpCodes() {
+        for (int i = 0; i < enabledOpCodes.length(); i++) enabledOpCodes.set(i, 0L);
+    }
+
+    /**
+     * Enables tracing of some opcodes.
+     *
+     * @param opCodes   opcodes to trace
+     */
+    public void enableOpCodes(int... opCodes) {
+        for (int opCode : opCodes) {
+            int slot = slot(opCode);
+            long bit = 1L << (slot & 63);
+            long bits;
+            do {
+                bits = enabledOpCodes.get(slot >> 6);
+            } while (!enabledOpCodes.compareAndSet(slot >> 6, bits, bits | bit));
+        }
+    }
+
+    /**
+     * Disables tracing of some opcodes.
+     *
+     * @param opCodes   opcodes not to trace
+     */
+    public void disableOpCodes(int... opCodes) {
+        for (int opCode : opCodes) {
+            int slot = slot(opCode);
+            long bit = 1L << (slot & 63);
+            long bits;
+            do {
+                bits = enabledOpCodes.get(slot >> 6);
+            } while (!enabledOpCodes.compareAndSet(slot >> 6, bits, bits & ~bit));
+        }
+    }
+
+    /**
+     * Only traces every n-th packet.
+     *
+     * @param sampleInterval    n (1 traces every packet)
+     */
+    public void setSampleInterval(int sampleInterval) {
+        if (sampleInterval < 1) throw new IllegalArgumentException("sample interval has to be at least 1");
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * Limits the number of traced packets per second.
+     *
+     * @param maxPerSecond  maximum number of packets per second (0 for no limit)
+     */
+    public void setMaxPerSecond(int maxPerSecond) {
+        if (maxPerSecond < 0) throw new IllegalArgumentException("maximum per second must not be negative");
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    /**
+     * Returns the number of packets that were not traced because of sampling or rate limiting.
+     *
+     * @return number of suppressed packets
+     */
+    public long getSuppressed() {
+        return suppressed.get();
+    }
+
+    /**
+     * Returns whether packets with an opcode are traced at all.
+     *
+     * @param opCode    the packet's opcode
+     * @return          whether {@link #trace(String, int, ByteBuffer, InetAddress)} has to be called
+     */
+    public boolean isEnabled(int opCode) {
+        if (level == ArtnetTraceLevel.OFF) return false;
+        int slot = slot(opCode);
+        return (enabledOpCodes.get(slot >> 6) & (1L << (slot & 63))) != 0;
+    }
+
+    /**
+     * Traces a packet if it passes sampling and rate limiting.
+     *
+     * @param direction a short prefix, e.g. "RX" or "TX"
+     * @param opCode    the packet's opcode
+     * @param data      the packet between the buffer's position and limit (not modified)
+     * @param peer      the packet's sender or receiver
+     */
+    void trace(String direction, int opCode, ByteBuffer data, InetAddress peer) {
+        ArtnetTraceLevel level = this.level;
+        if (level == ArtnetTraceLevel.OFF) return;
+
+        int interval = sampleInterval;
+        if (interval > 1 && sampleCounter.incrementAndGet() % interval != 0) {
+            suppressed.incrementAndGet();
+            return;
+        }
+
+        //check the rate limit first, so suppressed packets are not decoded
+        synchronized (this) {
+            if (!withinRateLimit()) {
+                suppressed.incrementAndGet();
+                return;
+            }
+        }
+
+        //decode outside the lock
+        ArtnetPacket packet = null;
+        if (level == ArtnetTraceLevel.FULL) {
+            try {
+                packet = ArtnetOpCodes.fromBytes(data.duplicate());
+            } catch (MalformedArtnetPacketException ignored) {}
+        }
+
+        synchronized (this) {
+            sb.setLength(0);
+            sb.append(direction).append(' ');
+            sb.append(ArtnetPacket.asHex(opCode, 4)).append(' ');
+            sb.append(data.remaining()).append(" bytes ");
+            sb.append(direction.equals("TX") ? "to " : "from ").append(peer != null ? peer.getHostAddress() : "?");
+            if (packet != null) {
+                sb.append(": ");
+                packet.appendTo(sb);
+            }
+            sb.append(System.lineSeparator());
+
+            try {
+                output.append(sb);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Counts a packet against the per second limit.
+     *
+     * @return whether the packet may be traced
+     */
+    private boolean withinRateLimit() {
+        int max = maxPerSecond;
+        if (max == 0) return true;
+
+        long now = System.nanoTime();
+        if (now - windowStart >= 1_000_000_000L) {
+            windowStart = now;
+            windowCount = 0;
+        }
+        return windowCount++ < max;
+    }
+
+    private static int slot(int opCode) {
+        return (opCode >>> 8) & (OPCODE_SLOTS - 1);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Sends and receives the datagrams of an ArtnetController.
+ *
+ * Implementations are {@link ArtnetUdpTransport} (blocking DatagramSocket), {@link ArtnetNioTransport}
+ * (DatagramChannels, also for several network addresses) and {@link ArtnetMemoryTransport} (controllers linked
+ * inside one JVM, without sockets).
+ *
+ * @author sschaeffner
+ */
+public interface ArtnetTransport {
+
+    /**
+     * Returns the network addresses the transport sends from and receives on.
+     *
+     * @return at least one interface
+     */
+    List<ArtnetInterface> getInterfaces();
+
+    /**
+     * Returns the local port the transport is bound to.
+     *
+     * @return the local port
+     */
+    int getLocalPort();
+
+    /**
+     * Receives datagrams and hands them to a listener until the transport is closed.
+     *
+     * Called once by the controller's receiver thread, so the listener is always called from the same thread.
+     *
+     * @param listener  listener for received datagrams
+     * @throws IOException when receiving fails for another reason than the transport being closed
+     */
+    void receive(ArtnetDatagramListener listener) throws IOException;
+
+    /**
+     * Sends a datagram.
+     *
+     * May be called from several threads at once.
+     *
+     * @param data              bytes between the buffer's position and limit
+     * @param address           address to send to
+     * @param artnetInterface   one of the transport's interfaces to send with
+     * @throws IOException when the datagram cannot be sent
+     */
+    void send(ByteBuffer data, InetSocketAddress address, ArtnetInterface artnetInterface) throws IOException;
+
+    boolean isOpen();
+
+    /**
+     * Closes the transport, which ends {@link #receive(ArtnetDatagramListener)}.
+     */
+    void close();
+}
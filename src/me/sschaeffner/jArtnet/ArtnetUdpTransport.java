@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Transport with a blocking DatagramSocket bound to the wildcard address.
+ *
+ * @author sschaeffner
+ */
+public final class ArtnetUdpTransport implements ArtnetTransport {
+
+    //size of the receive buffer (the largest packet, ArtDmx, is 530 bytes)
+    private static final int MAX_PACKET_LENGTH = 600;
+
+    private final DatagramSocket socket;
+    private final ArtnetInterface artnetInterface;
+
+    //per-thread packets for sending without allocating
+    private final ThreadLocal<DatagramPacket> sendPackets = ThreadLocal.withInitial(() -> new DatagramPacket(new byte[0], 0));
+
+    /**
+     * Constructs a new instance of this class.
+     *
+     * @param host  host address
+     * @param port  port to listen on (0 for an ephemeral port)
+     * @throws IOException when the port cannot be opened
+     */
+    public ArtnetUdpTransport(NetworkAddress host, int port) throws IOException {
+        this(new ArtnetInterface(host), port);
+    }
+
+    /**
+     * Constructs a new instance of this class for an interface described by hand, e.g. loopback with the broadcast
+     * address 127.255.255.255.
+     *
+     * @param artnetInterface   the served interface
+     * @param port              port to listen on (0 for an ephemeral port)
+     * @throws IOException when the port cannot be opened
+     */
+    public ArtnetUdpTransport(ArtnetInterface artnetInterface, int port) throws IOException {
+        this.artnetInterface = artnetInterface;
+        try {
+            this.socket = new DatagramSocket(port);
+        } catch (SocketException e) {
+            e.printStackTrace();
+            throw new IOException("cannot start ArtnetController: cannot open socket");
+        }
+    }
+
+    @Override
+    public List<ArtnetInterface> getInterfaces() {
+        return Collections.singletonList(artnetInterface);
+    }
+
+    @Override
+    public int getLocalPort() {
+        return socket.getLocalPort();
+    }
+
+    @Override
+    public void receive(ArtnetDatagramListener listener) throws IOException {
+        byte[] receiveData = new byte[MAX_PACKET_LENGTH];
+        DatagramPacket receivePacket = new DatagramPacket(receiveData, 0, receiveData.length);
+        ByteBuffer receiveBuffer = ByteBuffer.wrap(receiveData);
+
+        while (!socket.isClosed()) {
+            try {
+                receivePacket.setLength(receiveData.length);
+                socket.receive(receivePacket);
+            } catch (SocketException e) {
+                //do nothing as the socket is just closed
+                continue;
+            }
+
+            //only hand the bytes of this datagram to decoding
+            receiveBuffer.clear();
+            receiveBuffer.limit(receivePacket.getLength());
+            listener.onDatagram(receiveBuffer, receivePacket.getAddress(), receivePacket.getPort(), artnetInterface);
+        }
+    }
+
+    @Override
+    public void send(ByteBuffer data, InetSocketAddress address, ArtnetInterface artnetInterface) throws IOException {
+        DatagramPacket packet = sendPackets.get();
+        if (data.hasArray()) {
+            packet.setData(data.array(), data.arrayOffset() + data.position(), data.remaining());
+        } else {
+            byte[] bytes = new byte[data.remaining()];
+            data.duplicate().get(bytes);
+            packet.setData(bytes);
+        }
+        packet.setSocketAddress(address);
+        socket.send(packet);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !socket.isClosed();
+    }
+
+    @Override
+    public void close() {
+        if (socket.isConnected()) socket.disconnect();
+        socket.close();
+    }
+}
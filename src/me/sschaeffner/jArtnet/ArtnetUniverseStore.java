@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The current DMX512 frame of every 15 bit Port-Address.
+ *
+ * All 32,768 frames of 512 channels are kept in one off-heap region of 16 MiB. Received data is copied into it
+ * straight from the receive buffer. Reads are optimistic (like a seqlock): a reader copies a frame without locking
+ * and retries if a writer changed the frame in the meantime, so readers always get a consistent frame. Only after
+ * {@link #OPTIMISTIC_READ_ATTEMPTS} failed attempts does a reader take the read lock and briefly block writers of
+ * that Port-Address.
+ *
+ * @author sschaeffner
+ */
+public final class ArtnetUniverseStore {
+
+    //number of 15 bit Port-Addresses
+    public static final int PORT_ADDRESSES = 0x8000;
+
+    //maximum number of channels per frame
+    public static final int FRAME_SIZE = 512;
+
+    //optimistic copies of a frame before a reader falls back to the read lock
+    public static final int OPTIMISTIC_READ_ATTEMPTS = 3;
+
+    //frames of all Port-Addresses
+    private final ByteBuffer frames;
+
+    //one lock per Port-Address
+    private final StampedLock[] locks;
+
+    //per Port-Address: length and start code of the current frame and the number of frames written
+    private final short[] lengths;
+    private final byte[] startCodes;
+    private final int[] frameCounts;
+
+    /**
+     * Constructs a new instance of this class and allocates its off-heap memory.
+     */
+    public ArtnetUniverseStore() {
+        this.frames = ByteBuffer.allocateDirect(PORT_ADDRESSES * FRAME_SIZE);
+        this.locks = new StampedLock[PORT_ADDRESSES];
+        for (int i = 0; i < PORT_ADDRESSES; i++) locks[i] = new StampedLock();
+        this.lengths = new short[PORT_ADDRESSES];
+        this.startCodes = new byte[PORT_ADDRESSES];
+        this.frameCounts = new int[PORT_ADDRESSES];
+    }
+
+    /**
+     * Stores a frame from a buffer.
+     *
+     * @param portAddress   15 bit Port-Address of the frame
+     * @param startCode     DMX512 start code of the frame (0 for ArtDmx)
+     * @param src           buffer containing the frame's channels
+     * @param srcOffset     absolute index of the first channel in the buffer
+     * @param length        number of channels
+     */
+    public void write(int portAddress, byte startCode, ByteBuffer src, int srcOffset, int length) {
+        checkPortAddress(portAddress);
+        checkLength(length);
+
+        int frameOffset = portAddress * FRAME_SIZE;
+        StampedLock lock = locks[portAddress];
+        long stamp = lock.writeLock();
+        try {
+            ByteBuffer channels = src.duplicate();
+            channels.limit(srcOffset + length);
+            channels.position(srcOffset);
+            frame(frameOffset).put(channels);
+            setFrameInfo(portAddress, startCode, length);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Stores a frame from a byte array.
+     *
+     * @param portAddress   15 bit Port-Address of the frame
+     * @param startCode     DMX512 start code of the frame (0 for ArtDmx)
+     * @param src           array containing the frame's channels
+     * @param srcOffset     index of the first channel in the array
+     * @param length        number of channels
+     */
+    public void write(int portAddress, byte startCode, byte[] src, int srcOffset, int length) {
+        checkPortAddress(portAddress);
+        checkLength(length);
+
+        int frameOffset = portAddress * FRAME_SIZE;
+        StampedLock lock = locks[portAddress];
+        long stamp = lock.writeLock();
+        try {
+            frame(frameOffset).put(src, srcOffset, length);
+            setFrameInfo(portAddress, startCode, length);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns a view of the frames positioned at a frame, so channels can be copied in bulk.
+     *
+     * The view is private to the caller, several threads may copy frames at the same time.
+     */
+    private ByteBuffer frame(int frameOffset) {
+        ByteBuffer frame = frames.duplicate();
+        frame.position(frameOffset);
+        return frame;
+    }
+
+    private void setFrameInfo(int portAddress, byte startCode, int length) {
+        lengths[portAddress] = (short) length;
+        startCodes[portAddress] = startCode;
+        frameCounts[portAddress]++;
+    }
+
+    /**
+     * Copies the current frame of a Port-Address.
+     *
+     * @param portAddress   15 bit Port-Address
+     * @param dst           array of at least {@link #FRAME_SIZE} bytes to copy the frame's channels into
+     * @return              number of channels of the frame, 0 if no frame was stored yet
+     */
+    public int read(int portAddress, byte[] dst) {
+        checkPortAddress(portAddress);
+
+        StampedLock lock = locks[portAddress];
+        for (int attempt = 0; attempt < OPTIMISTIC_READ_ATTEMPTS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0) continue;
+            int length = copyFrame(portAddress, dst);
+            if (lock.validate(stamp)) return length;
+        }
+
+        //writers kept being faster, wait for them
+        long stamp = lock.readLock();
+        try {
+            return copyFrame(portAddress, dst);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private int copyFrame(int portAddress, byte[] dst) {
+        int length = Math.min(lengths[portAddress], FRAME_SIZE);
+        frame(portAddress * FRAME_SIZE).get(dst, 0, Math.min(length, dst.length));
+        return length;
+    }
+
+    /**
+     * Returns a single channel of the current frame of a Port-Address.
+     *
+     * @param portAddress   15 bit Port-Address
+     * @param channel       channel index (starting at 0)
+     * @return              the channel's value
+     */
+    public byte get(int portAddress, int channel) {
+        checkPortAddress(portAddress);
+        if (channel < 0 || channel >= FRAME_SIZE) throw new IndexOutOfBoundsException("channel " + channel);
+        return frames.get(portAddress * FRAME_SIZE + channel);
+    }
+
+    /**
+     * Returns the DMX512 start code of the current frame of a Port-Address.
+     *
+     * @param portAddress   15 bit Port-Address
+     * @return              the frame's start code
+     */
+    public byte getStartCode(int portAddress) {
+        checkPortAddress(portAddress);
+        StampedLock lock = locks[portAddress];
+        long stamp = lock.tryOptimisticRead();
+        byte startCode = startCodes[portAddress];
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                startCode = startCodes[portAddress];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return startCode;
+    }
+
+    /**
+     * Returns the number of frames stored for a Port-Address.
+     *
+     * Can be polled to detect new frames without copying them.
+     *
+     * @param portAddress   15 bit Port-Address
+     * @return              number of frames stored so far
+     */
+    public int getFrameCount(int portAddress) {
+        checkPortAddress(portAddress);
+        StampedLock lock = locks[portAddress];
+        long stamp = lock.tryOptimisticRead();
+        int frameCount = frameCounts[portAddress];
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                frameCount = frameCounts[portAddress];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return frameCount;
+    }
+
+    private static void checkPortAddress(int portAddress) {
+        if (portAddress < 0 || portAddress >= PORT_ADDRESSES) throw new IllegalArgumentException("invalid Port-Address " + portAddress);
+    }
+
+    private static void checkLength(int length) {
+        if (length < 0 || length > FRAME_SIZE) throw new IllegalArgumentException("invalid frame length " + length);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.bench;
+
+import me.sschaeffner.jArtnet.*;
+import me.sschaeffner.jArtnet.packets.ArtDmxPacket;
+
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discovery and routing of an ArtnetController with thousands of simulated nodes (see {@link NodeFleet}).
+ *
+ * Every round broadcasts one ArtPoll and waits for the replies of all nodes; the first round registers the nodes,
+ * later rounds update them. Afterwards an ArtDmx packet is sent to every Port-Address of the fleet with
+ * {@link ArtnetController#sendDmxPacket(ArtDmxPacket)}, which looks up the subscribed nodes. Finally the fleet is
+ * stopped and the controller's {@link ArtnetNodeMonitor} expires all nodes.
+ *
+ * Usage: DiscoveryBenchmark [nodes] [rounds] [port, 0 = ephemeral] [reply window in ms]
+ *
+ * @author sschaeffner
+ */
+public class DiscoveryBenchmark {
+
+    //time without a new reply after which a round is over
+    private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    public static void main(String[] args) throws Exception {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        long replyWindow = args.length > 3 ? Long.parseLong(args[3]) : 0;
+
+        try (NodeFleet fleet = new NodeFleet(nodes, port)) {
+            fleet.setReplyWindow(replyWindow, TimeUnit.MILLISECONDS);
+
+            //loopback with a broadcast address, so discoverNodes reaches the fleet
+            ArtnetInterface loopback = new ArtnetInterface(InetAddress.getByName("127.0.0.1"), 8,
+                    InetAddress.getByName("127.255.255.255"));
+            ArtnetController controller = ArtnetControllerFactory.getInstance(new ArtnetUdpTransport(loopback, 0));
+            try {
+                controller.setRemotePort(fleet.getPort());
+                System.out.println("nodes:           " + nodes + " on port " + fleet.getPort() +
+                        (replyWindow > 0 ? ", replies over " + replyWindow + " ms" : ""));
+
+                for (int round = 1; round <= rounds; round++) discover(controller, fleet, round);
+                route(controller, fleet);
+                expire(controller, fleet);
+            } finally {
+                controller.closeSocket();
+            }
+        }
+    }
+
+    /**
+     * Polls the fleet once and prints how long the controller took to handle all replies.
+     */
+    private static void discover(ArtnetController controller, NodeFleet fleet, int round) throws Exception {
+        ArtnetControllerMetrics metrics = controller.getControllerMetrics();
+        long before = metrics.getPacketsReceived(ArtnetOpCodes.OP_POLL_REPLY);
+        long start = System.nanoTime();
+        controller.discoverNodes();
+
+        long received = 0;
+        long last = start;
+        while (received < fleet.size() && System.nanoTime() - last < IDLE_NANOS) {
+            Thread.sleep(1);
+            long now = metrics.getPacketsReceived(ArtnetOpCodes.OP_POLL_REPLY) - before;
+            if (now > received) {
+                received = now;
+                last = System.nanoTime();
+            }
+        }
+        double millis = (last - start) / 1e6;
+
+        System.out.printf("round %-3d        %d replies, %d nodes in %.1f ms (%.0f replies/s)%n", round, received,
+                controller.getNodes().length, millis, received / (millis / 1000));
+    }
+
+    /**
+     * Sends one ArtDmx packet to every Port-Address of the fleet and prints the send rate and loss.
+     */
+    private static void route(ArtnetController controller, NodeFleet fleet) throws Exception {
+        int portAddresses = Math.min(fleet.size() * NodeFleet.PORTS_PER_NODE, 0x8000);
+        byte[] data = new byte[512];
+        ArtDmxPacket[] packets = new ArtDmxPacket[portAddresses];
+        for (int pa = 0; pa < portAddresses; pa++) {
+            packets[pa] = new ArtDmxPacket((byte) 0, (byte) 0, (byte) pa, (byte) (pa >> 8), data);
+        }
+
+        long before = fleet.getDmxPackets();
+        long sent = 0;
+        long start = System.nanoTime();
+        for (ArtDmxPacket packet : packets) sent += controller.sendDmxPacket(packet);
+        double millis = (System.nanoTime() - start) / 1e6;
+
+        Thread.sleep(500);
+        long received = fleet.getDmxPackets() - before;
+        System.out.printf("routing          %d Port-Addresses, %d datagrams in %.1f ms (%.0f datagrams/s), %d lost%n",
+                portAddresses, sent, millis, sent / (millis / 1000), sent - received);
+    }
+
+    /**
+     * Stops the fleet and prints how long the node monitor took to expire all nodes.
+     */
+    private static void expire(ArtnetController controller, NodeFleet fleet) throws Exception {
+        ArtnetNodeMonitor monitor = controller.getNodeMonitor();
+        monitor.setPollInterval(1000, 1000);
+        monitor.setMissedPolls(2);
+        monitor.start();
+
+        //let the nodes answer the monitor's first poll, so they are lost a full timeout after the fleet stopped
+        Thread.sleep(monitor.getPollInterval());
+        int nodes = controller.getNodes().length;
+        long before = monitor.getLostNodes();
+        fleet.close();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(monitor.getNodeTimeout() * 5);
+        while (controller.getNodes().length > 0 && System.nanoTime() < deadline) Thread.sleep(1);
+        double millis = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("expiry           %d of %d nodes lost %.1f ms after the fleet stopped (timeout %d ms)%n",
+                monitor.getLostNodes() - before, nodes, millis, monitor.getNodeTimeout());
+        monitor.stop();
+    }
+}
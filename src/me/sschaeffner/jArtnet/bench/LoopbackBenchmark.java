@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.bench;
+
+import me.sschaeffner.jArtnet.ArtnetController;
+import me.sschaeffner.jArtnet.ArtnetControllerFactory;
+import me.sschaeffner.jArtnet.ArtnetMemoryNetwork;
+import me.sschaeffner.jArtnet.ArtnetMemoryTransport;
+import me.sschaeffner.jArtnet.ArtnetNode;
+import me.sschaeffner.jArtnet.ArtnetPacketViewListener;
+import me.sschaeffner.jArtnet.ArtnetStyleCodes;
+import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
+import me.sschaeffner.jArtnet.NetworkAddress;
+import me.sschaeffner.jArtnet.packets.ArtDmxPacket;
+import me.sschaeffner.jArtnet.packets.ArtDmxPacketView;
+import me.sschaeffner.jArtnet.packets.ArtnetPacketView;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end throughput and latency of two ArtnetControllers on loopback.
+ *
+ * A sender controller sends ArtDmx packets round robin over a number of universes to a receiver controller. Both
+ * are bound to ephemeral ports, or linked by an ArtnetMemoryNetwork without sockets. Every packet carries its send
+ * time, so the receiver can measure the latency from sending to the listener callback.
+ *
+ * Usage: LoopbackBenchmark [universes] [seconds] [packets per second, 0 = as fast as possible] [nio|socket|memory]
+ *
+ * @author sschaeffner
+ */
+public class LoopbackBenchmark {
+
+    //latency histogram resolution and range
+    private static final int MAX_LATENCY_MICROS = 100_000;
+
+    private final int universes;
+    private final long durationNanos;
+    private final long targetRate;
+    private final String transport;
+
+    //written by the receiver thread only
+    private final long[] latencyHistogram = new long[MAX_LATENCY_MICROS + 1];
+    private volatile long received;
+    private volatile long maxLatencyNanos;
+
+    public LoopbackBenchmark(int universes, long durationNanos, long targetRate, String transport) {
+        this.universes = universes;
+        this.durationNanos = durationNanos;
+        this.targetRate = targetRate;
+        this.transport = transport;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int universes = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 10;
+        long rate = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        String transport = args.length > 3 ? args[3] : "nio";
+
+        new LoopbackBenchmark(universes, TimeUnit.SECONDS.toNanos(seconds), rate, transport).run();
+    }
+
+    /**
+     * Runs the benchmark and prints the results.
+     */
+    public void run() throws IOException, MalformedArtnetPacketException, InterruptedException {
+        ArtnetController receiver, sender;
+        InetAddress receiverAddress;
+        if (transport.equals("memory")) {
+            ArtnetMemoryNetwork network = new ArtnetMemoryNetwork();
+            ArtnetMemoryTransport receiverTransport = network.open();
+            receiver = ArtnetControllerFactory.getInstance(receiverTransport);
+            sender = ArtnetControllerFactory.getInstance(network.open());
+            receiverAddress = receiverTransport.getAddress();
+        } else {
+            NetworkAddress loopback = NetworkAddress.getLoopbackAddress();
+            boolean useChannel = !transport.equals("socket");
+            receiver = ArtnetControllerFactory.getEphemeralInstance(loopback, useChannel);
+            sender = ArtnetControllerFactory.getEphemeralInstance(loopback, useChannel);
+            sender.setRemotePort(receiver.getLocalPort());
+            receiver.setRemotePort(sender.getLocalPort());
+            receiver.setIgnoreOwnPackets(false);
+            receiverAddress = InetAddress.getLoopbackAddress();
+        }
+        try {
+            receiver.addArtnetPacketViewListener(new LatencyListener());
+
+            ArtnetNode receiverNode = new ArtnetNode(receiverAddress, ArtnetStyleCodes.ST_NODE,
+                    "receiver", "loopback benchmark receiver");
+
+            //one packet and data array per universe (ArtDmxPacket does not copy its data), numbered by the controller
+            byte[][] data = new byte[universes][512];
+            ArtDmxPacket[] packets = new ArtDmxPacket[universes];
+            for (int u = 0; u < universes; u++) {
+                packets[u] = new ArtDmxPacket((byte) 0, (byte) 0, (byte) u, (byte) (u >> 8), data[u]);
+            }
+
+            long intervalNanos = targetRate > 0 ? TimeUnit.SECONDS.toNanos(1) / targetRate : 0;
+            long start = System.nanoTime();
+            long end = start + durationNanos;
+            long next = start;
+            long sent = 0;
+
+            while (true) {
+                long now = System.nanoTime();
+                if (now >= end) break;
+                if (intervalNanos > 0) {
+                    if (now < next) {
+                        LockSupport.parkNanos(next - now);
+                        continue;
+                    }
+                    next += intervalNanos;
+                }
+
+                int u = (int) (sent % universes);
+                putLong(data[u], 0, System.nanoTime());
+                sender.unicastPacket(packets[u], receiverNode);
+                sent++;
+            }
+            long sendNanos = System.nanoTime() - start;
+
+            //let the receiver drain its socket buffer
+            Thread.sleep(500);
+
+            report(sent, sendNanos);
+        } finally {
+            sender.closeSocket();
+            receiver.closeSocket();
+        }
+    }
+
+    /**
+     * Prints throughput, loss and latency percentiles.
+     */
+    private void report(long sent, long sendNanos) {
+        long received = this.received;
+        double seconds = sendNanos / 1e9;
+
+        System.out.println("universes:       " + universes + " (" + transport + ")");
+        System.out.printf("sent:            %d (%.0f packets/s)%n", sent, sent / seconds);
+        System.out.printf("received:        %d (%.0f packets/s)%n", received, received / seconds);
+        System.out.printf("loss:            %d (%.3f %%)%n", sent - received, sent == 0 ? 0 : 100.0 * (sent - received) / sent);
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            System.out.printf("latency p%-5s   %d us%n", percentile, latencyPercentile(received, percentile));
+        }
+        System.out.printf("latency max:     %d us%n", TimeUnit.NANOSECONDS.toMicros(maxLatencyNanos));
+    }
+
+    /**
+     * Returns a percentile of the recorded latencies in microseconds.
+     */
+    private long latencyPercentile(long count, double percentile) {
+        long rank = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < latencyHistogram.length; i++) {
+            seen += latencyHistogram[i];
+            if (seen >= rank && seen > 0) return i;
+        }
+        return MAX_LATENCY_MICROS;
+    }
+
+    private static void putLong(byte[] bytes, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    /**
+     * Records the latency of every received ArtDmx packet.
+     */
+    private final class LatencyListener implements ArtnetPacketViewListener {
+        @Override
+        public void onArtnetPacketView(ArtnetPacketView view) {
+            long now = System.nanoTime();
+            if (!(view instanceof ArtDmxPacketView)) return;
+            ArtDmxPacketView dmxView = (ArtDmxPacketView) view;
+
+            long sendTime = 0;
+            for (int i = 0; i < 8; i++) sendTime = (sendTime << 8) | (dmxView.getData(i) & 0xFF);
+            long latency = now - sendTime;
+
+            int micros = (int) Math.min(TimeUnit.NANOSECONDS.toMicros(latency), MAX_LATENCY_MICROS);
+            latencyHistogram[micros]++;
+            if (latency > maxLatencyNanos) maxLatencyNanos = latency;
+            received++;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.bench;
+
+import me.sschaeffner.jArtnet.ArtnetOpCodes;
+import me.sschaeffner.jArtnet.ArtnetStyleCodes;
+import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
+import me.sschaeffner.jArtnet.packets.ArtPollReplyPacket;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Thousands of simulated Art-Net nodes on loopback, to load a controller with discovery and DMX routing.
+ *
+ * Nodes have consecutive addresses from 127.1.0.1 on, skipping those ending in 0 and 255 (Linux routes all of
+ * 127.0.0.0/8 to loopback), a locally administered MAC derived from the address and four output ports on the
+ * Port-Addresses 4 * i to 4 * i + 3 (modulo 0x8000). All nodes listen on one port with a channel each, and one more
+ * channel on the wildcard address receives ArtPoll packets broadcast to 127.255.255.255.
+ *
+ * Every node answers an ArtPoll with its ArtPollReply, sent from its own address to the poll's sender, and counts
+ * the ArtDmx packets it receives. Replies can be spread over a window like real nodes do; a single thread reads all
+ * channels, another one sends the replies.
+ *
+ * @author sschaeffner
+ */
+public class NodeFleet implements Closeable {
+
+    //addresses ending in 1 to 254 per /24 network
+    private static final int HOSTS_PER_NETWORK = 254;
+
+    //output ports per node
+    public static final int PORTS_PER_NODE = 4;
+
+    //size of the receive buffer (the largest packet, ArtDmx, is 530 bytes)
+    private static final int MAX_PACKET_LENGTH = 600;
+
+    private final int size;
+    private final InetAddress[] addresses;
+    private final DatagramChannel[] channels;
+
+    //channel on the wildcard address receiving broadcasts
+    private final DatagramChannel broadcastChannel;
+    private final Selector selector;
+
+    //encoded ArtPollReply of every node, only used by the reply thread
+    private final ByteBuffer[] pollReplies;
+
+    private final AtomicLongArray dmxPackets;
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong replies = new AtomicLong();
+    private final AtomicLong repliesLost = new AtomicLong();
+
+    //window replies to an ArtPoll are spread over, 0 to send them at once
+    private volatile long replyWindowNanos;
+
+    private final Thread receiverThread;
+    private final ExecutorService replyExecutor;
+
+    /**
+     * Constructs a new instance of this class and starts receiving.
+     *
+     * @param size  number of nodes
+     * @param port  port all nodes listen on (0 for an ephemeral port)
+     * @throws IOException when a channel cannot be opened (e.g. too many open files)
+     */
+    public NodeFleet(int size, int port) throws IOException, MalformedArtnetPacketException {
+        if (size <= 0 || size > HOSTS_PER_NETWORK * 0xFE00) throw new IllegalArgumentException("invalid number of nodes " + size);
+        this.size = size;
+        this.addresses = new InetAddress[size];
+        this.channels = new DatagramChannel[size];
+        this.pollReplies = new ByteBuffer[size];
+        this.dmxPackets = new AtomicLongArray(size);
+
+        this.selector = Selector.open();
+        try {
+            int boundPort = port;
+            for (int i = 0; i < size; i++) {
+                int address = 0x7F010000 + ((i / HOSTS_PER_NETWORK) << 8) + i % HOSTS_PER_NETWORK + 1;
+                addresses[i] = InetAddress.getByAddress(new byte[]{(byte) (address >> 24), (byte) (address >> 16), (byte) (address >> 8), (byte) address});
+                channels[i] = openChannel(new InetSocketAddress(addresses[i], boundPort));
+                boundPort = channels[i].socket().getLocalPort();
+                channels[i].register(selector, SelectionKey.OP_READ, i);
+                pollReplies[i] = encodePollReply(i);
+            }
+            this.broadcastChannel = openChannel(new InetSocketAddress(boundPort));
+            broadcastChannel.register(selector, SelectionKey.OP_READ);
+        } catch (IOException e) {
+            closeChannels();
+            throw e;
+        }
+
+        this.replyExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jArtnet node fleet replies");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.receiverThread = new Thread(this::receive, "jArtnet node fleet");
+        this.receiverThread.setDaemon(true);
+        this.receiverThread.start();
+    }
+
+    private static DatagramChannel openChannel(InetSocketAddress address) throws IOException {
+        DatagramChannel channel = DatagramChannel.open(StandardProtocolFamily.INET);
+        channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        channel.bind(address);
+        channel.configureBlocking(false);
+        return channel;
+    }
+
+    /**
+     * Encodes the ArtPollReply of a node.
+     */
+    private ByteBuffer encodePollReply(int node) throws MalformedArtnetPacketException {
+        int portAddress = getPortAddress(node, 0);
+        byte[] portTypes = new byte[PORTS_PER_NODE], goodOutput = new byte[PORTS_PER_NODE], swOut = new byte[PORTS_PER_NODE];
+        for (int port = 0; port < PORTS_PER_NODE; port++) {
+            //output of DMX512 data, data is being transmitted
+            portTypes[port] = (byte) 0x80;
+            goodOutput[port] = (byte) 0x80;
+            swOut[port] = (byte) ((portAddress + port) & 0x0F);
+        }
+        byte[] address = addresses[node].getAddress();
+        byte[] mac = new byte[]{0x02, 0x00, address[0], address[1], address[2], address[3]};
+
+        ArtPollReplyPacket packet = new ArtPollReplyPacket(addresses[node], 1, (byte) (portAddress >> 8),
+                (byte) (portAddress >> 4), 0xFFFF, (byte) 0, (byte) 0, 0, "sim " + node,
+                "jArtnet simulated node " + node, "#0001 [0000] ok", PORTS_PER_NODE, portTypes,
+                new byte[PORTS_PER_NODE], goodOutput, new byte[PORTS_PER_NODE], swOut, (byte) 0, (byte) 0, (byte) 0,
+                ArtnetStyleCodes.ST_NODE, mac, new byte[4], (byte) 0, (byte) 0b00001000);
+
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_PACKET_LENGTH);
+        buffer.limit(packet.encode(buffer, 0));
+        return buffer;
+    }
+
+    /**
+     * Reads all channels until the fleet is closed.
+     */
+    private void receive() {
+        ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(MAX_PACKET_LENGTH);
+
+        while (selector.isOpen()) {
+            try {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    DatagramChannel channel = (DatagramChannel) key.channel();
+                    //node index or null for the broadcast channel
+                    Integer node = (Integer) key.attachment();
+
+                    while (true) {
+                        receiveBuffer.clear();
+                        SocketAddress sender = channel.receive(receiveBuffer);
+                        if (sender == null) break;
+                        receiveBuffer.flip();
+                        if (receiveBuffer.remaining() < 10) continue;
+
+                        int opCode = (receiveBuffer.get(8) & 0xFF) | ((receiveBuffer.get(9) & 0xFF) << 8);
+                        if (opCode == ArtnetOpCodes.OP_POLL) {
+                            onPoll((InetSocketAddress) sender, node);
+                        } else if (opCode == ArtnetOpCodes.OP_OUTPUT && receiveBuffer.remaining() >= 16) {
+                            onDmx(receiveBuffer, node);
+                        }
+                    }
+                }
+            } catch (ClosedChannelException | ClosedSelectorException | CancelledKeyException e) {
+                //do nothing as the fleet is just closed
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Lets all nodes or a single one reply to an ArtPoll.
+     */
+    private void onPoll(InetSocketAddress sender, Integer node) {
+        polls.incrementAndGet();
+        int first = node != null ? node : 0;
+        int last = node != null ? node + 1 : size;
+        long window = replyWindowNanos;
+        replyExecutor.execute(() -> {
+            long start = System.nanoTime();
+            for (int i = first; i < last; i++) {
+                if (window > 0) {
+                    long delay = start + window * (i - first) / (last - first) - System.nanoTime();
+                    if (delay > 0) LockSupport.parkNanos(delay);
+                }
+                ByteBuffer reply = pollReplies[i];
+                reply.rewind();
+                try {
+                    if (channels[i].send(reply, sender) > 0) {
+                        replies.incrementAndGet();
+                    } else {
+                        repliesLost.incrementAndGet();
+                    }
+                } catch (IOException e) {
+                    repliesLost.incrementAndGet();
+                }
+            }
+        });
+    }
+
+    /**
+     * Counts an ArtDmx packet for the node it was sent to or, if broadcast, for all nodes outputting it.
+     */
+    private void onDmx(ByteBuffer data, Integer node) {
+        if (node != null) {
+            dmxPackets.incrementAndGet(node);
+        } else {
+            int portAddress = ((data.get(15) & 0x7F) << 8) + (data.get(14) & 0xFF);
+            for (int i = portAddress / PORTS_PER_NODE; i < size; i += 0x8000 / PORTS_PER_NODE) {
+                dmxPackets.incrementAndGet(i);
+            }
+        }
+    }
+
+    /**
+     * Sets the window replies to an ArtPoll are spread over.
+     *
+     * @param replyWindow   window length, 0 to reply at once
+     * @param unit          unit of the window length
+     */
+    public void setReplyWindow(long replyWindow, TimeUnit unit) {
+        this.replyWindowNanos = unit.toNanos(replyWindow);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getPort() {
+        return channels[0].socket().getLocalPort();
+    }
+
+    public InetAddress getAddress(int node) {
+        return addresses[node];
+    }
+
+    /**
+     * Returns the Port-Address an output port of a node outputs.
+     *
+     * @param node  index of the node
+     * @param port  index of the port (0 to 3)
+     * @return      the 15 bit Port-Address
+     */
+    public int getPortAddress(int node, int port) {
+        return (node * PORTS_PER_NODE + port) & 0x7FFF;
+    }
+
+    public long getDmxPackets(int node) {
+        return dmxPackets.get(node);
+    }
+
+    /**
+     * Returns the number of ArtDmx packets received by all nodes.
+     *
+     * @return number of ArtDmx packets
+     */
+    public long getDmxPackets() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) sum += dmxPackets.get(i);
+        return sum;
+    }
+
+    public long getPolls() {
+        return polls.get();
+    }
+
+    public long getReplies() {
+        return replies.get();
+    }
+
+    /**
+     * Returns the number of ArtPollReply packets that could not be sent because the socket buffer was full.
+     *
+     * @return number of lost replies
+     */
+    public long getRepliesLost() {
+        return repliesLost.get();
+    }
+
+    @Override
+    public void close() {
+        //stop receiving first, so no poll is handed to the stopped reply executor
+        closeChannels();
+        try {
+            receiverThread.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        replyExecutor.shutdownNow();
+    }
+
+    private void closeChannels() {
+        try {
+            selector.close();
+            if (broadcastChannel != null) broadcastChannel.close();
+            for (DatagramChannel channel : channels) {
+                if (channel != null) channel.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
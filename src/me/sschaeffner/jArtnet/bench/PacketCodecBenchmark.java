@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.bench;
+
+import me.sschaeffner.jArtnet.ArtNetPriorityCodes;
+import me.sschaeffner.jArtnet.ArtnetDecodeResult;
+import me.sschaeffner.jArtnet.ArtnetDecodeStatus;
+import me.sschaeffner.jArtnet.ArtnetOpCodes;
+import me.sschaeffner.jArtnet.ArtnetStyleCodes;
+import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
+import me.sschaeffner.jArtnet.packets.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode benchmarks for every ArtnetPacket subclass.
+ *
+ * Run with {@link BenchmarkRunner} to get the bytes allocated per operation (gc.alloc.rate.norm) next to the
+ * throughput.
+ *
+ * @author sschaeffner
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PacketCodecBenchmark {
+
+    @Param({"ArtDmx", "ArtNzs", "ArtPoll", "ArtPollReply", "ArtSync", "ArtTimeCode", "ArtCommand", "ArtTrigger",
+            "ArtDiagData", "ArtInput", "ArtAddress", "ArtIpProg", "ArtIpProgReply"})
+    public String packetType;
+
+    //packet to encode
+    private ArtnetPacket packet;
+
+    //the packet's bytes to decode
+    private byte[] bytes;
+    private ByteBuffer bytesBuffer;
+
+    //the packet type's own fromBytes() method
+    private Decoder decoder;
+
+    private ByteBuffer encodeBuffer;
+    private ArtnetDecodeResult decodeResult;
+
+    @Setup
+    public void setup() throws Exception {
+        packet = createPacket(packetType);
+        decoder = createDecoder(packetType);
+        bytes = packet.getPacketBytes();
+        bytesBuffer = ByteBuffer.wrap(bytes);
+        encodeBuffer = ByteBuffer.allocate(600);
+        decodeResult = new ArtnetDecodeResult();
+    }
+
+    /**
+     * Encodes into a reused buffer.
+     */
+    @Benchmark
+    public int encode() throws MalformedArtnetPacketException {
+        return packet.encode(encodeBuffer, 0);
+    }
+
+    /**
+     * Encodes into a newly allocated array.
+     */
+    @Benchmark
+    public byte[] getPacketBytes() throws MalformedArtnetPacketException {
+        return packet.getPacketBytes();
+    }
+
+    /**
+     * Decodes with the packet type's fromBytes() method.
+     */
+    @Benchmark
+    public ArtnetPacket decode() throws MalformedArtnetPacketException {
+        return decoder.fromBytes(bytes);
+    }
+
+    /**
+     * Decodes with the opcode dispatch in ArtnetOpCodes.fromBytes().
+     */
+    @Benchmark
+    public ArtnetPacket dispatch() throws MalformedArtnetPacketException {
+        return ArtnetOpCodes.fromBytes(bytes);
+    }
+
+    /**
+     * Checks and decodes a buffer the way the controller does.
+     */
+    @Benchmark
+    public ArtnetDecodeStatus decodeBuffer() {
+        return ArtnetOpCodes.decode(bytesBuffer, decodeResult);
+    }
+
+    /**
+     * Decodes the bytes of one packet type.
+     */
+    interface Decoder {
+        ArtnetPacket fromBytes(byte[] bytes) throws MalformedArtnetPacketException;
+    }
+
+    /**
+     * Returns a typical packet of a type.
+     *
+     * @param packetType    packet name without the "Packet" suffix
+     * @return              the packet
+     */
+    static ArtnetPacket createPacket(String packetType) throws Exception {
+        byte[] dmx = new byte[512];
+        for (int i = 0; i < dmx.length; i++) dmx[i] = (byte) i;
+        byte[] ip = {(byte) 192, (byte) 168, 0, 10};
+        byte[] mask = {(byte) 255, (byte) 255, (byte) 255, 0};
+
+        switch (packetType) {
+            case "ArtDmx": return new ArtDmxPacket((byte) 1, (byte) 0, (byte) 1, (byte) 0, dmx);
+            case "ArtNzs": return new ArtNzsPacket((byte) 1, (byte) 0xDD, (byte) 1, (byte) 0, dmx);
+            case "ArtPoll": return new ArtPollPacket((byte) 0, ArtNetPriorityCodes.DP_LOW);
+            case "ArtPollReply": return new ArtPollReplyPacket(InetAddress.getByAddress(ip), 1, (byte) 0, (byte) 0,
+                    0, (byte) 0, (byte) 0, 0, "jArtnet", "jArtnet benchmark", "#0001 [0000] ok", 4,
+                    new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80}, new byte[4], new byte[4],
+                    new byte[]{0, 1, 2, 3}, new byte[]{0, 1, 2, 3}, (byte) 0, (byte) 0, (byte) 0,
+                    ArtnetStyleCodes.ST_NODE, new byte[6], ip, (byte) 1, (byte) 0);
+            case "ArtSync": return new ArtSyncPacket();
+            case "ArtTimeCode": return new ArtTimeCodePacket((byte) 12, (byte) 34, (byte) 56, (byte) 1, (byte) 3);
+            case "ArtCommand": return new ArtCommandPacket(0xFFFF, "SwoutText=Playback&");
+            case "ArtTrigger": return new ArtTriggerPacket(0xFFFF, (byte) 1, (byte) 0, "benchmark");
+            case "ArtDiagData": return new ArtDiagDataPacket(ArtNetPriorityCodes.DP_LOW, "benchmark diagnostics");
+            case "ArtInput": return new ArtInputPacket(true, false, true, false);
+            case "ArtAddress": return new ArtAddressPacket((byte) 0, "jArtnet", "jArtnet benchmark",
+                    new byte[4], new byte[4], (byte) 0, (byte) 0, (byte) 0);
+            case "ArtIpProg": return new ArtIpProgPacket((byte) 0, ip, mask, 0x1936);
+            case "ArtIpProgReply": return new ArtIpProgReplyPacket(ip, mask, 0x1936, (byte) 0);
+            default: throw new IllegalArgumentException("unknown packet type " + packetType);
+        }
+    }
+
+    /**
+     * Returns the fromBytes() method of a packet type.
+     *
+     * @param packetType    packet name without the "Packet" suffix
+     * @return              the packet type's decoder
+     */
+    static Decoder createDecoder(String packetType) {
+        switch (packetType) {
+            case "ArtDmx": return ArtDmxPacket::fromBytes;
+            case "ArtNzs": return ArtNzsPacket::fromBytes;
+            case "ArtPoll": return ArtPollPacket::fromBytes;
+            case "ArtPollReply": return ArtPollReplyPacket::fromBytes;
+            case "ArtSync": return ArtSyncPacket::fromBytes;
+            case "ArtTimeCode": return ArtTimeCodePacket::fromBytes;
+            case "ArtCommand": return ArtCommandPacket::fromBytes;
+            case "ArtTrigger": return ArtTriggerPacket::fromBytes;
+            case "ArtDiagData": return ArtDiagDataPacket::fromBytes;
+            case "ArtInput": return ArtInputPacket::fromBytes;
+            case "ArtAddress": return ArtAddressPacket::fromBytes;
+            case "ArtIpProg": return ArtIpProgPacket::fromBytes;
+            case "ArtIpProgReply": return ArtIpProgReplyPacket::fromBytes;
+            default: throw new IllegalArgumentException("unknown packet type " + packetType);
+        }
+    }
+}
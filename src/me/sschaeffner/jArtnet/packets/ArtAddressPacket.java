@@ -20,6 +20,8 @@ package me.sschaeffner.jArtnet.packets;
 import me.sschaeffner.jArtnet.ArtnetOpCodes;
 import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
 
+import java.nio.ByteBuffer;
+
 /**
  * An implementation of the ArtAddress packet as defined by the Art-Net standard.
  *
@@ -78,35 +80,36 @@ public class ArtAddressPacket extends ArtnetPacket {
     }
 
     @Override
-    public byte[] getPacketBytes() throws MalformedArtnetPacketException {
-        int byteArrayLength = ArtnetPacket.ID.length + 2 + 1+1 + 1 + 1 + 18 + 64 + 4 + 4 + 1 + 1 + 1;
-        byte[] bytes = new byte[byteArrayLength];
+    public int getPacketLength() {
+        return ArtnetPacket.ID.length + 2 + 1+1 + 1 + 1 + 18 + 64 + 4 + 4 + 1 + 1 + 1;
+    }
 
-        //Art-Net package ID
-        System.arraycopy(ArtnetPacket.ID, 0, bytes, 0, ArtnetPacket.ID.length);
+    @Override
+    public int encode(ByteBuffer buffer, int offset) throws MalformedArtnetPacketException {
+        int packetLength = getPacketLength();
+        checkCapacity(buffer, offset, packetLength);
 
-        //opcode
-        byte[] opCode = ArtnetOpCodes.toByteArray(ArtnetOpCodes.OP_ADDRESS);
-        System.arraycopy(opCode, 0, bytes, ArtnetPacket.ID.length, 2);
+        //Art-Net package ID and opcode
+        putId(buffer, offset, ArtnetOpCodes.OP_ADDRESS);
 
         //protocol version
-        bytes[10] = protVerHi;
-        bytes[11] = protVerLo;
+        buffer.put(offset + 10, protVerHi);
+        buffer.put(offset + 11, protVerLo);
 
-        bytes[12] = this.netSwitch;
-        bytes[13] = 0;//Filler 2
+        buffer.put(offset + 12, this.netSwitch);
+        buffer.put(offset + 13, (byte) 0);//Filler 2
 
-        System.arraycopy(this.shortName, 0, bytes, 14, 18);//32
-        System.arraycopy(this.longName, 0, bytes, 32, 64);//96
+        putBytes(buffer, offset + 14, this.shortName, 0, 18);//32
+        putBytes(buffer, offset + 32, this.longName, 0, 64);//96
 
-        System.arraycopy(this.swIn, 0, bytes, 96, 4);//100
-        System.arraycopy(this.swOut, 0, bytes, 100, 4);//104
+        putBytes(buffer, offset + 96, this.swIn, 0, 4);//100
+        putBytes(buffer, offset + 100, this.swOut, 0, 4);//104
 
-        bytes[104] = this.subSwitch;
-        bytes[105] = this.swVideo;
-        bytes[106] = this.command;
+        buffer.put(offset + 104, this.subSwitch);
+        buffer.put(offset + 105, this.swVideo);
+        buffer.put(offset + 106, this.command);
 
-        return bytes;
+        return packetLength;
     }
 
     public static ArtAddressPacket fromBytes(byte[] bytes) throws MalformedArtnetPacketException {
@@ -128,7 +131,7 @@ public class ArtAddressPacket extends ArtnetPacket {
         //check protocol version
         byte rProtVerHi = bytes[10];
         byte rProtVerLo = bytes[11];
-        if (rProtVerHi < protVerHi || rProtVerLo < protVerLo) {
+        if (!isProtVerCompatible(rProtVerHi, rProtVerLo)) {
             throw new MalformedArtnetPacketException("cannot construct ArtAddressPacket from data: protVer not compatible");
         }
 
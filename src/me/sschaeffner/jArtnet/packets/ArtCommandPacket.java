@@ -20,6 +20,7 @@ package me.sschaeffner.jArtnet.packets;
 import me.sschaeffner.jArtnet.ArtnetOpCodes;
 import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -91,35 +92,36 @@ public class ArtCommandPacket extends ArtnetPacket {
     }
 
     @Override
-    public byte[] getPacketBytes() throws MalformedArtnetPacketException {
-        int length = (this.lengthHi << 8) + this.lengthLo;
-        int byteArrayLength = ArtnetPacket.ID.length + 2 + 1+1 + 1+1 + 1+1 + length;
-        byte[] bytes = new byte[byteArrayLength];
+    public int getPacketLength() {
+        return ArtnetPacket.ID.length + 2 + 1+1 + 1+1 + 1+1 + getLength();
+    }
 
-        //Art-Net package ID
-        System.arraycopy(ArtnetPacket.ID, 0, bytes, 0, ArtnetPacket.ID.length);
+    @Override
+    public int encode(ByteBuffer buffer, int offset) throws MalformedArtnetPacketException {
+        int length = getLength();
+        int packetLength = getPacketLength();
+        checkCapacity(buffer, offset, packetLength);
 
-        //opcode
-        byte[] opCode = ArtnetOpCodes.toByteArray(ArtnetOpCodes.OP_COMMAND);
-        System.arraycopy(opCode, 0, bytes, ArtnetPacket.ID.length, 2);
+        //Art-Net package ID and opcode
+        putId(buffer, offset, ArtnetOpCodes.OP_COMMAND);
 
         //protocol version
-        bytes[10] = protVerHi;
-        bytes[11] = protVerLo;
+        buffer.put(offset + 10, protVerHi);
+        buffer.put(offset + 11, protVerLo);
 
-        bytes[12] = this.estaManHi;
-        bytes[13] = this.estaManLo;
+        buffer.put(offset + 12, this.estaManHi);
+        buffer.put(offset + 13, this.estaManLo);
 
-        bytes[14] = this.lengthHi;
-        bytes[15] = this.lengthLo;
+        buffer.put(offset + 14, this.lengthHi);
+        buffer.put(offset + 15, this.lengthLo);
 
-        if (bytes.length >= length + 16) {
-            System.arraycopy(data, 0, bytes, 16, length);
+        if (data.length >= length) {
+            putBytes(buffer, offset + 16, data, 0, length);
         } else {
-            throw new MalformedArtnetPacketException("cannot get packet bytes for ArtCommandPacket: not enough data for length available");
+            throw new MalformedArtnetPacketException("cannot encode ArtCommandPacket: not enough data for length available");
         }
 
-        return bytes;
+        return packetLength;
     }
 
     public static ArtCommandPacket fromBytes(byte[] bytes) throws MalformedArtnetPacketException {
@@ -141,7 +143,7 @@ public class ArtCommandPacket extends ArtnetPacket {
         //check protocol version
         byte rProtVerHi = bytes[10];
         byte rProtVerLo = bytes[11];
-        if (rProtVerHi < protVerHi || rProtVerLo < protVerLo) {
+        if (!isProtVerCompatible(rProtVerHi, rProtVerLo)) {
             throw new MalformedArtnetPacketException("cannot construct ArtCommandPacket from data: protVer not compatible");
         }
 
@@ -151,7 +153,7 @@ public class ArtCommandPacket extends ArtnetPacket {
         byte rLengthHi = bytes[14];
         byte rLengthLo = bytes[15];
 
-        int lengthI = (rLengthHi << 8) + rLengthLo;
+        int lengthI = (Byte.toUnsignedInt(rLengthHi) << 8) + Byte.toUnsignedInt(rLengthLo);
         byte[] data = new byte[lengthI];
         if (bytes.length >= lengthI + 16) {
             System.arraycopy(bytes, 16, data, 0, lengthI);
@@ -21,6 +21,7 @@ import me.sschaeffner.jArtnet.ArtNetPriorityCodes;
 import me.sschaeffner.jArtnet.ArtnetOpCodes;
 import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -75,49 +76,45 @@ public class ArtDiagDataPacket extends ArtnetPacket {
         this(priority, asASCIIArrayNullTerminated(message));
     }
 
-    /**
-     * Returns the whole packet's data as byte array.
-     *
-     * @return the packet's data as byte array
-     */
     @Override
-    public byte[] getPacketBytes() throws MalformedArtnetPacketException {
-        int length = (this.lengthHi << 8) + this.lengthLo;
-        int byteArrayLength = ArtnetPacket.ID.length + 2 + 1+1 + 1 + 1 + 1+1 + 1+1 + length;
-        byte[] bytes = new byte[byteArrayLength];
+    public int getPacketLength() {
+        return ArtnetPacket.ID.length + 2 + 1+1 + 1 + 1 + 1+1 + 1+1 + getLength();
+    }
 
-        //Art-Net package ID
-        System.arraycopy(ArtnetPacket.ID, 0, bytes, 0, ArtnetPacket.ID.length);
+    @Override
+    public int encode(ByteBuffer buffer, int offset) throws MalformedArtnetPacketException {
+        int length = getLength();
+        int packetLength = getPacketLength();
+        checkCapacity(buffer, offset, packetLength);
 
-        //opcode
-        byte[] opCode = ArtnetOpCodes.toByteArray(ArtnetOpCodes.OP_DIAG_DATA);
-        System.arraycopy(opCode, 0, bytes, ArtnetPacket.ID.length, 2);
+        //Art-Net package ID and opcode
+        putId(buffer, offset, ArtnetOpCodes.OP_DIAG_DATA);
 
         //protocol version
-        bytes[10] = protVerHi;
-        bytes[11] = protVerLo;
+        buffer.put(offset + 10, protVerHi);
+        buffer.put(offset + 11, protVerLo);
 
         //filler 1
-        bytes[12] = 0;
+        buffer.put(offset + 12, (byte) 0);
 
         //priority
-        bytes[13] = this.priority;
+        buffer.put(offset + 13, this.priority);
 
         //filler 2 + 3
-        bytes[14] = 0;
-        bytes[15] = 0;
+        buffer.put(offset + 14, (byte) 0);
+        buffer.put(offset + 15, (byte) 0);
 
         //length of ASCII text array
-        bytes[16] = this.lengthHi;
-        bytes[17] = this.lengthLo;
+        buffer.put(offset + 16, this.lengthHi);
+        buffer.put(offset + 17, this.lengthLo);
 
-        if (bytes.length >= length + 18) {
-            System.arraycopy(data, 0, bytes, 18, length);
+        if (data.length >= length) {
+            putBytes(buffer, offset + 18, data, 0, length);
         } else {
-            throw new MalformedArtnetPacketException("cannot get packet bytes for ArtDiagDataPacket: not enough data for length available");
+            throw new MalformedArtnetPacketException("cannot encode ArtDiagDataPacket: not enough data for length available");
         }
 
-        return bytes;
+        return packetLength;
     }
 
     public static ArtDiagDataPacket fromBytes(byte[] bytes) throws MalformedArtnetPacketException {
@@ -139,7 +136,7 @@ public class ArtDiagDataPacket extends ArtnetPacket {
         //check protocol version
         byte rProtVerHi = bytes[10];
         byte rProtVerLo = bytes[11];
-        if (rProtVerHi < protVerHi || rProtVerLo < protVerLo) {
+        if (!isProtVerCompatible(rProtVerHi, rProtVerLo)) {
             throw new MalformedArtnetPacketException("cannot construct ArtDiagDataPacket from data: protVer not compatible");
         }
 
@@ -149,7 +146,7 @@ public class ArtDiagDataPacket extends ArtnetPacket {
         //length of ASCII text array
         byte rLengthHi = bytes[16];
         byte rLengthLo = bytes[17];
-        int lengthI = (rLengthHi << 8) + rLengthLo;
+        int lengthI = (Byte.toUnsignedInt(rLengthHi) << 8) + Byte.toUnsignedInt(rLengthLo);
 
         byte[] data = new byte[lengthI];
         if (bytes.length >= lengthI + 18) {
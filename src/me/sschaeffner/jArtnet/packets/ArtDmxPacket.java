@@ -20,6 +20,7 @@ package me.sschaeffner.jArtnet.packets;
 import me.sschaeffner.jArtnet.ArtnetOpCodes;
 import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -73,45 +74,59 @@ public class ArtDmxPacket extends ArtnetPacket {
         this(sequence, physical, subUni, net, (byte)(data.length >> 8), (byte)data.length, data);
     }
 
-    /**
-     * Returns the whole packets's data as byte array.
-     *
-     * @return the packets's data as byte array
-     */
     @Override
-    public byte[] getPacketBytes() throws MalformedArtnetPacketException {
-        int length = (this.lengthHi << 8) + this.length;
+    public int getPacketLength() {
+        return ArtnetPacket.ID.length + 2 + 1+1 + 1 + 1 + 1 + 1 + 1+1 + getLengthInt();
+    }
 
-        int byteArrayLength = ArtnetPacket.ID.length + 2 + 1+1 + 1 + 1 + 1 + 1 + 1+1 + length;
-        byte[] bytes = new byte[byteArrayLength];
+    @Override
+    public int encode(ByteBuffer buffer, int offset) throws MalformedArtnetPacketException {
+        return encode(buffer, offset, this.sequence, this.physical, this.subUni, this.net, this.data, getLengthInt());
+    }
 
-        //Art-Net package ID
-        System.arraycopy(ArtnetPacket.ID, 0, bytes, 0, ArtnetPacket.ID.length);
+    /**
+     * Writes an ArtDmx packet into a buffer without constructing an ArtDmxPacket.
+     *
+     * Lets senders of many frames encode straight from their own data arrays.
+     *
+     * @param buffer    buffer to write into
+     * @param offset    index of the packet's first byte in the buffer
+     * @param sequence  sequence number (0 to disable sequencing)
+     * @param physical  the physical input port from which DMX512 data was input
+     * @param subUni    low byte of the 15 bit Port-Address to which the packet is destined
+     * @param net       the top 7 bits of the 15 bit Port-Address to which the packet is destined
+     * @param data      data array containing DMX512 data
+     * @param length    number of channels to send from the data array
+     * @return          number of bytes written
+     * @throws MalformedArtnetPacketException when the buffer is too small or data has less than length channels
+     */
+    public static int encode(ByteBuffer buffer, int offset, byte sequence, byte physical, byte subUni, byte net, byte[] data, int length) throws MalformedArtnetPacketException {
+        int packetLength = ArtnetPacket.ID.length + 2 + 1+1 + 1 + 1 + 1 + 1 + 1+1 + length;
+        checkCapacity(buffer, offset, packetLength);
 
-        //opcode
-        byte[] opCode = ArtnetOpCodes.toByteArray(ArtnetOpCodes.OP_OUTPUT);
-        System.arraycopy(opCode, 0, bytes, ArtnetPacket.ID.length, 2);
+        //Art-Net package ID and opcode
+        putId(buffer, offset, ArtnetOpCodes.OP_OUTPUT);
 
-        bytes[10] = protVerHi;
-        bytes[11] = protVerLo;
+        buffer.put(offset + 10, protVerHi);
+        buffer.put(offset + 11, protVerLo);
 
-        bytes[12] = this.sequence;
+        buffer.put(offset + 12, sequence);
 
-        bytes[13] = this.physical;
+        buffer.put(offset + 13, physical);
 
-        bytes[14] = this.subUni;
-        bytes[15] = this.net;
+        buffer.put(offset + 14, subUni);
+        buffer.put(offset + 15, net);
 
-        bytes[16] = this.lengthHi;
-        bytes[17] = this.length;
+        buffer.put(offset + 16, (byte) (length >> 8));
+        buffer.put(offset + 17, (byte) length);
 
-        if (bytes.length >= length + 18) {
-            System.arraycopy(data, 0, bytes, 18, length);
+        if (data.length >= length) {
+            putBytes(buffer, offset + 18, data, 0, length);
         } else {
-            throw new MalformedArtnetPacketException("cannot get packet bytes for ArtDmxPacket: not enough data for length available");
+            throw new MalformedArtnetPacketException("cannot encode ArtDmxPacket: not enough data for length available");
         }
 
-        return bytes;
+        return packetLength;
     }
 
     public static ArtDmxPacket fromBytes(byte[] bytes) throws MalformedArtnetPacketException {
@@ -133,9 +148,7 @@ public class ArtDmxPacket extends ArtnetPacket {
         //check protocol version
         byte rProtVerHi = bytes[10];
         byte rProtVerLo = bytes[11];
-        if (rProtVerHi < protVerHi || rProtVerLo < protVerLo) {
-            System.out.println("rPortVerHi=" + rProtVerHi);
-            System.out.println("rPortVerLo=" + rProtVerLo);
+        if (!isProtVerCompatible(rProtVerHi, rProtVerLo)) {
             throw new MalformedArtnetPacketException("cannot construct ArtDmxPacket from data: protVer not compatible");
         }
 
@@ -150,7 +163,7 @@ public class ArtDmxPacket extends ArtnetPacket {
         byte lengthHi = bytes[16];
         byte length = bytes[17];
 
-        int lengthI = (lengthHi << 8) + length;
+        int lengthI = (Byte.toUnsignedInt(lengthHi) << 8) + Byte.toUnsignedInt(length);
 
         byte[] data = new byte[lengthI];
         if (bytes.length >= lengthI + 18) {
@@ -179,6 +192,15 @@ public class ArtDmxPacket extends ArtnetPacket {
         return net;
     }
 
+    /**
+     * Returns the 15 bit Port-Address to which the packet is destined.
+     *
+     * @return the packet's Port-Address
+     */
+    public int getPortAddress() {
+        return ((net & 0x7F) << 8) + Byte.toUnsignedInt(subUni);
+    }
+
     public byte getLengthHi() {
         return lengthHi;
     }
@@ -197,13 +219,24 @@ public class ArtDmxPacket extends ArtnetPacket {
 
     @Override
     public String toString() {
-        return "ArtDmxPacket{" +
-                "sequence=" + asHex(sequence) +
-                ", physical=" + asHex(physical) +
-                ", subUni=" + asHex(subUni) +
-                ", net=" + asHex(net) +
-                ", length=" + getLengthInt() +
-                ", data=" + asHexArray(data) +
-                '}';
+        StringBuilder sb = new StringBuilder(64 + data.length * 6);
+        appendTo(sb);
+        return sb.toString();
+    }
+
+    @Override
+    public void appendTo(StringBuilder sb) {
+        sb.append("ArtDmxPacket{sequence=");
+        appendHex(sb, sequence);
+        sb.append(", physical=");
+        appendHex(sb, physical);
+        sb.append(", subUni=");
+        appendHex(sb, subUni);
+        sb.append(", net=");
+        appendHex(sb, net);
+        sb.append(", length=").append(getLengthInt());
+        sb.append(", data=");
+        appendHexArray(sb, data, 0, data.length);
+        sb.append('}');
     }
 }
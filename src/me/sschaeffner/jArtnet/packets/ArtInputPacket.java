@@ -20,6 +20,7 @@ package me.sschaeffner.jArtnet.packets;
 import me.sschaeffner.jArtnet.ArtnetOpCodes;
 import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -69,34 +70,35 @@ public class ArtInputPacket extends ArtnetPacket {
     }
 
     @Override
-    public byte[] getPacketBytes() throws MalformedArtnetPacketException {
-        int byteArrayLength = ArtnetPacket.ID.length + 2 + 1+1 + 1+1 + 1+1 + 4;
-        byte[] bytes = new byte[byteArrayLength];
+    public int getPacketLength() {
+        return ArtnetPacket.ID.length + 2 + 1+1 + 1+1 + 1+1 + 4;
+    }
 
-        //Art-Net package ID
-        System.arraycopy(ArtnetPacket.ID, 0, bytes, 0, ArtnetPacket.ID.length);
+    @Override
+    public int encode(ByteBuffer buffer, int offset) throws MalformedArtnetPacketException {
+        int packetLength = getPacketLength();
+        checkCapacity(buffer, offset, packetLength);
 
-        //opcode
-        byte[] opCode = ArtnetOpCodes.toByteArray(ArtnetOpCodes.OP_INPUT);
-        System.arraycopy(opCode, 0, bytes, ArtnetPacket.ID.length, 2);
+        //Art-Net package ID and opcode
+        putId(buffer, offset, ArtnetOpCodes.OP_INPUT);
 
         //protocol version
-        bytes[10] = protVerHi;
-        bytes[11] = protVerLo;
+        buffer.put(offset + 10, protVerHi);
+        buffer.put(offset + 11, protVerLo);
 
         //filler 1+2
-        bytes[12] = 0;
-        bytes[13] = 0;
+        buffer.put(offset + 12, (byte) 0);
+        buffer.put(offset + 13, (byte) 0);
 
-        bytes[14] = this.numPortsHi;
-        bytes[15] = this.numPortsLo;
+        buffer.put(offset + 14, this.numPortsHi);
+        buffer.put(offset + 15, this.numPortsLo);
 
-        bytes[16] = this.input[0];
-        bytes[17] = this.input[1];
-        bytes[18] = this.input[2];
-        bytes[19] = this.input[3];
+        buffer.put(offset + 16, this.input[0]);
+        buffer.put(offset + 17, this.input[1]);
+        buffer.put(offset + 18, this.input[2]);
+        buffer.put(offset + 19, this.input[3]);
 
-        return bytes;
+        return packetLength;
     }
 
     public static ArtInputPacket fromBytes(byte[] bytes) throws MalformedArtnetPacketException {
@@ -118,7 +120,7 @@ public class ArtInputPacket extends ArtnetPacket {
         //check protocol version
         byte rProtVerHi = bytes[10];
         byte rProtVerLo = bytes[11];
-        if (rProtVerHi < protVerHi || rProtVerLo < protVerLo) {
+        if (!isProtVerCompatible(rProtVerHi, rProtVerLo)) {
             throw new MalformedArtnetPacketException("cannot construct ArtInputPacket from data: protVer not compatible");
         }
 
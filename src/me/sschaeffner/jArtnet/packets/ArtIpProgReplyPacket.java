@@ -20,6 +20,7 @@ package me.sschaeffner.jArtnet.packets;
 import me.sschaeffner.jArtnet.ArtnetOpCodes;
 import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -70,57 +71,75 @@ public class ArtIpProgReplyPacket extends ArtnetPacket {
         this(progIp, progSm, (byte)(progPort >> 8), (byte)progPort, status);
     }
 
+    /**
+     * Returns the whole packet's data as byte array.
+     *
+     * @return the packet's data as byte array
+     */
     @Override
     public byte[] getPacketBytes() {
-        int byteArrayLength = ArtnetPacket.ID.length + 2 + 1+1 + 1+1+1+1 + 4 + 4 + 2 + 1 + 7;
-        byte[] bytes = new byte[byteArrayLength];
+        byte[] bytes = new byte[getPacketLength()];
+        try {
+            encode(ByteBuffer.wrap(bytes), 0);
+        } catch (MalformedArtnetPacketException e) {
+            //cannot happen, the array always fits the packet
+            throw new IllegalStateException(e);
+        }
+        return bytes;
+    }
 
-        //Art-Net package ID
-        System.arraycopy(ArtnetPacket.ID, 0, bytes, 0, ArtnetPacket.ID.length);
+    @Override
+    public int getPacketLength() {
+        return ArtnetPacket.ID.length + 2 + 1+1 + 1+1+1+1 + 4 + 4 + 2 + 1 + 7;
+    }
 
-        //opcode
-        byte[] opCode = ArtnetOpCodes.toByteArray(ArtnetOpCodes.OP_IP_PROG_REPLY);
-        System.arraycopy(opCode, 0, bytes, ArtnetPacket.ID.length, 2);
+    @Override
+    public int encode(ByteBuffer buffer, int offset) throws MalformedArtnetPacketException {
+        int packetLength = getPacketLength();
+        checkCapacity(buffer, offset, packetLength);
+
+        //Art-Net package ID and opcode
+        putId(buffer, offset, ArtnetOpCodes.OP_IP_PROG_REPLY);
 
         //protocol version
-        bytes[10] = protVerHi;
-        bytes[11] = protVerLo;
+        buffer.put(offset + 10, protVerHi);
+        buffer.put(offset + 11, protVerLo);
 
         //fillers 1-4
-        bytes[12] = 0;
-        bytes[13] = 0;
-        bytes[14] = 0;
-        bytes[15] = 0;
+        buffer.put(offset + 12, (byte) 0);
+        buffer.put(offset + 13, (byte) 0);
+        buffer.put(offset + 14, (byte) 0);
+        buffer.put(offset + 15, (byte) 0);
 
         //progIp
-        bytes[16] = this.progIp[0];
-        bytes[17] = this.progIp[1];
-        bytes[18] = this.progIp[2];
-        bytes[19] = this.progIp[3];
+        buffer.put(offset + 16, this.progIp[0]);
+        buffer.put(offset + 17, this.progIp[1]);
+        buffer.put(offset + 18, this.progIp[2]);
+        buffer.put(offset + 19, this.progIp[3]);
 
         //progSm
-        bytes[20] = this.progSm[0];
-        bytes[21] = this.progSm[1];
-        bytes[22] = this.progSm[2];
-        bytes[23] = this.progSm[3];
+        buffer.put(offset + 20, this.progSm[0]);
+        buffer.put(offset + 21, this.progSm[1]);
+        buffer.put(offset + 22, this.progSm[2]);
+        buffer.put(offset + 23, this.progSm[3]);
 
         //progPort
-        bytes[24] = this.progPortHi;
-        bytes[25] = this.progPortLo;
+        buffer.put(offset + 24, this.progPortHi);
+        buffer.put(offset + 25, this.progPortLo);
 
         //status
-        bytes[26] = this.status;
+        buffer.put(offset + 26, this.status);
 
         //spare 2-8
-        bytes[27] = 0;
-        bytes[28] = 0;
-        bytes[29] = 0;
-        bytes[30] = 0;
-        bytes[31] = 0;
-        bytes[32] = 0;
-        bytes[33] = 0;
-
-        return bytes;
+        buffer.put(offset + 27, (byte) 0);
+        buffer.put(offset + 28, (byte) 0);
+        buffer.put(offset + 29, (byte) 0);
+        buffer.put(offset + 30, (byte) 0);
+        buffer.put(offset + 31, (byte) 0);
+        buffer.put(offset + 32, (byte) 0);
+        buffer.put(offset + 33, (byte) 0);
+
+        return packetLength;
     }
 
     public static ArtIpProgReplyPacket fromBytes(byte[] bytes) throws MalformedArtnetPacketException {
@@ -142,7 +161,7 @@ public class ArtIpProgReplyPacket extends ArtnetPacket {
         //check protocol version
         byte rProtVerHi = bytes[10];
         byte rProtVerLo = bytes[11];
-        if (rProtVerHi < protVerHi || rProtVerLo < protVerLo) {
+        if (!isProtVerCompatible(rProtVerHi, rProtVerLo)) {
             throw new MalformedArtnetPacketException("cannot construct ArtIpProgPacket from data: protVer not compatible");
         }
 
@@ -20,6 +20,7 @@ package me.sschaeffner.jArtnet.packets;
 import me.sschaeffner.jArtnet.ArtnetOpCodes;
 import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -86,36 +87,36 @@ public class ArtNzsPacket extends ArtnetPacket {
     }
 
     @Override
-    public byte[] getPacketBytes() throws MalformedArtnetPacketException {
-        int length = (this.lengthHi << 8) + this.length;
-
-        int byteArrayLength = ArtnetPacket.ID.length + 2 + 1+1 + 1 + 1 + 1 + 1 + 1+1 + length;
-        byte[] bytes = new byte[byteArrayLength];
-
-        //Art-Net package ID
-        System.arraycopy(ArtnetPacket.ID, 0, bytes, 0, ArtnetPacket.ID.length);
-
-        //opcode
-        byte[] opCode = ArtnetOpCodes.toByteArray(ArtnetOpCodes.OP_NZS);
-        System.arraycopy(opCode, 0, bytes, ArtnetPacket.ID.length, 2);
-
-        bytes[10] = protVerHi;
-        bytes[11] = protVerLo;
-
-        bytes[12] = this.sequence;
-        bytes[13] = this.startCode;
-        bytes[14] = this.subUni;
-        bytes[15] = this.net;
-        bytes[16] = this.lengthHi;
-        bytes[17] = this.length;
+    public int getPacketLength() {
+        return ArtnetPacket.ID.length + 2 + 1+1 + 1 + 1 + 1 + 1 + 1+1 + getLengthInt();
+    }
 
-        if (bytes.length >= length + 18) {
-            System.arraycopy(data, 0, bytes, 18, length);
+    @Override
+    public int encode(ByteBuffer buffer, int offset) throws MalformedArtnetPacketException {
+        int length = getLengthInt();
+        int packetLength = getPacketLength();
+        checkCapacity(buffer, offset, packetLength);
+
+        //Art-Net package ID and opcode
+        putId(buffer, offset, ArtnetOpCodes.OP_NZS);
+
+        buffer.put(offset + 10, protVerHi);
+        buffer.put(offset + 11, protVerLo);
+
+        buffer.put(offset + 12, this.sequence);
+        buffer.put(offset + 13, this.startCode);
+        buffer.put(offset + 14, this.subUni);
+        buffer.put(offset + 15, this.net);
+        buffer.put(offset + 16, this.lengthHi);
+        buffer.put(offset + 17, this.length);
+
+        if (data.length >= length) {
+            putBytes(buffer, offset + 18, data, 0, length);
         } else {
-            throw new MalformedArtnetPacketException("cannot get packet bytes for ArtNzsPacket: not enough data for length available");
+            throw new MalformedArtnetPacketException("cannot encode ArtNzsPacket: not enough data for length available");
         }
 
-        return bytes;
+        return packetLength;
     }
 
     public static ArtNzsPacket fromBytes(byte[] bytes) throws MalformedArtnetPacketException {
@@ -137,7 +138,7 @@ public class ArtNzsPacket extends ArtnetPacket {
         //check protocol version
         byte rProtVerHi = bytes[10];
         byte rProtVerLo = bytes[11];
-        if (rProtVerHi < protVerHi || rProtVerLo < protVerLo) {
+        if (!isProtVerCompatible(rProtVerHi, rProtVerLo)) {
             throw new MalformedArtnetPacketException("cannot construct ArtNzsPacket from data: protVer not compatible");
         }
 
@@ -152,7 +153,7 @@ public class ArtNzsPacket extends ArtnetPacket {
         byte rLengthHi = bytes[16];
         byte rLength = bytes[17];
 
-        int lengthI = (rLengthHi << 8) + rLength;
+        int lengthI = (Byte.toUnsignedInt(rLengthHi) << 8) + Byte.toUnsignedInt(rLength);
 
         byte[] data = new byte[lengthI];
         if (bytes.length >= lengthI + 18) {
@@ -181,6 +182,15 @@ public class ArtNzsPacket extends ArtnetPacket {
         return net;
     }
 
+    /**
+     * Returns the 15 bit Port-Address to which the packet is destined.
+     *
+     * @return the packet's Port-Address
+     */
+    public int getPortAddress() {
+        return ((net & 0x7F) << 8) + Byte.toUnsignedInt(subUni);
+    }
+
     public byte getLengthHi() {
         return lengthHi;
     }
@@ -199,13 +209,24 @@ public class ArtNzsPacket extends ArtnetPacket {
 
     @Override
     public String toString() {
-        return "ArtNzsPacket{" +
-                "sequence=" + asHex(sequence) +
-                ", startCode=" + asHex(startCode) +
-                ", subUni=" + asHex(subUni) +
-                ", net=" + asHex(net) +
-                ", lengthI=" + getLengthInt() +
-                ", data=" + asHexArray(data) +
-                '}';
+        StringBuilder sb = new StringBuilder(64 + data.length * 6);
+        appendTo(sb);
+        return sb.toString();
+    }
+
+    @Override
+    public void appendTo(StringBuilder sb) {
+        sb.append("ArtNzsPacket{sequence=");
+        appendHex(sb, sequence);
+        sb.append(", startCode=");
+        appendHex(sb, startCode);
+        sb.append(", subUni=");
+        appendHex(sb, subUni);
+        sb.append(", net=");
+        appendHex(sb, net);
+        sb.append(", lengthI=").append(getLengthInt());
+        sb.append(", data=");
+        appendHexArray(sb, data, 0, data.length);
+        sb.append('}');
     }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.packets;
+
+import me.sschaeffner.jArtnet.ArtnetNode;
+import me.sschaeffner.jArtnet.ArtnetOpCodes;
+import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A read-only view of an ArtNzs packet.
+ *
+ * @author sschaeffner
+ */
+public class ArtNzsPacketView extends ArtnetPacketView {
+
+    @Override
+    protected boolean wrap(ByteBuffer buffer, int offset, int length, ArtnetNode sender) {
+        //the announced data length has to be available
+        if (length >= 18) {
+            int dataLength = (Byte.toUnsignedInt(buffer.get(offset + 16)) << 8) + Byte.toUnsignedInt(buffer.get(offset + 17));
+            if (dataLength > 512 || length < 18 + dataLength) return false;
+        }
+        return super.wrap(buffer, offset, length, sender);
+    }
+
+    @Override
+    public int getOpCode() {
+        return ArtnetOpCodes.OP_NZS;
+    }
+
+    @Override
+    int getMinimumLength() {
+        return 18;
+    }
+
+    @Override
+    public ArtNzsPacket copy() throws MalformedArtnetPacketException {
+        byte[] data = new byte[getLengthInt()];
+        copyData(data, 0);
+        return new ArtNzsPacket(getSequence(), getStartCode(), getSubUni(), getNet(), getLengthHi(), getDataLength(), data);
+    }
+
+    public byte getSequence() {
+        return buffer.get(offset + 12);
+    }
+
+    public byte getStartCode() {
+        return buffer.get(offset + 13);
+    }
+
+    public byte getSubUni() {
+        return buffer.get(offset + 14);
+    }
+
+    public byte getNet() {
+        return buffer.get(offset + 15);
+    }
+
+    /**
+     * Returns the 15 bit Port-Address to which the packet is destined.
+     *
+     * @return the packet's Port-Address
+     */
+    public int getPortAddress() {
+        return ((getNet() & 0x7F) << 8) + Byte.toUnsignedInt(getSubUni());
+    }
+
+    public byte getLengthHi() {
+        return buffer.get(offset + 16);
+    }
+
+    /**
+     * Returns the low byte of the data length.
+     *
+     * Named differently than in ArtNzsPacket as {@link #getLength()} returns the length of the whole packet.
+     *
+     * @return low byte of the data length
+     */
+    public byte getDataLength() {
+        return buffer.get(offset + 17);
+    }
+
+    public int getLengthInt() {
+        return (Byte.toUnsignedInt(getLengthHi()) << 8) + Byte.toUnsignedInt(getDataLength());
+    }
+
+    /**
+     * Returns a single DMX512 channel value.
+     *
+     * @param channel   channel index (starting at 0)
+     * @return          the channel's value
+     */
+    public byte getData(int channel) {
+        if (channel < 0 || channel >= getLengthInt()) throw new IndexOutOfBoundsException("channel " + channel);
+        return buffer.get(offset + 18 + channel);
+    }
+
+    /**
+     * Copies the DMX512 data into a byte array.
+     *
+     * @param dst       destination array
+     * @param dstOffset offset in the destination array
+     */
+    public void copyData(byte[] dst, int dstOffset) {
+        copyBytes(18, dst, dstOffset, getLengthInt());
+    }
+
+    /**
+     * Returns the absolute index of the first DMX512 channel in the wrapped buffer.
+     *
+     * @return index of the data in the wrapped buffer
+     */
+    public int getDataOffset() {
+        return offset + 18;
+    }
+
+    @Override
+    public String toString() {
+        return "ArtNzsPacketView{" +
+                "sequence=" + ArtnetPacket.asHex(getSequence()) +
+                ", startCode=" + ArtnetPacket.asHex(getStartCode()) +
+                ", subUni=" + ArtnetPacket.asHex(getSubUni()) +
+                ", net=" + ArtnetPacket.asHex(getNet()) +
+                ", length=" + getLengthInt() +
+                '}';
+    }
+}
@@ -22,6 +22,8 @@ import me.sschaeffner.jArtnet.ArtNetPriorityCodes;
 import me.sschaeffner.jArtnet.ArtnetOpCodes;
 import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
 
+import java.nio.ByteBuffer;
+
 /**
  * An implementation of the ArtPoll packet as defined by the Art-Net standard.
  *
@@ -65,27 +67,40 @@ public class ArtPollPacket extends ArtnetPacket {
      */
     @Override
     public byte[] getPacketBytes() {
-        int byteArrayLength = ArtnetPacket.ID.length + 2 + 1+1 + 1 + 1;
-        byte[] bytes = new byte[byteArrayLength];
+        byte[] bytes = new byte[getPacketLength()];
+        try {
+            encode(ByteBuffer.wrap(bytes), 0);
+        } catch (MalformedArtnetPacketException e) {
+            //cannot happen, the array always fits the packet
+            throw new IllegalStateException(e);
+        }
+        return bytes;
+    }
 
-        //Art-Net package ID
-        System.arraycopy(ArtnetPacket.ID, 0, bytes, 0, ArtnetPacket.ID.length);
+    @Override
+    public int getPacketLength() {
+        return ArtnetPacket.ID.length + 2 + 1+1 + 1 + 1;
+    }
 
-        //op code
-        byte[] opCode = ArtnetOpCodes.toByteArray(ArtnetOpCodes.OP_POLL);
-        System.arraycopy(opCode, 0, bytes, ArtnetPacket.ID.length, 2);
+    @Override
+    public int encode(ByteBuffer buffer, int offset) throws MalformedArtnetPacketException {
+        int packetLength = getPacketLength();
+        checkCapacity(buffer, offset, packetLength);
+
+        //Art-Net package ID and opcode
+        putId(buffer, offset, ArtnetOpCodes.OP_POLL);
 
         //protVer
-        bytes[10] = protVerHi;
-        bytes[11] = protVerLo;
+        buffer.put(offset + 10, protVerHi);
+        buffer.put(offset + 11, protVerLo);
 
         //talk to me
-        bytes[12] = this.talkToMe;
+        buffer.put(offset + 12, this.talkToMe);
 
         //priority
-        bytes[13] = this.priority;
+        buffer.put(offset + 13, this.priority);
 
-        return bytes;
+        return packetLength;
     }
 
     /**
@@ -111,7 +126,7 @@ public class ArtPollPacket extends ArtnetPacket {
 
         byte rProtVerHi = bytes[10];
         byte rProtVerLo = bytes[11];
-        if (rProtVerHi < protVerHi || rProtVerLo < protVerLo) {
+        if (!isProtVerCompatible(rProtVerHi, rProtVerLo)) {
             throw new MalformedArtnetPacketException("cannot construct ArtPollPacket from bytes: protVer not compatible");
         }
 
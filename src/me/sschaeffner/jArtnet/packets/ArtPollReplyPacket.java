@@ -23,6 +23,7 @@ import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -201,113 +202,126 @@ public class ArtPollReplyPacket extends ArtnetPacket {
      */
     @Override
     public byte[] getPacketBytes() {
-        int byteArrayLength = ArtnetPacket.ID.length + 2 + 4 + 2 + 2 + 1+1 + 1+1 + 1 + 1 + 1+1 + 18 + 64 + 64 + 1+1 + 4 + 4+4 + 4+4 + 1 + 1 + 1 + 3 + 1 + 6 + 4 + 1 + 1 + 26;
-        byte[] bytes = new byte[byteArrayLength];
+        byte[] bytes = new byte[getPacketLength()];
+        try {
+            encode(ByteBuffer.wrap(bytes), 0);
+        } catch (MalformedArtnetPacketException e) {
+            //cannot happen, the array always fits the packet
+            throw new IllegalStateException(e);
+        }
+        return bytes;
+    }
 
-        //Art-Net package ID
-        System.arraycopy(ArtnetPacket.ID, 0, bytes, 0, ArtnetPacket.ID.length);
+    @Override
+    public int getPacketLength() {
+        return ArtnetPacket.ID.length + 2 + 4 + 2 + 2 + 1+1 + 1+1 + 1 + 1 + 1+1 + 18 + 64 + 64 + 1+1 + 4 + 4+4 + 4+4 + 1 + 1 + 1 + 3 + 1 + 6 + 4 + 1 + 1 + 26;
+    }
 
-        //opcode
-        byte[] opCode = ArtnetOpCodes.toByteArray(ArtnetOpCodes.OP_POLL_REPLY);
-        System.arraycopy(opCode, 0, bytes, ArtnetPacket.ID.length, 2);
+    @Override
+    public int encode(ByteBuffer buffer, int offset) throws MalformedArtnetPacketException {
+        int packetLength = getPacketLength();
+        checkCapacity(buffer, offset, packetLength);
+
+        //Art-Net package ID and opcode
+        putId(buffer, offset, ArtnetOpCodes.OP_POLL_REPLY);
 
         //address
         byte[] addressBytes = address.getAddress();
-        System.arraycopy(addressBytes, 0, bytes, 10, 4);
+        putBytes(buffer, offset + 10, addressBytes, 0, 4);
 
         //port (0x1936)
         byte portLo = (byte) 0x36;
         byte portHi = (byte) 0x19;
-        bytes[14] = portLo;
-        bytes[15] = portHi;
+        buffer.put(offset + 14, portLo);
+        buffer.put(offset + 15, portHi);
 
         //versInfo
-        bytes[16] = versInfoH;
-        bytes[17] = versInfoL;
+        buffer.put(offset + 16, versInfoH);
+        buffer.put(offset + 17, versInfoL);
 
         //netswitch
-        bytes[18] = netSwitch;
+        buffer.put(offset + 18, netSwitch);
         //subswitch
-        bytes[19] = subSwitch;
+        buffer.put(offset + 19, subSwitch);
 
         //oemHi
-        bytes[20] = oemHi;
+        buffer.put(offset + 20, oemHi);
         //oem
-        bytes[21] = oem;
+        buffer.put(offset + 21, oem);
 
         //ubea version
-        bytes[22] = ubeaVersion;
+        buffer.put(offset + 22, ubeaVersion);
 
         //status1
-        bytes[23] = status1;
+        buffer.put(offset + 23, status1);
 
         //esta man lo
-        bytes[24] = estaManLo;
+        buffer.put(offset + 24, estaManLo);
         //esta man hi
-        bytes[25] = estaManHi;
+        buffer.put(offset + 25, estaManHi);
 
         //short name
-        System.arraycopy(shortName, 0, bytes, 26, 18);
+        putBytes(buffer, offset + 26, shortName, 0, 18);
 
         //long name
-        System.arraycopy(longName, 0, bytes, 44, 64);
+        putBytes(buffer, offset + 44, longName, 0, 64);
 
         //node report
-        System.arraycopy(nodeReport, 0, bytes, 108, 64);
+        putBytes(buffer, offset + 108, nodeReport, 0, 64);
 
         //num ports hi
-        bytes[172] = numPortsHi;
+        buffer.put(offset + 172, numPortsHi);
         //num ports lo
-        bytes[173] = numPortsLo;
+        buffer.put(offset + 173, numPortsLo);
 
         //port types
-        System.arraycopy(portTypes, 0, bytes, 174, 4);
+        putBytes(buffer, offset + 174, portTypes, 0, 4);
 
         //good input
-        System.arraycopy(goodInput, 0, bytes, 178, 4);
+        putBytes(buffer, offset + 178, goodInput, 0, 4);
         //good output
-        System.arraycopy(goodOutput, 0, bytes, 182, 4);
+        putBytes(buffer, offset + 182, goodOutput, 0, 4);
 
         //swIn
-        System.arraycopy(swIn, 0, bytes, 186, 4);
+        putBytes(buffer, offset + 186, swIn, 0, 4);
         //swOut
-        System.arraycopy(swOut, 0, bytes, 190, 4);
+        putBytes(buffer, offset + 190, swOut, 0, 4);
 
         //swVideo
-        bytes[194] = swVideo;
+        buffer.put(offset + 194, swVideo);
 
         //swMacro
-        bytes[195] = swMacro;
+        buffer.put(offset + 195, swMacro);
 
         //swRemote
-        bytes[196] = swRemote;
+        buffer.put(offset + 196, swRemote);
 
         //spare
-        bytes[197] = 0;
-        bytes[198] = 0;
-        bytes[199] = 0;
+        buffer.put(offset + 197, (byte) 0);
+        buffer.put(offset + 198, (byte) 0);
+        buffer.put(offset + 199, (byte) 0);
 
         //style
-        bytes[200] = style;
+        buffer.put(offset + 200, style);
 
         //mac
-        System.arraycopy(mac, 0, bytes, 201, 6);
+        putBytes(buffer, offset + 201, mac, 0, 6);
 
         //bind ip
-        System.arraycopy(bindIp, 0, bytes, 207, 4);
+        putBytes(buffer, offset + 207, bindIp, 0, 4);
 
         //bind index
-        bytes[211] = bindIndex;
+        buffer.put(offset + 211, bindIndex);
 
         //status 2
-        bytes[212] = status2;
+        buffer.put(offset + 212, status2);
 
         //filler
         for (int i = 0; i < 26; i++) {
-            bytes[213 + i] = 0;
+            buffer.put(offset + 213 + i, (byte) 0);
         }
 
-        return bytes;
+        return packetLength;
     }
 
     /**
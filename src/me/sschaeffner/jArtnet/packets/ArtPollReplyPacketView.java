@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.packets;
+
+import me.sschaeffner.jArtnet.ArtnetOpCodes;
+import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
+
+/**
+ * A read-only view of an ArtPollReply packet.
+ *
+ * @author sschaeffner
+ */
+public class ArtPollReplyPacketView extends ArtnetPacketView {
+
+    @Override
+    public int getOpCode() {
+        return ArtnetOpCodes.OP_POLL_REPLY;
+    }
+
+    @Override
+    int getMinimumLength() {
+        return ArtnetPacket.ID.length + 2 + 4 + 2 + 2 + 1+1 + 1+1 + 1 + 1 + 1+1 + 18 + 64 + 64 + 1+1 + 4 + 4+4 + 4+4 + 1 + 1 + 1 + 3 + 1 + 6 + 4 + 1 + 1 + 26;
+    }
+
+    @Override
+    public ArtPollReplyPacket copy() throws MalformedArtnetPacketException {
+        return ArtPollReplyPacket.fromBytes(copyBytes());
+    }
+
+    /**
+     * Returns the node's ip address as an int (first octet in the highest byte).
+     *
+     * @return the node's ip address
+     */
+    public int getAddressInt() {
+        return getInt(10);
+    }
+
+    public int getVersInfo() {
+        return (Byte.toUnsignedInt(buffer.get(offset + 16)) << 8) + Byte.toUnsignedInt(buffer.get(offset + 17));
+    }
+
+    public byte getNetSwitch() {
+        return buffer.get(offset + 18);
+    }
+
+    public byte getSubSwitch() {
+        return buffer.get(offset + 19);
+    }
+
+    public int getOemInt() {
+        return (Byte.toUnsignedInt(buffer.get(offset + 20)) << 8) + Byte.toUnsignedInt(buffer.get(offset + 21));
+    }
+
+    public byte getStatus1() {
+        return buffer.get(offset + 23);
+    }
+
+    public int getEstaMan() {
+        return (Byte.toUnsignedInt(buffer.get(offset + 25)) << 8) + Byte.toUnsignedInt(buffer.get(offset + 24));
+    }
+
+    public int getNumPorts() {
+        return (Byte.toUnsignedInt(buffer.get(offset + 172)) << 8) + Byte.toUnsignedInt(buffer.get(offset + 173));
+    }
+
+    /**
+     * Returns the type of one of the node's ports.
+     *
+     * @param port  port index (0 to 3)
+     * @return      the port's type
+     */
+    public byte getPortType(int port) {
+        return buffer.get(offset + 174 + checkPort(port));
+    }
+
+    public byte getGoodInput(int port) {
+        return buffer.get(offset + 178 + checkPort(port));
+    }
+
+    public byte getGoodOutput(int port) {
+        return buffer.get(offset + 182 + checkPort(port));
+    }
+
+    public byte getSwIn(int port) {
+        return buffer.get(offset + 186 + checkPort(port));
+    }
+
+    public byte getSwOut(int port) {
+        return buffer.get(offset + 190 + checkPort(port));
+    }
+
+    public byte getStyle() {
+        return buffer.get(offset + 200);
+    }
+
+    /**
+     * Returns the node's mac address as a long (first byte in the highest used byte).
+     *
+     * @return the node's mac address
+     */
+    public long getMacLong() {
+        long mac = 0;
+        for (int i = 0; i < 6; i++) mac = (mac << 8) + Byte.toUnsignedInt(buffer.get(offset + 201 + i));
+        return mac;
+    }
+
+    /**
+     * Returns the ip address of the root device as an int (first octet in the highest byte).
+     *
+     * @return the root device's ip address
+     */
+    public int getBindIpInt() {
+        return getInt(207);
+    }
+
+    public byte getBindIndex() {
+        return buffer.get(offset + 211);
+    }
+
+    public byte getStatus2() {
+        return buffer.get(offset + 212);
+    }
+
+    private static int checkPort(int port) {
+        if (port < 0 || port > 3) throw new IndexOutOfBoundsException("port " + port);
+        return port;
+    }
+
+    @Override
+    public String toString() {
+        return "ArtPollReplyPacketView{" +
+                "address=" + ArtnetPacket.asHex(getAddressInt(), 8) +
+                ", netSwitch=" + ArtnetPacket.asHex(getNetSwitch()) +
+                ", subSwitch=" + ArtnetPacket.asHex(getSubSwitch()) +
+                ", numPorts=" + getNumPorts() +
+                ", style=" + ArtnetPacket.asHex(getStyle()) +
+                ", bindIndex=" + ArtnetPacket.asHex(getBindIndex()) +
+                '}';
+    }
+}
@@ -20,6 +20,8 @@ package me.sschaeffner.jArtnet.packets;
 import me.sschaeffner.jArtnet.ArtnetOpCodes;
 import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
 
+import java.nio.ByteBuffer;
+
 /**
  * An implementation of the ArtSync packet as defined by the Art-Net standard.
  *
@@ -33,26 +35,27 @@ public class ArtSyncPacket extends ArtnetPacket {
     public ArtSyncPacket() {}
 
     @Override
-    public byte[] getPacketBytes() throws MalformedArtnetPacketException {
-        int byteArrayLength = ArtnetPacket.ID.length + 2 + 1+1 + 1+1;
-        byte[] bytes = new byte[byteArrayLength];
+    public int getPacketLength() {
+        return ArtnetPacket.ID.length + 2 + 1+1 + 1+1;
+    }
 
-        //Art-Net package ID
-        System.arraycopy(ArtnetPacket.ID, 0, bytes, 0, ArtnetPacket.ID.length);
+    @Override
+    public int encode(ByteBuffer buffer, int offset) throws MalformedArtnetPacketException {
+        int packetLength = getPacketLength();
+        checkCapacity(buffer, offset, packetLength);
 
-        //opcode
-        byte[] opCode = ArtnetOpCodes.toByteArray(ArtnetOpCodes.OP_SYNC);
-        System.arraycopy(opCode, 0, bytes, ArtnetPacket.ID.length, 2);
+        //Art-Net package ID and opcode
+        putId(buffer, offset, ArtnetOpCodes.OP_SYNC);
 
         //protocol version
-        bytes[10] = protVerHi;
-        bytes[11] = protVerLo;
+        buffer.put(offset + 10, protVerHi);
+        buffer.put(offset + 11, protVerLo);
 
         //aux 1+2
-        bytes[12] = 0;
-        bytes[13] = 0;
+        buffer.put(offset + 12, (byte) 0);
+        buffer.put(offset + 13, (byte) 0);
 
-        return bytes;
+        return packetLength;
     }
 
     public static ArtSyncPacket fromBytes(byte[] bytes) throws MalformedArtnetPacketException {
@@ -74,7 +77,7 @@ public class ArtSyncPacket extends ArtnetPacket {
         //check protocol version
         byte rProtVerHi = bytes[10];
         byte rProtVerLo = bytes[11];
-        if (rProtVerHi < protVerHi || rProtVerLo < protVerLo) {
+        if (!isProtVerCompatible(rProtVerHi, rProtVerLo)) {
             throw new MalformedArtnetPacketException("cannot construct ArtSyncPacket from data: protVer not compatible");
         }
 
@@ -20,6 +20,8 @@ package me.sschaeffner.jArtnet.packets;
 import me.sschaeffner.jArtnet.ArtnetOpCodes;
 import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
 
+import java.nio.ByteBuffer;
+
 /**
  * An implementation of the ArtTimeCode packet as defined by the Art-Net standard.
  *
@@ -52,32 +54,33 @@ public class ArtTimeCodePacket extends ArtnetPacket {
     }
 
     @Override
-    public byte[] getPacketBytes() throws MalformedArtnetPacketException {
-        int byteArrayLength = ArtnetPacket.ID.length + 2 + 1+1 + 1+1 + 1 + 1 + 1 + 1 + 1;
-        byte[] bytes = new byte[byteArrayLength];
+    public int getPacketLength() {
+        return ArtnetPacket.ID.length + 2 + 1+1 + 1+1 + 1 + 1 + 1 + 1 + 1;
+    }
 
-        //Art-Net package ID
-        System.arraycopy(ArtnetPacket.ID, 0, bytes, 0, ArtnetPacket.ID.length);
+    @Override
+    public int encode(ByteBuffer buffer, int offset) throws MalformedArtnetPacketException {
+        int packetLength = getPacketLength();
+        checkCapacity(buffer, offset, packetLength);
 
-        //opcode
-        byte[] opCode = ArtnetOpCodes.toByteArray(ArtnetOpCodes.OP_TIME_CODE);
-        System.arraycopy(opCode, 0, bytes, ArtnetPacket.ID.length, 2);
+        //Art-Net package ID and opcode
+        putId(buffer, offset, ArtnetOpCodes.OP_TIME_CODE);
 
         //protocol version
-        bytes[10] = protVerHi;
-        bytes[11] = protVerLo;
+        buffer.put(offset + 10, protVerHi);
+        buffer.put(offset + 11, protVerLo);
 
         //filler 1+2
-        bytes[12] = 0;
-        bytes[13] = 0;
+        buffer.put(offset + 12, (byte) 0);
+        buffer.put(offset + 13, (byte) 0);
 
-        bytes[14] = this.frames;
-        bytes[15] = this.seconds;
-        bytes[16] = this.minutes;
-        bytes[17] = this.hours;
-        bytes[18] = this.type;
+        buffer.put(offset + 14, this.frames);
+        buffer.put(offset + 15, this.seconds);
+        buffer.put(offset + 16, this.minutes);
+        buffer.put(offset + 17, this.hours);
+        buffer.put(offset + 18, this.type);
 
-        return bytes;
+        return packetLength;
     }
 
     public static ArtTimeCodePacket fromBytes(byte[] bytes) throws MalformedArtnetPacketException {
@@ -99,7 +102,7 @@ public class ArtTimeCodePacket extends ArtnetPacket {
         //check protocol version
         byte rProtVerHi = bytes[10];
         byte rProtVerLo = bytes[11];
-        if (rProtVerHi < protVerHi || rProtVerLo < protVerLo) {
+        if (!isProtVerCompatible(rProtVerHi, rProtVerLo)) {
             throw new MalformedArtnetPacketException("cannot construct ArtTimeCodePacket from data: protVer not compatible");
         }
 
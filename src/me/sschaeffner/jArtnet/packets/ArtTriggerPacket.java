@@ -20,6 +20,8 @@ package me.sschaeffner.jArtnet.packets;
 import me.sschaeffner.jArtnet.ArtnetOpCodes;
 import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
 
+import java.nio.ByteBuffer;
+
 /**
  * An implementation of the ArtTrigger packet as defined by the Art-Net standard.
  *
@@ -81,33 +83,31 @@ public class ArtTriggerPacket extends ArtnetPacket {
     }
 
     @Override
-    public byte[] getPacketBytes() throws MalformedArtnetPacketException {
-        int byteArrayLength = ArtnetPacket.ID.length + 2 + 1+1 + 1+1 + 1 + 1 + data.length;
-        byte[] bytes = new byte[byteArrayLength];
+    public int getPacketLength() {
+        return ArtnetPacket.ID.length + 2 + 1+1 + 1+1 + 1 + 1 + data.length;
+    }
 
-        //Art-Net package ID
-        System.arraycopy(ArtnetPacket.ID, 0, bytes, 0, ArtnetPacket.ID.length);
+    @Override
+    public int encode(ByteBuffer buffer, int offset) throws MalformedArtnetPacketException {
+        int packetLength = getPacketLength();
+        checkCapacity(buffer, offset, packetLength);
 
-        //opcode
-        byte[] opCode = ArtnetOpCodes.toByteArray(ArtnetOpCodes.OP_TRIGGER);
-        System.arraycopy(opCode, 0, bytes, ArtnetPacket.ID.length, 2);
+        //Art-Net package ID and opcode
+        putId(buffer, offset, ArtnetOpCodes.OP_TRIGGER);
 
         //protocol version
-        bytes[10] = protVerHi;
-        bytes[11] = protVerLo;
+        buffer.put(offset + 10, protVerHi);
+        buffer.put(offset + 11, protVerLo);
 
-        bytes[12] = oemCodeHi;
-        bytes[13] = oemCodeLo;
+        buffer.put(offset + 12, oemCodeHi);
+        buffer.put(offset + 13, oemCodeLo);
 
-        bytes[14] = key;
-        bytes[15] = subKey;
+        buffer.put(offset + 14, key);
+        buffer.put(offset + 15, subKey);
 
-        if (bytes.length >= data.length + 16) {
-            System.arraycopy(data, 0, bytes, 16, data.length);
-        } else {
-            throw new MalformedArtnetPacketException("cannot get packet bytes for ArtTriggerPacket: not enough data for length available");
-        }
-        return bytes;
+        putBytes(buffer, offset + 16, data, 0, data.length);
+
+        return packetLength;
     }
 
     public static ArtTriggerPacket fromBytes(byte[] bytes) throws MalformedArtnetPacketException {
@@ -129,7 +129,7 @@ public class ArtTriggerPacket extends ArtnetPacket {
         //check protocol version
         byte rProtVerHi = bytes[10];
         byte rProtVerLo = bytes[11];
-        if (rProtVerHi < protVerHi || rProtVerLo < protVerLo) {
+        if (!isProtVerCompatible(rProtVerHi, rProtVerLo)) {
             throw new MalformedArtnetPacketException("cannot construct ArtTriggerPacket from data: protVer not compatible");
         }
 
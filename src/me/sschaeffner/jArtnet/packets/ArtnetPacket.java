@@ -18,8 +18,10 @@
 package me.sschaeffner.jArtnet.packets;
 
 import me.sschaeffner.jArtnet.ArtnetNode;
+import me.sschaeffner.jArtnet.ArtnetOpCodes;
 import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -33,6 +35,8 @@ public abstract class ArtnetPacket {
 
     public static final byte[] ID = new byte[]{'A', 'r', 't', '-', 'N', 'e', 't', 0x00};
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     private ArtnetNode sender;
 
     public void setSender(ArtnetNode sender) {
@@ -50,9 +54,105 @@ public abstract class ArtnetPacket {
     /**
      * Returns the whole packet's data as byte array.
      *
+     * Allocates a new array on every call. Use {@link #encode(ByteBuffer, int)} to send without allocating.
+     *
      * @return the packet's data as byte array
      */
-    public abstract byte[] getPacketBytes() throws MalformedArtnetPacketException;
+    public byte[] getPacketBytes() throws MalformedArtnetPacketException {
+        byte[] bytes = new byte[getPacketLength()];
+        encode(ByteBuffer.wrap(bytes), 0);
+        return bytes;
+    }
+
+    /**
+     * Returns the number of bytes the encoded packet takes up.
+     *
+     * @return the encoded packet's length
+     */
+    public abstract int getPacketLength();
+
+    /**
+     * Writes the whole packet into a buffer.
+     *
+     * Uses absolute puts, so the buffer's position and limit are not changed.
+     *
+     * @param buffer    buffer to write into
+     * @param offset    index of the packet's first byte in the buffer
+     * @return          number of bytes written
+     * @throws MalformedArtnetPacketException when the buffer is too small or the packet's data is inconsistent
+     */
+    public abstract int encode(ByteBuffer buffer, int offset) throws MalformedArtnetPacketException;
+
+    /**
+     * Writes the Art-Net ID and an opcode (bytes 0 to 9 of every packet).
+     *
+     * @param buffer    buffer to write into
+     * @param offset    index of the packet's first byte in the buffer
+     * @param opCode    the packet's opcode
+     */
+    static void putId(ByteBuffer buffer, int offset, int opCode) {
+        putBytes(buffer, offset, ID, 0, ID.length);
+        ArtnetOpCodes.putOpCode(buffer, offset + ID.length, opCode);
+    }
+
+    /**
+     * Copies a byte array into a buffer at an absolute index.
+     *
+     * @param buffer    buffer to write into
+     * @param index     index in the buffer
+     * @param src       array to copy from
+     * @param srcOffset index in the array
+     * @param length    number of bytes to copy
+     */
+    static void putBytes(ByteBuffer buffer, int index, byte[] src, int srcOffset, int length) {
+        if (buffer.hasArray()) {
+            System.arraycopy(src, srcOffset, buffer.array(), buffer.arrayOffset() + index, length);
+        } else {
+            for (int i = 0; i < length; i++) buffer.put(index + i, src[srcOffset + i]);
+        }
+    }
+
+    /**
+     * Checks whether a packet fits into a buffer.
+     *
+     * @param buffer        buffer to write into
+     * @param offset        index of the packet's first byte in the buffer
+     * @param packetLength  the encoded packet's length
+     * @throws MalformedArtnetPacketException when the packet does not fit
+     */
+    static void checkCapacity(ByteBuffer buffer, int offset, int packetLength) throws MalformedArtnetPacketException {
+        if (offset < 0 || buffer.limit() - offset < packetLength) {
+            throw new MalformedArtnetPacketException("cannot encode packet: buffer too small");
+        }
+        if (buffer.isReadOnly()) {
+            throw new MalformedArtnetPacketException("cannot encode packet: buffer is read-only");
+        }
+    }
+
+    /**
+     * Checks whether a received protocol version is at least the one this library implements.
+     *
+     * Compares the version as an unsigned 16 bit number, the same way {@link ArtnetOpCodes#check(ByteBuffer)} does.
+     *
+     * @param rProtVerHi    received high byte of the protocol version
+     * @param rProtVerLo    received low byte of the protocol version
+     * @return whether the version is compatible
+     */
+    static boolean isProtVerCompatible(byte rProtVerHi, byte rProtVerLo) {
+        int version = (Byte.toUnsignedInt(rProtVerHi) << 8) + Byte.toUnsignedInt(rProtVerLo);
+        return version >= (protVerHi << 8) + protVerLo;
+    }
+
+    /**
+     * Appends the same text as {@link #toString()} to a StringBuilder.
+     *
+     * Packets with large payloads override this to avoid intermediate strings.
+     *
+     * @param sb    StringBuilder to append to
+     */
+    public void appendTo(StringBuilder sb) {
+        sb.append(toString());
+    }
 
     /**
      * Returns the packet in the form of a byte[] as a subclass of ArtnetPacket.
@@ -125,13 +225,34 @@ public abstract class ArtnetPacket {
      * @return      the byte array as a hex formatted unsigned integer string
      */
     public static String asHexArray(byte[] bytes) {
-        String s = "[";
-        for (int i = 0; i < bytes.length; i++) {
-            if (i != 0) s += ", ";
-            s += asHex(bytes[i]);
+        StringBuilder sb = new StringBuilder(2 + bytes.length * 6);
+        appendHexArray(sb, bytes, 0, bytes.length);
+        return sb.toString();
+    }
+
+    /**
+     * Appends a byte as a hex formatted unsigned integer (e.g. 0x0f).
+     * @param sb    StringBuilder to append to
+     * @param b     a byte
+     */
+    public static void appendHex(StringBuilder sb, byte b) {
+        sb.append('0').append('x').append(HEX_DIGITS[(b >> 4) & 0x0F]).append(HEX_DIGITS[b & 0x0F]);
+    }
+
+    /**
+     * Appends part of a byte array as hex formatted unsigned integers (e.g. [0x00, 0xff]).
+     * @param sb        StringBuilder to append to
+     * @param bytes     a byte array
+     * @param offset    index of the first byte
+     * @param length    number of bytes
+     */
+    public static void appendHexArray(StringBuilder sb, byte[] bytes, int offset, int length) {
+        sb.append('[');
+        for (int i = 0; i < length; i++) {
+            if (i != 0) sb.append(", ");
+            appendHex(sb, bytes[offset + i]);
         }
-        s += "]";
-        return s;
+        sb.append(']');
     }
 
     /**
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.packets;
+
+import me.sschaeffner.jArtnet.ArtnetNode;
+import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A read-only view of an Art-Net packet in a ByteBuffer.
+ *
+ * Other than an ArtnetPacket, a view does not copy any field but reads it straight from the wrapped bytes when it
+ * is requested. A view is reused for many packets, so it is only valid until the method it was passed to returns.
+ * Use {@link #copy()} to keep a packet for longer.
+ *
+ * @author sschaeffner
+ */
+public abstract class ArtnetPacketView {
+
+    //wrapped packet data
+    ByteBuffer buffer;
+    int offset;
+    int length;
+
+    private ArtnetNode sender;
+
+    /**
+     * Wraps the packet data in a buffer.
+     *
+     * The data is checked for the packet type's opcode and minimum length. If the check fails the view is not
+     * changed.
+     *
+     * @param buffer    buffer containing the packet
+     * @param offset    absolute index of the packet's first byte in the buffer
+     * @param length    length of the packet
+     * @return          whether the data contains a packet of this view's type
+     * @throws UnsupportedOperationException when the view is owned by an ArtnetController
+     */
+    public boolean wrap(ByteBuffer buffer, int offset, int length) {
+        return wrap(buffer, offset, length, null);
+    }
+
+    /**
+     * Wraps the packet data in a buffer and sets the packet's sender.
+     *
+     * Not public, so listeners cannot re-point a view they were handed at other data or another sender.
+     *
+     * @param buffer    buffer containing the packet
+     * @param offset    absolute index of the packet's first byte in the buffer
+     * @param length    length of the packet
+     * @param sender    the packet's sender or null if it is unknown
+     * @return          whether the data contains a packet of this view's type
+     * @see #wrap(ByteBuffer, int, int)
+     */
+    protected boolean wrap(ByteBuffer buffer, int offset, int length, ArtnetNode sender) {
+        if (length < getMinimumLength()) return false;
+        if (buffer.get(offset + 8) != (byte) getOpCode()) return false;
+        if (buffer.get(offset + 9) != (byte) (getOpCode() >>> 8)) return false;
+
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        this.sender = sender;
+        return true;
+    }
+
+    /**
+     * Returns the OpCode of the packet type this view is for.
+     *
+     * @return the packet type's OpCode
+     */
+    public abstract int getOpCode();
+
+    /**
+     * Returns the minimum length of a packet of this view's type.
+     *
+     * @return minimum packet length
+     */
+    abstract int getMinimumLength();
+
+    /**
+     * Copies the wrapped packet into a new ArtnetPacket.
+     *
+     * @return the wrapped packet as ArtnetPacket
+     * @throws MalformedArtnetPacketException when the packet cannot be constructed from the wrapped data
+     */
+    public abstract ArtnetPacket copy() throws MalformedArtnetPacketException;
+
+    /**
+     * Returns the length of the wrapped packet.
+     *
+     * @return the wrapped packet's length
+     */
+    public int getLength() {
+        return length;
+    }
+
+    public byte getProtVerHi() {
+        return buffer.get(offset + 10);
+    }
+
+    public byte getProtVerLo() {
+        return buffer.get(offset + 11);
+    }
+
+    /**
+     * Returns the packet's sender.
+     * @return  the packet's sender
+     */
+    public ArtnetNode getSender() {
+        return sender;
+    }
+
+    /**
+     * Returns a read-only buffer sharing the wrapped buffer's content.
+     *
+     * Absolute indexes such as {@link ArtDmxPacketView#getDataOffset()} are valid in it. Allocates a new buffer on
+     * every call.
+     *
+     * @return the wrapped packet's buffer, read-only
+     */
+    public ByteBuffer getBuffer() {
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns four bytes of the wrapped packet as a big endian int regardless of the buffer's byte order.
+     *
+     * @param index index relative to the packet's first byte
+     * @return      the bytes as int
+     */
+    int getInt(int index) {
+        int value = 0;
+        for (int i = 0; i < 4; i++) value = (value << 8) + Byte.toUnsignedInt(buffer.get(offset + index + i));
+        return value;
+    }
+
+    /**
+     * Copies a part of the wrapped packet into a byte array.
+     *
+     * @param index         index relative to the packet's first byte
+     * @param dst           destination array
+     * @param dstOffset     offset in the destination array
+     * @param length        number of bytes to copy
+     */
+    void copyBytes(int index, byte[] dst, int dstOffset, int length) {
+        if (buffer.hasArray()) {
+            System.arraycopy(buffer.array(), buffer.arrayOffset() + offset + index, dst, dstOffset, length);
+        } else {
+            for (int i = 0; i < length; i++) dst[dstOffset + i] = buffer.get(offset + index + i);
+        }
+    }
+
+    /**
+     * Copies the wrapped packet into a new byte array.
+     *
+     * @return the wrapped packet's data
+     */
+    byte[] copyBytes() {
+        byte[] bytes = new byte[length];
+        copyBytes(0, bytes, 0, length);
+        return bytes;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.test;
+
+import me.sschaeffner.jArtnet.*;
+import me.sschaeffner.jArtnet.packets.ArtDmxPacket;
+import me.sschaeffner.jArtnet.packets.ArtDmxPacketView;
+import me.sschaeffner.jArtnet.packets.ArtSyncPacket;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @author sschaeffner
+ */
+public class ArtDmxPacketViewTest {
+
+    @Test
+    public void wrapTest() throws MalformedArtnetPacketException {
+        byte[] data = new byte[200];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 256);
+        }
+
+        ArtDmxPacket pOrig = new ArtDmxPacket((byte) 7, (byte) 1, (byte) 0x23, (byte) 0x01, data);
+        byte[] bytes = pOrig.getPacketBytes();
+
+        //place the packet behind some other bytes in a direct buffer
+        ByteBuffer buffer = ByteBuffer.allocateDirect(600);
+        buffer.position(5);
+        buffer.put(bytes);
+
+        ArtDmxPacketView view = new ArtDmxPacketView();
+        Assert.assertTrue(view.wrap(buffer, 5, bytes.length));
+
+        Assert.assertEquals(pOrig.getSequence(), view.getSequence());
+        Assert.assertEquals(pOrig.getPhysical(), view.getPhysical());
+        Assert.assertEquals(pOrig.getSubUni(), view.getSubUni());
+        Assert.assertEquals(pOrig.getNet(), view.getNet());
+        Assert.assertEquals(0x123, view.getPortAddress());
+        Assert.assertEquals(200, view.getLengthInt());
+        Assert.assertEquals(data[150], view.getData(150));
+
+        ArtDmxPacket p = view.copy();
+        Assert.assertEquals(pOrig.getPortAddress(), p.getPortAddress());
+        Assert.assertArrayEquals(pOrig.getData(), p.getData());
+
+        //the wrapped buffer is only handed out read-only
+        ByteBuffer readOnly = view.getBuffer();
+        Assert.assertTrue(readOnly.isReadOnly());
+        Assert.assertEquals(data[150], readOnly.get(view.getDataOffset() + 150));
+    }
+
+    @Test
+    public void senderTest() throws Exception {
+        ArtnetMemoryNetwork network = new ArtnetMemoryNetwork();
+        ArtnetMemoryTransport receiverTransport = network.open();
+        ArtnetMemoryTransport senderTransport = network.open();
+        ArtnetController receiver = ArtnetControllerFactory.getInstance(receiverTransport);
+        ArtnetController sender = ArtnetControllerFactory.getInstance(senderTransport);
+        try {
+            sender.setPollReplyDelay(0);
+            receiver.discoverNodes();
+            for (int i = 0; i < 100 && receiver.getNodes().length < 1; i++) Thread.sleep(10);
+            Assert.assertEquals(1, receiver.getNodes().length);
+
+            byte[] bytes = new ArtDmxPacket((byte) 0, (byte) 0, (byte) 0, (byte) 0, new byte[2]).getPacketBytes();
+            List<ArtnetNode> senders = new CopyOnWriteArrayList<>();
+            List<Boolean> rewrapped = new CopyOnWriteArrayList<>();
+            receiver.addArtnetPacketViewListener(view -> {
+                senders.add(view.getSender());
+                //listeners cannot re-point the shared view
+                try {
+                    rewrapped.add(view.wrap(ByteBuffer.wrap(bytes), 0, bytes.length));
+                } catch (UnsupportedOperationException e) {
+                    rewrapped.add(false);
+                }
+            });
+
+            ArtnetNode node = new ArtnetNode(receiverTransport.getAddress(), ArtnetStyleCodes.ST_NODE, "memory", "memory");
+            sender.unicastPacket(new ArtDmxPacket((byte) 0, (byte) 0, (byte) 3, (byte) 0, new byte[]{10, 0}), node);
+            for (int i = 0; i < 100 && senders.size() < 1; i++) Thread.sleep(10);
+
+            Assert.assertEquals(1, senders.size());
+            Assert.assertEquals(senderTransport.getAddress(), senders.get(0).getInetAddress());
+            Assert.assertEquals(false, rewrapped.get(0));
+        } finally {
+            receiver.closeSocket();
+            sender.closeSocket();
+        }
+    }
+
+    @Test
+    public void unownedWrapTest() throws MalformedArtnetPacketException {
+        byte[] bytes = new ArtDmxPacket((byte) 0, (byte) 0, (byte) 0, (byte) 0, new byte[2]).getPacketBytes();
+
+        //views created by the application have no sender
+        ArtDmxPacketView view = new ArtDmxPacketView();
+        Assert.assertTrue(view.wrap(ByteBuffer.wrap(bytes), 0, bytes.length));
+        Assert.assertNull(view.getSender());
+    }
+
+    @Test
+    public void rejectTest() throws MalformedArtnetPacketException {
+        ArtDmxPacketView view = new ArtDmxPacketView();
+
+        //wrong opcode
+        byte[] sync = new ArtSyncPacket().getPacketBytes();
+        Assert.assertFalse(view.wrap(ByteBuffer.wrap(sync), 0, sync.length));
+
+        //announced data length is not available
+        byte[] dmx = new ArtDmxPacket((byte) 0, (byte) 0, (byte) 0, (byte) 0, new byte[512]).getPacketBytes();
+        Assert.assertFalse(view.wrap(ByteBuffer.wrap(dmx), 0, dmx.length - 1));
+
+        //shorter than ArtnetOpCodes.check() allows
+        byte[] empty = new ArtDmxPacket((byte) 0, (byte) 0, (byte) 0, (byte) 0, new byte[0]).getPacketBytes();
+        Assert.assertEquals(18, empty.length);
+        Assert.assertFalse(view.wrap(ByteBuffer.wrap(empty), 0, empty.length));
+    }
+}
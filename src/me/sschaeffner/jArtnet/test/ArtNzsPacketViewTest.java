@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.test;
+
+import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
+import me.sschaeffner.jArtnet.packets.ArtDmxPacket;
+import me.sschaeffner.jArtnet.packets.ArtNzsPacket;
+import me.sschaeffner.jArtnet.packets.ArtNzsPacketView;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author sschaeffner
+ */
+public class ArtNzsPacketViewTest {
+
+    @Test
+    public void wrapTest() throws MalformedArtnetPacketException {
+        byte[] data = new byte[100];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 3);
+        }
+
+        ArtNzsPacket pOrig = new ArtNzsPacket((byte) 9, (byte) 0xCC, (byte) 0x45, (byte) 0x02, data);
+        byte[] bytes = pOrig.getPacketBytes();
+
+        //place the packet behind some other bytes in a direct buffer
+        ByteBuffer buffer = ByteBuffer.allocateDirect(600);
+        buffer.position(3);
+        buffer.put(bytes);
+
+        ArtNzsPacketView view = new ArtNzsPacketView();
+        Assert.assertTrue(view.wrap(buffer, 3, bytes.length));
+
+        Assert.assertEquals(pOrig.getSequence(), view.getSequence());
+        Assert.assertEquals((byte) 0xCC, view.getStartCode());
+        Assert.assertEquals(pOrig.getSubUni(), view.getSubUni());
+        Assert.assertEquals(pOrig.getNet(), view.getNet());
+        Assert.assertEquals(0x245, view.getPortAddress());
+        Assert.assertEquals(100, view.getLengthInt());
+        Assert.assertEquals(data[42], view.getData(42));
+        Assert.assertTrue(view.getBuffer().isReadOnly());
+
+        ArtNzsPacket p = view.copy();
+        Assert.assertEquals(pOrig.getStartCode(), p.getStartCode());
+        Assert.assertEquals(pOrig.getPortAddress(), p.getPortAddress());
+        Assert.assertArrayEquals(pOrig.getData(), p.getData());
+    }
+
+    @Test
+    public void rejectTest() throws MalformedArtnetPacketException {
+        ArtNzsPacketView view = new ArtNzsPacketView();
+
+        //wrong opcode
+        byte[] dmx = new ArtDmxPacket((byte) 0, (byte) 0, (byte) 0, (byte) 0, new byte[2]).getPacketBytes();
+        Assert.assertFalse(view.wrap(ByteBuffer.wrap(dmx), 0, dmx.length));
+
+        //announced data length is not available
+        byte[] nzs = new ArtNzsPacket((byte) 0, (byte) 0x17, (byte) 0, (byte) 0, new byte[512]).getPacketBytes();
+        Assert.assertFalse(view.wrap(ByteBuffer.wrap(nzs), 0, nzs.length - 1));
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.test;
+
+import me.sschaeffner.jArtnet.ArtnetStyleCodes;
+import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
+import me.sschaeffner.jArtnet.packets.ArtPollPacket;
+import me.sschaeffner.jArtnet.packets.ArtPollReplyPacket;
+import me.sschaeffner.jArtnet.packets.ArtPollReplyPacketView;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * @author sschaeffner
+ */
+public class ArtPollReplyPacketViewTest {
+
+    private static ArtPollReplyPacket reply() throws Exception {
+        InetAddress address = InetAddress.getByAddress(new byte[]{10, 1, 2, 3});
+        byte[] portTypes = new byte[]{(byte) 0x80, (byte) 0x80, 0, 0};
+        byte[] swOut = new byte[]{5, 6, 0, 0};
+        byte[] mac = new byte[]{0x00, 0x11, 0x22, 0x33, 0x44, 0x55};
+        return new ArtPollReplyPacket(address, 0x0102, (byte) 0x03, (byte) 0x04, 0x1234, (byte) 0, (byte) 0, 0x7FF0,
+                "node", "node", "ready", 2, portTypes, new byte[4], new byte[4], new byte[4], swOut, (byte) 0, (byte) 0,
+                (byte) 0, ArtnetStyleCodes.ST_NODE, mac, new byte[]{10, 1, 2, 1}, (byte) 2, (byte) 0);
+    }
+
+    @Test
+    public void wrapTest() throws Exception {
+        ArtPollReplyPacket pOrig = reply();
+        byte[] bytes = pOrig.getPacketBytes();
+
+        //place the packet behind some other bytes in a direct buffer
+        ByteBuffer buffer = ByteBuffer.allocateDirect(600);
+        buffer.position(7);
+        buffer.put(bytes);
+
+        ArtPollReplyPacketView view = new ArtPollReplyPacketView();
+        Assert.assertTrue(view.wrap(buffer, 7, bytes.length));
+
+        Assert.assertEquals(0x0A010203, view.getAddressInt());
+        Assert.assertEquals(pOrig.getVersInfo(), view.getVersInfo());
+        Assert.assertEquals(pOrig.getNetSwitch(), view.getNetSwitch());
+        Assert.assertEquals(pOrig.getSubSwitch(), view.getSubSwitch());
+        Assert.assertEquals(pOrig.getOemInt(), view.getOemInt());
+        Assert.assertEquals(pOrig.getEstaMan(), view.getEstaMan());
+        Assert.assertEquals(2, view.getNumPorts());
+        Assert.assertEquals((byte) 0x80, view.getPortType(1));
+        Assert.assertEquals(6, view.getSwOut(1));
+        Assert.assertEquals(ArtnetStyleCodes.ST_NODE, view.getStyle());
+        Assert.assertEquals(0x001122334455L, view.getMacLong());
+        Assert.assertEquals(0x0A010201, view.getBindIpInt());
+        Assert.assertEquals(2, view.getBindIndex());
+        Assert.assertTrue(view.getBuffer().isReadOnly());
+
+        ArtPollReplyPacket p = view.copy();
+        Assert.assertEquals(pOrig.getAddress(), p.getAddress());
+        Assert.assertArrayEquals(pOrig.getSwOut(), p.getSwOut());
+        Assert.assertArrayEquals(pOrig.getMac(), p.getMac());
+        Assert.assertEquals(pOrig.getBindIndex(), p.getBindIndex());
+    }
+
+    @Test
+    public void rejectTest() throws Exception {
+        ArtPollReplyPacketView view = new ArtPollReplyPacketView();
+
+        //wrong opcode
+        byte[] poll = new ArtPollPacket().getPacketBytes();
+        Assert.assertFalse(view.wrap(ByteBuffer.wrap(poll), 0, poll.length));
+
+        //too short
+        byte[] reply = reply().getPacketBytes();
+        Assert.assertFalse(view.wrap(ByteBuffer.wrap(reply), 0, 238));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.test;
+
+import me.sschaeffner.jArtnet.ArtnetDecodeResult;
+import me.sschaeffner.jArtnet.ArtnetDecodeStatus;
+import me.sschaeffner.jArtnet.ArtnetOpCodes;
+import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
+import me.sschaeffner.jArtnet.packets.ArtDmxPacket;
+import me.sschaeffner.jArtnet.packets.ArtPollPacket;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author sschaeffner
+ */
+public class DecodeStatusTest {
+
+    @Test
+    public void okTest() throws MalformedArtnetPacketException {
+        byte[] bytes = new ArtDmxPacket((byte) 1, (byte) 0, (byte) 0, (byte) 0, new byte[200]).getPacketBytes();
+
+        ArtnetDecodeResult result = new ArtnetDecodeResult();
+        Assert.assertEquals(ArtnetDecodeStatus.OK, ArtnetOpCodes.decode(ByteBuffer.wrap(bytes), result));
+        Assert.assertTrue(result.getPacket() instanceof ArtDmxPacket);
+    }
+
+    @Test
+    public void rejectTest() throws MalformedArtnetPacketException {
+        byte[] poll = new ArtPollPacket().getPacketBytes();
+
+        //too short
+        Assert.assertEquals(ArtnetDecodeStatus.TOO_SHORT, ArtnetOpCodes.check(ByteBuffer.wrap(poll, 0, 9)));
+        Assert.assertEquals(ArtnetDecodeStatus.TOO_SHORT, ArtnetOpCodes.check(ByteBuffer.wrap(poll, 0, 12)));
+
+        //wrong id
+        byte[] wrongId = poll.clone();
+        wrongId[0] = 'B';
+        Assert.assertEquals(ArtnetDecodeStatus.NOT_ARTNET, ArtnetOpCodes.check(ByteBuffer.wrap(wrongId)));
+
+        //unimplemented opcode (OpRdm)
+        byte[] rdm = poll.clone();
+        rdm[8] = 0x00;
+        rdm[9] = (byte) 0x83;
+        Assert.assertEquals(ArtnetDecodeStatus.UNSUPPORTED_OPCODE, ArtnetOpCodes.check(ByteBuffer.wrap(rdm)));
+
+        //old protocol version
+        byte[] oldVersion = poll.clone();
+        oldVersion[11] = 13;
+        Assert.assertEquals(ArtnetDecodeStatus.PROTOCOL_VERSION, ArtnetOpCodes.check(ByteBuffer.wrap(oldVersion)));
+
+        //newer protocol versions are accepted
+        byte[] newVersion = poll.clone();
+        newVersion[10] = 1;
+        newVersion[11] = 0;
+        Assert.assertEquals(ArtnetDecodeStatus.OK, ArtnetOpCodes.check(ByteBuffer.wrap(newVersion)));
+        newVersion[10] = 0;
+        newVersion[11] = (byte) 0x80;
+        Assert.assertEquals(ArtnetDecodeStatus.OK, ArtnetOpCodes.check(ByteBuffer.wrap(newVersion)));
+
+        //announced data length not available
+        byte[] dmx = new ArtDmxPacket((byte) 1, (byte) 0, (byte) 0, (byte) 0, new byte[512]).getPacketBytes();
+        ArtnetDecodeResult result = new ArtnetDecodeResult();
+        Assert.assertEquals(ArtnetDecodeStatus.MALFORMED, ArtnetOpCodes.decode(ByteBuffer.wrap(dmx, 0, 300), result));
+        Assert.assertNull(result.getPacket());
+    }
+
+    @Test
+    public void newerVersionDecodeTest() throws MalformedArtnetPacketException {
+        byte[] dmx = new ArtDmxPacket((byte) 1, (byte) 0, (byte) 0, (byte) 0, new byte[200]).getPacketBytes();
+        byte[] poll = new ArtPollPacket().getPacketBytes();
+        ArtnetDecodeResult result = new ArtnetDecodeResult();
+
+        for (int version : new int[]{0x0080, 0x0100}) {
+            dmx[10] = (byte) (version >> 8);
+            dmx[11] = (byte) version;
+            Assert.assertEquals(ArtnetDecodeStatus.OK, ArtnetOpCodes.decode(ByteBuffer.wrap(dmx), result));
+            Assert.assertTrue(result.getPacket() instanceof ArtDmxPacket);
+
+            poll[10] = (byte) (version >> 8);
+            poll[11] = (byte) version;
+            Assert.assertEquals(ArtnetDecodeStatus.OK, ArtnetOpCodes.decode(ByteBuffer.wrap(poll), result));
+            Assert.assertTrue(result.getPacket() instanceof ArtPollPacket);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.test;
+
+import me.sschaeffner.jArtnet.*;
+import me.sschaeffner.jArtnet.packets.ArtDmxPacket;
+import me.sschaeffner.jArtnet.packets.ArtNzsPacket;
+import me.sschaeffner.jArtnet.packets.ArtnetPacket;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * @author sschaeffner
+ */
+public class DispatchTest {
+
+    ArtnetController sender, receiver;
+    ArtnetNode node;
+
+    //packets seen by the listener, which blocks on the first packet until released
+    List<ArtDmxPacket> received;
+    CountDownLatch started, release;
+    ArtnetPacketListener listener;
+
+    @Before
+    public void setup() throws IOException {
+        sender = ArtnetControllerFactory.getEphemeralInstance(NetworkAddress.getLoopbackAddress(), true);
+        receiver = ArtnetControllerFactory.getEphemeralInstance(NetworkAddress.getLoopbackAddress(), true);
+        sender.setRemotePort(receiver.getLocalPort());
+        receiver.setRemotePort(sender.getLocalPort());
+        receiver.setIgnoreOwnPackets(false);
+        node = new ArtnetNode(InetAddress.getLoopbackAddress(), ArtnetStyleCodes.ST_NODE, "loopback", "loopback");
+
+        received = new CopyOnWriteArrayList<>();
+        started = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        listener = event -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {}
+            received.add((ArtDmxPacket) event.getReceivedPacket());
+        };
+    }
+
+    @Test
+    public void dropNewestTest() throws Exception {
+        ArtnetListenerDispatcher dispatcher = receiver.addArtnetPacketListener(listener, ArtnetDispatchMode.EXECUTOR, 2,
+                ArtnetQueuePolicy.DROP_NEWEST, ArtnetOpCodes.OP_OUTPUT);
+
+        send(0, 0, 1);
+        Assert.assertTrue(started.await(1, TimeUnit.SECONDS));
+        for (int i = 1; i < 5; i++) send(0, i, i + 1);
+
+        awaitEquals(2, dispatcher::getQueueDepth);
+        awaitEquals(2, dispatcher::getDropped);
+        awaitEquals(2, () -> receiver.getControllerMetrics().getListenerEventsDropped());
+
+        release.countDown();
+        awaitDelivered(dispatcher, 3);
+        Assert.assertEquals(1, received.get(1).getData()[0]);
+        Assert.assertEquals(2, received.get(2).getData()[0]);
+    }
+
+    @Test
+    public void dropOldestTest() throws Exception {
+        ArtnetListenerDispatcher dispatcher = receiver.addArtnetPacketListener(listener, ArtnetDispatchMode.EXECUTOR, 2,
+                ArtnetQueuePolicy.DROP_OLDEST, ArtnetOpCodes.OP_OUTPUT);
+
+        send(0, 0, 1);
+        Assert.assertTrue(started.await(1, TimeUnit.SECONDS));
+        for (int i = 1; i < 5; i++) send(0, i, i + 1);
+
+        awaitEquals(2, dispatcher::getDropped);
+        release.countDown();
+        awaitDelivered(dispatcher, 3);
+        Assert.assertEquals(3, received.get(1).getData()[0]);
+        Assert.assertEquals(4, received.get(2).getData()[0]);
+    }
+
+    @Test
+    public void conflateTest() throws Exception {
+        ArtnetListenerDispatcher dispatcher = receiver.addArtnetPacketListener(listener, ArtnetDispatchMode.EXECUTOR, 4,
+                ArtnetQueuePolicy.CONFLATE, ArtnetOpCodes.OP_OUTPUT);
+
+        send(0, 0, 1);
+        Assert.assertTrue(started.await(1, TimeUnit.SECONDS));
+        for (int i = 1; i <= 5; i++) {
+            send(1, i, 2 * i);
+            send(2, 10 + i, 2 * i + 1);
+        }
+
+        awaitEquals(2, dispatcher::getQueueDepth);
+        awaitEquals(8, dispatcher::getConflated);
+        awaitEquals(0, dispatcher::getDropped);
+        Assert.assertEquals(4, dispatcher.getConflated(1));
+        Assert.assertEquals(4, dispatcher.getConflated(2));
+
+        release.countDown();
+        awaitDelivered(dispatcher, 3);
+        Assert.assertEquals(1, received.get(1).getPortAddress());
+        Assert.assertEquals(5, received.get(1).getData()[0]);
+        Assert.assertEquals(2, received.get(2).getPortAddress());
+        Assert.assertEquals(15, received.get(2).getData()[0]);
+    }
+
+    @Test
+    public void conflateStartCodeTest() throws Exception {
+        //ArtDmx and ArtNzs frames of a universe carry different start codes and do not replace each other
+        List<ArtnetPacket> packets = new CopyOnWriteArrayList<>();
+        ArtnetListenerDispatcher dispatcher = receiver.addArtnetPacketListener(event -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {}
+            packets.add(event.getReceivedPacket());
+        }, ArtnetDispatchMode.EXECUTOR, 4, ArtnetQueuePolicy.CONFLATE, ArtnetOpCodes.OP_OUTPUT, ArtnetOpCodes.OP_NZS);
+
+        send(0, 0, 1);
+        Assert.assertTrue(started.await(1, TimeUnit.SECONDS));
+        send(5, 1, 2);
+        sender.unicastPacket(new ArtNzsPacket((byte) 0, (byte) 0x17, (byte) 5, (byte) 0, new byte[]{2, 0}), node);
+
+        awaitEquals(2, dispatcher::getQueueDepth);
+        Assert.assertEquals(0, dispatcher.getConflated(5));
+
+        release.countDown();
+        for (int i = 0; i < 100 && packets.size() < 3; i++) Thread.sleep(10);
+        Assert.assertEquals(3, packets.size());
+        Assert.assertTrue(packets.get(1) instanceof ArtDmxPacket);
+        Assert.assertTrue(packets.get(2) instanceof ArtNzsPacket);
+    }
+
+    @Test
+    public void virtualThreadTest() throws Exception {
+        release.countDown();
+        ArtnetListenerDispatcher dispatcher = receiver.addArtnetPacketListener(listener,
+                ArtnetDispatchMode.VIRTUAL_THREAD, 16, ArtnetQueuePolicy.BLOCK);
+
+        for (int i = 0; i < 10; i++) send(0, i, i + 1);
+        awaitDelivered(dispatcher, 10);
+        for (int i = 0; i < 10; i++) Assert.assertEquals(i, received.get(i).getData()[0]);
+
+        Assert.assertTrue(receiver.removeArtnetPacketListener(listener));
+        Assert.assertNull(receiver.getArtnetPacketListenerDispatcher(listener));
+    }
+
+    /**
+     * Sends an ArtDmx packet and waits until the receiver has received a number of packets in total.
+     */
+    private void send(int portAddress, int value, long total) throws Exception {
+        byte[] data = new byte[2];
+        data[0] = (byte) value;
+        sender.unicastPacket(new ArtDmxPacket((byte) 0, (byte) 0, (byte) portAddress, (byte) 0, data), node);
+
+        ArtnetControllerMetrics metrics = receiver.getControllerMetrics();
+        for (int i = 0; i < 100 && metrics.getPacketsReceived() < total; i++) Thread.sleep(10);
+        Assert.assertEquals(total, metrics.getPacketsReceived());
+    }
+
+    /**
+     * Waits until the receiver thread has dispatched the received packets.
+     */
+    private void awaitEquals(long expected, LongSupplier actual) throws InterruptedException {
+        for (int i = 0; i < 100 && actual.getAsLong() != expected; i++) Thread.sleep(10);
+        Assert.assertEquals(expected, actual.getAsLong());
+    }
+
+    private void awaitDelivered(ArtnetListenerDispatcher dispatcher, int delivered) throws InterruptedException {
+        for (int i = 0; i < 100 && dispatcher.getDelivered() < delivered; i++) Thread.sleep(10);
+        Assert.assertEquals(delivered, dispatcher.getDelivered());
+        Assert.assertEquals(delivered, received.size());
+    }
+
+    @After
+    public void teardown() {
+        release.countDown();
+        sender.closeSocket();
+        receiver.closeSocket();
+    }
+}
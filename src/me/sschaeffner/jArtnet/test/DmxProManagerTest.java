@@ -51,7 +51,6 @@ public class DmxProManagerTest implements ArtnetPacketListener, ArtnetNodeListen
     }
 
     private ArtnetController controller;
-    private byte sequence;
 
     private DmxProManagerTest() throws IOException {
         NetworkAddress[] nwadd = NetworkAddress.getNetworkAddresses();
@@ -80,13 +79,12 @@ public class DmxProManagerTest implements ArtnetPacketListener, ArtnetNodeListen
         }
         controller.addArtnetPacketListener(this);
         controller.addArtnetNodeDiscoveryListener(this);
-
-        sequence = 0;
     }
 
 
     private void sendData() throws MalformedArtnetPacketException {
-        byte sequence = this.sequence++;
+        //numbered by the controller
+        byte sequence = 0;
         byte physical = 0;
         byte subUni = 0;
         byte net = 0;
@@ -112,7 +110,7 @@ public class DmxProManagerTest implements ArtnetPacketListener, ArtnetNodeListen
             int g = Integer.valueOf(reader.readLine());
             System.out.print("b: ");
             int b = Integer.valueOf(reader.readLine());
-            ArtDmxPacket dmxPacket = new ArtDmxPacket(this.sequence++, (byte)0, (byte)0, (byte)0, new byte[]{(byte)r, (byte)g, (byte)b});
+            ArtDmxPacket dmxPacket = new ArtDmxPacket((byte)0, (byte)0, (byte)0, (byte)0, new byte[]{(byte)r, (byte)g, (byte)b});
             controller.broadcastPacket(dmxPacket);
 
             System.out.print("r: ");
@@ -140,7 +138,7 @@ public class DmxProManagerTest implements ArtnetPacketListener, ArtnetNodeListen
                 int r = i * rM;
                 int g = i * gM;
                 int b = i * bM;
-                ArtDmxPacket dmxPacket = new ArtDmxPacket(this.sequence++, (byte)0, (byte)0, (byte)0, new byte[]{(byte)r, (byte)g, (byte)b});
+                ArtDmxPacket dmxPacket = new ArtDmxPacket((byte)0, (byte)0, (byte)0, (byte)0, new byte[]{(byte)r, (byte)g, (byte)b});
                 controller.broadcastPacket(dmxPacket);
                 try {
                     Thread.sleep(23);
@@ -152,7 +150,7 @@ public class DmxProManagerTest implements ArtnetPacketListener, ArtnetNodeListen
                 int r = i * rM;
                 int g = i * gM;
                 int b = i * bM;
-                ArtDmxPacket dmxPacket = new ArtDmxPacket(this.sequence++, (byte)0, (byte)0, (byte)0, new byte[]{(byte)r, (byte)g, (byte)b});
+                ArtDmxPacket dmxPacket = new ArtDmxPacket((byte)0, (byte)0, (byte)0, (byte)0, new byte[]{(byte)r, (byte)g, (byte)b});
                 controller.broadcastPacket(dmxPacket);
                 try {
                     Thread.sleep(23);
@@ -161,7 +159,7 @@ public class DmxProManagerTest implements ArtnetPacketListener, ArtnetNodeListen
                 }
             }
         }
-        ArtDmxPacket dmxPacket = new ArtDmxPacket(this.sequence++, (byte)0, (byte)0, (byte)0, new byte[]{(byte)0, (byte)0, (byte)0});
+        ArtDmxPacket dmxPacket = new ArtDmxPacket((byte)0, (byte)0, (byte)0, (byte)0, new byte[]{(byte)0, (byte)0, (byte)0});
         controller.broadcastPacket(dmxPacket);
     }
 
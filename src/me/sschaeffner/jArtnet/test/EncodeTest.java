@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.test;
+
+import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
+import me.sschaeffner.jArtnet.packets.ArtDmxPacket;
+import me.sschaeffner.jArtnet.packets.ArtPollPacket;
+import me.sschaeffner.jArtnet.packets.ArtSyncPacket;
+import me.sschaeffner.jArtnet.packets.ArtnetPacket;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * @author sschaeffner
+ */
+public class EncodeTest {
+
+    @Test
+    public void offsetTest() throws MalformedArtnetPacketException {
+        byte[] data = new byte[512];
+        for (int i = 0; i < data.length; i++) data[i] = (byte) i;
+        ArtnetPacket[] packets = {
+                new ArtDmxPacket((byte) 3, (byte) 0, (byte) 1, (byte) 0, data),
+                new ArtPollPacket(),
+                new ArtSyncPacket()
+        };
+
+        for (ArtnetPacket packet : packets) {
+            byte[] expected = packet.getPacketBytes();
+            Assert.assertEquals(expected.length, packet.getPacketLength());
+
+            for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(600), ByteBuffer.allocateDirect(600)}) {
+                buffer.position(5);
+                Assert.assertEquals(expected.length, packet.encode(buffer, 7));
+                Assert.assertEquals(5, buffer.position());
+
+                byte[] actual = new byte[expected.length];
+                for (int i = 0; i < actual.length; i++) actual[i] = buffer.get(7 + i);
+                Assert.assertTrue(Arrays.equals(expected, actual));
+            }
+        }
+    }
+
+    @Test
+    public void dmxWithoutPacketTest() throws MalformedArtnetPacketException {
+        byte[] data = new byte[512];
+        for (int i = 0; i < data.length; i++) data[i] = (byte) i;
+        byte[] expected = new ArtDmxPacket((byte) 9, (byte) 0, (byte) 0x34, (byte) 0x12, Arrays.copyOf(data, 100)).getPacketBytes();
+
+        //only the first length channels of the array are sent
+        ByteBuffer buffer = ByteBuffer.allocate(600);
+        Assert.assertEquals(expected.length, ArtDmxPacket.encode(buffer, 0, (byte) 9, (byte) 0, (byte) 0x34, (byte) 0x12, data, 100));
+        Assert.assertTrue(Arrays.equals(expected, Arrays.copyOf(buffer.array(), expected.length)));
+
+        try {
+            ArtDmxPacket.encode(buffer, 0, (byte) 9, (byte) 0, (byte) 0x34, (byte) 0x12, new byte[10], 100);
+            Assert.fail("ArtDmx encoded with less data than its length");
+        } catch (MalformedArtnetPacketException ignored) {}
+    }
+
+    @Test
+    public void tooSmallTest() throws MalformedArtnetPacketException {
+        ArtDmxPacket packet = new ArtDmxPacket((byte) 1, (byte) 0, (byte) 0, (byte) 0, new byte[512]);
+        try {
+            packet.encode(ByteBuffer.allocate(600), 100);
+            Assert.fail("ArtDmxPacket encoded into a buffer that is too small");
+        } catch (MalformedArtnetPacketException ignored) {}
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.test;
+
+import me.sschaeffner.jArtnet.*;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import me.sschaeffner.jArtnet.packets.ArtDmxPacket;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * @author sschaeffner
+ */
+public class FrameSchedulerTest {
+
+    ArtnetMemoryNetwork network;
+    ArtnetController sender, node;
+    ArtnetFrameScheduler scheduler;
+
+    @Before
+    public void setup() throws Exception {
+        network = new ArtnetMemoryNetwork();
+        sender = ArtnetControllerFactory.getInstance(network.open());
+        node = ArtnetControllerFactory.getInstance(network.open());
+        node.setPollReplyDelay(0);
+        node.setPorts(Arrays.asList(ArtnetPort.output(0), ArtnetPort.output(1)));
+
+        sender.discoverNodes();
+        awaitSubscriber(1);
+        Assert.assertEquals(1, sender.getNodes().length);
+
+        scheduler = sender.getFrameScheduler();
+        scheduler.setSyncMode(ArtnetSyncMode.MULTI_UNIVERSE);
+    }
+
+    @Test
+    public void multiUniverseSyncTest() throws Exception {
+        ArtnetOutputUniverse first = scheduler.addUniverse(0);
+        scheduler.addUniverse(1);
+        //a universe nobody outputs
+        scheduler.addUniverse(2);
+
+        Assert.assertEquals(2, (int) scheduler.commitFrame().get());
+        awaitSync(1);
+
+        //the node outputs two universes, so it is synced even if only one of them changed
+        first.setChannel(0, (byte) 255);
+        Assert.assertEquals(1, (int) scheduler.commitFrame().get());
+        awaitSync(2);
+
+        //frames without data for the node are not synced
+        scheduler.getUniverse(2).setChannel(0, (byte) 255);
+        Assert.assertEquals(0, (int) scheduler.commitFrame().get());
+        Thread.sleep(100);
+        Assert.assertEquals(2, node.getControllerMetrics().getPacketsReceived(ArtnetOpCodes.OP_SYNC));
+    }
+
+    @Test
+    public void singleUniverseSyncTest() throws Exception {
+        scheduler.addUniverse(0);
+        scheduler.commitFrame().get();
+        Thread.sleep(100);
+        Assert.assertEquals(0, node.getControllerMetrics().getPacketsReceived(ArtnetOpCodes.OP_SYNC));
+
+        //adding the second universe of the node makes it a sync target
+        scheduler.addUniverse(1);
+        scheduler.commitFrame().get();
+        awaitSync(1);
+    }
+
+    @Test
+    public void alwaysSyncTest() throws Exception {
+        scheduler.setSyncMode(ArtnetSyncMode.ALWAYS);
+
+        //no ArtSync without ArtDmx data
+        scheduler.addUniverse(2);
+        Assert.assertEquals(0, (int) scheduler.commitFrame().get());
+        Thread.sleep(100);
+        Assert.assertEquals(0, node.getControllerMetrics().getPacketsReceived(ArtnetOpCodes.OP_SYNC));
+
+        scheduler.addUniverse(0);
+        Assert.assertEquals(1, (int) scheduler.commitFrame().get());
+        awaitSync(1);
+    }
+
+    @Test
+    public void sequenceOrderTest() throws Exception {
+        List<Integer> sequences = new CopyOnWriteArrayList<>();
+        node.addArtnetPacketListener(event -> sequences.add(Byte.toUnsignedInt(((ArtDmxPacket) event.getReceivedPacket()).getSequence())),
+                ArtnetOpCodes.OP_OUTPUT);
+
+        //commits and ticks interleave on the wire in the order their sequence numbers were taken
+        ArtnetOutputUniverse universe = scheduler.addUniverse(0);
+        scheduler.setRate(1000);
+        scheduler.start();
+        try {
+            for (int i = 0; i < 200; i++) {
+                universe.setChannel(0, (byte) i);
+                scheduler.commitFrame();
+            }
+        } finally {
+            scheduler.stop();
+        }
+        Thread.sleep(100);
+
+        Assert.assertEquals(0, node.getControllerMetrics().getSequenceFramesLate());
+        for (int i = 1; i < sequences.size(); i++) {
+            Assert.assertEquals(sequences.get(i - 1) % 255 + 1, (int) sequences.get(i));
+        }
+    }
+
+    @Test
+    public void deltaTest() throws Exception {
+        ArtnetOutputUniverse first = scheduler.addUniverse(0);
+        scheduler.addUniverse(1);
+
+        Assert.assertEquals(2, (int) scheduler.commitFrame().get());
+        awaitDmx(2);
+
+        //unchanged universes are not sent again before the keep-alive interval
+        Assert.assertEquals(0, (int) scheduler.commitFrame().get());
+        first.setChannel(3, (byte) 42);
+        Assert.assertEquals(1, (int) scheduler.commitFrame().get());
+        awaitDmx(3);
+    }
+
+    @Test
+    public void keepAliveTest() throws Exception {
+        scheduler.addUniverse(0);
+        scheduler.addUniverse(1);
+        scheduler.setKeepAliveInterval(50);
+
+        Assert.assertEquals(2, (int) scheduler.commitFrame().get());
+        Assert.assertEquals(0, (int) scheduler.commitFrame().get());
+
+        //both universes are re-sent once the keep-alive interval passed
+        Thread.sleep(100);
+        Assert.assertEquals(2, (int) scheduler.commitFrame().get());
+        awaitDmx(4);
+    }
+
+    @Test
+    public void unsubscribedTest() throws Exception {
+        scheduler.addUniverse(2);
+        Assert.assertEquals(0, (int) scheduler.commitFrame().get());
+
+        //the universe is sent as soon as a node outputting it is discovered, not only after its next change
+        ArtnetController late = ArtnetControllerFactory.getInstance(network.open());
+        try {
+            late.setPollReplyDelay(0);
+            late.setPorts(Arrays.asList(ArtnetPort.output(2)));
+            sender.discoverNodes();
+            awaitSubscriber(2);
+
+            Assert.assertEquals(1, (int) scheduler.commitFrame().get());
+            for (int i = 0; i < 100 && late.getControllerMetrics().getPacketsReceived(ArtnetOpCodes.OP_OUTPUT) < 1; i++) Thread.sleep(10);
+            Assert.assertEquals(1, late.getControllerMetrics().getPacketsReceived(ArtnetOpCodes.OP_OUTPUT));
+        } finally {
+            late.closeSocket();
+        }
+    }
+
+    @Test
+    public void tickTest() throws Exception {
+        ArtnetOutputUniverse first = scheduler.addUniverse(0);
+        scheduler.setRate(100);
+        scheduler.start();
+        try {
+            awaitDmx(1);
+
+            //about 20 ticks without changes
+            Thread.sleep(200);
+            Assert.assertEquals(1, node.getControllerMetrics().getPacketsReceived(ArtnetOpCodes.OP_OUTPUT));
+
+            first.setChannel(0, (byte) 1);
+            awaitDmx(2);
+        } finally {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    public void stoppedTest() throws Exception {
+        scheduler.addUniverse(0);
+        scheduler.start();
+        scheduler.stop();
+        try {
+            scheduler.commitFrame();
+            Assert.fail("frame committed to a stopped scheduler");
+        } catch (RejectedExecutionException e) {
+            //scheduler has been stopped
+        }
+    }
+
+    private void awaitSubscriber(int portAddress) throws InterruptedException {
+        ArtnetNodeRegistry registry = sender.getNodeRegistry();
+        for (int i = 0; i < 100 && registry.getByPortAddress(portAddress).length < 1; i++) Thread.sleep(10);
+        Assert.assertEquals(1, registry.getByPortAddress(portAddress).length);
+    }
+
+    private void awaitSync(long syncs) throws InterruptedException {
+        ArtnetControllerMetrics metrics = node.getControllerMetrics();
+        for (int i = 0; i < 100 && metrics.getPacketsReceived(ArtnetOpCodes.OP_SYNC) < syncs; i++) Thread.sleep(10);
+        Assert.assertEquals(syncs, metrics.getPacketsReceived(ArtnetOpCodes.OP_SYNC));
+    }
+
+    private void awaitDmx(long packets) throws InterruptedException {
+        ArtnetControllerMetrics metrics = node.getControllerMetrics();
+        for (int i = 0; i < 100 && metrics.getPacketsReceived(ArtnetOpCodes.OP_OUTPUT) < packets; i++) Thread.sleep(10);
+        Assert.assertEquals(packets, metrics.getPacketsReceived(ArtnetOpCodes.OP_OUTPUT));
+    }
+
+    @After
+    public void teardown() {
+        sender.closeSocket();
+        node.closeSocket();
+    }
+}
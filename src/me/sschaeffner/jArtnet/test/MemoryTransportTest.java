@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.test;
+
+import me.sschaeffner.jArtnet.*;
+import me.sschaeffner.jArtnet.packets.ArtDmxPacket;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author sschaeffner
+ */
+public class MemoryTransportTest {
+
+    ArtnetMemoryNetwork network;
+    ArtnetMemoryTransport senderTransport, receiverTransport;
+    ArtnetController sender, receiver;
+
+    @Before
+    public void setup() throws IOException {
+        network = new ArtnetMemoryNetwork();
+        senderTransport = network.open();
+        receiverTransport = network.open();
+        sender = ArtnetControllerFactory.getInstance(senderTransport);
+        receiver = ArtnetControllerFactory.getInstance(receiverTransport);
+    }
+
+    @Test
+    public void addressTest() throws Exception {
+        Assert.assertEquals(InetAddress.getByName("10.0.0.1"), senderTransport.getAddress());
+        Assert.assertEquals(InetAddress.getByName("10.0.0.2"), receiverTransport.getAddress());
+        Assert.assertEquals(6454, receiver.getLocalPort());
+
+        try {
+            network.open(InetAddress.getByName("10.0.0.1"), 6454);
+            Assert.fail("address opened twice");
+        } catch (IOException e) {
+            //address is in use
+        }
+        try {
+            network.open(InetAddress.getByName("192.168.0.1"), 6454);
+            Assert.fail("address outside of the network opened");
+        } catch (IllegalArgumentException e) {
+            //address is not in the network
+        }
+    }
+
+    @Test
+    public void discoveryTest() throws Exception {
+        ArtnetController third = ArtnetControllerFactory.getInstance(network.open());
+        receiver.setPollReplyDelay(0);
+        third.setPollReplyDelay(0);
+        try {
+            sender.discoverNodes();
+            for (int i = 0; i < 100 && sender.getNodes().length < 2; i++) Thread.sleep(10);
+
+            Assert.assertEquals(2, sender.getNodes().length);
+            Assert.assertNotNull(sender.getNodeRegistry().get(receiverTransport.getAddress()));
+        } finally {
+            third.closeSocket();
+        }
+    }
+
+    @Test
+    public void throughputTest() throws Exception {
+        AtomicInteger received = new AtomicInteger();
+        receiver.addArtnetPacketListener(event -> received.incrementAndGet(), ArtnetOpCodes.OP_OUTPUT);
+
+        //no datagram is lost, however fast they are sent
+        ArtnetNode node = new ArtnetNode(receiverTransport.getAddress(), ArtnetStyleCodes.ST_NODE, "memory", "memory");
+        ArtDmxPacket packet = new ArtDmxPacket((byte) 0, (byte) 0, (byte) 0, (byte) 0, new byte[512]);
+        for (int i = 0; i < 100000; i++) sender.unicastPacket(packet, node);
+
+        for (int i = 0; i < 500 && received.get() < 100000; i++) Thread.sleep(10);
+        Assert.assertEquals(100000, received.get());
+        Assert.assertEquals(0, network.getDropped());
+        Assert.assertEquals(0, receiver.getSequenceTracker().getLost());
+    }
+
+    @Test
+    public void closeTest() throws Exception {
+        InetAddress address = receiverTransport.getAddress();
+        receiver.closeSocket();
+        Assert.assertFalse(receiverTransport.isOpen());
+
+        //datagrams to closed transports are lost, the address can be opened again
+        sender.unicastPacket(new ArtDmxPacket((byte) 0, (byte) 0, (byte) 0, (byte) 0, new byte[2]),
+                new ArtnetNode(address, ArtnetStyleCodes.ST_NODE, "memory", "memory"));
+        Assert.assertEquals(0, network.getDelivered());
+        receiver = ArtnetControllerFactory.getInstance(network.open(address, 6454));
+    }
+
+    @After
+    public void teardown() {
+        sender.closeSocket();
+        receiver.closeSocket();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.test;
+
+import me.sschaeffner.jArtnet.*;
+import me.sschaeffner.jArtnet.packets.ArtDmxPacket;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @author sschaeffner
+ */
+public class MergeTest {
+
+    static final InetAddress A = InetAddress.getLoopbackAddress();
+
+    byte[] merged = new byte[512];
+
+    @Test
+    public void htpTest() throws Exception {
+        ArtnetMerger merger = new ArtnetMerger();
+        InetAddress b = InetAddress.getByName("10.0.0.2");
+
+        assertMerged(new int[]{10, 200}, merge(merger, A, 0, 10, 200));
+        assertMerged(new int[]{50, 200, 5, 0}, merge(merger, b, 0, 50, 100, 5, 0));
+
+        //the highest source lowers a channel
+        assertMerged(new int[]{50, 100, 5, 0}, merge(merger, A, 0, 10, 20));
+        assertMerged(new int[]{50, 100}, merge(merger, b, 0, 50, 100));
+        Assert.assertEquals(2, merger.getSourceCount(1));
+
+        //a third source is not merged, the same ip with another physical port is a third source
+        Assert.assertEquals(ArtnetMerger.IGNORED, merger.merge(A, 1, 1, ByteBuffer.wrap(new byte[]{(byte) 255, 0}), 0, 2, merged));
+    }
+
+    @Test
+    public void ltpTest() throws Exception {
+        ArtnetMerger merger = new ArtnetMerger();
+        merger.setMergeMode(1, ArtnetMergeMode.LTP);
+        Assert.assertEquals(ArtnetMergeMode.LTP, merger.getMergeMode(1));
+        Assert.assertEquals(ArtnetMergeMode.HTP, merger.getMergeMode(2));
+
+        assertMerged(new int[]{10, 200}, merge(merger, A, 0, 10, 200));
+        assertMerged(new int[]{50, 100}, merge(merger, A, 1, 50, 100));
+        assertMerged(new int[]{11, 100}, merge(merger, A, 0, 11, 200));
+    }
+
+    @Test
+    public void timeoutTest() throws Exception {
+        ArtnetMerger merger = new ArtnetMerger();
+        merger.setSourceTimeout(50);
+
+        merge(merger, A, 0, 10, 10);
+        merge(merger, A, 1, 0, 0, 200, 200);
+        Thread.sleep(100);
+
+        assertMerged(new int[]{20, 10}, merge(merger, A, 0, 20, 10));
+        Assert.assertEquals(1, merger.getSourceCount(1));
+    }
+
+    @Test
+    public void controllerTest() throws Exception {
+        ArtnetController sender = ArtnetControllerFactory.getEphemeralInstance(NetworkAddress.getLoopbackAddress(), true);
+        ArtnetController receiver = ArtnetControllerFactory.getEphemeralInstance(NetworkAddress.getLoopbackAddress(), true);
+        try {
+            sender.setRemotePort(receiver.getLocalPort());
+            receiver.setRemotePort(sender.getLocalPort());
+            receiver.setIgnoreOwnPackets(false);
+            ArtnetNode node = new ArtnetNode(A, ArtnetStyleCodes.ST_NODE, "loopback", "loopback");
+
+            receiver.enableMerging();
+            List<ArtDmxPacket> received = new CopyOnWriteArrayList<>();
+            receiver.addArtnetPacketListener(event -> received.add((ArtDmxPacket) event.getReceivedPacket()), ArtnetOpCodes.OP_OUTPUT);
+
+            sender.unicastPacket(new ArtDmxPacket((byte) 0, (byte) 0, (byte) 3, (byte) 0, new byte[]{10, 0}), node);
+            sender.unicastPacket(new ArtDmxPacket((byte) 0, (byte) 1, (byte) 3, (byte) 0, new byte[]{0, 20, 30, 0}), node);
+
+            for (int i = 0; i < 100 && received.size() < 2; i++) Thread.sleep(10);
+            Assert.assertEquals(2, received.size());
+            ArtDmxPacket packet = received.get(1);
+            Assert.assertEquals(3, packet.getPortAddress());
+            Assert.assertArrayEquals(new byte[]{10, 20, 30, 0}, packet.getData());
+        } finally {
+            sender.closeSocket();
+            receiver.closeSocket();
+        }
+    }
+
+    @Test
+    public void senderTest() throws Exception {
+        ArtnetMemoryNetwork network = new ArtnetMemoryNetwork();
+        ArtnetMemoryTransport receiverTransport = network.open();
+        ArtnetMemoryTransport firstTransport = network.open();
+        ArtnetMemoryTransport secondTransport = network.open();
+        ArtnetController receiver = ArtnetControllerFactory.getInstance(receiverTransport);
+        ArtnetController first = ArtnetControllerFactory.getInstance(firstTransport);
+        ArtnetController second = ArtnetControllerFactory.getInstance(secondTransport);
+        try {
+            first.setPollReplyDelay(0);
+            second.setPollReplyDelay(0);
+            receiver.discoverNodes();
+            for (int i = 0; i < 100 && receiver.getNodes().length < 2; i++) Thread.sleep(10);
+            Assert.assertEquals(2, receiver.getNodes().length);
+
+            receiver.enableMerging();
+            List<ArtDmxPacket> received = new CopyOnWriteArrayList<>();
+            receiver.addArtnetPacketListener(event -> received.add((ArtDmxPacket) event.getReceivedPacket()), ArtnetOpCodes.OP_OUTPUT);
+
+            ArtnetNode node = new ArtnetNode(receiverTransport.getAddress(), ArtnetStyleCodes.ST_NODE, "memory", "memory");
+            first.unicastPacket(new ArtDmxPacket((byte) 0, (byte) 0, (byte) 3, (byte) 0, new byte[]{10, 0}), node);
+            for (int i = 0; i < 100 && received.size() < 1; i++) Thread.sleep(10);
+            second.unicastPacket(new ArtDmxPacket((byte) 0, (byte) 0, (byte) 3, (byte) 0, new byte[]{0, 20}), node);
+            for (int i = 0; i < 100 && received.size() < 2; i++) Thread.sleep(10);
+
+            //the merged frame's sender is the source whose packet produced it
+            Assert.assertEquals(2, received.size());
+            Assert.assertEquals(firstTransport.getAddress(), received.get(0).getSender().getInetAddress());
+            Assert.assertEquals(secondTransport.getAddress(), received.get(1).getSender().getInetAddress());
+            Assert.assertArrayEquals(new byte[]{10, 20}, received.get(1).getData());
+        } finally {
+            receiver.closeSocket();
+            first.closeSocket();
+            second.closeSocket();
+        }
+    }
+
+    private int merge(ArtnetMerger merger, InetAddress sender, int physical, int... channels) {
+        byte[] data = new byte[channels.length];
+        for (int i = 0; i < channels.length; i++) data[i] = (byte) channels[i];
+        return merger.merge(sender, physical, 1, ByteBuffer.wrap(data), 0, data.length, merged);
+    }
+
+    private void assertMerged(int[] expected, int length) {
+        Assert.assertEquals(expected.length, length);
+        for (int i = 0; i < expected.length; i++) Assert.assertEquals(expected[i], Byte.toUnsignedInt(merged[i]));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.test;
+
+import me.sschaeffner.jArtnet.*;
+import me.sschaeffner.jArtnet.packets.ArtDmxPacket;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * @author sschaeffner
+ */
+public class MetricsTest {
+
+    ArtnetController sender, receiver;
+
+    @Before
+    public void setup() throws IOException {
+        sender = ArtnetControllerFactory.getEphemeralInstance(NetworkAddress.getLoopbackAddress(), true);
+        receiver = ArtnetControllerFactory.getEphemeralInstance(NetworkAddress.getLoopbackAddress(), true);
+        sender.setRemotePort(receiver.getLocalPort());
+        receiver.setRemotePort(sender.getLocalPort());
+        receiver.setIgnoreOwnPackets(false);
+    }
+
+    @Test
+    public void countTest() throws Exception {
+        ArtnetNode node = new ArtnetNode(InetAddress.getLoopbackAddress(), ArtnetStyleCodes.ST_NODE, "loopback", "loopback");
+        ArtDmxPacket packet = new ArtDmxPacket((byte) 0, (byte) 0, (byte) 0, (byte) 0, new byte[512]);
+        for (int i = 0; i < 10; i++) sender.unicastPacket(packet, node);
+
+        ArtnetControllerMetrics received = receiver.getControllerMetrics();
+        for (int i = 0; i < 100 && received.getPacketsReceived() < 10; i++) Thread.sleep(10);
+
+        Assert.assertEquals(10, sender.getControllerMetrics().getPacketsSent(ArtnetOpCodes.OP_OUTPUT));
+        Assert.assertEquals(10 * 530, sender.getControllerMetrics().getBytesSent());
+        Assert.assertEquals(10, received.getPacketsReceived(ArtnetOpCodes.OP_OUTPUT));
+        Assert.assertEquals(10 * 530, received.getBytesReceived());
+    }
+
+    @Test
+    public void mBeanTest() throws Exception {
+        ObjectName name = new ObjectName("me.sschaeffner.jArtnet:type=ArtnetController,port=" + receiver.getLocalPort());
+        Assert.assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        Assert.assertEquals(0L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "PacketsReceived"));
+    }
+
+    @Test
+    public void sendFailedTest() throws Exception {
+        ArtnetMemoryTransport memoryTransport = new ArtnetMemoryNetwork().open();
+        //a transport whose socket never accepts a datagram
+        ArtnetTransport failing = new ArtnetTransport() {
+            public List<ArtnetInterface> getInterfaces() { return memoryTransport.getInterfaces(); }
+            public int getLocalPort() { return memoryTransport.getLocalPort(); }
+            public void receive(ArtnetDatagramListener listener) throws IOException { memoryTransport.receive(listener); }
+            public void send(ByteBuffer data, InetSocketAddress address, ArtnetInterface artnetInterface) throws IOException {
+                throw new IOException("send buffer full");
+            }
+            public boolean isOpen() { return memoryTransport.isOpen(); }
+            public void close() { memoryTransport.close(); }
+        };
+
+        ArtnetController controller = ArtnetControllerFactory.getInstance(failing);
+        try {
+            ArtnetNode node = new ArtnetNode(InetAddress.getLoopbackAddress(), ArtnetStyleCodes.ST_NODE, "loopback", "loopback");
+            controller.unicastPacket(new ArtDmxPacket((byte) 0, (byte) 0, (byte) 0, (byte) 0, new byte[512]), node);
+
+            ArtnetControllerMetrics metrics = controller.getControllerMetrics();
+            Assert.assertEquals(1, metrics.getPacketsSendFailed(ArtnetOpCodes.OP_OUTPUT));
+            Assert.assertEquals(1, metrics.getPacketsSendFailed());
+            Assert.assertEquals(0, metrics.getPacketsSent());
+        } finally {
+            controller.closeSocket();
+        }
+    }
+
+    @After
+    public void teardown() {
+        sender.closeSocket();
+        receiver.closeSocket();
+    }
+}
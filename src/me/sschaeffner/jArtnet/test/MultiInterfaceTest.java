@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.test;
+
+import me.sschaeffner.jArtnet.*;
+import me.sschaeffner.jArtnet.packets.ArtDmxPacket;
+import me.sschaeffner.jArtnet.packets.ArtPollPacket;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Needs a network interface with an IPv4 broadcast address besides loopback, does nothing otherwise.
+ *
+ * @author sschaeffner
+ */
+public class MultiInterfaceTest {
+
+    ArtnetController controller, peer;
+    InetAddress network, loopback;
+
+    @Before
+    public void setup() throws Exception {
+        NetworkAddress[] networkAddresses = NetworkAddress.getNetworkAddresses();
+        NetworkAddress loopbackAddress = getIpv4LoopbackAddress();
+        if (networkAddresses.length == 0 || loopbackAddress == null) return;
+
+        network = networkAddresses[0].getInterfaceAddress().getAddress();
+        loopback = loopbackAddress.getInterfaceAddress().getAddress();
+
+        controller = ArtnetControllerFactory.getEphemeralInstance(new NetworkAddress[]{networkAddresses[0], loopbackAddress});
+        peer = ArtnetControllerFactory.getEphemeralInstance(NetworkAddress.getLoopbackAddress(), true);
+        controller.setRemotePort(peer.getLocalPort());
+        peer.setRemotePort(controller.getLocalPort());
+        controller.setIgnoreOwnPackets(false);
+        controller.setPollReplyDelay(0);
+        peer.setIgnoreOwnPackets(false);
+    }
+
+    @Test
+    public void receiveTest() throws Exception {
+        if (controller == null) return;
+        Assert.assertEquals(2, controller.getInterfaces().size());
+
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        controller.addArtnetPacketListener(event -> received.add(((ArtDmxPacket) event.getReceivedPacket()).getPortAddress()),
+                ArtnetOpCodes.OP_OUTPUT);
+
+        //one port, both addresses
+        peer.unicastPacket(new ArtDmxPacket((byte) 0, (byte) 0, (byte) 1, (byte) 0, new byte[2]), node(network));
+        peer.unicastPacket(new ArtDmxPacket((byte) 0, (byte) 0, (byte) 2, (byte) 0, new byte[2]), node(loopback));
+
+        for (int i = 0; i < 100 && received.size() < 2; i++) Thread.sleep(10);
+        Assert.assertEquals(2, received.size());
+        Assert.assertTrue(received.contains(1) && received.contains(2));
+    }
+
+    @Test
+    public void pollReplyTest() throws Exception {
+        if (controller == null) return;
+
+        //every interface replies with its own address
+        peer.unicastPacket(new ArtPollPacket(), node(network));
+        peer.unicastPacket(new ArtPollPacket(), node(loopback));
+
+        for (int i = 0; i < 100 && peer.getNodes().length < 2; i++) Thread.sleep(10);
+        Assert.assertEquals(2, peer.getNodes().length);
+        Assert.assertNotNull(peer.getNodeRegistry().get(network));
+        Assert.assertNotNull(peer.getNodeRegistry().get(loopback));
+    }
+
+    private static ArtnetNode node(InetAddress address) {
+        return new ArtnetNode(address, ArtnetStyleCodes.ST_CONTROLLER, "multi", "multi interface controller");
+    }
+
+    private static NetworkAddress getIpv4LoopbackAddress() throws Exception {
+        NetworkInterface loopback = NetworkInterface.getByInetAddress(InetAddress.getByName("127.0.0.1"));
+        if (loopback == null) return null;
+        for (InterfaceAddress interfaceAddress : loopback.getInterfaceAddresses()) {
+            if (interfaceAddress.getAddress() instanceof Inet4Address) return new NetworkAddress(loopback, interfaceAddress);
+        }
+        return null;
+    }
+
+    @After
+    public void teardown() {
+        if (controller != null) controller.closeSocket();
+        if (peer != null) peer.closeSocket();
+    }
+}
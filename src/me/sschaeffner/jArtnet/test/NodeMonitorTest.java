@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.test;
+
+import me.sschaeffner.jArtnet.*;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @author sschaeffner
+ */
+public class NodeMonitorTest {
+
+    ArtnetMemoryNetwork network;
+    ArtnetController poller, node;
+    ArtnetNodeMonitor monitor;
+    List<String> events;
+
+    @Before
+    public void setup() throws IOException {
+        network = new ArtnetMemoryNetwork();
+        poller = ArtnetControllerFactory.getInstance(network.open());
+        node = ArtnetControllerFactory.getInstance(network.open());
+        node.setPollReplyDelay(0);
+        node.setPollReplyInterval(0);
+
+        events = new CopyOnWriteArrayList<>();
+        poller.addArtnetNodeDiscoveryListener(new ArtnetNodeListener() {
+            @Override
+            public void onArtnetNodeDiscovery(ArtnetNodeDiscoveryEvent event) {
+                events.add("discovered " + event.getNewNode().getShortName());
+            }
+
+            @Override
+            public void onNodeChanged(ArtnetNodeChangedEvent event) {
+                events.add("changed " + event.getPreviousPacket().getShortNameString().trim() + " to " + event.getNode().getShortName());
+            }
+
+            @Override
+            public void onNodeLost(ArtnetNodeLostEvent event) {
+                events.add("lost " + event.getLostNode().getShortName());
+            }
+        });
+
+        monitor = poller.getNodeMonitor();
+        monitor.setPollInterval(100, 400);
+        monitor.setMissedPolls(1);
+    }
+
+    @Test
+    public void keepAliveTest() throws Exception {
+        monitor.start();
+
+        //answering nodes are kept while the poll interval backs off
+        Thread.sleep(3000);
+        Assert.assertEquals(1, poller.getNodes().length);
+        Assert.assertEquals(1, monitor.getTrackedNodes());
+        Assert.assertEquals(400, monitor.getPollInterval());
+        Assert.assertEquals(0, monitor.getLostNodes());
+    }
+
+    @Test
+    public void lostTest() throws Exception {
+        monitor.start();
+        for (int i = 0; i < 500 && poller.getNodes().length < 1; i++) Thread.sleep(10);
+        Assert.assertEquals(1, poller.getNodes().length);
+
+        node.closeSocket();
+        for (int i = 0; i < 500 && monitor.getLostNodes() < 1; i++) Thread.sleep(10);
+
+        Assert.assertEquals(0, poller.getNodes().length);
+        Assert.assertEquals(0, monitor.getTrackedNodes());
+        Assert.assertEquals(1, monitor.getLostNodes());
+        Assert.assertEquals("[discovered jArtnet, lost jArtnet]", events.toString());
+
+        //the next polls are sent at the minimum interval again
+        for (int i = 0; i < 100 && monitor.getPollInterval() > 100; i++) Thread.sleep(10);
+        Assert.assertEquals(100, monitor.getPollInterval());
+    }
+
+    @Test
+    public void changedTest() throws Exception {
+        monitor.start();
+        for (int i = 0; i < 500 && poller.getNodes().length < 1; i++) Thread.sleep(10);
+
+        node.setShortName("renamed");
+        for (int i = 0; i < 200 && events.size() < 2; i++) Thread.sleep(10);
+
+        Assert.assertEquals("[discovered jArtnet, changed jArtnet to renamed]", events.toString());
+        Assert.assertEquals(1, poller.getNodes().length);
+
+        //the timeout does not shrink with the poll interval, nodes answered the slower polls before
+        Assert.assertEquals(1400, monitor.getNodeTimeout());
+    }
+
+    @Test
+    public void stopTest() throws Exception {
+        poller.discoverNodes();
+        for (int i = 0; i < 500 && poller.getNodes().length < 1; i++) Thread.sleep(10);
+
+        //nodes discovered before the start are tracked as well
+        monitor.start();
+        Assert.assertTrue(monitor.isRunning());
+        Assert.assertEquals(1, monitor.getTrackedNodes());
+
+        //nodes are kept while the monitor is stopped
+        monitor.stop();
+        node.closeSocket();
+        Thread.sleep(1500);
+        Assert.assertFalse(monitor.isRunning());
+        Assert.assertEquals(0, monitor.getTrackedNodes());
+        Assert.assertEquals(1, poller.getNodes().length);
+    }
+
+    @After
+    public void teardown() {
+        poller.closeSocket();
+        node.closeSocket();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.test;
+
+import me.sschaeffner.jArtnet.ArtnetNode;
+import me.sschaeffner.jArtnet.ArtnetNodeRegistry;
+import me.sschaeffner.jArtnet.ArtnetStyleCodes;
+import me.sschaeffner.jArtnet.MalformedArtnetPacketException;
+import me.sschaeffner.jArtnet.packets.ArtPollReplyPacket;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * @author sschaeffner
+ */
+public class NodeRegistryTest {
+
+    private static ArtPollReplyPacket reply(InetAddress address, int subSwitch, int swOut, int mac, int bindIndex) throws MalformedArtnetPacketException {
+        byte[] portTypes = new byte[]{(byte) 0x80, 0, 0, 0};
+        byte[] swOutArray = new byte[]{(byte) swOut, 0, 0, 0};
+        byte[] macArray = new byte[]{0, 0, (byte) (mac >> 24), (byte) (mac >> 16), (byte) (mac >> 8), (byte) mac};
+        return new ArtPollReplyPacket(address, 0, (byte) 0, (byte) subSwitch, 0, (byte) 0, (byte) 0, 0, "node", "node",
+                "ready", 1, portTypes, new byte[4], new byte[4], new byte[4], swOutArray, (byte) 0, (byte) 0, (byte) 0,
+                ArtnetStyleCodes.ST_NODE, macArray, address.getAddress(), (byte) bindIndex, (byte) 0);
+    }
+
+    private static InetAddress address(int i) throws UnknownHostException {
+        return InetAddress.getByAddress(new byte[]{10, 0, (byte) (i >> 8), (byte) i});
+    }
+
+    @Test
+    public void lookupTest() throws MalformedArtnetPacketException, UnknownHostException {
+        ArtnetNodeRegistry registry = new ArtnetNodeRegistry();
+
+        for (int i = 0; i < 5000; i++) {
+            InetAddress address = address(i);
+            registry.add(new ArtnetNode(address, reply(address, i % 16, i % 4, i + 1, 1)));
+        }
+        Assert.assertEquals(5000, registry.size());
+
+        for (int i = 0; i < 5000; i++) {
+            ArtnetNode node = registry.get(ArtnetNode.toInt(address(i)));
+            Assert.assertNotNull(node);
+            Assert.assertEquals(address(i), node.getInetAddress());
+            Assert.assertSame(node, registry.getByMac(i + 1));
+            Assert.assertSame(node, registry.getByBind(node.getIpAddressInt(), 1));
+        }
+        Assert.assertNull(registry.get(ArtnetNode.toInt(address(6000))));
+
+        //port address 0x23 is output by all nodes with subSwitch 2 and swOut 3
+        int count = 0;
+        for (int i = 0; i < 5000; i++) if (i % 16 == 2 && i % 4 == 3) count++;
+        Assert.assertEquals(count, registry.getByPortAddress(0x23).length);
+    }
+
+    @Test
+    public void updateAndRemoveTest() throws MalformedArtnetPacketException, UnknownHostException {
+        ArtnetNodeRegistry registry = new ArtnetNodeRegistry();
+        InetAddress address = address(1);
+
+        ArtnetNode node = new ArtnetNode(address, reply(address, 0, 1, 1, 1));
+        registry.add(node);
+        Assert.assertEquals(1, registry.getByPortAddress(0x01).length);
+
+        //node moved to another port address
+        registry.update(node, reply(address, 0, 2, 1, 1));
+        Assert.assertEquals(0, registry.getByPortAddress(0x01).length);
+        Assert.assertEquals(1, registry.getByPortAddress(0x02).length);
+
+        //refreshes with unchanged ports do not republish the Port-Address, a changed mac address is re-indexed
+        ArtnetNode[] nodes = registry.getByPortAddress(0x02);
+        registry.update(node, reply(address, 0, 2, 5, 1));
+        Assert.assertSame(nodes, registry.getByPortAddress(0x02));
+        Assert.assertNull(registry.getByMac(1));
+        Assert.assertSame(node, registry.getByMac(5));
+        registry.update(node, reply(address, 0, 2, 1, 1));
+
+        //second node bound to the same ip address
+        ArtnetNode bound = new ArtnetNode(address, reply(address, 0, 3, 2, 2));
+        registry.add(bound);
+        Assert.assertSame(node, registry.get(address));
+
+        Assert.assertTrue(registry.remove(node));
+        Assert.assertSame(bound, registry.get(address));
+        Assert.assertEquals(0, registry.getByPortAddress(0x02).length);
+        Assert.assertNull(registry.getByMac(1));
+
+        Assert.assertTrue(registry.remove(bound));
+        Assert.assertNull(registry.get(address));
+        Assert.assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void sharedMacTest() throws MalformedArtnetPacketException, UnknownHostException {
+        ArtnetNodeRegistry registry = new ArtnetNodeRegistry();
+        InetAddress address = address(1);
+
+        //bound nodes of one root device share its mac address, added in any order
+        ArtnetNode second = new ArtnetNode(address, reply(address, 0, 2, 7, 2));
+        ArtnetNode first = new ArtnetNode(address, reply(address, 0, 1, 7, 1));
+        ArtnetNode third = new ArtnetNode(address, reply(address, 0, 3, 7, 3));
+        registry.add(second);
+        registry.add(first);
+        registry.add(third);
+        Assert.assertSame(first, registry.getByMac(7));
+
+        //removing a sibling that is not indexed keeps the entry
+        Assert.assertTrue(registry.remove(third));
+        Assert.assertSame(first, registry.getByMac(7));
+
+        //removing the indexed node falls back to the sibling with the lowest bind index
+        registry.add(third);
+        Assert.assertTrue(registry.remove(first));
+        Assert.assertSame(second, registry.getByMac(7));
+
+        //a sibling moving to another mac address is replaced as well
+        registry.update(second, reply(address, 0, 2, 8, 2));
+        Assert.assertSame(third, registry.getByMac(7));
+        Assert.assertSame(second, registry.getByMac(8));
+
+        Assert.assertTrue(registry.remove(third));
+        Assert.assertNull(registry.getByMac(7));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.test;
+
+import me.sschaeffner.jArtnet.*;
+import me.sschaeffner.jArtnet.packets.ArtPollPacket;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author sschaeffner
+ */
+public class PollReplyTest {
+
+    ArtnetController poller, node;
+    ArtnetNode nodeAddress;
+
+    @Before
+    public void setup() throws IOException {
+        ArtnetMemoryNetwork network = new ArtnetMemoryNetwork();
+        poller = ArtnetControllerFactory.getInstance(network.open());
+        ArtnetMemoryTransport nodeTransport = network.open();
+        node = ArtnetControllerFactory.getInstance(nodeTransport);
+        nodeAddress = new ArtnetNode(nodeTransport.getAddress(), ArtnetStyleCodes.ST_CONTROLLER, "node", "node");
+    }
+
+    @Test
+    public void rateLimitTest() throws Exception {
+        node.setPollReplyDelay(0);
+        for (int i = 0; i < 10; i++) poller.unicastPacket(new ArtPollPacket(), nodeAddress);
+
+        ArtnetControllerMetrics metrics = node.getControllerMetrics();
+        for (int i = 0; i < 100 && metrics.getDroppedPackets(ArtnetDropReason.POLL_RATE_LIMIT) < 9; i++) Thread.sleep(10);
+        Assert.assertEquals(9, metrics.getDroppedPackets(ArtnetDropReason.POLL_RATE_LIMIT));
+        Assert.assertEquals(1, metrics.getPacketsSent(ArtnetOpCodes.OP_POLL_REPLY));
+
+        //every ArtPoll is answered without an interval
+        node.setPollReplyInterval(0);
+        for (int i = 0; i < 10; i++) poller.unicastPacket(new ArtPollPacket(), nodeAddress);
+        for (int i = 0; i < 100 && metrics.getPacketsSent(ArtnetOpCodes.OP_POLL_REPLY) < 11; i++) Thread.sleep(10);
+        Assert.assertEquals(11, metrics.getPacketsSent(ArtnetOpCodes.OP_POLL_REPLY));
+    }
+
+    @Test
+    public void repeatedReplyTest() throws Exception {
+        node.setPollReplyDelay(0);
+        node.setPollReplyInterval(0);
+        poller.unicastPacket(new ArtPollPacket(), nodeAddress);
+        poller.unicastPacket(new ArtPollPacket(), nodeAddress);
+
+        ArtnetControllerMetrics metrics = poller.getControllerMetrics();
+        for (int i = 0; i < 100 && metrics.getPacketsReceived(ArtnetOpCodes.OP_POLL_REPLY) < 2; i++) Thread.sleep(10);
+        Assert.assertEquals(2, metrics.getPacketsReceived(ArtnetOpCodes.OP_POLL_REPLY));
+        Assert.assertEquals(1, poller.getNodes().length);
+        Assert.assertEquals(nodeAddress.getInetAddress(), poller.getNodes()[0].getInetAddress());
+    }
+
+    @Test
+    public void delayTest() throws Exception {
+        node.setPollReplyDelay(200);
+        poller.unicastPacket(new ArtPollPacket(), nodeAddress);
+
+        for (int i = 0; i < 100 && poller.getNodes().length == 0; i++) Thread.sleep(10);
+        Assert.assertEquals(1, poller.getNodes().length);
+    }
+
+    @Test
+    public void portsTest() throws Exception {
+        node.setPollReplyDelay(0);
+        node.setShortName("media server");
+
+        //10 ports of one Sub-Net need 3 replies, the ports of another Sub-Net one more
+        List<ArtnetPort> ports = new ArrayList<>();
+        for (int i = 0; i < 10; i++) ports.add(ArtnetPort.output(i));
+        for (int i = 0; i < 3; i++) ports.add(ArtnetPort.output(0x110 + i));
+        node.setPorts(ports);
+        poller.unicastPacket(new ArtPollPacket(), nodeAddress);
+
+        for (int i = 0; i < 100 && poller.getNodes().length < 4; i++) Thread.sleep(10);
+        Assert.assertEquals(4, poller.getNodes().length);
+        for (int i = 0; i < 10; i++) Assert.assertEquals(1, poller.getNodeRegistry().getByPortAddress(i).length);
+        ArtnetNode[] subNetNodes = poller.getNodeRegistry().getByPortAddress(0x112);
+        Assert.assertEquals(1, subNetNodes.length);
+        Assert.assertEquals(4, subNetNodes[0].getBindIndex());
+        Assert.assertEquals("media server", subNetNodes[0].getShortName());
+    }
+
+    @Test
+    public void identityTest() {
+        try {
+            node.setShortName("a name that is too long");
+            Assert.fail("short name of more than 17 characters accepted");
+        } catch (IllegalArgumentException e) {
+            //name is too long
+        }
+        try {
+            node.setLongName("\u00e4rtnet");
+            Assert.fail("long name with non-ASCII characters accepted");
+        } catch (IllegalArgumentException e) {
+            //name is not ASCII
+        }
+        Assert.assertEquals(Collections.singletonList(ArtnetPort.input(0)), node.getPorts());
+    }
+
+    @After
+    public void teardown() {
+        poller.closeSocket();
+        node.closeSocket();
+    }
+}
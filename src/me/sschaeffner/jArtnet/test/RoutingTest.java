@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.test;
+
+import me.sschaeffner.jArtnet.*;
+import me.sschaeffner.jArtnet.packets.ArtDmxPacket;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * @author sschaeffner
+ */
+public class RoutingTest {
+
+    ArtnetMemoryNetwork network;
+    ArtnetController sender, bound, single, other;
+
+    @Before
+    public void setup() throws Exception {
+        network = new ArtnetMemoryNetwork();
+        sender = ArtnetControllerFactory.getInstance(network.open());
+
+        //five output ports are reported as two bound nodes sharing an ip address
+        bound = ArtnetControllerFactory.getInstance(network.open());
+        bound.setPorts(Arrays.asList(ArtnetPort.output(0), ArtnetPort.output(1), ArtnetPort.output(2),
+                ArtnetPort.output(3), ArtnetPort.output(0)));
+        single = ArtnetControllerFactory.getInstance(network.open());
+        single.setPorts(Arrays.asList(ArtnetPort.output(0)));
+        //a node that does not output Port-Address 0
+        other = ArtnetControllerFactory.getInstance(network.open());
+        other.setPorts(Arrays.asList(ArtnetPort.output(7)));
+
+        for (ArtnetController node : new ArtnetController[]{bound, single, other}) node.setPollReplyDelay(0);
+
+        sender.discoverNodes();
+        for (int i = 0; i < 100 && sender.getNodes().length < 4; i++) Thread.sleep(10);
+        Assert.assertEquals(4, sender.getNodes().length);
+        Assert.assertEquals(3, sender.getNodeRegistry().getByPortAddress(0).length);
+    }
+
+    @Test
+    public void unicastTest() throws Exception {
+        //three subscribed nodes on two ip addresses
+        sender.setBroadcastThreshold(2);
+        Assert.assertEquals(2, sender.getBroadcastThreshold());
+        Assert.assertEquals(2, sender.sendDmxPacket(dmx(0)));
+
+        awaitDmx(bound, 1);
+        awaitDmx(single, 1);
+        Thread.sleep(100);
+        Assert.assertEquals(1, received(bound));
+        Assert.assertEquals(0, received(other));
+
+        //nobody outputs Port-Address 5
+        Assert.assertEquals(0, sender.sendDmxPacket(dmx(5)));
+    }
+
+    @Test
+    public void broadcastTest() throws Exception {
+        sender.setBroadcastThreshold(1);
+        Assert.assertEquals(1, sender.sendDmxPacket(dmx(0)));
+
+        awaitDmx(bound, 1);
+        awaitDmx(single, 1);
+        awaitDmx(other, 1);
+    }
+
+    private static ArtDmxPacket dmx(int portAddress) throws MalformedArtnetPacketException {
+        return new ArtDmxPacket((byte) 0, (byte) 0, (byte) portAddress, (byte) (portAddress >> 8), new byte[]{1, 2});
+    }
+
+    private static long received(ArtnetController node) {
+        return node.getControllerMetrics().getPacketsReceived(ArtnetOpCodes.OP_OUTPUT);
+    }
+
+    private static void awaitDmx(ArtnetController node, long packets) throws InterruptedException {
+        for (int i = 0; i < 100 && received(node) < packets; i++) Thread.sleep(10);
+        Assert.assertEquals(packets, received(node));
+    }
+
+    @After
+    public void teardown() {
+        sender.closeSocket();
+        bound.closeSocket();
+        single.closeSocket();
+        other.closeSocket();
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.test;
+
+import me.sschaeffner.jArtnet.*;
+import me.sschaeffner.jArtnet.packets.ArtDmxPacket;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @author sschaeffner
+ */
+public class SequenceTrackerTest {
+
+    static final InetAddress A = InetAddress.getLoopbackAddress();
+
+    @Test
+    public void orderTest() throws Exception {
+        ArtnetSequenceTracker tracker = new ArtnetSequenceTracker();
+        InetAddress b = InetAddress.getByName("10.0.0.2");
+
+        Assert.assertEquals(0, tracker.track(A, 1, 1));
+        Assert.assertEquals(0, tracker.track(A, 1, 2));
+        Assert.assertEquals(2, tracker.track(A, 1, 5));
+        Assert.assertEquals(ArtnetSequenceTracker.LATE, tracker.track(A, 1, 4));
+        Assert.assertEquals(ArtnetSequenceTracker.DUPLICATE, tracker.track(A, 1, 5));
+        Assert.assertEquals(0, tracker.track(A, 1, 6));
+
+        //other universes and senders are independent
+        Assert.assertEquals(0, tracker.track(A, 0x7FFF, 3));
+        Assert.assertEquals(0, tracker.track(b, 1, 3));
+
+        Assert.assertEquals(2, tracker.getLost(A, 1));
+        Assert.assertEquals(1, tracker.getLate(A, 1));
+        Assert.assertEquals(1, tracker.getDuplicates(A, 1));
+        Assert.assertEquals(0, tracker.getLate(b, 1));
+        Assert.assertEquals(8, tracker.getTracked());
+        Assert.assertEquals(2.0 / 8, tracker.getLossRate(), 1e-9);
+        Assert.assertEquals(1.0 / 8, tracker.getReorderRate(), 1e-9);
+    }
+
+    @Test
+    public void wrapTest() {
+        ArtnetSequenceTracker tracker = new ArtnetSequenceTracker();
+        Assert.assertEquals(0, tracker.track(A, 0, 254));
+        Assert.assertEquals(0, tracker.track(A, 0, 255));
+        Assert.assertEquals(0, tracker.track(A, 0, 1));
+        Assert.assertEquals(1, tracker.track(A, 0, 3));
+        Assert.assertEquals(ArtnetSequenceTracker.LATE, tracker.track(A, 0, 255));
+    }
+
+    @Test
+    public void disableTest() {
+        ArtnetSequenceTracker tracker = new ArtnetSequenceTracker();
+        Assert.assertEquals(0, tracker.track(A, 0, 100));
+        Assert.assertEquals(0, tracker.track(A, 0, 0));
+        Assert.assertEquals(0, tracker.track(A, 0, 50));
+        Assert.assertEquals(0, tracker.getLate());
+    }
+
+    @Test
+    public void resyncTest() {
+        ArtnetSequenceTracker tracker = new ArtnetSequenceTracker();
+        Assert.assertEquals(0, tracker.track(A, 0, 100));
+
+        //sender restarted its numbering
+        for (int i = 1; i < 16; i++) Assert.assertEquals(ArtnetSequenceTracker.LATE, tracker.track(A, 0, i));
+        Assert.assertEquals(0, tracker.track(A, 0, 16));
+        Assert.assertEquals(0, tracker.track(A, 0, 17));
+    }
+
+    @Test
+    public void duplicateTest() {
+        ArtnetSequenceTracker tracker = new ArtnetSequenceTracker();
+
+        //a sender repeating one sequence number is neither late nor resynced
+        for (int i = 0; i < 40; i++) {
+            Assert.assertEquals(i == 0 ? 0 : ArtnetSequenceTracker.DUPLICATE, tracker.track(A, 0, 7));
+        }
+        Assert.assertEquals(39, tracker.getDuplicates());
+        Assert.assertEquals(0, tracker.getLate());
+        Assert.assertEquals(0, tracker.getReorderRate(), 1e-9);
+        Assert.assertEquals(0, tracker.getLossRate(), 1e-9);
+        Assert.assertEquals(0, tracker.track(A, 0, 8));
+    }
+
+    @Test
+    public void idleSourceTest() throws Exception {
+        ArtnetSequenceTracker tracker = new ArtnetSequenceTracker();
+        tracker.setSourceTimeout(50);
+        tracker.track(A, 0, 1);
+        tracker.track(InetAddress.getByName("10.0.0.2"), 0, 1);
+        Assert.assertEquals(2, tracker.getSources());
+
+        //senders that went silent are forgotten when later frames are tracked
+        Thread.sleep(100);
+        tracker.track(A, 0, 2);
+        Assert.assertEquals(1, tracker.getSources());
+    }
+
+    @Test
+    public void numberingTest() throws Exception {
+        ArtnetController sender = ArtnetControllerFactory.getEphemeralInstance(NetworkAddress.getLoopbackAddress(), true);
+        ArtnetController receiver = ArtnetControllerFactory.getEphemeralInstance(NetworkAddress.getLoopbackAddress(), true);
+        try {
+            sender.setRemotePort(receiver.getLocalPort());
+            receiver.setRemotePort(sender.getLocalPort());
+            receiver.setIgnoreOwnPackets(false);
+            ArtnetNode node = new ArtnetNode(A, ArtnetStyleCodes.ST_NODE, "loopback", "loopback");
+
+            List<Integer> sequences = new CopyOnWriteArrayList<>();
+            receiver.addArtnetPacketListener(event -> {
+                ArtDmxPacket packet = (ArtDmxPacket) event.getReceivedPacket();
+                sequences.add(packet.getPortAddress() << 8 | Byte.toUnsignedInt(packet.getSequence()));
+            }, ArtnetOpCodes.OP_OUTPUT);
+
+            sender.unicastPacket(new ArtDmxPacket((byte) 0, (byte) 0, (byte) 5, (byte) 0, new byte[2]), node);
+            sender.unicastPacket(new ArtDmxPacket((byte) 0, (byte) 0, (byte) 5, (byte) 0, new byte[2]), node);
+            sender.unicastPacket(new ArtDmxPacket((byte) 0, (byte) 0, (byte) 6, (byte) 0, new byte[2]), node);
+            sender.unicastPacket(new ArtDmxPacket((byte) 0x42, (byte) 0, (byte) 5, (byte) 0, new byte[2]), node);
+            sender.setSequenceNumbering(false);
+            sender.unicastPacket(new ArtDmxPacket((byte) 0, (byte) 0, (byte) 5, (byte) 0, new byte[2]), node);
+
+            for (int i = 0; i < 100 && sequences.size() < 5; i++) Thread.sleep(10);
+            Assert.assertEquals(Arrays.asList(0x501, 0x502, 0x601, 0x542, 0x500), sequences);
+        } finally {
+            sender.closeSocket();
+            receiver.closeSocket();
+        }
+    }
+
+    @Test
+    public void controllerTest() throws Exception {
+        ArtnetController sender = ArtnetControllerFactory.getEphemeralInstance(NetworkAddress.getLoopbackAddress(), true);
+        ArtnetController receiver = ArtnetControllerFactory.getEphemeralInstance(NetworkAddress.getLoopbackAddress(), true);
+        try {
+            sender.setRemotePort(receiver.getLocalPort());
+            receiver.setRemotePort(sender.getLocalPort());
+            receiver.setIgnoreOwnPackets(false);
+            ArtnetNode node = new ArtnetNode(A, ArtnetStyleCodes.ST_NODE, "loopback", "loopback");
+
+            for (int sequence : new int[]{1, 2, 5, 3, 6}) {
+                sender.unicastPacket(new ArtDmxPacket((byte) sequence, (byte) 0, (byte) 0, (byte) 0, new byte[2]), node);
+            }
+
+            ArtnetControllerMetrics metrics = receiver.getControllerMetrics();
+            for (int i = 0; i < 100 && metrics.getPacketsReceived() < 4; i++) Thread.sleep(10);
+            Thread.sleep(50);
+
+            Assert.assertEquals(4, metrics.getPacketsReceived());
+            Assert.assertEquals(1, metrics.getDroppedPackets(ArtnetDropReason.LATE_SEQUENCE));
+            Assert.assertEquals(2, metrics.getSequenceFramesLost());
+            Assert.assertEquals(1, metrics.getSequenceFramesLate());
+        } finally {
+            sender.closeSocket();
+            receiver.closeSocket();
+        }
+    }
+}
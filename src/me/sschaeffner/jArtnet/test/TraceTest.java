@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.test;
+
+import me.sschaeffner.jArtnet.*;
+import me.sschaeffner.jArtnet.packets.ArtDmxPacket;
+import me.sschaeffner.jArtnet.packets.ArtSyncPacket;
+import me.sschaeffner.jArtnet.packets.ArtnetPacket;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+
+/**
+ * @author sschaeffner
+ */
+public class TraceTest {
+
+    ArtnetController sender, receiver;
+    ArtnetNode node;
+    StringBuffer output;
+
+    @Before
+    public void setup() throws IOException {
+        sender = ArtnetControllerFactory.getEphemeralInstance(NetworkAddress.getLoopbackAddress(), true);
+        receiver = ArtnetControllerFactory.getEphemeralInstance(NetworkAddress.getLoopbackAddress(), true);
+        sender.setRemotePort(receiver.getLocalPort());
+        receiver.setRemotePort(sender.getLocalPort());
+        receiver.setIgnoreOwnPackets(false);
+        node = new ArtnetNode(InetAddress.getLoopbackAddress(), ArtnetStyleCodes.ST_NODE, "loopback", "loopback");
+        output = new StringBuffer();
+        receiver.getTrace().setOutput(output);
+    }
+
+    @Test
+    public void offTest() throws Exception {
+        Assert.assertEquals(ArtnetTraceLevel.OFF, receiver.getTrace().getLevel());
+        Assert.assertFalse(receiver.getTrace().isEnabled(ArtnetOpCodes.OP_OUTPUT));
+
+        sendAndWait(new ArtSyncPacket(), 1);
+        Assert.assertEquals(0, output.length());
+    }
+
+    @Test
+    public void fullTest() throws Exception {
+        receiver.getTrace().setLevel(ArtnetTraceLevel.FULL);
+        receiver.getTrace().disableAllOpCodes();
+        receiver.getTrace().enableOpCodes(ArtnetOpCodes.OP_OUTPUT);
+
+        sendAndWait(new ArtSyncPacket(), 1);
+        Assert.assertEquals(0, output.length());
+
+        sendAndWait(new ArtDmxPacket((byte) 1, (byte) 0, (byte) 0, (byte) 0, new byte[]{1, 2}), 2);
+        awaitLines(1);
+        String line = output.toString();
+        Assert.assertTrue(line.startsWith("RX 0x5000 20 bytes from "));
+        Assert.assertTrue(line.contains("ArtDmxPacket"));
+    }
+
+    @Test
+    public void sampleTest() throws Exception {
+        receiver.getTrace().setLevel(ArtnetTraceLevel.SUMMARY);
+        receiver.getTrace().setSampleInterval(4);
+
+        ArtSyncPacket packet = new ArtSyncPacket();
+        for (int i = 0; i < 8; i++) sendAndWait(packet, i + 1);
+
+        awaitLines(2);
+        Assert.assertEquals(2, lines());
+        Assert.assertEquals(6, receiver.getTrace().getSuppressed());
+    }
+
+    private void sendAndWait(ArtnetPacket packet, long received) throws Exception {
+        sender.unicastPacket(packet, node);
+        ArtnetControllerMetrics metrics = receiver.getControllerMetrics();
+        for (int i = 0; i < 100 && metrics.getPacketsReceived() < received; i++) Thread.sleep(10);
+        Assert.assertEquals(received, metrics.getPacketsReceived());
+    }
+
+    /**
+     * Waits for the receiver thread to write the trace, which happens after the packet is counted.
+     */
+    private void awaitLines(int lines) throws InterruptedException {
+        for (int i = 0; i < 100 && lines() < lines; i++) Thread.sleep(10);
+    }
+
+    private int lines() {
+        return output.length() == 0 ? 0 : output.toString().split(System.lineSeparator()).length;
+    }
+
+    @After
+    public void teardown() {
+        sender.closeSocket();
+        receiver.closeSocket();
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2015  Simon Schaeffner <simon.schaeffner@googlemail.com>
+ *
+ * This file is part of jArtnet.
+ *
+ * jArtnet is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * jArtnet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jArtnet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.sschaeffner.jArtnet.test;
+
+import me.sschaeffner.jArtnet.*;
+import me.sschaeffner.jArtnet.packets.ArtDmxPacket;
+import me.sschaeffner.jArtnet.packets.ArtNzsPacket;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author sschaeffner
+ */
+public class UniverseStoreTest {
+
+    @Test
+    public void writeReadTest() throws MalformedArtnetPacketException {
+        ArtnetUniverseStore store = new ArtnetUniverseStore();
+        byte[] frame = new byte[512];
+
+        Assert.assertEquals(0, store.read(0x7FFF, frame));
+        Assert.assertEquals(0, store.getFrameCount(0x7FFF));
+
+        byte[] data = new byte[100];
+        for (int i = 0; i < data.length; i++) data[i] = (byte) i;
+        byte[] packet = new ArtDmxPacket((byte) 1, (byte) 0, (byte) 0xFF, (byte) 0x7F, data).getPacketBytes();
+
+        store.write(0x7FFF, (byte) 0, ByteBuffer.wrap(packet), 18, data.length);
+        Assert.assertEquals(100, store.read(0x7FFF, frame));
+        Assert.assertArrayEquals(data, Arrays.copyOf(frame, 100));
+        Assert.assertEquals(1, store.getFrameCount(0x7FFF));
+        Assert.assertEquals(data[42], store.get(0x7FFF, 42));
+    }
+
+    @Test
+    public void directBufferTest() {
+        ArtnetUniverseStore store = new ArtnetUniverseStore();
+        ByteBuffer src = ByteBuffer.allocateDirect(600);
+        for (int i = 0; i < 600; i++) src.put(i, (byte) (i + 1));
+        src.position(7).limit(20);
+
+        //the source's position and limit are not touched
+        store.write(3, (byte) 0, src, 50, 512);
+        Assert.assertEquals(7, src.position());
+        Assert.assertEquals(20, src.limit());
+
+        byte[] frame = new byte[512];
+        Assert.assertEquals(512, store.read(3, frame));
+        for (int i = 0; i < 512; i++) Assert.assertEquals((byte) (i + 51), frame[i]);
+
+        //neighbouring Port-Addresses are not touched
+        Assert.assertEquals(0, store.read(2, frame));
+        Assert.assertEquals(0, store.get(4, 0));
+
+        //a shorter destination gets as many channels as fit
+        byte[] shortFrame = new byte[10];
+        Assert.assertEquals(512, store.read(3, shortFrame));
+        Assert.assertEquals((byte) 60, shortFrame[9]);
+    }
+
+    @Test
+    public void consistencyTest() throws InterruptedException {
+        ArtnetUniverseStore store = new ArtnetUniverseStore();
+
+        //writer fills every frame with a single value, so a torn read shows up as mixed values
+        Thread writer = new Thread(() -> {
+            byte[] frame = new byte[512];
+            for (int i = 0; i < 20000; i++) {
+                Arrays.fill(frame, (byte) i);
+                store.write(1, (byte) 0, frame, 0, frame.length);
+            }
+        });
+        writer.start();
+
+        byte[] frame = new byte[512];
+        while (writer.isAlive()) {
+            int length = store.read(1, frame);
+            for (int i = 1; i < length; i++) {
+                if (frame[i] != frame[0]) Assert.fail("torn frame read");
+            }
+        }
+        writer.join();
+    }
+
+    @Test
+    public void alternateStartCodeTest() throws Exception {
+        ArtnetController sender = ArtnetControllerFactory.getEphemeralInstance(NetworkAddress.getLoopbackAddress(), true);
+        ArtnetController receiver = ArtnetControllerFactory.getEphemeralInstance(NetworkAddress.getLoopbackAddress(), true);
+        try {
+            sender.setRemotePort(receiver.getLocalPort());
+            receiver.setRemotePort(sender.getLocalPort());
+            receiver.setIgnoreOwnPackets(false);
+            ArtnetNode node = new ArtnetNode(InetAddress.getLoopbackAddress(), ArtnetStyleCodes.ST_NODE, "loopback", "loopback");
+            ArtnetUniverseStore store = receiver.enableUniverseStore();
+            AtomicInteger nzsReceived = new AtomicInteger();
+            receiver.addArtnetPacketListener(event -> nzsReceived.incrementAndGet(), ArtnetOpCodes.OP_NZS);
+
+            byte[] levels = new byte[]{10, 20, 30, 40};
+            sender.unicastPacket(new ArtDmxPacket((byte) 0, (byte) 0, (byte) 5, (byte) 0, levels), node);
+            for (int i = 0; i < 100 && store.getFrameCount(5) < 1; i++) Thread.sleep(10);
+            Assert.assertEquals(1, store.getFrameCount(5));
+
+            //a text packet (start code 0xCC) must not replace the levels
+            sender.unicastPacket(new ArtNzsPacket((byte) 0, (byte) 0xCC, (byte) 5, (byte) 0, new byte[]{'h', 'i'}), node);
+            for (int i = 0; i < 100 && nzsReceived.get() < 1; i++) Thread.sleep(10);
+            Assert.assertEquals(1, nzsReceived.get());
+
+            byte[] frame = new byte[512];
+            Assert.assertEquals(levels.length, store.read(5, frame));
+            Assert.assertArrayEquals(levels, Arrays.copyOf(frame, levels.length));
+            Assert.assertEquals(0, store.getStartCode(5));
+            Assert.assertEquals(1, store.getFrameCount(5));
+        } finally {
+            sender.closeSocket();
+            receiver.closeSocket();
+        }
+    }
+}